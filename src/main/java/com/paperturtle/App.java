@@ -1,7 +1,10 @@
 package com.paperturtle;
 
+import java.nio.file.Path;
+
 import com.paperturtle.gui.AppGUI;
 import com.paperturtle.gui.CircuitCanvas;
+import com.paperturtle.utils.SvgUtil;
 
 import javafx.application.Application;
 import javafx.scene.Scene;
@@ -10,6 +13,12 @@ import javafx.scene.layout.BorderPane;
 import javafx.scene.image.ImageView;
 
 public class App extends Application {
+    /**
+     * The directory in which the application keeps its per-user files, such as
+     * the sub-circuit library, the autosave and the image cache.
+     */
+    public static final Path USER_DIRECTORY = Path.of(System.getProperty("user.home"), ".logic-gates");
+
     /**
      * The scene containing the user interface of the application.
      */
@@ -33,10 +42,19 @@ public class App extends Application {
 
     @Override
     public void start(Stage stage) {
+        SvgUtil.preloadSvgImages();
         AppGUI appGUI = new AppGUI(this, stage);
         appGUI.initialize();
     }
 
+    @Override
+    public void stop() {
+        if (circuitCanvas != null) {
+            circuitCanvas.getAutosaveManager().shutdown();
+            circuitCanvas.getSimulationManager().shutdown();
+        }
+    }
+
     /**
      * Returns the main layout container for the application's user interface.
      * 
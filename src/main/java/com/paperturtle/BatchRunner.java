@@ -0,0 +1,215 @@
+package com.paperturtle;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.paperturtle.components.SubCircuitLibrary;
+import com.paperturtle.data.GateData;
+import com.paperturtle.managers.CircuitFileManager;
+import com.paperturtle.simulation.GateType;
+import com.paperturtle.simulation.Netlist;
+import com.paperturtle.simulation.SimulationEngine;
+import com.paperturtle.simulation.SubCircuitDefinition;
+
+/**
+ * Simulates a saved circuit without a user interface. The circuit is compiled
+ * from the saved data of its gates, without creating any gate or JavaFX node,
+ * so the runner does not start the JavaFX toolkit and can run on machines
+ * without a display.
+ *
+ * <p>
+ * Usage: {@code BatchRunner <circuit> <vectors> [<output>]}. The switches of
+ * the circuit are its inputs and its lightbulbs its outputs, both ordered from
+ * top to bottom and then from left to right, as for sub-circuits. Every line
+ * of the vectors file holds one bit per input, such as {@code 0110}; blank
+ * lines and text after {@code #} are ignored. For every vector the inputs are
+ * applied, every clock of the circuit is advanced by one cycle, and a line with
+ * the input bits, a space and the output bits is written to the output file,
+ * or to the standard output if no output file is given.
+ * </p>
+ *
+ * <p>
+ * Usage: {@code BatchRunner --convert <source> <target>}. Converts a circuit
+ * file between the JSON and binary formats, each chosen by the extension of
+ * its file.
+ * </p>
+ *
+ * @see SubCircuitLibrary#compile(String, List)
+ *
+ * @author Seweryn Czabanowski
+ */
+public class BatchRunner {
+    /**
+     * The character that starts a comment in a vectors file.
+     */
+    private static final char COMMENT = '#';
+
+    /**
+     * The option selecting the conversion of a circuit file.
+     */
+    private static final String CONVERT_OPTION = "--convert";
+
+    /**
+     * Default constructor for BatchRunner.
+     */
+    private BatchRunner() {
+    }
+
+    /**
+     * Runs a circuit on a vectors file, or converts a circuit file, from the
+     * command line. Exits with status 1 if a file cannot be read or written,
+     * and with status 2 if the arguments are wrong.
+     *
+     * @param args the circuit file, the vectors file and optionally the output
+     *             file, or {@value #CONVERT_OPTION} followed by the source and
+     *             target files
+     */
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals(CONVERT_OPTION)) {
+            convert(args);
+            return;
+        }
+        if (args.length < 2 || args.length > 3) {
+            printUsage();
+            System.exit(2);
+        }
+        try (BufferedReader vectors = Files.newBufferedReader(Path.of(args[1]), StandardCharsets.UTF_8)) {
+            if (args.length > 2) {
+                try (Writer output = Files.newBufferedWriter(Path.of(args[2]), StandardCharsets.UTF_8)) {
+                    run(args[0], vectors, output);
+                }
+            } else {
+                run(args[0], vectors, new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Batch run failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Converts the circuit file named by the arguments. Exits with status 1 if
+     * the conversion fails, and with status 2 if the arguments are wrong.
+     *
+     * @param args {@value #CONVERT_OPTION}, the source file and the target file
+     */
+    private static void convert(String[] args) {
+        if (args.length != 3) {
+            printUsage();
+            System.exit(2);
+        }
+        try {
+            new CircuitFileManager().convertCircuit(args[1], args[2]);
+        } catch (IOException e) {
+            System.out.println("Conversion failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Prints the command line usage.
+     */
+    private static void printUsage() {
+        System.out.println("Usage: BatchRunner <circuit> <vectors> [<output>]");
+        System.out.println("       BatchRunner " + CONVERT_OPTION + " <source> <target>");
+    }
+
+    /**
+     * Loads a circuit and runs it on every vector read from the reader, writing
+     * one line per vector to the writer.
+     *
+     * @param circuitFile the circuit file
+     * @param vectors     the reader of the vectors
+     * @param output      the writer of the results
+     * @return the number of vectors run
+     * @throws IOException              if the circuit or the vectors cannot be
+     *                                  read, or the results cannot be written
+     * @throws IllegalArgumentException if the circuit contains an unknown gate
+     *                                  type or a vector is invalid
+     */
+    public static int run(String circuitFile, BufferedReader vectors, Writer output) throws IOException {
+        List<GateData> gates = new ArrayList<>();
+        new CircuitFileManager().loadGates(circuitFile, gates::add);
+        SubCircuitDefinition circuit = SubCircuitLibrary.compile(Path.of(circuitFile).getFileName().toString(),
+                gates);
+        Netlist netlist = circuit.getNetlist();
+        SimulationEngine engine = new SimulationEngine(netlist);
+        List<Integer> clocks = new ArrayList<>();
+        for (int gate = 0; gate < netlist.size(); gate++) {
+            if (netlist.getType(gate) == GateType.CLOCK) {
+                clocks.add(gate);
+            }
+        }
+        engine.settle();
+
+        int count = 0;
+        int lineNumber = 0;
+        StringBuilder result = new StringBuilder();
+        for (String line = vectors.readLine(); line != null; line = vectors.readLine()) {
+            lineNumber++;
+            String vector = getVector(line);
+            if (vector.isEmpty()) {
+                continue;
+            }
+            if (vector.length() != circuit.getInputCount()) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected " + circuit.getInputCount()
+                        + " input bits but got " + vector.length());
+            }
+            for (int pin = 0; pin < vector.length(); pin++) {
+                engine.setInput(circuit.getInput(pin), getBit(vector.charAt(pin), lineNumber));
+            }
+            engine.propagate();
+            if (!clocks.isEmpty()) {
+                clocks.forEach(clock -> engine.setInput(clock, true));
+                engine.propagate();
+                clocks.forEach(clock -> engine.setInput(clock, false));
+                engine.propagate();
+            }
+
+            result.setLength(0);
+            result.append(vector).append(' ');
+            for (int pin = 0; pin < circuit.getOutputCount(); pin++) {
+                result.append(engine.getValue(circuit.getOutput(pin)) ? '1' : '0');
+            }
+            output.write(result.append(System.lineSeparator()).toString());
+            count++;
+        }
+        output.flush();
+        return count;
+    }
+
+    /**
+     * Returns the bits of a line of a vectors file, without comments and
+     * whitespace.
+     *
+     * @param line the line
+     * @return the bits, or an empty string if the line holds no vector
+     */
+    private static String getVector(String line) {
+        int comment = line.indexOf(COMMENT);
+        return (comment >= 0 ? line.substring(0, comment) : line).replaceAll("\\s", "");
+    }
+
+    /**
+     * Parses a bit of a vector.
+     *
+     * @param bit        the character of the bit
+     * @param lineNumber the number of the line, for the error message
+     * @return true for 1, false for 0
+     * @throws IllegalArgumentException if the character is neither 0 nor 1
+     */
+    private static boolean getBit(char bit, int lineNumber) {
+        if (bit != '0' && bit != '1') {
+            throw new IllegalArgumentException("Line " + lineNumber + ": invalid bit '" + bit + "'");
+        }
+        return bit == '1';
+    }
+}
@@ -76,7 +76,7 @@ public class AddConnectionCommand implements Command {
         targetGate.addInputConnection(connectionLine, targetInputIndex);
         targetGate.addInput(sourceGate);
 
-        canvas.getLineToStartGateMap().put(connectionLine, sourceGate);
+        canvas.registerConnection(sourceGate, targetGate, connectionLine, targetInputIndex);
 
         evaluateAndPropagate(sourceGate);
         evaluateAndPropagate(targetGate);
@@ -96,7 +96,7 @@ public class AddConnectionCommand implements Command {
             targetGate.removeInput(sourceGate);
 
             canvas.getChildren().remove(connectionLine);
-            canvas.getLineToStartGateMap().remove(connectionLine);
+            canvas.unregisterConnection(connectionLine);
 
             evaluateAndPropagate(sourceGate);
             evaluateAndPropagate(targetGate);
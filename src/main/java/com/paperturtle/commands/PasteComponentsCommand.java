@@ -9,6 +9,7 @@ import com.paperturtle.components.GateFactory;
 import com.paperturtle.components.LogicGate;
 import com.paperturtle.components.utilities.TextLabel;
 import com.paperturtle.data.ClipboardData;
+import com.paperturtle.data.ConnectionInfo;
 import com.paperturtle.gui.CircuitCanvas;
 
 import javafx.geometry.Point2D;
@@ -100,51 +101,50 @@ public class PasteComponentsCommand implements Command {
 
     /**
      * Executes the command to add logic gates and text labels to the canvas at
-     * the specified coordinates.
+     * the specified coordinates. The gates and their connections are added in a
+     * single batch.
      */
     @Override
     public void execute() {
         canvas.getGateManager().deselectAllGates();
-        Map<String, LogicGate> createdGates = new HashMap<>();
-        Map<String, String> oldToNewIdMap = new HashMap<>();
-
-        clipboardGatesData.forEach(data -> {
-            LogicGate gate = GateFactory.createGate(canvas.normalizeType(data.getType()));
-            if (gate != null) {
-                double newX = data.getPosition().getX() + offsetX + globalOffsetX;
-                double newY = data.getPosition().getY() + offsetY + globalOffsetY;
-
-                String uniqueId = data.getId() + "_" + System.nanoTime();
-                oldToNewIdMap.put(data.getId(), uniqueId);
-
-                gate.setPosition(newX, newY);
-                gate.setId(uniqueId);
-                gate.setMaxOutputConnections(data.getMaxOutputConnections());
-                createdGates.put(uniqueId, gate);
-                canvas.drawGate(gate, newX, newY);
-                gate.getImageView().getStyleClass().add("selected");
-                pastedGates.add(gate);
-
-            } else {
-                System.out.println("Unable to create gate of type: " + data.getType());
+        Map<String, Integer> clipboardIndices = new HashMap<>();
+        for (int i = 0; i < clipboardGatesData.size(); i++) {
+            clipboardIndices.putIfAbsent(clipboardGatesData.get(i).getId(), i);
+        }
+        LogicGate[] createdGates = new LogicGate[clipboardGatesData.size()];
+
+        canvas.runBatch(() -> {
+            for (int i = 0; i < clipboardGatesData.size(); i++) {
+                ClipboardData data = clipboardGatesData.get(i);
+                LogicGate gate = GateFactory.createGate(canvas.normalizeType(data.getType()));
+                if (gate != null) {
+                    double newX = data.getPosition().getX() + offsetX + globalOffsetX;
+                    double newY = data.getPosition().getY() + offsetY + globalOffsetY;
+
+                    gate.setPosition(newX, newY);
+                    gate.setMaxOutputConnections(data.getMaxOutputConnections());
+                    createdGates[i] = gate;
+                    canvas.drawGate(gate, newX, newY);
+                    gate.getImageView().getStyleClass().add("selected");
+                    pastedGates.add(gate);
+
+                } else {
+                    System.out.println("Unable to create gate of type: " + data.getType());
+                }
             }
-        });
 
-        clipboardGatesData.forEach(data -> {
-            String newSourceId = oldToNewIdMap.get(data.getId());
-            LogicGate sourceGate = createdGates.get(newSourceId);
-            if (sourceGate != null) {
-                data.getOutputs().forEach(output -> {
-                    String oldTargetId = output.getGateId();
-                    String newTargetId = oldToNewIdMap.get(oldTargetId);
-                    if (newTargetId != null) {
-                        ClipboardData.ConnectionData newOutput = new ClipboardData.ConnectionData(newTargetId,
-                                output.getPointIndex());
-                        createConnection(createdGates, sourceGate, newOutput);
-                    } else {
-                        System.out.println("Target gate not found for old ID: " + oldTargetId);
-                    }
-                });
+            for (int i = 0; i < clipboardGatesData.size(); i++) {
+                LogicGate sourceGate = createdGates[i];
+                if (sourceGate != null) {
+                    clipboardGatesData.get(i).getOutputs().forEach(output -> {
+                        Integer target = clipboardIndices.get(output.getGateId());
+                        if (target != null && createdGates[target] != null) {
+                            createConnection(sourceGate, createdGates[target], output.getPointIndex());
+                        } else {
+                            System.out.println("Target gate not found for old ID: " + output.getGateId());
+                        }
+                    });
+                }
             }
         });
 
@@ -158,8 +158,13 @@ public class PasteComponentsCommand implements Command {
      */
     @Override
     public void undo() {
-        removeConnections();
-        removeGates();
+        canvas.getSimulationManager().suspend();
+        try {
+            removeConnections();
+            removeGates();
+        } finally {
+            canvas.getSimulationManager().resume();
+        }
         removeLabels();
         decrementGlobalOffset();
     }
@@ -225,41 +230,37 @@ public class PasteComponentsCommand implements Command {
     // }
 
     /**
-     * Creates a connection between two logic gates based on the provided output
+     * Creates a connection between two pasted logic gates.
      * 
-     * @param createdGates the map of created gates
-     * @param sourceGate   the source gate of the connection
-     * @param output       the output data for the connection
+     * @param sourceGate the source gate of the connection
+     * @param targetGate the target gate of the connection
+     * @param pointIndex the index of the input of the target gate
      */
-    private void createConnection(Map<String, LogicGate> createdGates, LogicGate sourceGate,
-            ClipboardData.ConnectionData output) {
-        LogicGate targetGate = createdGates.get(output.getGateId());
-        if (targetGate == null) {
-            System.out.println("Output gate not found for ID: " + output.getGateId());
+    private void createConnection(LogicGate sourceGate, LogicGate targetGate, int pointIndex) {
+        if (pointIndex < 0 || pointIndex >= targetGate.getInputMarkers().size()) {
+            System.out.println("Invalid point index: " + pointIndex + " for target gate: " + targetGate.getId());
             return;
         }
 
         Point2D sourcePos = sourceGate.getOutputMarker().localToParent(sourceGate.getOutputMarker().getCenterX(),
                 sourceGate.getOutputMarker().getCenterY());
-        Point2D targetPos = targetGate.getInputMarkers().get(output.getPointIndex()).localToParent(
-                targetGate.getInputMarkers().get(output.getPointIndex()).getCenterX(),
-                targetGate.getInputMarkers().get(output.getPointIndex()).getCenterY());
+        Point2D targetPos = targetGate.getInputMarkers().get(pointIndex).localToParent(
+                targetGate.getInputMarkers().get(pointIndex).getCenterX(),
+                targetGate.getInputMarkers().get(pointIndex).getCenterY());
 
         Line connectionLine = new Line(sourcePos.getX(), sourcePos.getY(), targetPos.getX(), targetPos.getY());
         connectionLine.setStrokeWidth(3.5);
         connectionLine.setStroke(Color.BLACK);
 
-        if (!canvas.getChildren().contains(connectionLine)) {
-            canvas.getChildren().add(connectionLine);
-        }
+        canvas.addNodes(connectionLine);
         sourceGate.addOutputConnection(connectionLine);
-        targetGate.addInputConnection(connectionLine, output.getPointIndex());
+        targetGate.addInputConnection(connectionLine, pointIndex);
         if (!pastedConnections.contains(connectionLine)) {
             pastedConnections.add(connectionLine);
         }
         sourceGate.addOutputGate(targetGate);
         targetGate.addInput(sourceGate);
-        canvas.getLineToStartGateMap().put(connectionLine, sourceGate);
+        canvas.registerConnection(sourceGate, targetGate, connectionLine, pointIndex);
 
         System.out.println("Created connection from " + sourceGate.getId() + " to " + targetGate.getId()
                 + " at points (" + sourcePos.getX() + ", " + sourcePos.getY() + ") to (" + targetPos.getX() + ", "
@@ -272,17 +273,12 @@ public class PasteComponentsCommand implements Command {
     private void removeConnections() {
         pastedConnections.forEach(connection -> {
             canvas.getChildren().remove(connection);
-            LogicGate sourceGate = canvas.getLineToStartGateMap().get(connection);
-            LogicGate targetGate = canvas.getGateManager().findTargetGate(connection);
-            if (sourceGate != null && targetGate != null) {
-                int index = targetGate.findInputConnectionIndex(connection);
-                if (index != -1) {
-                    sourceGate.removeOutputConnection(connection);
-                    targetGate.removeInputConnection(connection, index);
-                    targetGate.removeInput(sourceGate);
-                }
+            ConnectionInfo info = canvas.unregisterConnection(connection);
+            if (info != null && info.sourceGate != null && info.targetGate != null && info.inputIndex != -1) {
+                info.sourceGate.removeOutputConnection(connection);
+                info.targetGate.removeInputConnection(connection, info.inputIndex);
+                info.targetGate.removeInput(info.sourceGate);
             }
-            canvas.getLineToStartGateMap().remove(connection);
         });
         pastedConnections.clear();
     }
@@ -71,7 +71,7 @@ public class RemoveConnectionCommand implements Command {
         targetGate.removeInput(sourceGate);
 
         canvas.getChildren().remove(connectionLine);
-        canvas.getLineToStartGateMap().remove(connectionLine);
+        canvas.unregisterConnection(connectionLine);
 
         targetGate.evaluate();
         targetGate.propagateStateChange();
@@ -93,7 +93,7 @@ public class RemoveConnectionCommand implements Command {
         targetGate.addInput(sourceGate);
 
         canvas.getChildren().add(connectionLine);
-        canvas.getLineToStartGateMap().put(connectionLine, sourceGate);
+        canvas.registerConnection(sourceGate, targetGate, connectionLine, targetInputIndex);
 
         targetGate.evaluate();
         targetGate.propagateStateChange();
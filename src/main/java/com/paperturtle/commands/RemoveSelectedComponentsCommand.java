@@ -8,6 +8,7 @@ import java.util.List;
 
 import com.paperturtle.components.LogicGate;
 import com.paperturtle.components.utilities.TextLabel;
+import com.paperturtle.data.ConnectionInfo;
 import com.paperturtle.gui.CircuitCanvas;
 
 /**
@@ -49,48 +50,6 @@ public class RemoveSelectedComponentsCommand implements Command {
      */
     private List<ConnectionInfo> removedConnectionInfos = new ArrayList<>();
 
-    /**
-     * A static inner class representing the connection information between two
-     * logic gates.
-     */
-    private static class ConnectionInfo {
-        /**
-         * The source logic gate of the connection.
-         */
-        LogicGate sourceGate;
-
-        /**
-         * The target logic gate of the connection.
-         */
-        LogicGate targetGate;
-
-        /**
-         * The line representing the connection.
-         */
-        Line connection;
-
-        /**
-         * The index of the input where the connection is made.
-         */
-        int inputIndex;
-
-        /**
-         * Constructs a ConnectionInfo object with the given source gate, target gate,
-         * connection line, and input index.
-         *
-         * @param sourceGate the source logic gate of the connection
-         * @param targetGate the target logic gate of the connection
-         * @param connection the line representing the connection
-         * @param inputIndex the index of the input where the connection is made
-         */
-        ConnectionInfo(LogicGate sourceGate, LogicGate targetGate, Line connection, int inputIndex) {
-            this.sourceGate = sourceGate;
-            this.targetGate = targetGate;
-            this.connection = connection;
-            this.inputIndex = inputIndex;
-        }
-    }
-
     /**
      * Constructs a RemoveSelectedGatesCommand for the specified circuit canvas.
      * 
@@ -143,6 +102,11 @@ public class RemoveSelectedComponentsCommand implements Command {
     private void collectConnections(LogicGate gate) {
         gate.getOutputConnections().forEach(connection -> {
             removedConnections.add(connection);
+            ConnectionInfo info = canvas.getConnectionInfo(connection);
+            if (info != null) {
+                removedConnectionInfos.add(info);
+                return;
+            }
             LogicGate targetGate = canvas.getGateManager().findTargetGate(connection);
             if (targetGate != null) {
                 int index = targetGate.findInputConnectionIndex(connection);
@@ -154,6 +118,11 @@ public class RemoveSelectedComponentsCommand implements Command {
 
         gate.getInputConnections().forEach(connectionList -> connectionList.forEach(connection -> {
             removedConnections.add(connection);
+            ConnectionInfo info = canvas.getConnectionInfo(connection);
+            if (info != null) {
+                removedConnectionInfos.add(info);
+                return;
+            }
             LogicGate sourceGate = canvas.getLineToStartGateMap().get(connection);
             if (sourceGate != null) {
                 int index = gate.findInputConnectionIndex(connection);
@@ -203,7 +172,7 @@ public class RemoveSelectedComponentsCommand implements Command {
                 canvas.getChildren().add(info.connection);
             }
 
-            canvas.getLineToStartGateMap().put(info.connection, info.sourceGate);
+            canvas.registerConnection(info.sourceGate, info.targetGate, info.connection, info.inputIndex);
         });
     }
 
@@ -1,11 +1,24 @@
 package com.paperturtle.components;
 
+import com.paperturtle.components.bus.BusAndGate;
+import com.paperturtle.components.bus.BusMergerGate;
+import com.paperturtle.components.bus.BusOrGate;
+import com.paperturtle.components.bus.BusSplitterGate;
+import com.paperturtle.components.bus.SubCircuitBusGate;
+import com.paperturtle.components.bus.BusXorGate;
+import com.paperturtle.components.flipflops.AsyncRsFlipFlop;
+import com.paperturtle.components.flipflops.EdgeDFlipFlop;
+import com.paperturtle.components.flipflops.EdgeJkFlipFlop;
+import com.paperturtle.components.flipflops.LevelDFlipFlop;
+import com.paperturtle.components.flipflops.SyncRsFlipFlop;
+import com.paperturtle.components.flipflops.SyncTFlipFlop;
 import com.paperturtle.components.gates.AndGate;
 import com.paperturtle.components.gates.BufferGate;
 import com.paperturtle.components.gates.NandGate;
 import com.paperturtle.components.gates.NorGate;
 import com.paperturtle.components.gates.NotGate;
 import com.paperturtle.components.gates.OrGate;
+import com.paperturtle.components.gates.SubCircuitGate;
 import com.paperturtle.components.gates.TriStateGate;
 import com.paperturtle.components.gates.XnorGate;
 import com.paperturtle.components.gates.XorGate;
@@ -38,6 +51,18 @@ import com.paperturtle.components.outputs.Lightbulb;
  * @see LowConstantGate
  * @see Lightbulb
  * @see FourBitDigitGate
+ * @see SubCircuitGate
+ * @see BusMergerGate
+ * @see BusSplitterGate
+ * @see BusAndGate
+ * @see BusOrGate
+ * @see BusXorGate
+ * @see EdgeDFlipFlop
+ * @see EdgeJkFlipFlop
+ * @see SyncTFlipFlop
+ * @see LevelDFlipFlop
+ * @see SyncRsFlipFlop
+ * @see AsyncRsFlipFlop
  * 
  * @author Seweryn Czabanowski
  */
@@ -49,7 +74,13 @@ public class GateFactory {
      * type is case-insensitive.
      * Possible values for type are: "AND", "OR", "NOT", "Buffer", "NAND", "NOR",
      * "XOR", "XNOR", "TRISTATE", "SWITCH", "CLOCK", "HIGHCONSTANT", "LOWCONSTANT",
-     * "LIGHTBULB", "FOURBITDIGIT".
+     * "LIGHTBULB", "FOURBITDIGIT", "BUSMERGER", "BUSSPLITTER", "BUSAND", "BUSOR",
+     * "BUSXOR", "EDGE_D_FLIPFLOP", "EDGE_JK_FLIPFLOP", "SYNC_T_FLIPFLOP",
+     * "LEVEL_D_FLIPFLOP", "SYNC_RS_FLIPFLOP", "ASYNC_RS_FLIPFLOP". Bus mergers and splitters may be followed by their parameters,
+     * separated by ":", as in "BUSSPLITTER:8:4". Instances of sub-circuits are created from type
+     * names of the form "SubCircuit:&lt;definition&gt;:&lt;output&gt;", and
+     * instances outputting all outputs as a bus from "SubCircuitBus:&lt;definition&gt;";
+     * their definition is looked up in the {@link SubCircuitLibrary}.
      * 
      * @param type The type of gate to create. This should be one of the following:
      *             "AND", "OR", "NOT", "Buffer", "NAND", "NOR",
@@ -59,7 +90,15 @@ public class GateFactory {
      *         recognized, this method returns null.
      */
     public static LogicGate createGate(String type) {
-        switch (type.toUpperCase()) {
+        if (SubCircuitGate.isSubCircuitType(type)) {
+            return SubCircuitGate.create(type);
+        }
+        if (SubCircuitBusGate.isSubCircuitBusType(type)) {
+            return SubCircuitBusGate.create(type);
+        }
+        String name = type.toUpperCase();
+        int separator = name.indexOf(':');
+        switch (separator < 0 ? name : name.substring(0, separator)) {
             case "AND":
                 return new AndGate();
             case "OR":
@@ -90,6 +129,28 @@ public class GateFactory {
                 return new Lightbulb();
             case "FOURBITDIGIT":
                 return new FourBitDigitGate();
+            case "BUSMERGER":
+                return BusMergerGate.create(type);
+            case "BUSSPLITTER":
+                return BusSplitterGate.create(type);
+            case "BUSAND":
+                return new BusAndGate();
+            case "BUSOR":
+                return new BusOrGate();
+            case "BUSXOR":
+                return new BusXorGate();
+            case "EDGE_D_FLIPFLOP":
+                return new EdgeDFlipFlop();
+            case "EDGE_JK_FLIPFLOP":
+                return new EdgeJkFlipFlop();
+            case "SYNC_T_FLIPFLOP":
+                return new SyncTFlipFlop();
+            case "LEVEL_D_FLIPFLOP":
+                return new LevelDFlipFlop();
+            case "SYNC_RS_FLIPFLOP":
+                return new SyncRsFlipFlop();
+            case "ASYNC_RS_FLIPFLOP":
+                return new AsyncRsFlipFlop();
             default:
                 return null;
         }
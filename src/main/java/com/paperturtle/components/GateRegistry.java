@@ -0,0 +1,206 @@
+package com.paperturtle.components;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The GateRegistry class assigns every gate on a canvas a dense integer
+ * handle, so that graph algorithms, serialization and the simulation can keep
+ * per-gate data in arrays indexed by handle instead of maps keyed by gate or
+ * ID.
+ *
+ * <p>
+ * Handles of removed gates are reused, so the handles stay below
+ * {@link #capacity()}, which only grows to the largest number of gates
+ * registered at once. Each gate also has a stable external string ID, which
+ * is only used to refer to gates in files and on the clipboard. Gates without
+ * an ID, or whose ID is taken by another registered gate, are given a new one
+ * when they are registered.
+ * </p>
+ *
+ * @see LogicGate#getHandle()
+ *
+ * @author Seweryn Czabanowski
+ */
+public class GateRegistry {
+    /**
+     * The prefix of generated external IDs.
+     */
+    private static final String ID_PREFIX = "Gate";
+
+    /**
+     * The gate of each handle, or null if the handle is free.
+     */
+    private LogicGate[] gates = new LogicGate[64];
+
+    /**
+     * The number of handles ever assigned; all handles are below it.
+     */
+    private int capacity = 0;
+
+    /**
+     * The handles of removed gates, available for reuse.
+     */
+    private int[] freeHandles = new int[16];
+
+    /**
+     * The number of entries in {@link #freeHandles}.
+     */
+    private int freeCount = 0;
+
+    /**
+     * The handle of each registered gate by its external ID.
+     */
+    private final Map<String, Integer> handlesById = new HashMap<>();
+
+    /**
+     * The number used to generate the next external ID.
+     */
+    private long nextId = 0;
+
+    /**
+     * Constructs an empty GateRegistry.
+     */
+    public GateRegistry() {
+    }
+
+    /**
+     * Registers a gate and assigns it a handle. If the gate has no external ID,
+     * or another registered gate has the same ID, the gate is given a new ID.
+     * Registering a gate that is already registered has no effect.
+     *
+     * @param gate the gate to register
+     * @return the handle of the gate
+     */
+    public synchronized int register(LogicGate gate) {
+        if (gate.getHandle() >= 0 && gates[gate.getHandle()] == gate) {
+            return gate.getHandle();
+        }
+        int handle;
+        if (freeCount > 0) {
+            handle = freeHandles[--freeCount];
+        } else {
+            if (capacity == gates.length) {
+                gates = Arrays.copyOf(gates, capacity * 2);
+            }
+            handle = capacity++;
+        }
+        if (gate.getId() == null || handlesById.containsKey(gate.getId())) {
+            gate.setId(generateId());
+        }
+        gates[handle] = gate;
+        handlesById.put(gate.getId(), handle);
+        gate.setHandle(handle);
+        return handle;
+    }
+
+    /**
+     * Removes a gate from the registry and frees its handle. The gate keeps its
+     * external ID.
+     *
+     * @param gate the gate to remove
+     */
+    public synchronized void unregister(LogicGate gate) {
+        int handle = gate.getHandle();
+        if (handle < 0 || gates[handle] != gate) {
+            return;
+        }
+        gates[handle] = null;
+        handlesById.remove(gate.getId());
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+        }
+        freeHandles[freeCount++] = handle;
+        gate.setHandle(-1);
+    }
+
+    /**
+     * Removes all gates from the registry.
+     */
+    public synchronized void clear() {
+        for (int handle = 0; handle < capacity; handle++) {
+            if (gates[handle] != null) {
+                gates[handle].setHandle(-1);
+                gates[handle] = null;
+            }
+        }
+        capacity = 0;
+        freeCount = 0;
+        handlesById.clear();
+    }
+
+    /**
+     * Returns the gate with the specified handle.
+     *
+     * @param handle the handle
+     * @return the gate, or null if no gate has the handle
+     */
+    public synchronized LogicGate get(int handle) {
+        return handle >= 0 && handle < capacity ? gates[handle] : null;
+    }
+
+    /**
+     * Returns the handle of the gate with the specified external ID.
+     *
+     * @param id the external ID
+     * @return the handle, or -1 if no registered gate has the ID
+     */
+    public synchronized int getHandle(String id) {
+        Integer handle = handlesById.get(id);
+        return handle != null ? handle : -1;
+    }
+
+    /**
+     * Returns the gate with the specified external ID.
+     *
+     * @param id the external ID
+     * @return the gate, or null if no registered gate has the ID
+     */
+    public LogicGate get(String id) {
+        return get(getHandle(id));
+    }
+
+    /**
+     * Checks if a gate is registered.
+     *
+     * @param gate the gate
+     * @return true if the gate is registered, false otherwise
+     */
+    public synchronized boolean contains(LogicGate gate) {
+        int handle = gate.getHandle();
+        return handle >= 0 && handle < capacity && gates[handle] == gate;
+    }
+
+    /**
+     * Returns the upper bound of the handles, which is the size needed for
+     * arrays indexed by handle.
+     *
+     * @return the number of handles ever assigned
+     */
+    public synchronized int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of registered gates.
+     *
+     * @return the number of gates
+     */
+    public synchronized int size() {
+        return capacity - freeCount;
+    }
+
+    /**
+     * Generates an external ID that no registered gate has.
+     *
+     * @return the new ID
+     */
+    private String generateId() {
+        String id;
+        do {
+            id = ID_PREFIX + nextId++;
+        } while (handlesById.containsKey(id));
+        return id;
+    }
+}
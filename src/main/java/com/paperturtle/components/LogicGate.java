@@ -1,17 +1,25 @@
 package com.paperturtle.components;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
 
 import com.paperturtle.data.ClipboardData;
 import com.paperturtle.data.GateData;
 import com.paperturtle.gui.CircuitCanvas;
+import com.paperturtle.managers.AutosaveManager;
+import com.paperturtle.managers.RepaintManager;
+import com.paperturtle.managers.SimulationManager;
+import com.paperturtle.simulation.GateType;
 import com.paperturtle.utils.CircuitComponent;
 import com.paperturtle.utils.SvgUtil;
 
 import javafx.application.Platform;
 import javafx.geometry.Point2D;
+import javafx.scene.Node;
+import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
@@ -22,6 +30,12 @@ import javafx.util.Pair;
 /**
  * Abstract class representing a logic gate in a digital circuit.
  * 
+ * <p>
+ * Once a gate is drawn on a {@link CircuitCanvas}, it acts as a view over the
+ * canvas's {@link SimulationManager}: its output is read from the compiled
+ * netlist instead of being recomputed from its inputs.
+ * </p>
+ * 
  * @author Seweryn Czabanowski
  */
 public abstract class LogicGate implements CircuitComponent {
@@ -83,17 +97,38 @@ public abstract class LogicGate implements CircuitComponent {
     protected boolean currentState = false;
 
     /**
-     * A counter used to generate unique IDs for each instance of LogicGate.
+     * The external ID of this gate, used to refer to it in files and on the
+     * clipboard. Assigned by the {@link GateRegistry} if not set before the
+     * gate is drawn.
      */
-    private static long idCounter = 0;
+    protected String id;
 
     /**
-     * The unique ID of this gate.
+     * The handle of this gate in the {@link GateRegistry} of its canvas, or -1
+     * if the gate is not registered.
      */
-    protected String id;
+    private int handle = -1;
 
     private int maxOutputConnections = 1;
 
+    /**
+     * The simulation this gate is a view of, or null if the gate has not been
+     * drawn on a canvas.
+     */
+    protected SimulationManager simulation;
+
+    /**
+     * The autosave notified of changes to this gate, or null if the gate has
+     * not been drawn on a canvas.
+     */
+    protected AutosaveManager autosave;
+
+    /**
+     * The repaint manager applying the visual updates of this gate, or null if
+     * the gate has not been drawn on a canvas.
+     */
+    protected RepaintManager repaint;
+
     /**
      * Constructs a LogicGate object with the specified SVG file path, input points,
      * and output point.
@@ -107,7 +142,6 @@ public abstract class LogicGate implements CircuitComponent {
         this.svgFilePath = svgFilePath;
         this.inputPoints = (inputPoints != null) ? inputPoints : new ArrayList<>();
         this.outputPoint = outputPoint;
-        this.id = "Gate" + idCounter++;
 
         for (int i = 0; i < this.inputPoints.size(); i++) {
             inputConnections.add(new ArrayList<>());
@@ -128,6 +162,13 @@ public abstract class LogicGate implements CircuitComponent {
      */
     public abstract List<Pair<Boolean[], Boolean>> getTruthTableData();
 
+    /**
+     * Abstract method to get the type used to compile this gate into a netlist.
+     * 
+     * @return the simulation type of the gate.
+     */
+    public abstract GateType getGateType();
+
     /**
      * Adds an input gate to this logic gate.
      * 
@@ -136,6 +177,8 @@ public abstract class LogicGate implements CircuitComponent {
     public void addInput(LogicGate input) {
         if (inputs.size() < inputPoints.size()) {
             inputs.add(input);
+            topologyChanged();
+            changed();
             evaluateAndPropagate();
         }
     }
@@ -151,6 +194,8 @@ public abstract class LogicGate implements CircuitComponent {
             List<Line> connections = new ArrayList<>(inputConnections.get(index));
             connections.forEach(line -> removeInputConnection(line, index));
             inputs.remove(index);
+            topologyChanged();
+            changed();
             evaluateAndPropagate();
         }
     }
@@ -163,6 +208,7 @@ public abstract class LogicGate implements CircuitComponent {
      */
     public void addInputConnection(Line line, int inputIndex) {
         Optional.ofNullable(getInputConnections(inputIndex)).ifPresent(connections -> connections.add(line));
+        changed();
     }
 
     /**
@@ -175,6 +221,7 @@ public abstract class LogicGate implements CircuitComponent {
         if (inputIndex >= 0 && inputIndex < inputConnections.size()) {
             List<Line> connections = inputConnections.get(inputIndex);
             if (connections != null && connections.remove(line)) {
+                changed();
                 evaluateAndPropagate();
             }
         }
@@ -192,6 +239,7 @@ public abstract class LogicGate implements CircuitComponent {
             imageView.setY(y);
             updateMarkers();
             updateConnections();
+            changed();
         }
     }
 
@@ -266,8 +314,8 @@ public abstract class LogicGate implements CircuitComponent {
      * @param canvas the canvas to draw the gate on.
      */
     public void createVisualRepresentation(Pane canvas) {
-        imageView = new ImageView(SvgUtil.loadSvgImage(svgFilePath));
-        canvas.getChildren().add(imageView);
+        imageView = new ImageView(createImage());
+        addToCanvas(canvas, imageView);
 
         if (outputPoint != null) {
             outputMarker = createMarker(outputPoint, Color.RED, canvas);
@@ -284,6 +332,31 @@ public abstract class LogicGate implements CircuitComponent {
         }
     }
 
+    /**
+     * Adds nodes of the gate to a canvas. A {@link CircuitCanvas} collects them
+     * in its open batch, if any.
+     * 
+     * @param canvas the canvas to add the nodes to.
+     * @param nodes  the nodes to add.
+     */
+    protected static void addToCanvas(Pane canvas, Node... nodes) {
+        if (canvas instanceof CircuitCanvas circuitCanvas) {
+            circuitCanvas.addNodes(nodes);
+        } else {
+            canvas.getChildren().addAll(nodes);
+        }
+    }
+
+    /**
+     * Creates the image of the gate. Gates that are not drawn from an SVG file
+     * override this method.
+     * 
+     * @return the image of the gate.
+     */
+    public Image createImage() {
+        return SvgUtil.loadSvgImage(svgFilePath);
+    }
+
     /**
      * Creates a marker on the canvas.
      * 
@@ -294,31 +367,73 @@ public abstract class LogicGate implements CircuitComponent {
      */
     private Circle createMarker(Point2D point, Color color, Pane canvas) {
         Circle marker = new Circle(point.getX(), point.getY(), 5, color);
-        canvas.getChildren().add(marker);
+        addToCanvas(canvas, marker);
         marker.toFront();
         return marker;
     }
 
     /**
-     * Propagates the state change to the output gates.
+     * Propagates the state change to the output gates. If the gate is part of a
+     * simulation, the change is propagated through the compiled netlist;
+     * otherwise the output gates are updated from a work queue.
      */
     public void propagateStateChange() {
-        boolean newState = evaluate();
-        if (newState != currentState) {
-            currentState = newState;
-            updateOutputConnectionsColor(newState);
-            outputGates.forEach(LogicGate::propagateStateChange);
+        if (simulation != null) {
+            simulation.propagate(this);
+            return;
+        }
+        Deque<LogicGate> pending = new ArrayDeque<>();
+        pending.add(this);
+        while (!pending.isEmpty()) {
+            LogicGate gate = pending.poll();
+            boolean newState = gate.evaluate();
+            if (newState != gate.currentState) {
+                gate.currentState = newState;
+                gate.updateOutputConnectionsColor(newState);
+                pending.addAll(gate.outputGates);
+            }
         }
     }
 
     /**
-     * Updates the color of the output connections based on the state.
+     * Applies a state computed by the simulation to this gate's view. Subclasses
+     * that display their state override this method to update their image.
+     * 
+     * @param state the simulated output of the gate.
+     */
+    public void applySimulatedState(boolean state) {
+        currentState = state;
+        updateOutputConnectionsColor(state);
+    }
+
+    /**
+     * Updates the color of the output connections based on the state. On a
+     * canvas, the update is applied with the next frame, together with all
+     * other updates of that frame.
      * 
      * @param state the state of the output.
      */
     public void updateOutputConnectionsColor(boolean state) {
         Color newColor = state ? Color.RED : Color.BLACK;
-        outputConnections.forEach(line -> Platform.runLater(() -> line.setStroke(newColor)));
+        if (repaint != null) {
+            outputConnections.forEach(line -> repaint.setStroke(line, newColor));
+        } else {
+            outputConnections.forEach(line -> Platform.runLater(() -> line.setStroke(newColor)));
+        }
+    }
+
+    /**
+     * Shows a new image for this gate. On a canvas, the image is shown with the
+     * next frame, together with all other updates of that frame.
+     * 
+     * @param image the new image.
+     */
+    protected void updateImage(Image image) {
+        if (repaint != null) {
+            repaint.setImage(imageView, image);
+        } else {
+            imageView.setImage(image);
+        }
     }
 
     /**
@@ -339,6 +454,7 @@ public abstract class LogicGate implements CircuitComponent {
     public void addOutputConnection(Line line) {
         if (outputConnections.size() < maxOutputConnections) {
             outputConnections.add(line);
+            changed();
         }
     }
 
@@ -350,6 +466,7 @@ public abstract class LogicGate implements CircuitComponent {
     public void addOutputGate(LogicGate gate) {
         if (gate != null && !outputGates.contains(gate)) {
             outputGates.add(gate);
+            changed();
         }
     }
 
@@ -374,6 +491,7 @@ public abstract class LogicGate implements CircuitComponent {
      */
     public void removeOutputConnection(Line line) {
         if (outputConnections.remove(line)) {
+            changed();
             List<LogicGate> outputGatesCopy = new ArrayList<>(outputGates);
             for (LogicGate gate : outputGatesCopy) {
                 int index = gate.findInputConnectionIndex(line);
@@ -394,6 +512,7 @@ public abstract class LogicGate implements CircuitComponent {
     public void removeInputConnection(Line line) {
         inputConnections.forEach(connections -> {
             if (connections.remove(line)) {
+                changed();
                 evaluateAndPropagate();
             }
         });
@@ -408,6 +527,28 @@ public abstract class LogicGate implements CircuitComponent {
         return inputs;
     }
 
+    /**
+     * Returns the gate connected to an input pin, found by the connection line
+     * that ends at the pin.
+     *
+     * @param pin the input pin
+     * @return the gate driving the pin, or null if the pin is unconnected
+     */
+    public LogicGate getInputSource(int pin) {
+        List<Line> lines = getInputConnections(pin);
+        if (lines == null) {
+            return null;
+        }
+        for (Line line : lines) {
+            for (LogicGate input : inputs) {
+                if (input.getOutputConnections().contains(line)) {
+                    return input;
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * Returns the list of input markers for this gate.
      * 
@@ -474,12 +615,59 @@ public abstract class LogicGate implements CircuitComponent {
 
     /**
      * Returns the current output value of the gate.
-     * This method will invoke evaluate() to ensure the latest input is returned.
+     * If the gate is part of a simulation, the value is read from the simulation;
+     * otherwise this method will invoke evaluate() to ensure the latest input is
+     * returned.
      * 
      * @return the current output of the logic gate.
      */
     public boolean getOutput() {
-        return evaluate();
+        return simulation != null ? simulation.getOutput(this) : evaluate();
+    }
+
+    /**
+     * Returns the state last applied to this gate, without evaluating it.
+     * 
+     * @return the current state of the gate.
+     */
+    public boolean getCurrentState() {
+        return currentState;
+    }
+
+    /**
+     * Returns the simulation this gate is a view of.
+     * 
+     * @return the simulation manager, or null if the gate is not on a canvas.
+     */
+    public SimulationManager getSimulationManager() {
+        return simulation;
+    }
+
+    /**
+     * Sets the simulation this gate is a view of.
+     * 
+     * @param simulation the simulation manager.
+     */
+    public void setSimulationManager(SimulationManager simulation) {
+        this.simulation = simulation;
+    }
+
+    /**
+     * Sets the autosave notified of changes to this gate.
+     * 
+     * @param autosave the autosave manager.
+     */
+    public void setAutosaveManager(AutosaveManager autosave) {
+        this.autosave = autosave;
+    }
+
+    /**
+     * Sets the repaint manager applying the visual updates of this gate.
+     * 
+     * @param repaint the repaint manager.
+     */
+    public void setRepaintManager(RepaintManager repaint) {
+        this.repaint = repaint;
     }
 
     /**
@@ -535,7 +723,7 @@ public abstract class LogicGate implements CircuitComponent {
     public GateData getGateData() {
         GateData data = new GateData();
         data.id = getId();
-        data.type = getClass().getSimpleName();
+        data.type = getTypeName();
         data.position = getPosition();
         data.state = currentState;
         data.maxOutputConnections = getMaxOutputConnections();
@@ -559,7 +747,7 @@ public abstract class LogicGate implements CircuitComponent {
     public ClipboardData getGateClipboardData() {
         ClipboardData data = new ClipboardData();
         data.id = getId();
-        data.type = getClass().getSimpleName();
+        data.type = getTypeName();
         data.position = getPosition();
         data.state = currentState;
         data.maxOutputConnections = getMaxOutputConnections();
@@ -576,6 +764,17 @@ public abstract class LogicGate implements CircuitComponent {
         return data;
     }
 
+    /**
+     * Returns the type name under which this gate is saved, which
+     * {@link GateFactory} turns back into a gate. By default this is the simple
+     * name of the class.
+     * 
+     * @return the type name.
+     */
+    public String getTypeName() {
+        return getClass().getSimpleName();
+    }
+
     /**
      * Returns the id of this gate.
      * 
@@ -586,7 +785,8 @@ public abstract class LogicGate implements CircuitComponent {
     }
 
     /**
-     * Sets the id of this gate.
+     * Sets the id of this gate. Must be called before the gate is drawn; if
+     * another gate on the canvas has the same id, the registry replaces it.
      * 
      * @param id the id to set.
      */
@@ -594,6 +794,24 @@ public abstract class LogicGate implements CircuitComponent {
         this.id = id;
     }
 
+    /**
+     * Returns the handle of this gate in the registry of its canvas.
+     * 
+     * @return the handle, or -1 if the gate is not registered.
+     */
+    public int getHandle() {
+        return handle;
+    }
+
+    /**
+     * Sets the handle of this gate; only called by the {@link GateRegistry}.
+     * 
+     * @param handle the handle, or -1 if the gate is no longer registered.
+     */
+    void setHandle(int handle) {
+        this.handle = handle;
+    }
+
     /**
      * Returns the position of the gate.
      * 
@@ -640,6 +858,26 @@ public abstract class LogicGate implements CircuitComponent {
         this.maxOutputConnections = maxOutputConnections;
     }
 
+    /**
+     * Notifies the autosave that the position or connections of this gate
+     * changed, so the gate is saved with the next journal record.
+     */
+    protected void changed() {
+        if (autosave != null) {
+            autosave.markChanged(this);
+        }
+    }
+
+    /**
+     * Notifies the simulation that the inputs of this gate changed, so the
+     * netlist is recompiled before it is evaluated again.
+     */
+    protected void topologyChanged() {
+        if (simulation != null) {
+            simulation.invalidate();
+        }
+    }
+
     /**
      * Evaluates the gate and propagates the state change.
      */
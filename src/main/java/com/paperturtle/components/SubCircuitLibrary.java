@@ -0,0 +1,502 @@
+package com.paperturtle.components;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import com.paperturtle.App;
+import com.paperturtle.components.bus.SubCircuitBusGate;
+import com.paperturtle.components.gates.SubCircuitGate;
+import com.paperturtle.data.GateData;
+import com.paperturtle.managers.CircuitFileManager;
+import com.paperturtle.simulation.GateType;
+import com.paperturtle.simulation.Netlist;
+import com.paperturtle.simulation.NetlistBuilder;
+import com.paperturtle.simulation.SubCircuitDefinition;
+import com.paperturtle.utils.CircuitComponent;
+
+import javafx.geometry.Point2D;
+
+/**
+ * The SubCircuitLibrary class stores the definitions of sub-circuits. A
+ * definition is an ordinary circuit file kept in the
+ * {@code .logic-gates/subcircuits} directory of the user; it is compiled once
+ * when it is first used and then shared by every {@link SubCircuitGate} placed
+ * from it, so circuit files only refer to a definition by name.
+ *
+ * <p>
+ * The switches of a definition become its input pins and its lightbulbs its
+ * output pins, both ordered from top to bottom and then from left to right.
+ * Sub-circuits used inside a definition are flattened into its netlist, so
+ * every definition is a single netlist of primitive gates; a sub-circuit placed
+ * as a bus is flattened once and its outputs merged into one bus.
+ * </p>
+ *
+ * @see SubCircuitDefinition
+ * @see SubCircuitGate
+ *
+ * @author Seweryn Czabanowski
+ */
+public class SubCircuitLibrary {
+    /**
+     * The directory the definitions are stored in.
+     */
+    private static final Path DIRECTORY = App.USER_DIRECTORY.resolve("subcircuits");
+
+    /**
+     * The extension of definitions stored as JSON.
+     */
+    private static final String JSON_EXTENSION = ".json";
+
+    /**
+     * The compiled definitions, by name.
+     */
+    private static final Map<String, SubCircuitDefinition> definitions = new LinkedHashMap<>();
+
+    /**
+     * The names of the definitions currently being compiled, used to detect
+     * definitions that contain themselves.
+     */
+    private static final Set<String> compiling = new HashSet<>();
+
+    /**
+     * Default constructor for SubCircuitLibrary.
+     */
+    private SubCircuitLibrary() {
+    }
+
+    /**
+     * Returns the definition with the specified name, compiling it from the
+     * library directory on first use.
+     *
+     * @param name the name of the definition
+     * @return the definition, or null if it does not exist or cannot be compiled
+     */
+    public static synchronized SubCircuitDefinition get(String name) {
+        SubCircuitDefinition definition = definitions.get(name);
+        if (definition != null) {
+            return definition;
+        }
+        Path file = findFile(name);
+        if (file == null) {
+            System.out.println("Sub-circuit not found: " + name);
+            return null;
+        }
+        try {
+            definition = load(name, file);
+            definitions.put(name, definition);
+            return definition;
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Failed to load sub-circuit " + name + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Adds a circuit file to the library as a definition named after the file.
+     * The file is compiled first and copied into the library directory only if
+     * it is a valid definition, replacing any definition with the same name.
+     *
+     * @param file the circuit file
+     * @return the new definition
+     * @throws IOException              if the file cannot be read or copied
+     * @throws IllegalArgumentException if the file is not a valid definition
+     */
+    public static synchronized SubCircuitDefinition importCircuit(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        String extension = CircuitFileManager.isBinary(fileName) ? CircuitFileManager.BINARY_EXTENSION
+                : JSON_EXTENSION;
+        String name = fileName.toLowerCase().endsWith(extension)
+                ? fileName.substring(0, fileName.length() - extension.length())
+                : fileName;
+        if (name.isEmpty() || name.contains(":")) {
+            throw new IllegalArgumentException("Invalid sub-circuit name: " + name);
+        }
+        definitions.remove(name);
+        SubCircuitDefinition definition = load(name, file);
+
+        Files.createDirectories(DIRECTORY);
+        Path target = DIRECTORY.resolve(name + extension);
+        if (!Files.exists(target) || !Files.isSameFile(file, target)) {
+            Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Path other = DIRECTORY.resolve(name + (extension.equals(JSON_EXTENSION)
+                ? CircuitFileManager.BINARY_EXTENSION
+                : JSON_EXTENSION));
+        Files.deleteIfExists(other);
+        definitions.put(name, definition);
+        return definition;
+    }
+
+    /**
+     * Compiles every definition stored in the library directory.
+     *
+     * @return the definitions that could be compiled, in order of name
+     */
+    public static synchronized Collection<SubCircuitDefinition> loadAll() {
+        List<SubCircuitDefinition> loaded = new ArrayList<>();
+        if (!Files.isDirectory(DIRECTORY)) {
+            return loaded;
+        }
+        try (Stream<Path> files = Files.list(DIRECTORY)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(JSON_EXTENSION)
+                            || name.endsWith(CircuitFileManager.BINARY_EXTENSION))
+                    .map(name -> name.substring(0, name.lastIndexOf('.')))
+                    .distinct()
+                    .sorted()
+                    .map(SubCircuitLibrary::get)
+                    .filter(definition -> definition != null)
+                    .forEach(loaded::add);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return loaded;
+    }
+
+    /**
+     * Checks that the definition of every sub-circuit placed in a circuit can be
+     * loaded from the library. Circuit files only refer to definitions by name,
+     * so a circuit copied to another machine without its definitions fails here
+     * instead of silently losing its sub-circuits.
+     *
+     * @param components the components read from the circuit file
+     * @throws IOException if a definition is missing or invalid, or a placed
+     *                     output does not exist in its definition
+     */
+    public static void requireDefinitions(Collection<? extends CircuitComponent> components) throws IOException {
+        Set<String> missing = new TreeSet<>();
+        for (CircuitComponent component : components) {
+            if (!(component instanceof GateData gate)) {
+                continue;
+            }
+            if (SubCircuitGate.isSubCircuitType(gate.type)) {
+                SubCircuitDefinition definition = get(SubCircuitGate.getDefinitionName(gate.type));
+                int output = SubCircuitGate.getOutputPin(gate.type);
+                if (definition == null || output < 0 || output >= definition.getOutputCount()) {
+                    missing.add(gate.type);
+                }
+            } else if (SubCircuitBusGate.isSubCircuitBusType(gate.type)) {
+                SubCircuitDefinition definition = get(SubCircuitBusGate.getDefinitionName(gate.type));
+                if (definition == null || definition.getOutputCount() > Long.SIZE) {
+                    missing.add(gate.type);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IOException("Missing or invalid sub-circuit definitions in " + DIRECTORY + ": "
+                    + String.join(", ", missing));
+        }
+    }
+
+    /**
+     * Compiles the gates of a circuit into a definition. Only the saved data of
+     * the gates is used, so circuits can also be compiled without creating any
+     * JavaFX node, as the {@link com.paperturtle.BatchRunner} does.
+     *
+     * @param name  the name of the definition
+     * @param gates the gates of the circuit
+     * @return the compiled definition
+     * @throws IllegalArgumentException if the circuit contains an unknown gate
+     *                                  type or sub-circuit, or contains itself
+     */
+    public static SubCircuitDefinition compile(String name, List<GateData> gates) {
+        NetlistBuilder builder = new NetlistBuilder();
+        Map<String, Integer> indices = new HashMap<>();
+        Map<String, SubCircuitDefinition> nested = new HashMap<>();
+        Map<String, Integer> offsets = new HashMap<>();
+        List<GateData> inputPins = new ArrayList<>();
+        List<GateData> outputPins = new ArrayList<>();
+
+        for (GateData gate : gates) {
+            if (SubCircuitBusGate.isSubCircuitBusType(gate.type)) {
+                SubCircuitDefinition definition = getNested(SubCircuitBusGate.getDefinitionName(gate.type));
+                if (definition.getOutputCount() > Long.SIZE) {
+                    throw new IllegalArgumentException("Too many outputs for a bus: " + gate.type);
+                }
+                int offset = inline(builder, definition);
+                int merger = builder.addBusGate(GateType.BUS_MERGE, 0, 1);
+                for (int output = 0; output < definition.getOutputCount(); output++) {
+                    builder.connect(offset + definition.getOutput(output), merger, output);
+                }
+                nested.put(gate.id, definition);
+                offsets.put(gate.id, offset);
+                indices.put(gate.id, merger);
+                continue;
+            }
+            if (SubCircuitGate.isSubCircuitType(gate.type)) {
+                SubCircuitDefinition definition = getNested(SubCircuitGate.getDefinitionName(gate.type));
+                int output = SubCircuitGate.getOutputPin(gate.type);
+                if (output < 0 || output >= definition.getOutputCount()) {
+                    throw new IllegalArgumentException("Unknown sub-circuit output: " + gate.type);
+                }
+                int offset = inline(builder, definition);
+                nested.put(gate.id, definition);
+                offsets.put(gate.id, offset);
+                indices.put(gate.id, offset + definition.getOutput(output));
+                continue;
+            }
+            GateType type = getGateType(gate.type);
+            indices.put(gate.id, addGate(builder, type, gate.type));
+            if (type == GateType.SWITCH) {
+                inputPins.add(gate);
+            } else if (type == GateType.LIGHTBULB) {
+                outputPins.add(gate);
+            }
+        }
+
+        Map<String, List<int[]>> connections = new LinkedHashMap<>();
+        for (GateData gate : gates) {
+            for (GateData.ConnectionData output : gate.outputs) {
+                if (indices.containsKey(output.gateId)) {
+                    connections.computeIfAbsent(output.gateId, id -> new ArrayList<>())
+                            .add(new int[] { output.pointIndex, indices.get(gate.id) });
+                }
+            }
+        }
+        connections.forEach((target, inputs) -> {
+            inputs.sort(Comparator.comparingInt(input -> input[0]));
+            SubCircuitDefinition definition = nested.get(target);
+            for (int[] input : inputs) {
+                if (definition == null) {
+                    builder.connect(input[1], indices.get(target), input[0]);
+                } else if (input[0] < definition.getInputCount()) {
+                    builder.connect(input[1], offsets.get(target) + definition.getInput(input[0]));
+                }
+            }
+        });
+
+        Netlist netlist = builder.build();
+        return new SubCircuitDefinition(name, netlist, getPinIndices(inputPins, indices),
+                getPinIndices(outputPins, indices));
+    }
+
+    /**
+     * Loads and compiles a definition from a circuit file.
+     *
+     * @param name the name of the definition
+     * @param file the circuit file
+     * @return the compiled definition
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid definition
+     */
+    private static SubCircuitDefinition load(String name, Path file) throws IOException {
+        if (!compiling.add(name)) {
+            throw new IllegalArgumentException("Sub-circuit contains itself: " + name);
+        }
+        try {
+            List<GateData> gates = new ArrayList<>();
+            new CircuitFileManager().loadGates(file.toString(), gates::add);
+            SubCircuitDefinition definition = compile(name, gates);
+            for (int gate = 0; gate < definition.size(); gate++) {
+                if (definition.getNetlist().getType(gate).isEdgeTriggered()) {
+                    throw new IllegalArgumentException("Sub-circuits cannot contain edge-triggered flip-flops");
+                }
+                if (definition.getNetlist().getType(gate).isBus()) {
+                    throw new IllegalArgumentException("Sub-circuits cannot contain bus components");
+                }
+            }
+            return definition;
+        } finally {
+            compiling.remove(name);
+        }
+    }
+
+    /**
+     * Returns a definition used inside another definition.
+     *
+     * @param name the name of the nested definition
+     * @return the nested definition
+     * @throws IllegalArgumentException if the definition is unknown or is being
+     *                                  compiled
+     */
+    private static synchronized SubCircuitDefinition getNested(String name) {
+        if (compiling.contains(name)) {
+            throw new IllegalArgumentException("Sub-circuit contains itself: " + name);
+        }
+        SubCircuitDefinition definition = get(name);
+        if (definition == null) {
+            throw new IllegalArgumentException("Unknown sub-circuit: " + name);
+        }
+        return definition;
+    }
+
+    /**
+     * Copies the netlist of a nested definition into the netlist being built.
+     * The input pins of the copy become buffers, so they can be driven by the
+     * gates connected to the sub-circuit.
+     *
+     * @param builder    the builder of the enclosing netlist
+     * @param definition the nested definition
+     * @return the index of the first gate of the copy
+     */
+    private static int inline(NetlistBuilder builder, SubCircuitDefinition definition) {
+        Netlist netlist = definition.getNetlist();
+        boolean[] pins = new boolean[netlist.size()];
+        for (int pin = 0; pin < definition.getInputCount(); pin++) {
+            pins[definition.getInput(pin)] = true;
+        }
+        int offset = builder.size();
+        for (int gate = 0; gate < netlist.size(); gate++) {
+            GateType type = pins[gate] ? GateType.BUFFER : netlist.getType(gate);
+            if (type.isBus()) {
+                builder.addBusGate(type, netlist.getOffset(gate), netlist.getWidth(gate));
+            } else {
+                builder.addGate(type);
+            }
+        }
+        for (int gate = 0; gate < netlist.size(); gate++) {
+            for (int input = 0; input < netlist.getInputCount(gate); input++) {
+                builder.connect(offset + netlist.getInput(gate, input), offset + gate,
+                        netlist.getInputPin(gate, input));
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Adds a primitive gate to the netlist being built. The bit range of a bus
+     * merger or splitter is taken from the parameters of its type name.
+     *
+     * @param builder the builder of the netlist
+     * @param type    the simulation type of the gate
+     * @param name    the saved type name of the gate
+     * @return the index of the new gate
+     * @throws IllegalArgumentException if the parameters are invalid
+     */
+    private static int addGate(NetlistBuilder builder, GateType type, String name) {
+        String[] parameters = name.split(":");
+        switch (type) {
+            case BUS_MERGE:
+                return builder.addBusGate(type, 0, parameters.length > 1 ? Integer.parseInt(parameters[1]) : 1);
+            case BUS_SPLIT:
+                return parameters.length > 2
+                        ? builder.addBusGate(type, Integer.parseInt(parameters[1]), Integer.parseInt(parameters[2]))
+                        : builder.addBusGate(type, 0, 8);
+            default:
+                return type.isBus() ? builder.addBusGate(type, 0, Long.SIZE) : builder.addGate(type);
+        }
+    }
+
+    /**
+     * Orders pin gates from top to bottom and then from left to right, and
+     * returns their netlist indices.
+     *
+     * @param pins    the gates acting as pins
+     * @param indices the netlist index of each gate by ID
+     * @return the netlist index of each pin in pin order
+     */
+    private static int[] getPinIndices(List<GateData> pins, Map<String, Integer> indices) {
+        return pins.stream()
+                .sorted(Comparator.comparingDouble((GateData gate) -> getPosition(gate).getY())
+                        .thenComparingDouble(gate -> getPosition(gate).getX()))
+                .mapToInt(gate -> indices.get(gate.id))
+                .toArray();
+    }
+
+    /**
+     * Returns the position of a gate, or the origin if it has none.
+     *
+     * @param gate the data of the gate
+     * @return the position
+     */
+    private static Point2D getPosition(GateData gate) {
+        return gate.position != null ? gate.position : Point2D.ZERO;
+    }
+
+    /**
+     * Maps the saved type name of a primitive gate to its simulation type.
+     *
+     * @param type the saved type name
+     * @return the gate type
+     * @throws IllegalArgumentException if the type is unknown
+     */
+    private static GateType getGateType(String type) {
+        String normalized = type.contains(":") ? type.substring(0, type.indexOf(':')) : type;
+        normalized = normalized.endsWith("Gate") ? normalized.substring(0, normalized.length() - 4) : normalized;
+        switch (normalized.toUpperCase()) {
+            case "AND":
+                return GateType.AND;
+            case "OR":
+                return GateType.OR;
+            case "NOT":
+                return GateType.NOT;
+            case "BUFFER":
+                return GateType.BUFFER;
+            case "NAND":
+                return GateType.NAND;
+            case "NOR":
+                return GateType.NOR;
+            case "XOR":
+                return GateType.XOR;
+            case "XNOR":
+                return GateType.XNOR;
+            case "TRISTATE":
+                return GateType.TRISTATE;
+            case "SWITCH":
+                return GateType.SWITCH;
+            case "CLOCK":
+                return GateType.CLOCK;
+            case "HIGHCONSTANT":
+                return GateType.HIGH_CONSTANT;
+            case "LOWCONSTANT":
+                return GateType.LOW_CONSTANT;
+            case "LIGHTBULB":
+                return GateType.LIGHTBULB;
+            case "FOURBITDIGIT":
+                return GateType.FOUR_BIT_DIGIT;
+            case "BUSMERGER":
+                return GateType.BUS_MERGE;
+            case "BUSSPLITTER":
+                return GateType.BUS_SPLIT;
+            case "BUSAND":
+                return GateType.BUS_AND;
+            case "BUSOR":
+                return GateType.BUS_OR;
+            case "BUSXOR":
+                return GateType.BUS_XOR;
+            case "EDGE_D_FLIPFLOP":
+                return GateType.EDGE_D_FLIPFLOP;
+            case "EDGE_JK_FLIPFLOP":
+                return GateType.EDGE_JK_FLIPFLOP;
+            case "SYNC_T_FLIPFLOP":
+                return GateType.SYNC_T_FLIPFLOP;
+            case "LEVEL_D_FLIPFLOP":
+                return GateType.LEVEL_D_FLIPFLOP;
+            case "SYNC_RS_FLIPFLOP":
+                return GateType.SYNC_RS_FLIPFLOP;
+            case "ASYNC_RS_FLIPFLOP":
+                return GateType.ASYNC_RS_FLIPFLOP;
+            default:
+                throw new IllegalArgumentException("Unknown gate type: " + type);
+        }
+    }
+
+    /**
+     * Returns the file of a definition in the library directory.
+     *
+     * @param name the name of the definition
+     * @return the file, or null if the definition is not stored
+     */
+    private static Path findFile(String name) {
+        for (String extension : new String[] { CircuitFileManager.BINARY_EXTENSION, JSON_EXTENSION }) {
+            Path file = DIRECTORY.resolve(name + extension);
+            if (Files.isRegularFile(file)) {
+                return file;
+            }
+        }
+        return null;
+    }
+}
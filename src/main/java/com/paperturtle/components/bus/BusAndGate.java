@@ -0,0 +1,39 @@
+package com.paperturtle.components.bus;
+
+import com.paperturtle.components.LogicGate;
+import com.paperturtle.simulation.GateType;
+
+/**
+ * Represents a bus AND gate, which outputs the bitwise AND of the words on its inputs. With no input connected, the word is 0.
+ * 
+ * @see BusGate
+ * 
+ * @author Seweryn Czabanowski
+ */
+public class BusAndGate extends BusGate {
+    /**
+     * Constructs a BusAndGate with two inputs.
+     */
+    public BusAndGate() {
+        super(2);
+    }
+
+    @Override
+    protected long evaluateWord() {
+        long result = inputs.isEmpty() ? 0L : -1L;
+        for (LogicGate input : inputs) {
+            result &= getWord(input);
+        }
+        return result;
+    }
+
+    @Override
+    protected String getLabel() {
+        return "BUS AND";
+    }
+
+    @Override
+    public GateType getGateType() {
+        return GateType.BUS_AND;
+    }
+}
@@ -0,0 +1,258 @@
+package com.paperturtle.components.bus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.paperturtle.components.LogicGate;
+import com.paperturtle.utils.BlockImageUtil;
+
+import javafx.geometry.Point2D;
+import javafx.scene.control.Tooltip;
+import javafx.scene.image.Image;
+import javafx.scene.layout.Pane;
+import javafx.scene.shape.Line;
+import javafx.util.Pair;
+
+/**
+ * Represents a component whose output is a bus: a word of up to 64 bits carried
+ * by a single connection. The output of a bus component is drawn as one thick
+ * line, and its boolean output is true when any bit of the word is set, so a
+ * bus can also drive ordinary gates and lightbulbs.
+ *
+ * <p>
+ * Inputs driven by ordinary gates read as the word 1 or 0. The current word is
+ * shown in the tooltip of the component.
+ * </p>
+ *
+ * @see com.paperturtle.simulation.GateType#isBus()
+ *
+ * @author Seweryn Czabanowski
+ */
+public abstract class BusGate extends LogicGate {
+    /**
+     * The line width of bus connections.
+     */
+    public static final double BUS_STROKE_WIDTH = 4;
+
+    /**
+     * The width of the image of bus components.
+     */
+    protected static final double WIDTH = 110;
+
+    /**
+     * The vertical distance between two input pins.
+     */
+    protected static final double PIN_SPACING = 20;
+
+    /**
+     * The current word of the bus.
+     */
+    protected long word = 0L;
+
+    /**
+     * The tooltip showing the current word.
+     */
+    private Tooltip tooltip;
+
+    /**
+     * Constructs a BusGate with the specified number of input pins, spaced evenly
+     * from top to bottom.
+     *
+     * @param inputCount the number of input pins
+     */
+    protected BusGate(int inputCount) {
+        super(null, createInputPoints(inputCount), new Point2D(WIDTH - 5, getHeight(inputCount) / 2));
+    }
+
+    /**
+     * Checks if a type name denotes a bus component.
+     *
+     * @param type the type name
+     * @return true if the type is a bus type, false otherwise
+     */
+    public static boolean isBusType(String type) {
+        return type != null && type.regionMatches(true, 0, "Bus", 0, 3);
+    }
+
+    /**
+     * Computes the word of the bus from the current outputs of the inputs.
+     *
+     * @return the new word
+     */
+    protected abstract long evaluateWord();
+
+    /**
+     * Returns the label drawn in the image of the component.
+     *
+     * @return the label
+     */
+    protected abstract String getLabel();
+
+    /**
+     * Returns the bit offset passed to the simulation.
+     *
+     * @return the bit offset
+     */
+    public int getOffset() {
+        return 0;
+    }
+
+    /**
+     * Returns the bit width passed to the simulation.
+     *
+     * @return the bit width
+     */
+    public int getWidth() {
+        return Long.SIZE;
+    }
+
+    /**
+     * Checks if the inputs of the component are buses, which are drawn as thick
+     * leads.
+     *
+     * @return true if the inputs are buses
+     */
+    protected boolean hasBusInputs() {
+        return true;
+    }
+
+    /**
+     * Checks if the output of the component is a bus, which is drawn as a thick
+     * line.
+     *
+     * @return true if the output is a bus
+     */
+    protected boolean hasBusOutput() {
+        return true;
+    }
+
+    /**
+     * Returns the current word of the bus.
+     *
+     * @return the word
+     */
+    public long getWord() {
+        return word;
+    }
+
+    /**
+     * Returns the word on the output of a gate: the word of a bus component, or
+     * 1 or 0 for any other gate.
+     *
+     * @param gate the gate
+     * @return the word, or 0 if the gate is null
+     */
+    protected static long getWord(LogicGate gate) {
+        if (gate instanceof BusGate bus) {
+            return bus.getWord();
+        }
+        return gate != null && gate.getOutput() ? 1L : 0L;
+    }
+
+    /**
+     * Returns a word with the lowest bits set.
+     *
+     * @param width the number of bits to set, from 1 to 64
+     * @return the mask
+     */
+    protected static long mask(int width) {
+        return width >= Long.SIZE ? -1L : (1L << width) - 1;
+    }
+
+    /**
+     * Applies a word computed by the simulation to this component.
+     *
+     * @param word the simulated word
+     */
+    public void applySimulatedWord(long word) {
+        this.word = word;
+        updateTooltip();
+    }
+
+    /**
+     * Updates the image of the component after its configuration changed, and
+     * recompiles and re-evaluates the circuit.
+     */
+    protected void configurationChanged() {
+        if (imageView != null) {
+            imageView.setImage(createImage());
+        }
+        outputConnections.forEach(line -> line.setStrokeWidth(hasBusOutput() ? BUS_STROKE_WIDTH : 1));
+        topologyChanged();
+        changed();
+        currentState = evaluate();
+        propagateStateChange();
+    }
+
+    /**
+     * Updates the tooltip to show the current word.
+     */
+    private void updateTooltip() {
+        if (tooltip != null) {
+            tooltip.setText(String.format("%s%n0x%X (%d)", getLabel(), word, word));
+        }
+    }
+
+    /**
+     * Creates the input points of a component with the specified number of
+     * inputs.
+     *
+     * @param inputCount the number of input pins
+     * @return the list of input points
+     */
+    private static List<Point2D> createInputPoints(int inputCount) {
+        List<Point2D> points = new ArrayList<>();
+        double top = getHeight(inputCount) / 2 - (inputCount - 1) * PIN_SPACING / 2;
+        for (int pin = 0; pin < inputCount; pin++) {
+            points.add(new Point2D(5, top + pin * PIN_SPACING));
+        }
+        return points;
+    }
+
+    /**
+     * Returns the height of the image of a component with the specified number
+     * of inputs.
+     *
+     * @param inputCount the number of input pins
+     * @return the height
+     */
+    private static double getHeight(int inputCount) {
+        return Math.max(inputCount, 2) * PIN_SPACING + 10;
+    }
+
+    @Override
+    public Image createImage() {
+        return BlockImageUtil.loadBlockImage(getTypeName(), getLabel(), inputPoints,
+                hasBusInputs() ? BUS_STROKE_WIDTH : 2, outputPoint, hasBusOutput() ? BUS_STROKE_WIDTH : 2, WIDTH,
+                getHeight(inputPoints.size()));
+    }
+
+    @Override
+    public void createVisualRepresentation(Pane canvas) {
+        super.createVisualRepresentation(canvas);
+        tooltip = new Tooltip();
+        tooltip.getStyleClass().add("tooltip-style");
+        updateTooltip();
+        Tooltip.install(imageView, tooltip);
+    }
+
+    @Override
+    public boolean evaluate() {
+        word = evaluateWord();
+        updateTooltip();
+        return word != 0;
+    }
+
+    @Override
+    public void addOutputConnection(Line line) {
+        super.addOutputConnection(line);
+        if (hasBusOutput()) {
+            line.setStrokeWidth(BUS_STROKE_WIDTH);
+        }
+    }
+
+    @Override
+    public List<Pair<Boolean[], Boolean>> getTruthTableData() {
+        return new ArrayList<>();
+    }
+}
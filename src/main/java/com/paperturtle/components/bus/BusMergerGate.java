@@ -0,0 +1,166 @@
+package com.paperturtle.components.bus;
+
+import com.paperturtle.simulation.GateType;
+
+import javafx.geometry.Insets;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.GridPane;
+
+/**
+ * Represents a bus merger, which builds a bus from eight inputs. Each input
+ * supplies the same number of bits, the pin width: input {@code i} supplies the
+ * bits {@code i * w .. (i + 1) * w} of the bus. With a pin width of 1 the merger
+ * builds an 8-bit bus from single bits; with a pin width of 8 it builds a
+ * 64-bit bus from eight 8-bit buses.
+ *
+ * <p>
+ * The merger is saved with the type name {@code BusMerger:<pin width>}.
+ * </p>
+ *
+ * @see BusSplitterGate
+ *
+ * @author Seweryn Czabanowski
+ */
+public class BusMergerGate extends BusGate {
+    /**
+     * The number of input pins.
+     */
+    public static final int PIN_COUNT = 8;
+
+    /**
+     * The number of bits each input supplies.
+     */
+    private int pinWidth;
+
+    /**
+     * Constructs a BusMergerGate that builds an 8-bit bus from single bits.
+     */
+    public BusMergerGate() {
+        this(1);
+    }
+
+    /**
+     * Constructs a BusMergerGate with the specified pin width.
+     *
+     * @param pinWidth the number of bits each input supplies, from 1 to 8
+     * @throws IllegalArgumentException if the pin width is out of range
+     */
+    public BusMergerGate(int pinWidth) {
+        super(PIN_COUNT);
+        setPinWidthValue(pinWidth);
+    }
+
+    /**
+     * Creates a BusMergerGate from its type name.
+     *
+     * @param type the type name, optionally followed by ":" and the pin width
+     * @return the gate, or null if the pin width is invalid
+     */
+    public static BusMergerGate create(String type) {
+        String[] parts = type.split(":");
+        try {
+            return parts.length > 1 ? new BusMergerGate(Integer.parseInt(parts[1])) : new BusMergerGate();
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid bus merger: " + type);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the number of bits each input supplies.
+     *
+     * @return the pin width
+     */
+    public int getPinWidth() {
+        return pinWidth;
+    }
+
+    /**
+     * Sets the number of bits each input supplies and re-evaluates the circuit.
+     *
+     * @param pinWidth the pin width, from 1 to 8
+     * @throws IllegalArgumentException if the pin width is out of range
+     */
+    public void setPinWidth(int pinWidth) {
+        setPinWidthValue(pinWidth);
+        configurationChanged();
+    }
+
+    /**
+     * Validates and stores the pin width.
+     *
+     * @param pinWidth the pin width, from 1 to 8
+     * @throws IllegalArgumentException if the pin width is out of range
+     */
+    private void setPinWidthValue(int pinWidth) {
+        if (pinWidth < 1 || pinWidth * PIN_COUNT > Long.SIZE) {
+            throw new IllegalArgumentException("Pin width must be between 1 and " + Long.SIZE / PIN_COUNT);
+        }
+        this.pinWidth = pinWidth;
+    }
+
+    /**
+     * Shows a dialog for editing the pin width.
+     */
+    public void showBitsEditDialog() {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Edit Bus Merger");
+        alert.setHeaderText("Adjust the number of bits each input supplies.");
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setPadding(new Insets(20, 150, 10, 10));
+
+        TextField widthField = new TextField(String.valueOf(pinWidth));
+        widthField.setPromptText("Enter a width from 1 to " + Long.SIZE / PIN_COUNT);
+
+        grid.add(new Label("Bits per input:"), 0, 0);
+        grid.add(widthField, 1, 0);
+
+        alert.getDialogPane().setContent(grid);
+        alert.showAndWait();
+
+        try {
+            setPinWidth(Integer.parseInt(widthField.getText().trim()));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid pin width: " + e.getMessage());
+        }
+    }
+
+    @Override
+    protected long evaluateWord() {
+        long result = 0L;
+        for (int pin = 0; pin < PIN_COUNT; pin++) {
+            result |= (getWord(getInputSource(pin)) & mask(pinWidth)) << (pin * pinWidth);
+        }
+        return result;
+    }
+
+    @Override
+    protected String getLabel() {
+        return "MERGE " + PIN_COUNT + "x" + pinWidth;
+    }
+
+    @Override
+    protected boolean hasBusInputs() {
+        return pinWidth > 1;
+    }
+
+    @Override
+    public int getWidth() {
+        return pinWidth;
+    }
+
+    @Override
+    public GateType getGateType() {
+        return GateType.BUS_MERGE;
+    }
+
+    @Override
+    public String getTypeName() {
+        return "BusMerger:" + pinWidth;
+    }
+}
@@ -0,0 +1,39 @@
+package com.paperturtle.components.bus;
+
+import com.paperturtle.components.LogicGate;
+import com.paperturtle.simulation.GateType;
+
+/**
+ * Represents a bus OR gate, which outputs the bitwise OR of the words on its inputs.
+ * 
+ * @see BusGate
+ * 
+ * @author Seweryn Czabanowski
+ */
+public class BusOrGate extends BusGate {
+    /**
+     * Constructs a BusOrGate with two inputs.
+     */
+    public BusOrGate() {
+        super(2);
+    }
+
+    @Override
+    protected long evaluateWord() {
+        long result = 0L;
+        for (LogicGate input : inputs) {
+            result |= getWord(input);
+        }
+        return result;
+    }
+
+    @Override
+    protected String getLabel() {
+        return "BUS OR";
+    }
+
+    @Override
+    public GateType getGateType() {
+        return GateType.BUS_OR;
+    }
+}
@@ -0,0 +1,168 @@
+package com.paperturtle.components.bus;
+
+import com.paperturtle.simulation.GateType;
+
+import javafx.geometry.Insets;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.GridPane;
+
+/**
+ * Represents a bus splitter, which outputs a range of bits of the bus on its
+ * input, shifted down to bit 0. A splitter with a width of 1 outputs a single
+ * bit and drives ordinary gates; a bus is split into several fields by placing
+ * one splitter per field.
+ *
+ * <p>
+ * The splitter is saved with the type name
+ * {@code BusSplitter:<offset>:<width>}.
+ * </p>
+ *
+ * @see BusMergerGate
+ *
+ * @author Seweryn Czabanowski
+ */
+public class BusSplitterGate extends BusGate {
+    /**
+     * The lowest bit of the input that is output.
+     */
+    private int offset;
+
+    /**
+     * The number of bits that are output.
+     */
+    private int width;
+
+    /**
+     * Constructs a BusSplitterGate that outputs the lowest 8 bits of its input.
+     */
+    public BusSplitterGate() {
+        this(0, 8);
+    }
+
+    /**
+     * Constructs a BusSplitterGate for the specified range of bits.
+     *
+     * @param offset the lowest bit that is output
+     * @param width  the number of bits that are output
+     * @throws IllegalArgumentException if the range does not fit in 64 bits
+     */
+    public BusSplitterGate(int offset, int width) {
+        super(1);
+        setRangeValue(offset, width);
+    }
+
+    /**
+     * Creates a BusSplitterGate from its type name.
+     *
+     * @param type the type name, optionally followed by ":" and the offset and
+     *             width separated by ":"
+     * @return the gate, or null if the range is invalid
+     */
+    public static BusSplitterGate create(String type) {
+        String[] parts = type.split(":");
+        try {
+            return parts.length > 2 ? new BusSplitterGate(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]))
+                    : new BusSplitterGate();
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid bus splitter: " + type);
+            return null;
+        }
+    }
+
+    /**
+     * Sets the range of bits that are output and re-evaluates the circuit.
+     *
+     * @param offset the lowest bit that is output
+     * @param width  the number of bits that are output
+     * @throws IllegalArgumentException if the range does not fit in 64 bits
+     */
+    public void setRange(int offset, int width) {
+        setRangeValue(offset, width);
+        configurationChanged();
+    }
+
+    /**
+     * Validates and stores the range of bits that are output.
+     *
+     * @param offset the lowest bit that is output
+     * @param width  the number of bits that are output
+     * @throws IllegalArgumentException if the range does not fit in 64 bits
+     */
+    private void setRangeValue(int offset, int width) {
+        if (offset < 0 || width < 1 || offset + width > Long.SIZE) {
+            throw new IllegalArgumentException("The bits must lie between 0 and " + (Long.SIZE - 1));
+        }
+        this.offset = offset;
+        this.width = width;
+    }
+
+    /**
+     * Shows a dialog for editing the range of bits that are output.
+     */
+    public void showBitsEditDialog() {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Edit Bus Splitter");
+        alert.setHeaderText("Adjust the bits taken from the bus.");
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setPadding(new Insets(20, 150, 10, 10));
+
+        TextField offsetField = new TextField(String.valueOf(offset));
+        offsetField.setPromptText("Enter the lowest bit");
+        TextField widthField = new TextField(String.valueOf(width));
+        widthField.setPromptText("Enter the number of bits");
+
+        grid.add(new Label("Lowest bit:"), 0, 0);
+        grid.add(offsetField, 1, 0);
+        grid.add(new Label("Number of bits:"), 0, 1);
+        grid.add(widthField, 1, 1);
+
+        alert.getDialogPane().setContent(grid);
+        alert.showAndWait();
+
+        try {
+            setRange(Integer.parseInt(offsetField.getText().trim()), Integer.parseInt(widthField.getText().trim()));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid bit range: " + e.getMessage());
+        }
+    }
+
+    @Override
+    protected long evaluateWord() {
+        return inputs.isEmpty() ? 0L : getWord(inputs.get(0)) >>> offset & mask(width);
+    }
+
+    @Override
+    protected String getLabel() {
+        return width == 1 ? "SPLIT [" + offset + "]" : "SPLIT [" + (offset + width - 1) + ":" + offset + "]";
+    }
+
+    @Override
+    protected boolean hasBusOutput() {
+        return width > 1;
+    }
+
+    @Override
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public GateType getGateType() {
+        return GateType.BUS_SPLIT;
+    }
+
+    @Override
+    public String getTypeName() {
+        return "BusSplitter:" + offset + ":" + width;
+    }
+}
@@ -0,0 +1,39 @@
+package com.paperturtle.components.bus;
+
+import com.paperturtle.components.LogicGate;
+import com.paperturtle.simulation.GateType;
+
+/**
+ * Represents a bus XOR gate, which outputs the bitwise XOR of the words on its inputs.
+ * 
+ * @see BusGate
+ * 
+ * @author Seweryn Czabanowski
+ */
+public class BusXorGate extends BusGate {
+    /**
+     * Constructs a BusXorGate with two inputs.
+     */
+    public BusXorGate() {
+        super(2);
+    }
+
+    @Override
+    protected long evaluateWord() {
+        long result = 0L;
+        for (LogicGate input : inputs) {
+            result ^= getWord(input);
+        }
+        return result;
+    }
+
+    @Override
+    protected String getLabel() {
+        return "BUS XOR";
+    }
+
+    @Override
+    public GateType getGateType() {
+        return GateType.BUS_XOR;
+    }
+}
@@ -0,0 +1,149 @@
+package com.paperturtle.components.bus;
+
+import com.paperturtle.components.LogicGate;
+import com.paperturtle.components.SubCircuitLibrary;
+import com.paperturtle.components.gates.SubCircuitGate;
+import com.paperturtle.simulation.GateType;
+import com.paperturtle.simulation.SubCircuitDefinition;
+import com.paperturtle.simulation.SubCircuitInstance;
+
+/**
+ * Represents an instance of a sub-circuit that outputs all of its outputs as
+ * one bus: output pin {@code k} of the sub-circuit drives bit {@code k} of the
+ * word. Unlike placing one {@link SubCircuitGate} per output, every output comes
+ * from the same instance, so the module is evaluated once per change and
+ * latches inside it keep a single state. The outputs are taken apart with bus
+ * splitters.
+ *
+ * <p>
+ * The gate is saved with the type name {@code SubCircuitBus:<definition>} and
+ * can be placed for sub-circuits with up to 64 outputs.
+ * </p>
+ *
+ * @see SubCircuitGate
+ * @see SubCircuitInstance#ALL_OUTPUTS
+ *
+ * @author Seweryn Czabanowski
+ */
+public class SubCircuitBusGate extends BusGate {
+    /**
+     * The prefix of the type names of sub-circuit bus gates.
+     */
+    public static final String TYPE_PREFIX = "SubCircuitBus:";
+
+    /**
+     * The sub-circuit instance evaluated for this gate.
+     */
+    private final SubCircuitInstance instance;
+
+    /**
+     * Constructs a SubCircuitBusGate outputting all outputs of a sub-circuit.
+     *
+     * @param definition the definition of the sub-circuit
+     * @throws IllegalArgumentException if the sub-circuit has more than 64
+     *                                  outputs
+     */
+    public SubCircuitBusGate(SubCircuitDefinition definition) {
+        super(definition.getInputCount());
+        this.instance = new SubCircuitInstance(definition, SubCircuitInstance.ALL_OUTPUTS);
+    }
+
+    /**
+     * Creates a SubCircuitBusGate from its type name, loading the definition
+     * from the library if necessary.
+     *
+     * @param type the type name of the gate
+     * @return the gate, or null if the definition is unknown or has more than 64
+     *         outputs
+     */
+    public static SubCircuitBusGate create(String type) {
+        SubCircuitDefinition definition = SubCircuitLibrary.get(getDefinitionName(type));
+        if (definition == null || definition.getOutputCount() > Long.SIZE) {
+            return null;
+        }
+        return new SubCircuitBusGate(definition);
+    }
+
+    /**
+     * Checks if a type name denotes a sub-circuit bus gate.
+     *
+     * @param type the type name
+     * @return true if the type is a sub-circuit bus type, false otherwise
+     */
+    public static boolean isSubCircuitBusType(String type) {
+        return type != null && type.regionMatches(true, 0, TYPE_PREFIX, 0, TYPE_PREFIX.length());
+    }
+
+    /**
+     * Returns the type name of the bus of a sub-circuit.
+     *
+     * @param definition the name of the definition
+     * @return the type name
+     */
+    public static String getTypeName(String definition) {
+        return TYPE_PREFIX + definition;
+    }
+
+    /**
+     * Returns the name of the definition of a sub-circuit bus type name.
+     *
+     * @param type the type name
+     * @return the name of the definition
+     */
+    public static String getDefinitionName(String type) {
+        return type.substring(TYPE_PREFIX.length());
+    }
+
+    /**
+     * Returns the sub-circuit instance evaluated for this gate.
+     *
+     * @return the instance
+     */
+    public SubCircuitInstance getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the definition of the sub-circuit.
+     *
+     * @return the definition
+     */
+    public SubCircuitDefinition getDefinition() {
+        return instance.getDefinition();
+    }
+
+    @Override
+    protected long evaluateWord() {
+        boolean[] values = new boolean[getDefinition().getInputCount()];
+        for (int pin = 0; pin < values.length; pin++) {
+            LogicGate source = getInputSource(pin);
+            values[pin] = source != null && source.getOutput();
+        }
+        return instance.evaluateWord(values);
+    }
+
+    @Override
+    protected String getLabel() {
+        return getDefinition().getName() + " [0.." + (getDefinition().getOutputCount() - 1) + "]";
+    }
+
+    @Override
+    protected boolean hasBusInputs() {
+        return false;
+    }
+
+    @Override
+    public int getWidth() {
+        return getDefinition().getOutputCount();
+    }
+
+    @Override
+    public GateType getGateType() {
+        return GateType.SUBCIRCUIT_BUS;
+    }
+
+    @Override
+    public String getTypeName() {
+        return getTypeName(getDefinition().getName());
+    }
+}
@@ -0,0 +1,14 @@
+/**
+ * This package contains the bus components for the Logic Gate simulator
+ * application.
+ *
+ * <p>
+ * Bus components carry a word of up to 64 bits over a single connection, so a
+ * wide datapath is drawn as one wire and simulated with one word operation
+ * instead of one wire and gate per bit. Mergers build a bus from single bits or
+ * narrower buses, splitters extract a range of bits from a bus, and the bus
+ * gates combine whole words bitwise. A sub-circuit can also be placed as a bus
+ * component that outputs all of its outputs as one word.
+ * </p>
+ */
+package com.paperturtle.components.bus;
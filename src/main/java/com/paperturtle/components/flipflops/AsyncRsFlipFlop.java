@@ -0,0 +1,38 @@
+package com.paperturtle.components.flipflops;
+
+import com.paperturtle.simulation.GateType;
+
+/**
+ * Represents an RS latch with active-low inputs in a digital circuit.
+ * The latch sets while its S input (pin 0) is false and resets while its R input
+ * (pin 1) is false; setting takes precedence. Unconnected inputs read as true,
+ * so the latch holds its value until an input is pulled low.
+ *
+ * @see FlipFlop
+ *
+ * @author Seweryn Czabanowski
+ */
+public class AsyncRsFlipFlop extends FlipFlop {
+    /**
+     * Constructs an AsyncRsFlipFlop with its predefined image, input points and
+     * output point.
+     */
+    public AsyncRsFlipFlop() {
+        super("ASYNC_RS_FLIPFLOP", 2, -1);
+    }
+
+    @Override
+    protected boolean next(boolean[] inputs, boolean state) {
+        return !inputs[0] || inputs[1] && state;
+    }
+
+    @Override
+    protected boolean getUnconnectedValue() {
+        return true;
+    }
+
+    @Override
+    public GateType getGateType() {
+        return GateType.ASYNC_RS_FLIPFLOP;
+    }
+}
@@ -0,0 +1,32 @@
+package com.paperturtle.components.flipflops;
+
+import com.paperturtle.simulation.GateType;
+
+/**
+ * Represents an edge-triggered D flip-flop in a digital circuit.
+ * On the rising edge of its clock input (pin 1), the flip-flop stores the value
+ * of its D input (pin 0).
+ *
+ * @see FlipFlop
+ *
+ * @author Seweryn Czabanowski
+ */
+public class EdgeDFlipFlop extends FlipFlop {
+    /**
+     * Constructs an EdgeDFlipFlop with its predefined image, input points and
+     * output point.
+     */
+    public EdgeDFlipFlop() {
+        super("EDGE_D_FLIPFLOP", 2, 1);
+    }
+
+    @Override
+    protected boolean next(boolean[] inputs, boolean state) {
+        return inputs[0];
+    }
+
+    @Override
+    public GateType getGateType() {
+        return GateType.EDGE_D_FLIPFLOP;
+    }
+}
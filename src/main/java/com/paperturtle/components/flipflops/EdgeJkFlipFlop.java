@@ -0,0 +1,33 @@
+package com.paperturtle.components.flipflops;
+
+import com.paperturtle.simulation.GateType;
+
+/**
+ * Represents an edge-triggered JK flip-flop in a digital circuit.
+ * On the rising edge of its clock input (pin 1), the flip-flop sets when J
+ * (pin 0) is true, resets when K (pin 2) is true, toggles when both are true and
+ * holds its value when both are false.
+ *
+ * @see FlipFlop
+ *
+ * @author Seweryn Czabanowski
+ */
+public class EdgeJkFlipFlop extends FlipFlop {
+    /**
+     * Constructs an EdgeJkFlipFlop with its predefined image, input points and
+     * output point.
+     */
+    public EdgeJkFlipFlop() {
+        super("EDGE_JK_FLIPFLOP", 3, 1);
+    }
+
+    @Override
+    protected boolean next(boolean[] inputs, boolean state) {
+        return inputs[0] && inputs[2] ? !state : inputs[0] || !inputs[2] && state;
+    }
+
+    @Override
+    public GateType getGateType() {
+        return GateType.EDGE_JK_FLIPFLOP;
+    }
+}
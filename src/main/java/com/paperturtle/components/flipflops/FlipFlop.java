@@ -0,0 +1,198 @@
+package com.paperturtle.components.flipflops;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.paperturtle.components.LogicGate;
+
+import javafx.geometry.Point2D;
+import javafx.util.Pair;
+
+/**
+ * Represents a flip-flop or latch, a component that stores a single bit. The
+ * stored bit is the output Q of the component; the inverted output drawn in
+ * the image is not connectable, as every component has a single output.
+ *
+ * <p>
+ * Edge-triggered flip-flops have a clock input and only change their output on
+ * its rising edge. Latches have no clock and change their output whenever their
+ * inputs allow it. On the canvas the stored bit is computed by the simulation
+ * engine, which commits all flip-flops clocked by the same edge at once.
+ * </p>
+ *
+ * <p>
+ * A flip-flop is saved with the type name of its image, such as
+ * {@code EDGE_D_FLIPFLOP}.
+ * </p>
+ *
+ * @see com.paperturtle.simulation.SimulationEngine
+ *
+ * @author Seweryn Czabanowski
+ */
+public abstract class FlipFlop extends LogicGate {
+    /**
+     * The vertical position of the topmost input pin.
+     */
+    private static final double PIN_TOP = 30;
+
+    /**
+     * The vertical position of the bottommost input pin.
+     */
+    private static final double PIN_BOTTOM = 70;
+
+    /**
+     * The type name of the flip-flop, which is also the name of its image.
+     */
+    private final String type;
+
+    /**
+     * The input pin of the clock, or -1 for a latch.
+     */
+    private final int clockPin;
+
+    /**
+     * The stored bit.
+     */
+    private boolean state = false;
+
+    /**
+     * The value of the clock input when the flip-flop was last evaluated.
+     */
+    private boolean lastClock = false;
+
+    /**
+     * Constructs a FlipFlop with the image of the specified type and its input
+     * pins spaced evenly from top to bottom.
+     *
+     * @param type       the type name of the flip-flop
+     * @param inputCount the number of input pins
+     * @param clockPin   the input pin of the clock, or -1 for a latch
+     */
+    protected FlipFlop(String type, int inputCount, int clockPin) {
+        super("/com/paperturtle/" + type + "_ANSI_Labelled.svg", createInputPoints(inputCount),
+                new Point2D(95, PIN_TOP));
+        this.type = type;
+        this.clockPin = clockPin;
+    }
+
+    /**
+     * Computes the next value of the stored bit. Edge-triggered flip-flops call
+     * this method on the rising edge of their clock only; latches call it
+     * whenever they are evaluated.
+     *
+     * @param inputs the value on every input pin
+     * @param state  the currently stored bit
+     * @return the next stored bit
+     */
+    protected abstract boolean next(boolean[] inputs, boolean state);
+
+    /**
+     * Returns the value read from an unconnected input pin.
+     *
+     * @return false by default
+     */
+    protected boolean getUnconnectedValue() {
+        return false;
+    }
+
+    /**
+     * Creates the input points of a flip-flop with the specified number of
+     * inputs.
+     *
+     * @param inputCount the number of input pins
+     * @return the list of input points
+     */
+    private static List<Point2D> createInputPoints(int inputCount) {
+        List<Point2D> points = new ArrayList<>();
+        for (int pin = 0; pin < inputCount; pin++) {
+            points.add(new Point2D(5, PIN_TOP + pin * (PIN_BOTTOM - PIN_TOP) / (inputCount - 1)));
+        }
+        return points;
+    }
+
+    /**
+     * Reads the current value on every input pin.
+     *
+     * @return the input values, indexed by pin
+     */
+    private boolean[] readInputs() {
+        boolean[] inputs = new boolean[inputPoints.size()];
+        for (int pin = 0; pin < inputs.length; pin++) {
+            LogicGate source = getInputSource(pin);
+            inputs[pin] = source != null ? source.getOutput() : getUnconnectedValue();
+        }
+        return inputs;
+    }
+
+    /**
+     * Returns the input pin of the clock.
+     *
+     * @return the clock pin, or -1 for a latch
+     */
+    public int getClockPin() {
+        return clockPin;
+    }
+
+    /**
+     * Evaluates the flip-flop. On the canvas the stored bit is computed by the
+     * simulation, so the last simulated bit is returned; otherwise the inputs are
+     * read and the bit is updated on a rising clock edge, or at once for a latch.
+     *
+     * @return the stored bit
+     */
+    @Override
+    public boolean evaluate() {
+        if (simulation != null) {
+            return state;
+        }
+        boolean[] inputs = readInputs();
+        if (clockPin < 0) {
+            state = next(inputs, state);
+        } else {
+            if (inputs[clockPin] && !lastClock) {
+                state = next(inputs, state);
+            }
+            lastClock = inputs[clockPin];
+        }
+        return state;
+    }
+
+    @Override
+    public void applySimulatedState(boolean state) {
+        this.state = state;
+        super.applySimulatedState(state);
+    }
+
+    /**
+     * Returns the characteristic table of the flip-flop: the stored bit after a
+     * clock edge, or after the latch is evaluated, for every combination of the
+     * inputs other than the clock and the currently stored bit, which is the
+     * last input column.
+     *
+     * @return the characteristic table
+     */
+    @Override
+    public List<Pair<Boolean[], Boolean>> getTruthTableData() {
+        List<Pair<Boolean[], Boolean>> list = new ArrayList<>();
+        int columns = clockPin < 0 ? inputPoints.size() + 1 : inputPoints.size();
+        for (int row = 0; row < 1 << columns; row++) {
+            boolean[] inputs = new boolean[inputPoints.size()];
+            Boolean[] key = new Boolean[columns];
+            int column = 0;
+            for (int pin = 0; pin < inputs.length; pin++) {
+                inputs[pin] = pin == clockPin || (row >> (columns - 1 - column) & 1) != 0;
+                if (pin != clockPin) {
+                    key[column++] = inputs[pin];
+                }
+            }
+            key[column] = (row & 1) != 0;
+            list.add(new Pair<>(key, next(inputs, key[column])));
+        }
+        return list;
+    }
+
+    @Override
+    public String getTypeName() {
+        return type;
+    }
+}
@@ -0,0 +1,32 @@
+package com.paperturtle.components.flipflops;
+
+import com.paperturtle.simulation.GateType;
+
+/**
+ * Represents a level-sensitive D latch in a digital circuit.
+ * While its enable input (pin 1) is true, the latch follows its D input (pin 0);
+ * otherwise it holds its value.
+ *
+ * @see FlipFlop
+ *
+ * @author Seweryn Czabanowski
+ */
+public class LevelDFlipFlop extends FlipFlop {
+    /**
+     * Constructs a LevelDFlipFlop with its predefined image, input points and
+     * output point.
+     */
+    public LevelDFlipFlop() {
+        super("LEVEL_D_FLIPFLOP", 2, -1);
+    }
+
+    @Override
+    protected boolean next(boolean[] inputs, boolean state) {
+        return inputs[1] ? inputs[0] : state;
+    }
+
+    @Override
+    public GateType getGateType() {
+        return GateType.LEVEL_D_FLIPFLOP;
+    }
+}
@@ -0,0 +1,33 @@
+package com.paperturtle.components.flipflops;
+
+import com.paperturtle.simulation.GateType;
+
+/**
+ * Represents a gated RS latch in a digital circuit.
+ * While its enable input (pin 1) is true, the latch sets when S (pin 0) is true
+ * and resets when R (pin 2) is true; setting takes precedence. Otherwise it holds
+ * its value.
+ *
+ * @see FlipFlop
+ *
+ * @author Seweryn Czabanowski
+ */
+public class SyncRsFlipFlop extends FlipFlop {
+    /**
+     * Constructs a SyncRsFlipFlop with its predefined image, input points and
+     * output point.
+     */
+    public SyncRsFlipFlop() {
+        super("SYNC_RS_FLIPFLOP", 3, -1);
+    }
+
+    @Override
+    protected boolean next(boolean[] inputs, boolean state) {
+        return inputs[1] ? inputs[0] || !inputs[2] && state : state;
+    }
+
+    @Override
+    public GateType getGateType() {
+        return GateType.SYNC_RS_FLIPFLOP;
+    }
+}
@@ -0,0 +1,32 @@
+package com.paperturtle.components.flipflops;
+
+import com.paperturtle.simulation.GateType;
+
+/**
+ * Represents an edge-triggered T flip-flop in a digital circuit.
+ * On the rising edge of its clock input (pin 1), the flip-flop toggles its value
+ * if its T input (pin 0) is true.
+ *
+ * @see FlipFlop
+ *
+ * @author Seweryn Czabanowski
+ */
+public class SyncTFlipFlop extends FlipFlop {
+    /**
+     * Constructs a SyncTFlipFlop with its predefined image, input points and
+     * output point.
+     */
+    public SyncTFlipFlop() {
+        super("SYNC_T_FLIPFLOP", 2, 1);
+    }
+
+    @Override
+    protected boolean next(boolean[] inputs, boolean state) {
+        return inputs[0] != state;
+    }
+
+    @Override
+    public GateType getGateType() {
+        return GateType.SYNC_T_FLIPFLOP;
+    }
+}
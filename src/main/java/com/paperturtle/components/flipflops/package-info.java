@@ -0,0 +1,14 @@
+/**
+ * This package contains the flip-flop components for the Logic Gate simulator
+ * application.
+ *
+ * <p>
+ * Flip-flops and latches are the sequential components of a circuit: they
+ * store a single bit and keep it until their inputs tell them otherwise.
+ * Edge-triggered flip-flops only change on the rising edge of their clock, and
+ * all flip-flops clocked by the same edge change together, so registered
+ * designs such as counters and shift registers simulate deterministically and
+ * can be stepped one clock cycle at a time.
+ * </p>
+ */
+package com.paperturtle.components.flipflops;
@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import com.paperturtle.components.LogicGate;
+import com.paperturtle.simulation.GateType;
 
 import java.util.ArrayList;
 
@@ -59,4 +60,8 @@ public class AndGate extends LogicGate {
         return list;
     }
 
+    @Override
+    public GateType getGateType() {
+        return GateType.AND;
+    }
 }
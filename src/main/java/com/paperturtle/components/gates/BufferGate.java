@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import com.paperturtle.components.LogicGate;
+import com.paperturtle.simulation.GateType;
 
 import java.util.ArrayList;
 
@@ -52,4 +53,8 @@ public class BufferGate extends LogicGate {
         return list;
     }
 
-}
\ No newline at end of file
+    @Override
+    public GateType getGateType() {
+        return GateType.BUFFER;
+    }
+}
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.paperturtle.components.LogicGate;
+import com.paperturtle.simulation.GateType;
 
 import javafx.geometry.Point2D;
 import javafx.util.Pair;
@@ -59,4 +60,8 @@ public class NotGate extends LogicGate {
         return list;
     }
 
-}
\ No newline at end of file
+    @Override
+    public GateType getGateType() {
+        return GateType.NOT;
+    }
+}
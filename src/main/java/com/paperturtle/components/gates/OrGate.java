@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.paperturtle.components.LogicGate;
+import com.paperturtle.simulation.GateType;
 
 import javafx.geometry.Point2D;
 import javafx.util.Pair;
@@ -56,4 +57,8 @@ public class OrGate extends LogicGate {
         return list;
     }
 
-}
\ No newline at end of file
+    @Override
+    public GateType getGateType() {
+        return GateType.OR;
+    }
+}
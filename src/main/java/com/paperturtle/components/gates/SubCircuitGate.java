@@ -0,0 +1,231 @@
+package com.paperturtle.components.gates;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.paperturtle.components.LogicGate;
+import com.paperturtle.components.SubCircuitLibrary;
+import com.paperturtle.components.bus.SubCircuitBusGate;
+import com.paperturtle.simulation.GateType;
+import com.paperturtle.simulation.SubCircuitDefinition;
+import com.paperturtle.simulation.SubCircuitInstance;
+import com.paperturtle.utils.BlockImageUtil;
+
+import javafx.geometry.Point2D;
+import javafx.scene.image.Image;
+import javafx.util.Pair;
+
+/**
+ * Represents an instance of a sub-circuit, a reusable module whose definition
+ * is stored once in the {@link SubCircuitLibrary}. The gate shows one output of
+ * the sub-circuit and evaluates its own instance; to use several outputs of one
+ * module with a single shared state, place a {@link SubCircuitBusGate} instead,
+ * which outputs all of them as one bus.
+ *
+ * <p>
+ * The gate is saved with the type name
+ * {@code SubCircuit:<definition>:<output>}. All instances of a definition share
+ * its compiled netlist and image, and each instance only keeps the values of
+ * the gates inside it.
+ * </p>
+ *
+ * @see SubCircuitDefinition
+ * @see SubCircuitInstance
+ *
+ * @author Seweryn Czabanowski
+ */
+public class SubCircuitGate extends LogicGate {
+    /**
+     * The prefix of the type names of sub-circuit gates.
+     */
+    public static final String TYPE_PREFIX = "SubCircuit:";
+
+    /**
+     * The width of the gate image.
+     */
+    private static final double WIDTH = 110;
+
+    /**
+     * The vertical distance between two input pins.
+     */
+    private static final double PIN_SPACING = 20;
+
+    /**
+     * The largest number of inputs for which a truth table is listed.
+     */
+    private static final int MAX_TRUTH_TABLE_INPUTS = 10;
+
+    /**
+     * The sub-circuit instance evaluated for this gate.
+     */
+    private final SubCircuitInstance instance;
+
+    /**
+     * Constructs a SubCircuitGate showing one output of a sub-circuit.
+     *
+     * @param definition the definition of the sub-circuit
+     * @param output     the output pin shown by the gate
+     */
+    public SubCircuitGate(SubCircuitDefinition definition, int output) {
+        super(null, createInputPoints(definition.getInputCount()),
+                new Point2D(WIDTH - 5, getHeight(definition.getInputCount()) / 2));
+        this.instance = new SubCircuitInstance(definition, output);
+    }
+
+    /**
+     * Creates a SubCircuitGate from its type name, loading the definition from
+     * the library if necessary.
+     *
+     * @param type the type name of the gate
+     * @return the gate, or null if the definition or output is unknown
+     */
+    public static SubCircuitGate create(String type) {
+        SubCircuitDefinition definition = SubCircuitLibrary.get(getDefinitionName(type));
+        int output = getOutputPin(type);
+        if (definition == null || output < 0 || output >= definition.getOutputCount()) {
+            return null;
+        }
+        return new SubCircuitGate(definition, output);
+    }
+
+    /**
+     * Checks if a type name denotes a sub-circuit gate.
+     *
+     * @param type the type name
+     * @return true if the type is a sub-circuit type, false otherwise
+     */
+    public static boolean isSubCircuitType(String type) {
+        return type != null && type.regionMatches(true, 0, TYPE_PREFIX, 0, TYPE_PREFIX.length());
+    }
+
+    /**
+     * Returns the type name of an output of a sub-circuit.
+     *
+     * @param definition the name of the definition
+     * @param output     the output pin
+     * @return the type name
+     */
+    public static String getTypeName(String definition, int output) {
+        return TYPE_PREFIX + definition + ":" + output;
+    }
+
+    /**
+     * Returns the name of the definition of a sub-circuit type name.
+     *
+     * @param type the type name
+     * @return the name of the definition
+     */
+    public static String getDefinitionName(String type) {
+        int separator = type.lastIndexOf(':');
+        return separator > TYPE_PREFIX.length() ? type.substring(TYPE_PREFIX.length(), separator)
+                : type.substring(TYPE_PREFIX.length());
+    }
+
+    /**
+     * Returns the output pin of a sub-circuit type name.
+     *
+     * @param type the type name
+     * @return the output pin, or -1 if the type name has none
+     */
+    public static int getOutputPin(String type) {
+        int separator = type.lastIndexOf(':');
+        try {
+            return separator > TYPE_PREFIX.length() ? Integer.parseInt(type.substring(separator + 1)) : 0;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Creates the input points of a sub-circuit with the specified number of
+     * inputs, spaced evenly from top to bottom.
+     *
+     * @param inputCount the number of input pins
+     * @return the list of input points
+     */
+    private static List<Point2D> createInputPoints(int inputCount) {
+        List<Point2D> points = new ArrayList<>();
+        for (int pin = 0; pin < inputCount; pin++) {
+            points.add(new Point2D(5, 15 + pin * PIN_SPACING));
+        }
+        return points;
+    }
+
+    /**
+     * Returns the height of the image of a sub-circuit with the specified number
+     * of inputs.
+     *
+     * @param inputCount the number of input pins
+     * @return the height
+     */
+    private static double getHeight(int inputCount) {
+        return Math.max(inputCount, 2) * PIN_SPACING + 10;
+    }
+
+    /**
+     * Returns the sub-circuit instance evaluated for this gate.
+     *
+     * @return the instance
+     */
+    public SubCircuitInstance getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the definition of the sub-circuit.
+     *
+     * @return the definition
+     */
+    public SubCircuitDefinition getDefinition() {
+        return instance.getDefinition();
+    }
+
+    @Override
+    public Image createImage() {
+        SubCircuitDefinition definition = getDefinition();
+        String label = definition.getOutputCount() > 1 ? definition.getName() + " [" + instance.getOutput() + "]"
+                : definition.getName();
+        return BlockImageUtil.loadBlockImage(getTypeName(), label, inputPoints, 2, outputPoint, 2, WIDTH,
+                getHeight(definition.getInputCount()));
+    }
+
+    @Override
+    public boolean evaluate() {
+        boolean[] values = new boolean[getDefinition().getInputCount()];
+        for (int pin = 0; pin < values.length; pin++) {
+            LogicGate source = getInputSource(pin);
+            values[pin] = source != null && source.getOutput();
+        }
+        return instance.evaluate(values);
+    }
+
+    @Override
+    public List<Pair<Boolean[], Boolean>> getTruthTableData() {
+        List<Pair<Boolean[], Boolean>> list = new ArrayList<>();
+        int inputCount = getDefinition().getInputCount();
+        if (inputCount > MAX_TRUTH_TABLE_INPUTS) {
+            return list;
+        }
+        SubCircuitInstance scratch = new SubCircuitInstance(getDefinition(), instance.getOutput());
+        for (int row = 0; row < 1 << inputCount; row++) {
+            Boolean[] inputs = new Boolean[inputCount];
+            boolean[] values = new boolean[inputCount];
+            for (int pin = 0; pin < inputCount; pin++) {
+                values[pin] = (row >> (inputCount - 1 - pin) & 1) != 0;
+                inputs[pin] = values[pin];
+            }
+            list.add(new Pair<>(inputs, scratch.evaluate(values)));
+        }
+        return list;
+    }
+
+    @Override
+    public GateType getGateType() {
+        return GateType.SUBCIRCUIT;
+    }
+
+    @Override
+    public String getTypeName() {
+        return getTypeName(getDefinition().getName(), instance.getOutput());
+    }
+}
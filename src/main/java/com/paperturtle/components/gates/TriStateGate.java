@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import com.paperturtle.components.LogicGate;
+import com.paperturtle.simulation.GateType;
 
 import javafx.geometry.Point2D;
 import javafx.util.Pair;
@@ -77,4 +78,8 @@ public class TriStateGate extends LogicGate {
         return highImpedance;
     }
 
+    @Override
+    public GateType getGateType() {
+        return GateType.TRISTATE;
+    }
 }
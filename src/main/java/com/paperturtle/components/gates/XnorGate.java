@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.paperturtle.components.LogicGate;
+import com.paperturtle.simulation.GateType;
 
 import javafx.geometry.Point2D;
 import javafx.util.Pair;
@@ -56,4 +57,8 @@ public class XnorGate extends LogicGate {
         return list;
     }
 
+    @Override
+    public GateType getGateType() {
+        return GateType.XNOR;
+    }
 }
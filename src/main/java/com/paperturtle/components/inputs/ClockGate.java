@@ -4,7 +4,9 @@ import java.util.Arrays;
 import java.util.List;
 
 import com.paperturtle.components.LogicGate;
+import com.paperturtle.simulation.GateType;
 import com.paperturtle.gui.CircuitCanvas;
+import com.paperturtle.managers.ClockManager;
 import com.paperturtle.utils.SvgUtil;
 
 import javafx.geometry.Insets;
@@ -18,17 +20,16 @@ import javafx.scene.layout.GridPane;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
-import javafx.scene.shape.Line;
-import javafx.util.Duration;
 import javafx.util.Pair;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 
 /**
  * Represents a Clock gate in a digital circuit.
  * A Clock gate oscillates between on and off states at a specified interval.
+ * The clock is switched by the {@link ClockManager} of the canvas it is drawn
+ * on, which drives all clocks from one time base.
  * 
  * @see LogicGate
+ * @see ClockManager
  * 
  * @author Seweryn Czabanowski
  */
@@ -54,9 +55,10 @@ public class ClockGate extends LogicGate {
     private Image onImage;
 
     /**
-     * The timeline used for scheduling the state changes of the ClockGate.
+     * The manager switching the ClockGate, or null if it is not drawn on a
+     * canvas.
      */
-    private Timeline timeline;
+    private ClockManager clockManager;
 
     /**
      * The duration of the signal produced by the ClockGate, in seconds.
@@ -74,7 +76,6 @@ public class ClockGate extends LogicGate {
         onImage = SvgUtil.loadSvgImage("/com/paperturtle/CLOCK_ON_ANSI_Labelled.svg");
         imageView = new javafx.scene.image.ImageView(offImage);
         outputMarker = new Circle(outputPoint.getX(), outputPoint.getY(), 5, Color.RED);
-        setupClock(signalDuration);
     }
 
     @Override
@@ -90,23 +91,29 @@ public class ClockGate extends LogicGate {
     }
 
     /**
-     * Sets up the clock with the specified duration.
+     * Sets the manager switching the clock.
      * 
-     * @param duration the duration for the clock signal
+     * @param clockManager the clock manager
      */
-    private void setupClock(double duration) {
-        timeline = new Timeline(
-                new KeyFrame(Duration.seconds(duration), event -> toggle()));
-        timeline.setCycleCount(Timeline.INDEFINITE);
-        timeline.play();
+    public void setClockManager(ClockManager clockManager) {
+        this.clockManager = clockManager;
     }
 
     /**
-     * Toggles the state of the clock gate.
+     * Inverts the state of the clock without propagating it. The caller is
+     * responsible for scheduling the clock in the simulation, so that all clocks
+     * switching at the same instant are propagated together.
      */
-    private void toggle() {
+    public void invert() {
         state = !state;
-        updateOutputConnectionsColor();
+    }
+
+    /**
+     * Toggles the state of the clock gate and propagates it immediately.
+     */
+    private void toggle() {
+        invert();
+        updateOutputConnectionsColor(state);
         updateVisualState();
         propagateStateChange();
     }
@@ -116,18 +123,24 @@ public class ClockGate extends LogicGate {
      */
     private void updateVisualState() {
         if (imageView != null) {
-            imageView.setImage(state ? onImage : offImage);
+            updateImage(state ? onImage : offImage);
             updateMarkerPosition();
         }
     }
 
+    @Override
+    public void applySimulatedState(boolean state) {
+        super.applySimulatedState(state);
+        updateVisualState();
+    }
+
     @Override
     public void createVisualRepresentation(Pane canvas) {
         if (imageView != null) {
-            canvas.getChildren().add(imageView);
+            addToCanvas(canvas, imageView);
         }
         if (outputMarker != null) {
-            canvas.getChildren().add(outputMarker);
+            addToCanvas(canvas, outputMarker);
             ((CircuitCanvas) canvas).getInteractionManager().setupOutputInteraction(outputMarker, this);
             updateMarkerPosition();
         }
@@ -143,23 +156,13 @@ public class ClockGate extends LogicGate {
         }
     }
 
-    /**
-     * Updates the color of the output connections.
-     */
-    private void updateOutputConnectionsColor() {
-        Color lineColor = state ? Color.RED : Color.BLACK;
-        for (Line line : outputConnections) {
-            line.setStroke(lineColor);
-        }
-    }
-
     /**
      * Stops the clock.
      */
     public void stopClock() {
-        if (timeline != null) {
-            timeline.stop();
-            isRunning = false;
+        isRunning = false;
+        if (clockManager != null) {
+            clockManager.reschedule(this);
         }
     }
 
@@ -167,12 +170,32 @@ public class ClockGate extends LogicGate {
      * Starts the clock.
      */
     public void startClock() {
-        if (timeline != null) {
-            timeline.play();
-            isRunning = true;
+        isRunning = true;
+        if (clockManager != null) {
+            clockManager.reschedule(this);
         }
     }
 
+    /**
+     * Checks if the clock is running.
+     * 
+     * @return true if the clock is running, false if it is paused
+     */
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    /**
+     * Advances the clock by one full cycle, pausing it first, so that sequential
+     * circuits can be stepped one clock cycle at a time. Every cycle contains one
+     * rising edge.
+     */
+    public void step() {
+        stopClock();
+        toggle();
+        toggle();
+    }
+
     /**
      * Gets the signal duration.
      * 
@@ -189,10 +212,8 @@ public class ClockGate extends LogicGate {
      */
     public void setSignalDuration(double duration) {
         signalDuration = duration;
-        if (timeline != null) {
-            timeline.stop();
-            timeline.getKeyFrames().set(0, new KeyFrame(Duration.seconds(duration), event -> toggle()));
-            timeline.play();
+        if (clockManager != null) {
+            clockManager.reschedule(this);
         }
     }
 
@@ -249,4 +270,9 @@ public class ClockGate extends LogicGate {
             super.propagateStateChange();
         }
     }
+
+    @Override
+    public GateType getGateType() {
+        return GateType.CLOCK;
+    }
 }
@@ -4,6 +4,7 @@ import java.util.Collections;
 import java.util.List;
 
 import com.paperturtle.components.LogicGate;
+import com.paperturtle.simulation.GateType;
 
 import javafx.geometry.Point2D;
 import javafx.util.Pair;
@@ -42,4 +43,8 @@ public class HighConstantGate extends LogicGate {
         return Collections.singletonList(new Pair<>(new Boolean[] {}, true));
     }
 
+    @Override
+    public GateType getGateType() {
+        return GateType.HIGH_CONSTANT;
+    }
 }
@@ -4,6 +4,7 @@ import java.util.Collections;
 import java.util.List;
 
 import com.paperturtle.components.LogicGate;
+import com.paperturtle.simulation.GateType;
 
 import javafx.geometry.Point2D;
 import javafx.util.Pair;
@@ -44,4 +45,8 @@ public class LowConstantGate extends LogicGate {
         return Collections.singletonList(new Pair<>(new Boolean[] {}, false));
     }
 
+    @Override
+    public GateType getGateType() {
+        return GateType.LOW_CONSTANT;
+    }
 }
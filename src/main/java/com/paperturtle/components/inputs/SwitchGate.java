@@ -10,6 +10,7 @@ import java.util.List;
 
 import com.paperturtle.commands.ToggleSwitchStateCommand;
 import com.paperturtle.components.LogicGate;
+import com.paperturtle.simulation.GateType;
 import com.paperturtle.gui.CircuitCanvas;
 import com.paperturtle.utils.SvgUtil;
 
@@ -85,8 +86,7 @@ public class SwitchGate extends LogicGate {
      * Updates the color of the output connections based on the state.
      */
     public void updateOutputConnectionsColor() {
-        Color lineColor = state ? Color.RED : Color.BLACK;
-        outputConnections.forEach(line -> line.setStroke(lineColor));
+        updateOutputConnectionsColor(state);
     }
 
     /**
@@ -94,7 +94,7 @@ public class SwitchGate extends LogicGate {
      */
     private void updateVisualState() {
         if (imageView != null) {
-            imageView.setImage(state ? onImage : offImage);
+            updateImage(state ? onImage : offImage);
             updateMarkerPosition();
         }
     }
@@ -103,11 +103,11 @@ public class SwitchGate extends LogicGate {
     public void createVisualRepresentation(Pane canvas) {
         this.canvas = (CircuitCanvas) canvas;
         if (imageView != null) {
-            canvas.getChildren().add(imageView);
+            addToCanvas(canvas, imageView);
             imageView.setOnMouseClicked(this::handleMouseClicked);
         }
         if (outputMarker != null) {
-            canvas.getChildren().add(outputMarker);
+            addToCanvas(canvas, outputMarker);
             this.canvas.getInteractionManager().setupOutputInteraction(outputMarker, this);
             updateMarkerPosition();
         }
@@ -137,14 +137,6 @@ public class SwitchGate extends LogicGate {
         event.consume();
     }
 
-    @Override
-    public void propagateStateChange() {
-        outputGates.forEach(gate -> {
-            gate.evaluate();
-            gate.propagateStateChange();
-        });
-    }
-
     @Override
     public List<Pair<Boolean[], Boolean>> getTruthTableData() {
         List<Pair<Boolean[], Boolean>> list = new ArrayList<>();
@@ -187,9 +179,14 @@ public class SwitchGate extends LogicGate {
      */
     public void setState(boolean state) {
         this.state = state;
+        changed();
         updateVisualState();
         updateOutputConnectionsColor();
         propagateStateChange();
     }
 
+    @Override
+    public GateType getGateType() {
+        return GateType.SWITCH;
+    }
 }
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import com.paperturtle.components.LogicGate;
+import com.paperturtle.simulation.GateType;
 import com.paperturtle.utils.SvgUtil;
 
 import javafx.geometry.Point2D;
@@ -86,7 +87,7 @@ public class FourBitDigitGate extends LogicGate {
             int activeCount = (int) inputs.stream().filter(LogicGate::getOutput).count();
             if (activeCount != previousActiveCount) {
                 previousActiveCount = activeCount;
-                imageView.setImage(images.get(Math.min(activeCount, images.size() - 1)));
+                updateImage(images.get(Math.min(activeCount, images.size() - 1)));
                 updateMarkerPosition();
             }
         }
@@ -95,12 +96,12 @@ public class FourBitDigitGate extends LogicGate {
     @Override
     public void createVisualRepresentation(Pane canvas) {
         if (imageView != null) {
-            canvas.getChildren().add(imageView);
+            addToCanvas(canvas, imageView);
         }
         initializeMarkers();
         inputMarkers.forEach(marker -> {
             if (marker != null) {
-                canvas.getChildren().add(marker);
+                addToCanvas(canvas, marker);
             }
         });
         updateMarkerPosition();
@@ -141,6 +142,7 @@ public class FourBitDigitGate extends LogicGate {
     @Override
     public void removeInput(LogicGate input) {
         if (inputs.remove(input)) {
+            topologyChanged();
             evaluate();
             propagateStateChange();
         }
@@ -156,10 +158,10 @@ public class FourBitDigitGate extends LogicGate {
     }
 
     @Override
-    public void propagateStateChange() {
-        if (evaluate()) {
-            outputGates.forEach(LogicGate::propagateStateChange);
-        }
+    public void applySimulatedState(boolean state) {
+        super.applySimulatedState(state);
+        this.state = state;
+        updateVisualState();
     }
 
     @Override
@@ -214,4 +216,9 @@ public class FourBitDigitGate extends LogicGate {
         int activeCount = (int) inputs.stream().filter(LogicGate::getOutput).count();
         return Math.min(activeCount, 4);
     }
+
+    @Override
+    public GateType getGateType() {
+        return GateType.FOUR_BIT_DIGIT;
+    }
 }
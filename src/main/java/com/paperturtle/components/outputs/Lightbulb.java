@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import com.paperturtle.components.LogicGate;
+import com.paperturtle.simulation.GateType;
 import com.paperturtle.utils.SvgUtil;
 
 import java.util.ArrayList;
@@ -89,7 +90,7 @@ public class Lightbulb extends LogicGate {
      */
     private void updateVisualState() {
         if (imageView != null) {
-            imageView.setImage(state ? onImage : offImage);
+            updateImage(state ? onImage : offImage);
             updateMarkerPosition();
         }
     }
@@ -97,12 +98,12 @@ public class Lightbulb extends LogicGate {
     @Override
     public void createVisualRepresentation(Pane canvas) {
         if (imageView != null) {
-            canvas.getChildren().add(imageView);
+            addToCanvas(canvas, imageView);
         }
         initializeMarkers();
         inputMarkers.forEach(marker -> {
             if (marker != null) {
-                canvas.getChildren().add(marker);
+                addToCanvas(canvas, marker);
             }
         });
         updateMarkerPosition();
@@ -146,6 +147,7 @@ public class Lightbulb extends LogicGate {
     @Override
     public void removeInput(LogicGate input) {
         if (inputs.remove(input)) {
+            topologyChanged();
             evaluate();
         }
     }
@@ -169,10 +171,9 @@ public class Lightbulb extends LogicGate {
     }
 
     @Override
-    public void propagateStateChange() {
-        if (evaluate()) {
-            super.propagateStateChange();
-        }
+    public void applySimulatedState(boolean state) {
+        super.applySimulatedState(state);
+        toggleLight(state);
     }
 
     @Override
@@ -183,4 +184,8 @@ public class Lightbulb extends LogicGate {
         return list;
     }
 
+    @Override
+    public GateType getGateType() {
+        return GateType.LIGHTBULB;
+    }
 }
@@ -0,0 +1,51 @@
+package com.paperturtle.data;
+
+import com.paperturtle.components.LogicGate;
+import com.paperturtle.gui.CircuitCanvas;
+
+import javafx.scene.shape.Line;
+
+/**
+ * Represents a connection line on the circuit canvas together with the gates
+ * it connects and the input of the target gate it is attached to.
+ * 
+ * @see CircuitCanvas#getConnectionInfo(Line)
+ * 
+ * @author Seweryn Czabanowski
+ */
+public class ConnectionInfo {
+    /**
+     * The gate whose output the connection starts at.
+     */
+    public final LogicGate sourceGate;
+
+    /**
+     * The gate whose input the connection ends at.
+     */
+    public final LogicGate targetGate;
+
+    /**
+     * The line representing the connection.
+     */
+    public final Line connection;
+
+    /**
+     * The index of the input of the target gate.
+     */
+    public final int inputIndex;
+
+    /**
+     * Constructs a ConnectionInfo with the specified gates, line and input index.
+     * 
+     * @param sourceGate the gate whose output the connection starts at
+     * @param targetGate the gate whose input the connection ends at
+     * @param connection the line representing the connection
+     * @param inputIndex the index of the input of the target gate
+     */
+    public ConnectionInfo(LogicGate sourceGate, LogicGate targetGate, Line connection, int inputIndex) {
+        this.sourceGate = sourceGate;
+        this.targetGate = targetGate;
+        this.connection = connection;
+        this.inputIndex = inputIndex;
+    }
+}
@@ -0,0 +1,47 @@
+package com.paperturtle.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a record of the autosave journal: the changes made to the circuit
+ * by one command. Gates are recorded with their complete data after the
+ * change, so replaying a record twice has the same effect as replaying it
+ * once.
+ *
+ * @see com.paperturtle.managers.AutosaveManager
+ *
+ * @author Seweryn Czabanowski
+ */
+public class JournalRecord {
+    /**
+     * The sequence number of the record. Records with a sequence number up to
+     * that of a snapshot are already contained in the snapshot.
+     */
+    public long sequence;
+
+    /**
+     * The data of the gates that were added or changed.
+     */
+    public List<GateData> gates = new ArrayList<>();
+
+    /**
+     * The IDs of the gates that were removed.
+     */
+    public List<String> removedGateIds = new ArrayList<>();
+
+    /**
+     * The JSON of every text label on the canvas, or null if the text labels
+     * did not change.
+     */
+    public List<String> labels;
+
+    /**
+     * Checks if the record contains no changes.
+     *
+     * @return true if the record is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return gates.isEmpty() && removedGateIds.isEmpty() && labels == null;
+    }
+}
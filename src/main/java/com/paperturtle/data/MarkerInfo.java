@@ -0,0 +1,52 @@
+package com.paperturtle.data;
+
+import com.paperturtle.components.LogicGate;
+import com.paperturtle.gui.CircuitCanvas;
+
+import javafx.scene.shape.Circle;
+
+/**
+ * Represents the gate and pin a marker on the circuit canvas belongs to.
+ * 
+ * @see CircuitCanvas#getMarkerInfo(Circle)
+ * 
+ * @author Seweryn Czabanowski
+ */
+public class MarkerInfo {
+    /**
+     * The index used for the output marker of a gate.
+     */
+    public static final int OUTPUT_PIN = -1;
+
+    /**
+     * The gate the marker belongs to.
+     */
+    public final LogicGate gate;
+
+    /**
+     * The index of the input the marker represents, or {@link #OUTPUT_PIN} for
+     * the output marker.
+     */
+    public final int pinIndex;
+
+    /**
+     * Constructs a MarkerInfo with the specified gate and pin index.
+     * 
+     * @param gate     the gate the marker belongs to
+     * @param pinIndex the index of the input the marker represents, or
+     *                 {@link #OUTPUT_PIN} for the output marker
+     */
+    public MarkerInfo(LogicGate gate, int pinIndex) {
+        this.gate = gate;
+        this.pinIndex = pinIndex;
+    }
+
+    /**
+     * Checks if the marker is the output marker of its gate.
+     * 
+     * @return true if the marker is an output marker, false otherwise
+     */
+    public boolean isOutput() {
+        return pinIndex == OUTPUT_PIN;
+    }
+}
@@ -0,0 +1,41 @@
+package com.paperturtle.data;
+
+import com.paperturtle.utils.CircuitComponent;
+
+/**
+ * Represents a text label read from a circuit file, before it is placed on a
+ * canvas. The label is kept as the JSON of its
+ * {@link com.paperturtle.serializers.TextLabelSerializer TextLabelSerializer}
+ * properties, so it can be read and written on any thread; the
+ * {@link com.paperturtle.components.utilities.TextLabel TextLabel} node is only
+ * created when the label is loaded onto the canvas.
+ *
+ * @see com.paperturtle.gui.CircuitCanvas#loadComponent(CircuitComponent)
+ *
+ * @author Seweryn Czabanowski
+ */
+public class TextLabelData implements CircuitComponent {
+    /**
+     * The JSON of the properties of the text label.
+     */
+    public String json;
+
+    /**
+     * Constructs a TextLabelData with the specified JSON.
+     *
+     * @param json the JSON of the properties of the text label
+     */
+    public TextLabelData(String json) {
+        this.json = json;
+    }
+
+    /**
+     * Returns the component type of the text label.
+     *
+     * @return the component type
+     */
+    @Override
+    public String getComponentType() {
+        return "textLabel";
+    }
+}
@@ -2,22 +2,32 @@ package com.paperturtle.gui;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.paperturtle.App;
 import com.paperturtle.commands.AddGateCommand;
 import com.paperturtle.commands.AddLabelCommand;
 import com.paperturtle.components.GateFactory;
 import com.paperturtle.components.LogicGate;
+import com.paperturtle.components.SubCircuitLibrary;
+import com.paperturtle.components.bus.BusGate;
+import com.paperturtle.components.bus.SubCircuitBusGate;
+import com.paperturtle.components.gates.SubCircuitGate;
 import com.paperturtle.components.utilities.TextLabel;
-import com.paperturtle.data.GateData;
+import com.paperturtle.managers.AutosaveManager;
 import com.paperturtle.managers.CircuitFileManager;
-import com.paperturtle.utils.CircuitComponent;
+import com.paperturtle.managers.CircuitLoadTask;
+import com.paperturtle.managers.CircuitSaveTask;
+import com.paperturtle.simulation.SubCircuitDefinition;
 import com.paperturtle.utils.SvgUtil;
 
+import javafx.concurrent.Task;
 import javafx.geometry.HPos;
 import javafx.geometry.Insets;
 import javafx.geometry.VPos;
@@ -60,6 +70,26 @@ public class AppGUI {
      */
     private final Stage stage;
 
+    /**
+     * The status bar showing the progress of loading and saving files.
+     */
+    private final StatusBar statusBar = new StatusBar();
+
+    /**
+     * The sidebar section listing the sub-circuits of the library.
+     */
+    private final VBox subCircuitsSection = new VBox(5);
+
+    /**
+     * The thread loading and saving files, one at a time in the order they were
+     * requested.
+     */
+    private final ExecutorService fileExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "circuit-file");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /**
      * The main layout container for the application's user interface.
      */
@@ -79,6 +109,17 @@ public class AppGUI {
             Map.entry("LOWCONSTANT", "Low Constant"),
             Map.entry("LIGHTBULB", "Lightbulb"),
             Map.entry("FOURBITDIGIT", "Four-bit Digit Display"),
+            Map.entry("BUSMERGER", "Bus Merger"),
+            Map.entry("BUSSPLITTER", "Bus Splitter"),
+            Map.entry("BUSAND", "Bus AND Gate"),
+            Map.entry("BUSOR", "Bus OR Gate"),
+            Map.entry("BUSXOR", "Bus XOR Gate"),
+            Map.entry("EDGE_D_FLIPFLOP", "D Flip-Flop"),
+            Map.entry("EDGE_JK_FLIPFLOP", "JK Flip-Flop"),
+            Map.entry("SYNC_T_FLIPFLOP", "T Flip-Flop"),
+            Map.entry("LEVEL_D_FLIPFLOP", "D Latch"),
+            Map.entry("SYNC_RS_FLIPFLOP", "Gated RS Latch"),
+            Map.entry("ASYNC_RS_FLIPFLOP", "RS Latch (active low)"),
             Map.entry("TextLabel", "Text Label"));
 
     /**
@@ -115,6 +156,7 @@ public class AppGUI {
         app.getBorderPane().setCenter(circuitCanvas);
         app.getBorderPane().setLeft(scrollableSidebar);
         app.getBorderPane().setTop(menuBar);
+        app.getBorderPane().setBottom(statusBar);
 
         Scene scene = new Scene(app.getBorderPane(), 1200, 700);
         scene.getStylesheets().add(getClass().getResource("/com/paperturtle/styles.css").toExternalForm());
@@ -173,6 +215,37 @@ public class AppGUI {
         stage.setScene(scene);
         stage.show();
         app.getCircuitCanvas().requestFocus();
+
+        recoverAutosave();
+        app.getCircuitCanvas().getAutosaveManager().start();
+    }
+
+    /**
+     * Offers to recover the work of a previous session that did not exit
+     * normally, if it left an autosave behind.
+     */
+    private void recoverAutosave() {
+        AutosaveManager autosave = app.getCircuitCanvas().getAutosaveManager();
+        if (!autosave.hasRecoveryData()) {
+            return;
+        }
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Recover Work");
+        alert.setHeaderText("The application did not exit normally");
+        alert.setContentText("Would you like to recover your unsaved work?");
+
+        ButtonType buttonRecover = new ButtonType("Recover");
+        ButtonType buttonDiscard = new ButtonType("Discard", ButtonData.CANCEL_CLOSE);
+        alert.getButtonTypes().setAll(buttonRecover, buttonDiscard);
+
+        Optional<ButtonType> result = alert.showAndWait();
+        if (result.isPresent() && result.get() == buttonRecover) {
+            try {
+                autosave.recover();
+            } catch (IOException | IllegalArgumentException e) {
+                showAlert("Error", "Failed to recover the work: " + e.getMessage(), Alert.AlertType.ERROR);
+            }
+        }
     }
 
     /**
@@ -184,25 +257,80 @@ public class AppGUI {
         VBox inputsSection = new VBox(5);
         VBox outputsSection = new VBox(5);
         VBox gatesSection = new VBox(5);
+        VBox flipFlopsSection = new VBox(5);
+        VBox busesSection = new VBox(5);
         VBox utilitiesSection = new VBox(5);
         inputsSection.getStyleClass().add("section");
         outputsSection.getStyleClass().add("section");
         gatesSection.getStyleClass().add("section");
+        flipFlopsSection.getStyleClass().add("section");
+        busesSection.getStyleClass().add("section");
         utilitiesSection.getStyleClass().add("section");
+        subCircuitsSection.getStyleClass().add("section");
 
         sidebar.getChildren().addAll(createSectionLabel("Inputs"), inputsSection, createSectionLabel("Outputs"),
-                outputsSection, createSectionLabel("Logic Gates"), gatesSection, createSectionLabel("Utilities"),
-                utilitiesSection);
+                outputsSection, createSectionLabel("Logic Gates"), gatesSection, createSectionLabel("Flip-Flops"),
+                flipFlopsSection, createSectionLabel("Buses"), busesSection, createSectionLabel("Utilities"),
+                utilitiesSection, createSectionLabel("Sub-circuits"), subCircuitsSection);
 
         String[] inputTypes = { "SWITCH", "CLOCK", "HIGHCONSTANT", "LOWCONSTANT" };
         String[] outputTypes = { "LIGHTBULB", "FOURBITDIGIT" };
         String[] gateTypes = { "AND", "OR", "NOT", "BUFFER", "NAND", "NOR", "XOR", "XNOR", "TRISTATE" };
+        String[] flipFlopTypes = { "EDGE_D_FLIPFLOP", "EDGE_JK_FLIPFLOP", "SYNC_T_FLIPFLOP", "LEVEL_D_FLIPFLOP",
+                "SYNC_RS_FLIPFLOP", "ASYNC_RS_FLIPFLOP" };
+        String[] busTypes = { "BUSMERGER", "BUSSPLITTER", "BUSAND", "BUSOR", "BUSXOR" };
         String[] utilityTypes = { "TextLabel" };
 
         addItemsToSection(inputsSection, inputTypes);
         addItemsToSection(outputsSection, outputTypes);
         addItemsToSection(gatesSection, gateTypes);
+        addItemsToSection(flipFlopsSection, flipFlopTypes);
+        addItemsToSection(busesSection, busTypes);
         addItemsToSection(utilitiesSection, utilityTypes);
+        SubCircuitLibrary.loadAll().forEach(this::addSubCircuitItems);
+    }
+
+    /**
+     * Adds an item for every output of a sub-circuit to the sidebar, and an item
+     * for all outputs as one bus if the sub-circuit has several outputs that fit
+     * in a bus word.
+     * 
+     * @param definition the definition of the sub-circuit
+     */
+    private void addSubCircuitItems(SubCircuitDefinition definition) {
+        List<String> types = new ArrayList<>();
+        for (int output = 0; output < definition.getOutputCount(); output++) {
+            types.add(SubCircuitGate.getTypeName(definition.getName(), output));
+        }
+        if (definition.getOutputCount() > 1 && definition.getOutputCount() <= Long.SIZE) {
+            types.add(SubCircuitBusGate.getTypeName(definition.getName()));
+        }
+        addItemsToSection(subCircuitsSection, types.toArray(String[]::new));
+    }
+
+    /**
+     * Lets the user choose a circuit file and adds it to the sub-circuit library.
+     */
+    private void importSubCircuit() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Import Sub-circuit");
+        fileChooser.getExtensionFilters().add(
+                new ExtensionFilter("Circuit Files", "*.json", "*" + CircuitFileManager.BINARY_EXTENSION));
+        File file = fileChooser.showOpenDialog(stage);
+        if (file != null) {
+            try {
+                SubCircuitDefinition definition = SubCircuitLibrary.importCircuit(file.toPath());
+                if (definition.getOutputCount() == 0) {
+                    showAlert("Warning", "The sub-circuit has no lightbulb to use as an output.",
+                            Alert.AlertType.WARNING);
+                    return;
+                }
+                addSubCircuitItems(definition);
+            } catch (IOException | IllegalArgumentException e) {
+                e.printStackTrace();
+                showAlert("Error", "Failed to import the sub-circuit: " + e.getMessage(), Alert.AlertType.ERROR);
+            }
+        }
     }
 
     /**
@@ -281,6 +409,7 @@ public class AppGUI {
         MenuItem tableItem = new MenuItem("Generate Truth Table");
         MenuItem pictureItem = new MenuItem("Save as Image");
         MenuItem clearItem = new MenuItem("Clear the canvas");
+        MenuItem subCircuitItem = new MenuItem("Import Sub-circuit...");
 
         tableItem.setAccelerator(new KeyCodeCombination(KeyCode.T, KeyCombination.CONTROL_DOWN));
         pictureItem.setAccelerator(new KeyCodeCombination(KeyCode.P, KeyCombination.CONTROL_DOWN));
@@ -298,8 +427,10 @@ public class AppGUI {
             app.getCircuitCanvas().clearCanvas();
         });
 
+        subCircuitItem.setOnAction(e -> importSubCircuit());
+
         fileMenu.getItems().addAll(openItem, saveItem, exitItem);
-        optionsMenu.getItems().addAll(tableItem, pictureItem, clearItem);
+        optionsMenu.getItems().addAll(tableItem, pictureItem, clearItem, subCircuitItem);
         editMenu.getItems().addAll(undoItem, redoItem, copyItem, pasteItem, deleteItem);
         helpMenu.getItems().addAll(aboutItem, shortcutsItem);
         menuBar.getMenus().addAll(fileMenu, optionsMenu, editMenu, viewMenu, helpMenu);
@@ -328,36 +459,7 @@ public class AppGUI {
             openNewFile();
         });
 
-        saveItem.setOnAction(e -> {
-            List<GateData> gateData = app.getCircuitCanvas().getAllGateData();
-            List<TextLabel> textLabels = app.getCircuitCanvas().getAllTextLabels();
-            List<CircuitComponent> components = new ArrayList<>();
-            components.addAll(gateData);
-            components.addAll(textLabels);
-
-            if (gateData.isEmpty() && textLabels.isEmpty()) {
-                showAlert("Warning", "The canvas is empty. Nothing to save.", Alert.AlertType.WARNING);
-                return;
-            }
-
-            FileChooser fileChooser = new FileChooser();
-            fileChooser.setTitle("Save Circuit File");
-            fileChooser.getExtensionFilters().add(new ExtensionFilter("JSON Files", "*.json"));
-            File desktop = new File(System.getProperty("user.home"), "Desktop");
-            fileChooser.setInitialDirectory(desktop);
-            File file = fileChooser.showSaveDialog(stage);
-            if (file != null) {
-                try {
-                    String filePath = file.getPath();
-                    if (!filePath.toLowerCase().endsWith(".json")) {
-                        filePath += ".json";
-                    }
-                    new CircuitFileManager().saveCircuit(filePath, components);
-                } catch (IOException ioException) {
-                    ioException.printStackTrace();
-                }
-            }
-        });
+        saveItem.setOnAction(e -> saveCurrentWork());
 
     }
 
@@ -422,6 +524,9 @@ public class AppGUI {
             if (type.equals("TextLabel")) {
                 TextLabel textLabel = new TextLabel("Label", 90, 40);
                 imageView = createImageViewFromTextLabel(textLabel);
+            } else if (SubCircuitGate.isSubCircuitType(type) || SubCircuitBusGate.isSubCircuitBusType(type)
+                    || BusGate.isBusType(type)) {
+                imageView = new ImageView(GateFactory.createGate(type).createImage());
             } else {
                 imageView = new ImageView(SvgUtil.loadSvgImage("/com/paperturtle/" + type + "_ANSI_Labelled.svg"));
             }
@@ -474,6 +579,13 @@ public class AppGUI {
      * @return the tooltip text for the specified gate type
      */
     private String getTooltipText(String type) {
+        if (SubCircuitGate.isSubCircuitType(type)) {
+            return "Sub-circuit " + SubCircuitGate.getDefinitionName(type) + ", output "
+                    + SubCircuitGate.getOutputPin(type);
+        }
+        if (SubCircuitBusGate.isSubCircuitBusType(type)) {
+            return "Sub-circuit " + SubCircuitBusGate.getDefinitionName(type) + ", all outputs as a bus";
+        }
         return TOOLTIP_TEXT_MAP.getOrDefault(type, type + " Component");
     }
 
@@ -502,29 +614,36 @@ public class AppGUI {
      * Saves the current work to a file.
      */
     private void saveCurrentWork() {
-        List<GateData> gateData = app.getCircuitCanvas().getAllGateData();
-        List<TextLabel> textLabels = app.getCircuitCanvas().getAllTextLabels();
-        List<CircuitComponent> components = new ArrayList<>();
-        components.addAll(gateData);
-        components.addAll(textLabels);
-
-        if (!components.isEmpty()) {
+        CircuitCanvas canvas = app.getCircuitCanvas();
+        if (!canvas.isEmpty() || !canvas.getAllTextLabels().isEmpty()) {
             FileChooser fileChooser = new FileChooser();
             fileChooser.setTitle("Save Circuit File");
-            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("JSON Files", "*.json"));
+            ExtensionFilter jsonFilter = new ExtensionFilter("JSON Files", "*.json");
+            ExtensionFilter binaryFilter = new ExtensionFilter("Binary Circuit Files",
+                    "*" + CircuitFileManager.BINARY_EXTENSION);
+            fileChooser.getExtensionFilters().addAll(jsonFilter, binaryFilter);
             File desktop = new File(System.getProperty("user.home"), "Desktop");
             fileChooser.setInitialDirectory(desktop);
             File file = fileChooser.showSaveDialog(stage);
             if (file != null) {
-                try {
-                    String filePath = file.getPath();
-                    if (!filePath.toLowerCase().endsWith(".json")) {
-                        filePath += ".json";
+                String filePath = file.getPath();
+                if (fileChooser.getSelectedExtensionFilter() == binaryFilter) {
+                    if (!CircuitFileManager.isBinary(filePath)) {
+                        filePath += CircuitFileManager.BINARY_EXTENSION;
                     }
-                    new CircuitFileManager().saveCircuit(filePath, components);
-                } catch (IOException ioException) {
-                    ioException.printStackTrace();
+                } else if (!filePath.toLowerCase().endsWith(".json")) {
+                    filePath += ".json";
                 }
+                CircuitSaveTask task = new CircuitSaveTask(canvas, Path.of(filePath));
+                task.setOnSucceeded(event -> statusBar.finish(task.getMessage()));
+                task.setOnCancelled(event -> statusBar.finish("Saving cancelled"));
+                task.setOnFailed(event -> {
+                    statusBar.finish("Saving failed");
+                    task.getException().printStackTrace();
+                    showAlert("Error", "Failed to save the file: " + task.getException().getMessage(),
+                            Alert.AlertType.ERROR);
+                });
+                runFileTask(task);
             }
         } else {
             showAlert("Warning", "The canvas is empty. Nothing to save.", Alert.AlertType.WARNING);
@@ -537,22 +656,46 @@ public class AppGUI {
     private void openNewFile() {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Open Circuit File");
-        fileChooser.getExtensionFilters().add(new ExtensionFilter("JSON Files", "*.json"));
+        fileChooser.getExtensionFilters().addAll(
+                new ExtensionFilter("Circuit Files", "*.json", "*" + CircuitFileManager.BINARY_EXTENSION),
+                new ExtensionFilter("JSON Files", "*.json"),
+                new ExtensionFilter("Binary Circuit Files", "*" + CircuitFileManager.BINARY_EXTENSION));
         File desktop = new File(System.getProperty("user.home"), "Desktop");
         fileChooser.setInitialDirectory(desktop);
         File file = fileChooser.showOpenDialog(stage);
         if (file != null) {
-            try {
-                app.getCircuitCanvas().getCommandManager().clearStacks();
-                List<CircuitComponent> gatesData = new CircuitFileManager().loadCircuit(file.getPath());
-                app.getCircuitCanvas().loadComponents(gatesData);
+            CircuitLoadTask task = new CircuitLoadTask(file.toPath());
+            task.setOnSucceeded(event -> {
+                CircuitCanvas canvas = app.getCircuitCanvas();
+                long start = System.nanoTime();
+                canvas.loadComponents(task.getValue());
+                statusBar.finish(String.format("%s, attached in %.2f s", task.getMessage(),
+                        (System.nanoTime() - start) / 1e9));
                 stage.setTitle("Logic Gates Simulator - " + file.getName());
-            } catch (IOException | IllegalArgumentException e) {
-                showAlert("Error", "Failed to load the file: " + e.getMessage(), Alert.AlertType.ERROR);
-            }
+            });
+            task.setOnCancelled(event -> statusBar.finish("Loading cancelled"));
+            task.setOnFailed(event -> {
+                statusBar.finish("Loading failed");
+                showAlert("Error", "Failed to load the file: " + task.getException().getMessage(),
+                        Alert.AlertType.ERROR);
+            });
+            runFileTask(task);
         }
     }
 
+    /**
+     * Runs a task loading or saving a file on the file thread, and shows its
+     * progress in the status bar while it runs. The circuit is only parsed or
+     * written on that thread; the handlers of the task attach the result to
+     * the canvas on the JavaFX application thread.
+     * 
+     * @param task the task to run
+     */
+    private void runFileTask(Task<?> task) {
+        task.setOnRunning(event -> statusBar.show(task));
+        fileExecutor.execute(task);
+    }
+
     /**
      * Shows an alert with the specified title and content.
      * 
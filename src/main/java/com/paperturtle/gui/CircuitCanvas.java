@@ -5,7 +5,11 @@ import javafx.scene.layout.Pane;
 import java.util.List;
 
 import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.ReadOnlyProperty;
+import javafx.collections.ListChangeListener;
 import javafx.embed.swing.SwingFXUtils;
+import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.scene.Node;
 import javafx.scene.SnapshotParameters;
@@ -22,22 +26,33 @@ import javafx.stage.FileChooser;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.imageio.ImageIO;
 
+import com.google.gson.JsonParser;
 import com.paperturtle.components.GateFactory;
+import com.paperturtle.components.GateRegistry;
 import com.paperturtle.components.LogicGate;
+import com.paperturtle.components.bus.SubCircuitBusGate;
+import com.paperturtle.components.gates.SubCircuitGate;
+import com.paperturtle.components.inputs.ClockGate;
 import com.paperturtle.components.inputs.SwitchGate;
 import com.paperturtle.components.utilities.TextLabel;
+import com.paperturtle.data.ConnectionInfo;
 import com.paperturtle.data.GateData;
 import com.paperturtle.data.GateData.ConnectionData;
+import com.paperturtle.data.MarkerInfo;
+import com.paperturtle.data.TextLabelData;
 import com.paperturtle.managers.*;
+import com.paperturtle.serializers.TextLabelDeserializer;
+import com.paperturtle.serializers.TextLabelSerializer;
 import com.paperturtle.utils.CircuitComponent;
+import com.paperturtle.utils.SpatialGrid;
 
 /**
  * The CircuitCanvas class represents the canvas on which logic gates and
@@ -46,14 +61,18 @@ import com.paperturtle.utils.CircuitComponent;
  * manage gates and connections.
  * 
  * @see LogicGate
+ * @see AutosaveManager
  * @see ClipboardManager
+ * @see ClockManager
  * @see CommandManager
  * @see ConnectionManager
  * @see ContextMenuManager
  * @see GateManager
  * @see InteractionManager
  * @see KeyboardShortcutManager
+ * @see RepaintManager
  * @see SelectionManager
+ * @see SimulationManager
  * 
  * @author Seweryn Czabanowski
  */
@@ -89,15 +108,25 @@ public class CircuitCanvas extends Pane {
      */
     private Map<Line, LogicGate> lineToStartGateMap = new HashMap<>();
 
+    /**
+     * A map of connection lines to the gates and input they connect.
+     */
+    private final Map<Line, ConnectionInfo> lineConnections = new IdentityHashMap<>();
+
+    /**
+     * A map of markers to the gate and pin they belong to.
+     */
+    private final Map<Circle, MarkerInfo> markerInfos = new IdentityHashMap<>();
+
     /**
      * The context menu currently open on the canvas.
      */
     private ContextMenu openContextMenu = null;
 
     /**
-     * A set of all LogicGates that need to be updated.
+     * A flag indicating whether a propagation of scheduled updates is pending.
      */
-    private Set<LogicGate> gatesToBeUpdated = new HashSet<>();
+    private boolean updatePending = false;
 
     /**
      * The manager responsible for handling commands.
@@ -139,6 +168,26 @@ public class CircuitCanvas extends Pane {
      */
     private TruthTableManager truthTableManager;
 
+    /**
+     * The manager responsible for simulating the circuit.
+     */
+    private SimulationManager simulationManager;
+
+    /**
+     * The manager switching the clocks.
+     */
+    private ClockManager clockManager;
+
+    /**
+     * The manager applying the visual updates of the gates once per frame.
+     */
+    private RepaintManager repaintManager;
+
+    /**
+     * The manager saving the circuit in the background.
+     */
+    private AutosaveManager autosaveManager;
+
     /**
      * The size of the grid cells.
      */
@@ -154,6 +203,45 @@ public class CircuitCanvas extends Pane {
      */
     private List<Line> gridLines = new ArrayList<>();
 
+    /**
+     * The size of the cells of the spatial index.
+     */
+    private static final double SPATIAL_CELL_SIZE = 64;
+
+    /**
+     * A spatial index of the gates, markers and connections on the canvas, used
+     * for hit-testing.
+     */
+    private final SpatialGrid<Node> spatialIndex = new SpatialGrid<>(SPATIAL_CELL_SIZE);
+
+    /**
+     * The listener updating the spatial index when the bounds of an indexed node
+     * change.
+     */
+    private final InvalidationListener boundsListener = observable -> indexNode(
+            (Node) ((ReadOnlyProperty<?>) observable).getBean());
+
+    /**
+     * The nodes added during the current batch, or null if no batch is open.
+     */
+    private List<Node> batchNodes;
+
+    /**
+     * The registry assigning each gate on the canvas its handle and ID.
+     */
+    private final GateRegistry gateRegistry = new GateRegistry();
+
+    /**
+     * The loaded gates whose outputs still have to be connected, or null if no
+     * load is in progress.
+     */
+    private List<LogicGate> loadedGates;
+
+    /**
+     * The data of each gate in {@link #loadedGates}.
+     */
+    private List<GateData> loadedGateData;
+
     /**
      * Constructs a CircuitCanvas with the specified width, height, and scroll pane.
      * 
@@ -174,9 +262,14 @@ public class CircuitCanvas extends Pane {
         this.clipboardManager = new ClipboardManager(this);
         this.contextMenuManager = new ContextMenuManager(this);
         this.truthTableManager = new TruthTableManager(this);
+        this.simulationManager = new SimulationManager(this);
+        this.clockManager = new ClockManager(this);
+        this.repaintManager = new RepaintManager();
+        this.autosaveManager = new AutosaveManager(this);
 
         drawGrid();
         toggleGridVisibility();
+        getChildren().addListener(this::updateSpatialIndex);
 
         this.addEventFilter(MouseEvent.MOUSE_CLICKED, interactionManager::handleCanvasClick);
         new KeyboardShortcutManager(this);
@@ -204,6 +297,66 @@ public class CircuitCanvas extends Pane {
         }
     }
 
+    /**
+     * Keeps the spatial index in sync with the children of the canvas. Added
+     * nodes are indexed and followed as they move; removed nodes are dropped.
+     * The grid lines are added before the index is set up and never indexed.
+     * 
+     * @param change the change to the children of the canvas
+     */
+    private void updateSpatialIndex(ListChangeListener.Change<? extends Node> change) {
+        while (change.next()) {
+            for (Node node : change.getRemoved()) {
+                node.boundsInParentProperty().removeListener(boundsListener);
+                spatialIndex.remove(node);
+            }
+            for (Node node : change.getAddedSubList()) {
+                if (node instanceof Circle || node instanceof ImageView || node instanceof Line) {
+                    node.boundsInParentProperty().addListener(boundsListener);
+                    indexNode(node);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a node to the spatial index, or moves it to its current bounds.
+     * 
+     * @param node the node to index
+     */
+    private void indexNode(Node node) {
+        Bounds bounds = node.getBoundsInParent();
+        spatialIndex.put(node, bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY());
+    }
+
+    /**
+     * Returns the gates, markers and connections whose bounds contain the
+     * specified point, using the spatial index.
+     * 
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @return the nodes at the point
+     */
+    public List<Node> getNodesAt(double x, double y) {
+        List<Node> nodes = spatialIndex.query(x, y);
+        nodes.removeIf(node -> !node.getBoundsInParent().contains(x, y));
+        return nodes;
+    }
+
+    /**
+     * Returns the gates, markers and connections whose bounds intersect the
+     * specified bounds, using the spatial index.
+     * 
+     * @param bounds the bounds to search
+     * @return the nodes intersecting the bounds
+     */
+    public List<Node> getNodesIn(Bounds bounds) {
+        List<Node> nodes = spatialIndex.query(bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(),
+                bounds.getMaxY());
+        nodes.removeIf(node -> !node.getBoundsInParent().intersects(bounds));
+        return nodes;
+    }
+
     /**
      * Toggles the visibility of the grid.
      */
@@ -212,6 +365,75 @@ public class CircuitCanvas extends Pane {
         gridLines.forEach(line -> line.setVisible(isGridVisible));
     }
 
+    /**
+     * Adds nodes to the canvas. While a batch is open, the nodes are collected
+     * and only added to the canvas when the batch is committed.
+     * 
+     * @param nodes the nodes to add
+     * @see #beginBatch()
+     */
+    public void addNodes(Node... nodes) {
+        if (batchNodes != null) {
+            batchNodes.addAll(Arrays.asList(nodes));
+        } else {
+            getChildren().addAll(nodes);
+        }
+    }
+
+    /**
+     * Opens a batch of changes to the canvas. Until the batch is committed,
+     * nodes added with {@link #addNodes(Node...)} are collected instead of being
+     * inserted one by one, and the simulation is suspended, so that the gates and
+     * connections of the batch are not compiled and propagated after each of
+     * them.
+     * 
+     * @throws IllegalStateException if a batch is already open
+     * @see #commitBatch()
+     */
+    public void beginBatch() {
+        if (batchNodes != null) {
+            throw new IllegalStateException("A batch is already open");
+        }
+        batchNodes = new ArrayList<>();
+        simulationManager.suspend();
+    }
+
+    /**
+     * Commits the open batch. The collected nodes are added to the canvas in a
+     * single change, with connections above the gates and markers above the
+     * connections, and the circuit is settled once.
+     * 
+     * @throws IllegalStateException if no batch is open
+     */
+    public void commitBatch() {
+        if (batchNodes == null) {
+            throw new IllegalStateException("No batch is open");
+        }
+        List<Node> nodes = new ArrayList<>(batchNodes.size());
+        batchNodes.stream().filter(node -> !(node instanceof Line || node instanceof Circle)).forEach(nodes::add);
+        batchNodes.stream().filter(Line.class::isInstance).forEach(nodes::add);
+        batchNodes.stream().filter(Circle.class::isInstance).forEach(nodes::add);
+        batchNodes = null;
+
+        getChildren().addAll(nodes);
+        simulationManager.resume();
+    }
+
+    /**
+     * Runs the specified changes as a single batch.
+     * 
+     * @param changes the changes to the canvas
+     * @see #beginBatch()
+     */
+    public void runBatch(Runnable changes) {
+        beginBatch();
+        try {
+            changes.run();
+        } finally {
+            commitBatch();
+        }
+    }
+
     /**
      * Draws a logic gate at the specified coordinates on the canvas.
      * 
@@ -221,12 +443,21 @@ public class CircuitCanvas extends Pane {
      */
     public void drawGate(LogicGate gate, double x, double y) {
         gate.createVisualRepresentation(this);
+        registerMarkers(gate);
+        gateRegistry.register(gate);
+        gate.setAutosaveManager(autosaveManager);
         gate.setPosition(x, y);
         interactionManager.setupDragHandlers(gate.getImageView(), gate);
         gateImageViews.put(gate.getImageView(), gate);
+        gate.setSimulationManager(simulationManager);
+        gate.setRepaintManager(repaintManager);
+        simulationManager.invalidate();
         if (gate instanceof SwitchGate) {
             ((SwitchGate) gate).updateOutputConnectionsColor();
         }
+        if (gate instanceof ClockGate) {
+            clockManager.register((ClockGate) gate);
+        }
     }
 
     /**
@@ -237,7 +468,7 @@ public class CircuitCanvas extends Pane {
      * @param y         the y-coordinate
      */
     public void drawTextLabel(TextLabel textLabel, double x, double y) {
-        this.getChildren().add(textLabel);
+        addNodes(textLabel);
         textLabel.setLayoutX(x);
         textLabel.setLayoutY(y);
         textLabels.add(textLabel);
@@ -245,24 +476,25 @@ public class CircuitCanvas extends Pane {
     }
 
     /**
-     * Schedules an update for the specified logic gate.
+     * Schedules an update for the specified logic gate. All updates scheduled
+     * before the next pulse are propagated together.
      * 
      * @param gate the logic gate to update
      */
     public void scheduleUpdate(LogicGate gate) {
-        gatesToBeUpdated.add(gate);
-        Platform.runLater(this::propagateUpdates);
+        simulationManager.schedule(gate);
+        if (!updatePending) {
+            updatePending = true;
+            Platform.runLater(this::propagateUpdates);
+        }
     }
 
     /**
      * Propagates updates for all gates that need to be updated.
      */
     public void propagateUpdates() {
-        while (!gatesToBeUpdated.isEmpty()) {
-            Set<LogicGate> currentBatch = new HashSet<>(gatesToBeUpdated);
-            gatesToBeUpdated.clear();
-            currentBatch.forEach(LogicGate::propagateStateChange);
-        }
+        updatePending = false;
+        simulationManager.flush();
     }
 
     /**
@@ -288,65 +520,135 @@ public class CircuitCanvas extends Pane {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Serializes the text labels on the canvas, so that they can be saved on a
+     * background thread.
+     * 
+     * @return the JSON of the {@link TextLabelSerializer} properties of each
+     *         text label
+     */
+    public List<String> getSerializedTextLabels() {
+        TextLabelSerializer serializer = new TextLabelSerializer();
+        List<String> labels = new ArrayList<>();
+        for (TextLabel label : textLabels) {
+            if (label.getParent() == this) {
+                labels.add(serializer.serialize(label, TextLabel.class, null).getAsJsonObject()
+                        .getAsJsonObject("data").toString());
+            }
+        }
+        return labels;
+    }
+
     /**
      * Loads components onto the canvas from a list of CircuitComponent objects.
+     * The components are added in a single batch.
      * 
      * @param components the list of components to load
      */
     public void loadComponents(List<CircuitComponent> components) {
+        beginLoad();
+        try {
+            components.forEach(this::loadComponent);
+        } finally {
+            finishLoad();
+        }
+    }
+
+    /**
+     * Clears the canvas and starts loading components one at a time. The
+     * components are added in a single batch, which is committed by
+     * {@link #finishLoad()}.
+     * 
+     * @throws IllegalStateException if a batch is already open
+     */
+    public void beginLoad() {
         clearCanvas();
-        Map<String, LogicGate> createdGates = new HashMap<>();
+        loadedGates = new ArrayList<>();
+        loadedGateData = new ArrayList<>();
+        beginBatch();
+    }
 
-        components.forEach(component -> {
-            if (component instanceof GateData gateData) {
-                createAndDrawGate(gateData, createdGates);
-            } else if (component instanceof TextLabel textLabel) {
-                drawTextLabel(textLabel, textLabel.getLayoutX(), textLabel.getLayoutY());
+    /**
+     * Loads a single component onto the canvas. Gates are drawn right away;
+     * their connections are made by {@link #finishLoad()}, once every gate they
+     * may refer to is known. Text labels read from a file are created here, on
+     * the JavaFX application thread, from their serialized data.
+     * 
+     * @param component the component to load
+     * @throws IllegalStateException if no load was started
+     */
+    public void loadComponent(CircuitComponent component) {
+        if (loadedGates == null) {
+            throw new IllegalStateException("No load was started");
+        }
+        if (component instanceof GateData gateData) {
+            LogicGate gate = createAndDrawGate(gateData);
+            if (gate != null && !gateData.outputs.isEmpty()) {
+                loadedGates.add(gate);
+                loadedGateData.add(gateData);
             }
-        });
+        } else if (component instanceof TextLabelData textLabelData) {
+            TextLabel textLabel = new TextLabelDeserializer().deserialize(
+                    JsonParser.parseString(textLabelData.json), TextLabel.class, null);
+            drawTextLabel(textLabel, textLabel.getLayoutX(), textLabel.getLayoutY());
+        } else if (component instanceof TextLabel textLabel) {
+            drawTextLabel(textLabel, textLabel.getLayoutX(), textLabel.getLayoutY());
+        }
+    }
 
-        components.stream()
-                .filter(GateData.class::isInstance)
-                .map(GateData.class::cast)
-                .forEach(gateData -> connectGateOutputs(gateData, createdGates));
+    /**
+     * Connects the loaded gates and commits the batch started by
+     * {@link #beginLoad()}. The IDs of the targets are resolved through the
+     * gate registry, since a loaded gate may have been given a new ID.
+     * 
+     * @throws IllegalStateException if no load was started
+     */
+    public void finishLoad() {
+        if (loadedGates == null) {
+            throw new IllegalStateException("No load was started");
+        }
+        try {
+            for (int i = 0; i < loadedGates.size(); i++) {
+                connectGateOutputs(loadedGateData.get(i), loadedGates.get(i));
+            }
+        } finally {
+            loadedGates = null;
+            loadedGateData = null;
+            commitBatch();
+            autosaveManager.compact();
+        }
     }
 
     /**
      * Creates and draws a gate on the canvas based on the specified GateData
      * object.
      * 
-     * @param gateData     the GateData object to use
-     * @param createdGates a map of created gates
+     * @param gateData the GateData object to use
+     * @return the created gate, or null if the type is unknown
      */
-    private void createAndDrawGate(GateData gateData, Map<String, LogicGate> createdGates) {
+    private LogicGate createAndDrawGate(GateData gateData) {
         String normalizedType = normalizeType(gateData.type);
         LogicGate gate = GateFactory.createGate(normalizedType);
         if (gate == null) {
             System.out.println("Failed to create gate for type: " + gateData.type);
-            return;
+            return null;
         }
         gate.setPosition(gateData.position.getX(), gateData.position.getY());
         gate.setId(gateData.id);
         gate.setMaxOutputConnections(gateData.maxOutputConnections);
-        createdGates.put(gateData.id, gate);
         drawGate(gate, gateData.position.getX(), gateData.position.getY());
+        return gate;
     }
 
     /**
      * Connects the outputs of a gate to other gates on the canvas.
      * 
-     * @param gateData     the GateData object to use
-     * @param createdGates a map of created gates
+     * @param gateData   the GateData object to use
+     * @param sourceGate the gate created from the GateData object
      */
-    private void connectGateOutputs(GateData gateData, Map<String, LogicGate> createdGates) {
-        LogicGate sourceGate = createdGates.get(gateData.id);
-        if (sourceGate == null) {
-            System.out.println("Source gate not found for ID: " + gateData.id);
-            return;
-        }
-
+    private void connectGateOutputs(GateData gateData, LogicGate sourceGate) {
         for (ConnectionData output : gateData.outputs) {
-            LogicGate targetGate = createdGates.get(output.gateId);
+            LogicGate targetGate = gateRegistry.get(output.gateId);
             if (targetGate == null) {
                 System.out.println("Output gate not found for ID: " + output.gateId);
                 continue;
@@ -368,7 +670,7 @@ public class CircuitCanvas extends Pane {
             connectionLine.setStrokeWidth(3.5);
             connectionLine.setStroke(Color.BLACK);
 
-            getChildren().add(connectionLine);
+            addNodes(connectionLine);
 
             sourceGate.addOutputConnection(connectionLine);
             targetGate.addInputConnection(connectionLine, output.pointIndex);
@@ -379,10 +681,86 @@ public class CircuitCanvas extends Pane {
             targetGate.getInputMarkers().forEach(marker -> marker.toFront());
             sourceGate.getOutputMarker().toFront();
 
-            getLineToStartGateMap().put(connectionLine, sourceGate);
+            registerConnection(sourceGate, targetGate, connectionLine, output.pointIndex);
+        }
+    }
+
+    /**
+     * Registers a connection line, so that its gates and input can be looked up
+     * in constant time.
+     * 
+     * @param sourceGate the gate whose output the connection starts at
+     * @param targetGate the gate whose input the connection ends at
+     * @param connection the line representing the connection
+     * @param inputIndex the index of the input of the target gate
+     */
+    public void registerConnection(LogicGate sourceGate, LogicGate targetGate, Line connection, int inputIndex) {
+        lineToStartGateMap.put(connection, sourceGate);
+        lineConnections.put(connection, new ConnectionInfo(sourceGate, targetGate, connection, inputIndex));
+    }
+
+    /**
+     * Unregisters a connection line.
+     * 
+     * @param connection the line representing the connection
+     * @return the information about the connection, or null if it was not
+     *         registered
+     */
+    public ConnectionInfo unregisterConnection(Line connection) {
+        lineToStartGateMap.remove(connection);
+        return lineConnections.remove(connection);
+    }
+
+    /**
+     * Gets the gates and input connected by the specified line.
+     * 
+     * @param connection the line representing the connection
+     * @return the information about the connection, or null if the line is not a
+     *         registered connection
+     */
+    public ConnectionInfo getConnectionInfo(Line connection) {
+        return lineConnections.get(connection);
+    }
+
+    /**
+     * Registers the input and output markers of a gate, so that the gate and pin
+     * of a marker can be looked up in constant time.
+     * 
+     * @param gate the gate whose markers are registered
+     */
+    public void registerMarkers(LogicGate gate) {
+        List<Circle> inputMarkers = gate.getInputMarkers();
+        for (int i = 0; i < inputMarkers.size(); i++) {
+            markerInfos.put(inputMarkers.get(i), new MarkerInfo(gate, i));
+        }
+        if (gate.getOutputMarker() != null) {
+            markerInfos.put(gate.getOutputMarker(), new MarkerInfo(gate, MarkerInfo.OUTPUT_PIN));
+        }
+    }
+
+    /**
+     * Unregisters the input and output markers of a gate.
+     * 
+     * @param gate the gate whose markers are unregistered
+     */
+    public void unregisterMarkers(LogicGate gate) {
+        gate.getInputMarkers().forEach(markerInfos::remove);
+        if (gate.getOutputMarker() != null) {
+            markerInfos.remove(gate.getOutputMarker());
         }
     }
 
+    /**
+     * Gets the gate and pin the specified marker belongs to.
+     * 
+     * @param marker the marker
+     * @return the information about the marker, or null if it is not a registered
+     *         marker
+     */
+    public MarkerInfo getMarkerInfo(Circle marker) {
+        return markerInfos.get(marker);
+    }
+
     /**
      * Saves a snapshot of the current canvas as an image file.
      */
@@ -408,12 +786,16 @@ public class CircuitCanvas extends Pane {
 
     /**
      * Normalizes the type of a gate by removing the "Gate" suffix and converting to
-     * uppercase.
+     * uppercase. Sub-circuit and sub-circuit bus types are returned unchanged,
+     * since they contain the name of their definition.
      * 
      * @param type the type to normalize
      * @return the normalized type
      */
     public String normalizeType(String type) {
+        if (SubCircuitGate.isSubCircuitType(type) || SubCircuitBusGate.isSubCircuitBusType(type)) {
+            return type;
+        }
         if (type.endsWith("Gate")) {
             type = type.substring(0, type.length() - 4);
         }
@@ -453,9 +835,16 @@ public class CircuitCanvas extends Pane {
             getChildren().add(selectionRect);
         }
         commandManager.clearStacks();
+        gateRegistry.clear();
+        clockManager.clear();
+        textLabels.clear();
         gateImageViews.clear();
         gateMarkers.clear();
         lineToStartGateMap.clear();
+        lineConnections.clear();
+        markerInfos.clear();
+        simulationManager.invalidate();
+        autosaveManager.clear();
     }
 
     /**
@@ -577,15 +966,6 @@ public class CircuitCanvas extends Pane {
         return lineToStartGateMap;
     }
 
-    /**
-     * Gets the set of gates to be updated.
-     * 
-     * @return the set of gates to be updated
-     */
-    public Set<LogicGate> getGatesToBeUpdated() {
-        return gatesToBeUpdated;
-    }
-
     /**
      * Gets the command manager.
      * 
@@ -658,6 +1038,51 @@ public class CircuitCanvas extends Pane {
         return truthTableManager;
     }
 
+    /**
+     * Gets the simulation manager.
+     * 
+     * @return the simulation manager
+     */
+    public SimulationManager getSimulationManager() {
+        return simulationManager;
+    }
+
+    /**
+     * Gets the clock manager.
+     * 
+     * @return the clock manager
+     */
+    public ClockManager getClockManager() {
+        return clockManager;
+    }
+
+    /**
+     * Gets the repaint manager.
+     * 
+     * @return the repaint manager
+     */
+    public RepaintManager getRepaintManager() {
+        return repaintManager;
+    }
+
+    /**
+     * Gets the registry assigning each gate on the canvas its handle and ID.
+     * 
+     * @return the gate registry
+     */
+    public GateRegistry getGateRegistry() {
+        return gateRegistry;
+    }
+
+    /**
+     * Gets the autosave manager.
+     * 
+     * @return the autosave manager
+     */
+    public AutosaveManager getAutosaveManager() {
+        return autosaveManager;
+    }
+
     /**
      * Gets the list of selected gates on the canvas.
      * 
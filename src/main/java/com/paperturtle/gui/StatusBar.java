@@ -0,0 +1,96 @@
+package com.paperturtle.gui;
+
+import javafx.animation.PauseTransition;
+import javafx.concurrent.Task;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.HBox;
+import javafx.util.Duration;
+
+/**
+ * The StatusBar class shows the progress of a background task, such as loading
+ * or saving a circuit file, at the bottom of the window. While the task runs,
+ * its progress and message are shown next to a button that cancels it; when it
+ * is done, its final message is shown for a few seconds.
+ * 
+ * @author Seweryn Czabanowski
+ */
+public final class StatusBar extends HBox {
+    /**
+     * The time the final message of a task stays visible.
+     */
+    private static final Duration MESSAGE_DURATION = Duration.seconds(8);
+
+    /**
+     * The progress bar of the current task.
+     */
+    private final ProgressBar progressBar = new ProgressBar();
+
+    /**
+     * The label showing the message of the current task.
+     */
+    private final Label messageLabel = new Label();
+
+    /**
+     * The button cancelling the current task.
+     */
+    private final Button cancelButton = new Button("Cancel");
+
+    /**
+     * The timer hiding the final message of a task.
+     */
+    private final PauseTransition hideTimer = new PauseTransition(MESSAGE_DURATION);
+
+    /**
+     * Constructs an empty StatusBar.
+     */
+    public StatusBar() {
+        getStyleClass().add("status-bar");
+        progressBar.setPrefWidth(200);
+        getChildren().addAll(progressBar, cancelButton, messageLabel);
+        hideTimer.setOnFinished(event -> messageLabel.setText(""));
+        setTaskVisible(false);
+    }
+
+    /**
+     * Shows the progress of a task until it is done. Must be called on the
+     * JavaFX application thread, typically when the task starts running.
+     * 
+     * @param task the task to show
+     */
+    public void show(Task<?> task) {
+        hideTimer.stop();
+        progressBar.progressProperty().bind(task.progressProperty());
+        messageLabel.textProperty().bind(task.messageProperty());
+        cancelButton.setOnAction(event -> task.cancel());
+        setTaskVisible(true);
+    }
+
+    /**
+     * Stops showing the progress of the current task, and shows a final
+     * message for a few seconds.
+     * 
+     * @param message the final message
+     */
+    public void finish(String message) {
+        progressBar.progressProperty().unbind();
+        messageLabel.textProperty().unbind();
+        cancelButton.setOnAction(null);
+        setTaskVisible(false);
+        messageLabel.setText(message);
+        hideTimer.playFromStart();
+    }
+
+    /**
+     * Shows or hides the controls of a running task.
+     * 
+     * @param visible true to show the controls, false to hide them
+     */
+    private void setTaskVisible(boolean visible) {
+        progressBar.setVisible(visible);
+        progressBar.setManaged(visible);
+        cancelButton.setVisible(visible);
+        cancelButton.setManaged(visible);
+    }
+}
@@ -0,0 +1,511 @@
+package com.paperturtle.managers;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.paperturtle.App;
+import com.paperturtle.commands.Command;
+import com.paperturtle.components.LogicGate;
+import com.paperturtle.components.SubCircuitLibrary;
+import com.paperturtle.data.GateData;
+import com.paperturtle.data.JournalRecord;
+import com.paperturtle.data.TextLabelData;
+import com.paperturtle.gui.CircuitCanvas;
+import com.paperturtle.serializers.CircuitJournalReader;
+import com.paperturtle.serializers.CircuitJournalWriter;
+import com.paperturtle.utils.CircuitComponent;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.util.Duration;
+
+/**
+ * The AutosaveManager class is responsible for saving the circuit in the
+ * background, so that unsaved work can be recovered after a crash.
+ *
+ * <p>
+ * After each command executed, undone or redone by the {@link CommandManager},
+ * the gates changed since the last record are appended to a journal as a
+ * compact {@link JournalRecord}. Gates report their changes through
+ * {@link #markChanged(LogicGate)}, so moving gates is saved as well, with the
+ * next record. Periodically, and whenever the journal grows too long, the
+ * journal is compacted into a full snapshot of the circuit in the binary
+ * format, and truncated.
+ * </p>
+ *
+ * <p>
+ * Only capturing the data of the changed gates happens on the JavaFX
+ * application thread; encoding and writing the records and snapshots happens
+ * on a single background thread, in the order they were captured. The
+ * background thread applies every record to its own copy of the circuit data,
+ * from which the snapshots are written, so a snapshot never captures the whole
+ * circuit on the JavaFX application thread. To recover, the latest snapshot is
+ * loaded and only the records after it are replayed.
+ * </p>
+ *
+ * @see CircuitJournalWriter
+ * @see CircuitJournalReader
+ *
+ * @author Seweryn Czabanowski
+ */
+public class AutosaveManager {
+    /**
+     * The number of records after which the journal is compacted.
+     */
+    private static final int COMPACTION_THRESHOLD = 256;
+
+    /**
+     * The interval between records of changes not made by commands, such as
+     * moving gates.
+     */
+    private static final Duration FLUSH_INTERVAL = Duration.seconds(2);
+
+    /**
+     * The minimum time between compactions triggered by the timer, in
+     * milliseconds.
+     */
+    private static final long COMPACTION_INTERVAL = 60_000;
+
+    /**
+     * The name of the journal file.
+     */
+    private static final String JOURNAL_FILE = "journal.bin";
+
+    /**
+     * The prefix of the names of snapshot files, which is followed by the
+     * sequence number of the last record they contain.
+     */
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+
+    /**
+     * The canvas on which the circuit is drawn.
+     */
+    private final CircuitCanvas canvas;
+
+    /**
+     * The directory the journal and snapshots are stored in.
+     */
+    private final Path directory;
+
+    /**
+     * The gates changed since the last record.
+     */
+    private final Set<LogicGate> changedGates = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * The listener notified by the command manager after each command.
+     */
+    private final Consumer<Command> commandListener = command -> record();
+
+    /**
+     * The JSON of the text labels as of the last record.
+     */
+    private List<String> recordedLabels = List.of();
+
+    /**
+     * The thread writing the journal and snapshots.
+     */
+    private ExecutorService writer;
+
+    /**
+     * The timer recording changes not made by commands.
+     */
+    private Timeline timer;
+
+    /**
+     * The journal the records are appended to; only used by the writer thread.
+     */
+    private CircuitJournalWriter journal;
+
+    /**
+     * The data of the gates as of the last record written, keyed by ID; only
+     * used by the writer thread.
+     */
+    private final Map<String, GateData> journalGates = new LinkedHashMap<>();
+
+    /**
+     * The JSON of the text labels as of the last record written; only used by
+     * the writer thread.
+     */
+    private List<String> journalLabels = List.of();
+
+    /**
+     * The sequence number of the last record.
+     */
+    private long sequence = 0;
+
+    /**
+     * The number of records since the last snapshot.
+     */
+    private int recordsSinceSnapshot = 0;
+
+    /**
+     * The time of the last snapshot, in milliseconds.
+     */
+    private long lastSnapshotTime = 0;
+
+    /**
+     * Constructs an AutosaveManager for the specified circuit canvas, storing
+     * its files in the {@code autosave} directory of the
+     * {@link App#USER_DIRECTORY}.
+     *
+     * @param canvas the circuit canvas to manage
+     */
+    public AutosaveManager(CircuitCanvas canvas) {
+        this(canvas, App.USER_DIRECTORY.resolve("autosave"));
+    }
+
+    /**
+     * Constructs an AutosaveManager for the specified circuit canvas, storing
+     * its files in the specified directory.
+     *
+     * @param canvas    the circuit canvas to manage
+     * @param directory the directory of the journal and snapshots
+     */
+    public AutosaveManager(CircuitCanvas canvas, Path directory) {
+        this.canvas = canvas;
+        this.directory = directory;
+    }
+
+    /**
+     * Starts saving the circuit in the background, beginning with a snapshot
+     * of the current circuit, for which the data of every gate is captured once.
+     * Any earlier autosave is discarded.
+     */
+    public void start() {
+        if (isRunning()) {
+            return;
+        }
+        writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.execute(() -> {
+            try {
+                Files.createDirectories(directory);
+                journal = new CircuitJournalWriter(directory.resolve(JOURNAL_FILE));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        canvas.getCommandManager().addListener(commandListener);
+        timer = new Timeline(new KeyFrame(FLUSH_INTERVAL, event -> {
+            record();
+            if (recordsSinceSnapshot > 0 && System.currentTimeMillis() - lastSnapshotTime > COMPACTION_INTERVAL) {
+                compact();
+            }
+        }));
+        timer.setCycleCount(Timeline.INDEFINITE);
+        timer.play();
+        changedGates.addAll(canvas.getGateImageViews().values());
+        compact();
+    }
+
+    /**
+     * Stops saving the circuit and deletes the journal and snapshots, waiting
+     * for pending writes to finish. Called when the application exits normally.
+     */
+    public void shutdown() {
+        if (!isRunning()) {
+            return;
+        }
+        timer.stop();
+        canvas.getCommandManager().removeListener(commandListener);
+        writer.execute(() -> {
+            try {
+                if (journal != null) {
+                    journal.close();
+                }
+                deleteFiles(-1);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            journalGates.clear();
+            journalLabels = List.of();
+        });
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+        changedGates.clear();
+    }
+
+    /**
+     * Checks if the circuit is being saved in the background.
+     *
+     * @return true if the autosave is running, false otherwise
+     */
+    public boolean isRunning() {
+        return writer != null;
+    }
+
+    /**
+     * Marks a gate as changed, so that it is saved with the next record.
+     * Called by gates whenever their position or connections change.
+     *
+     * @param gate the changed gate
+     */
+    public void markChanged(LogicGate gate) {
+        if (isRunning()) {
+            changedGates.add(gate);
+        }
+    }
+
+    /**
+     * Appends a record of the gates and text labels changed since the last
+     * record to the journal. Gates that are no longer on the canvas are
+     * recorded as removed. Nothing is written if nothing changed.
+     */
+    public void record() {
+        if (isRunning() && append() && ++recordsSinceSnapshot >= COMPACTION_THRESHOLD) {
+            compact();
+        }
+    }
+
+    /**
+     * Captures the gates and text labels changed since the last record, and
+     * appends them to the journal in the background.
+     *
+     * @return true if a record was appended, false if nothing changed
+     */
+    private boolean append() {
+        JournalRecord record = new JournalRecord();
+        for (LogicGate gate : changedGates) {
+            if (canvas.getGateRegistry().contains(gate)) {
+                record.gates.add(gate.getGateData());
+            } else {
+                record.removedGateIds.add(gate.getId());
+            }
+        }
+        changedGates.clear();
+        List<String> labels = canvas.getSerializedTextLabels();
+        if (!labels.equals(recordedLabels)) {
+            record.labels = labels;
+            recordedLabels = labels;
+        }
+        if (record.isEmpty()) {
+            return false;
+        }
+
+        record.sequence = ++sequence;
+        writer.execute(() -> {
+            record.removedGateIds.forEach(journalGates::remove);
+            record.gates.forEach(gateData -> journalGates.put(gateData.id, gateData));
+            if (record.labels != null) {
+                journalLabels = record.labels;
+            }
+            try {
+                if (journal != null) {
+                    journal.append(record);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Writes a full snapshot of the circuit in the background and truncates the
+     * journal once it is written. Only the changes since the last record are
+     * captured right away; the snapshot is written from the data of the records
+     * kept by the writer thread, so later changes go to the journal after the
+     * snapshot.
+     */
+    public void compact() {
+        if (!isRunning()) {
+            return;
+        }
+        append();
+        snapshot(false);
+    }
+
+    /**
+     * Discards the changes not yet recorded and writes an empty snapshot in the
+     * background. Called when the canvas is cleared.
+     */
+    public void clear() {
+        if (!isRunning()) {
+            return;
+        }
+        changedGates.clear();
+        recordedLabels = List.of();
+        snapshot(true);
+    }
+
+    /**
+     * Writes a snapshot of the records written so far in the background, and
+     * truncates the journal once it is written.
+     *
+     * @param empty true to discard the records and write an empty snapshot
+     */
+    private void snapshot(boolean empty) {
+        long snapshotSequence = sequence;
+        recordsSinceSnapshot = 0;
+        lastSnapshotTime = System.currentTimeMillis();
+
+        writer.execute(() -> {
+            if (empty) {
+                journalGates.clear();
+                journalLabels = List.of();
+            }
+            try {
+                new CircuitFileManager().saveCircuit(
+                        directory.resolve(SNAPSHOT_PREFIX + snapshotSequence + CircuitFileManager.BINARY_EXTENSION)
+                                .toString(),
+                        new ArrayList<>(journalGates.values()), journalLabels, progress -> {
+                        });
+                if (journal != null) {
+                    journal.truncate();
+                }
+                deleteFiles(snapshotSequence);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Checks if a previous session left an autosave behind, which happens when
+     * the application did not exit normally.
+     *
+     * @return true if there is work to recover, false otherwise
+     */
+    public boolean hasRecoveryData() {
+        try {
+            Path journalFile = directory.resolve(JOURNAL_FILE);
+            return findSnapshot() != null || (Files.exists(journalFile) && Files.size(journalFile) > 0);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Loads the work left behind by a previous session onto the canvas: the
+     * latest snapshot, followed by the journal records written after it. Must
+     * be called before {@link #start()}.
+     *
+     * @throws IOException           if the autosave cannot be read, or uses a
+     *                               sub-circuit whose definition is missing
+     * @throws IllegalStateException if the autosave is running
+     */
+    public void recover() throws IOException {
+        if (isRunning()) {
+            throw new IllegalStateException("Cannot recover while the autosave is running");
+        }
+        Map<String, GateData> gates = new LinkedHashMap<>();
+        List<String> labels = new ArrayList<>();
+        Path snapshot = findSnapshot();
+        long snapshotSequence = 0;
+        if (snapshot != null) {
+            snapshotSequence = getSnapshotSequence(snapshot);
+            new CircuitFileManager().loadCircuit(snapshot.toString(), component -> {
+                if (component instanceof GateData gateData) {
+                    gates.put(gateData.id, gateData);
+                } else if (component instanceof TextLabelData textLabelData) {
+                    labels.add(textLabelData.json);
+                }
+            }, progress -> {
+            });
+        }
+
+        long replayAfter = snapshotSequence;
+        new CircuitJournalReader(directory.resolve(JOURNAL_FILE)).read(record -> {
+            if (record.sequence <= replayAfter) {
+                return;
+            }
+            record.removedGateIds.forEach(gates::remove);
+            record.gates.forEach(gateData -> gates.put(gateData.id, gateData));
+            if (record.labels != null) {
+                labels.clear();
+                labels.addAll(record.labels);
+            }
+        });
+
+        List<CircuitComponent> components = new ArrayList<>(gates.values());
+        labels.forEach(label -> components.add(new TextLabelData(label)));
+        SubCircuitLibrary.requireDefinitions(components);
+        canvas.loadComponents(components);
+    }
+
+    /**
+     * Finds the snapshot with the highest sequence number.
+     *
+     * @return the latest snapshot, or null if there is none
+     * @throws IOException if the directory cannot be read
+     */
+    private Path findSnapshot() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        Path latest = null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                SNAPSHOT_PREFIX + "*" + CircuitFileManager.BINARY_EXTENSION)) {
+            for (Path file : files) {
+                if (getSnapshotSequence(file) >= 0
+                        && (latest == null || getSnapshotSequence(file) > getSnapshotSequence(latest))) {
+                    latest = file;
+                }
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Deletes the snapshots other than the one with the specified sequence
+     * number. If the sequence number is negative, the journal is deleted as
+     * well.
+     *
+     * @param keepSequence the sequence number of the snapshot to keep
+     * @throws IOException if the directory cannot be read
+     */
+    private void deleteFiles(long keepSequence) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                SNAPSHOT_PREFIX + "*" + CircuitFileManager.BINARY_EXTENSION)) {
+            for (Path file : files) {
+                if (getSnapshotSequence(file) != keepSequence) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        if (keepSequence < 0) {
+            Files.deleteIfExists(directory.resolve(JOURNAL_FILE));
+        }
+    }
+
+    /**
+     * Returns the sequence number in the name of a snapshot file.
+     *
+     * @param snapshot the snapshot file
+     * @return the sequence number, or -1 if the name is invalid
+     */
+    private static long getSnapshotSequence(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(),
+                    name.length() - CircuitFileManager.BINARY_EXTENSION.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+}
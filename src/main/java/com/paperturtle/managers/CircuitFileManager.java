@@ -1,86 +1,358 @@
 package com.paperturtle.managers;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
+import com.paperturtle.components.LogicGate;
 import com.paperturtle.components.utilities.TextLabel;
-import com.paperturtle.serializers.Point2DDeserializer;
-import com.paperturtle.serializers.Point2DSerializer;
+import com.paperturtle.data.GateData;
+import com.paperturtle.data.TextLabelData;
+import com.paperturtle.gui.CircuitCanvas;
+import com.paperturtle.serializers.CircuitBinaryReader;
+import com.paperturtle.serializers.CircuitBinaryWriter;
+import com.paperturtle.serializers.CircuitJsonReader;
+import com.paperturtle.serializers.CircuitJsonWriter;
 import com.paperturtle.serializers.TextLabelDeserializer;
 import com.paperturtle.serializers.TextLabelSerializer;
 import com.paperturtle.utils.CircuitComponent;
-import com.paperturtle.utils.ComponentAdapter;
 
-import javafx.geometry.Point2D;
-
-import java.io.FileWriter;
-import java.io.FileReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.lang.reflect.Type;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
 
 /**
  * The CircuitFileManager class is responsible for saving and loading circuits.
- * The class uses the Gson library to serialize and deserialize the circuit data
- * to and from JSON format.
+ * The class uses the streaming API of the Gson library to read and write the
+ * circuit data in JSON format one component at a time. Circuits can also be
+ * stored in a compact binary format, which is chosen by the
+ * {@link #BINARY_EXTENSION} of the file.
  * 
- * @see Point2DSerializer
- * @see Point2DDeserializer
+ * @see CircuitJsonReader
+ * @see CircuitJsonWriter
+ * @see CircuitBinaryReader
+ * @see CircuitBinaryWriter
  * @see TextLabelSerializer
  * @see TextLabelDeserializer
- * @see ComponentAdapter
  * 
  * @author Seweryn Czabanowski
  */
 public class CircuitFileManager {
     /**
-     * An instance of Gson used for converting Java objects into their JSON
-     * representation and vice versa.
+     * The size of the character buffer used when writing files.
      */
-    private Gson gson = new Gson();
+    private static final int BUFFER_SIZE = 1 << 16;
 
     /**
-     * Constructs a CircuitFileManager and initializes the Gson instance with custom
-     * serializers and deserializers.
+     * The extension of files in the binary format.
+     */
+    public static final String BINARY_EXTENSION = ".lgb";
+
+    /**
+     * Constructs a CircuitFileManager.
      */
     public CircuitFileManager() {
-        this.gson = new GsonBuilder()
-                .registerTypeAdapter(Point2D.class, new Point2DSerializer())
-                .registerTypeAdapter(Point2D.class, new Point2DDeserializer())
-                .registerTypeAdapter(TextLabel.class, new TextLabelSerializer())
-                .registerTypeAdapter(TextLabel.class, new TextLabelDeserializer())
-                .registerTypeAdapter(CircuitComponent.class, new ComponentAdapter())
-                .create();
     }
 
     /**
-     * Saves the current circuit to a JSON file.
+     * Saves the current circuit to a file. Files ending in
+     * {@link #BINARY_EXTENSION} are written in the binary format, all others as
+     * JSON.
      * 
      * @param file       The file path where the circuit should be saved.
      * @param components The list of CircuitComponents to save.
      * @throws IOException If an I/O error occurs.
      */
     public void saveCircuit(String file, List<CircuitComponent> components) throws IOException {
-        Type type = new TypeToken<List<CircuitComponent>>() {
-        }.getType();
-        String json = gson.toJson(components, type);
-        try (FileWriter writer = new FileWriter(file)) {
-            writer.write(json);
+        if (isBinary(file)) {
+            TextLabelSerializer labelSerializer = new TextLabelSerializer();
+            List<GateData> gates = new ArrayList<>();
+            List<String> labels = new ArrayList<>();
+            for (CircuitComponent component : components) {
+                if (component instanceof GateData gateData) {
+                    gates.add(gateData);
+                } else if (component instanceof TextLabelData textLabelData) {
+                    labels.add(textLabelData.json);
+                } else if (component instanceof TextLabel textLabel) {
+                    labels.add(labelSerializer.serialize(textLabel, TextLabel.class, null).getAsJsonObject()
+                            .getAsJsonObject("data").toString());
+                }
+            }
+            saveCircuit(file, gates, labels, progress -> {
+            });
+            return;
         }
+        writeJson(Path.of(file), writer -> {
+            for (CircuitComponent component : components) {
+                writer.write(component);
+            }
+        });
     }
 
     /**
-     * Loads a circuit from a JSON file.
+     * Saves the gates and text labels of a canvas to a file. Files ending in
+     * {@link #BINARY_EXTENSION} are written in the binary format, all others as
+     * JSON. For JSON, the data of each gate is created and written one at a
+     * time, so the circuit is never held in memory as a whole.
+     * 
+     * @param file   The file path where the circuit should be saved.
+     * @param canvas The canvas whose circuit is saved.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void saveCircuit(String file, CircuitCanvas canvas) throws IOException {
+        if (isBinary(file)) {
+            writeBinary(Path.of(file), canvas.getAllGateData(), canvas.getAllTextLabels());
+            return;
+        }
+        writeJson(Path.of(file), writer -> {
+            for (LogicGate gate : canvas.getGateImageViews().values()) {
+                writer.writeGate(gate.getGateData());
+            }
+            for (TextLabel textLabel : canvas.getAllTextLabels()) {
+                writer.writeTextLabel(textLabel);
+            }
+        });
+    }
+
+    /**
+     * Saves a circuit captured from a canvas to a file, in the format chosen by
+     * its extension. The text labels are already serialized, so the circuit can
+     * be saved on a background thread while the canvas keeps changing.
+     * 
+     * @param file     the file to save the circuit to
+     * @param gates    the data of the gates
+     * @param labels   the JSON of each text label
+     * @param progress called with the fraction of the gates written
+     * @throws IOException if an I/O error occurs
+     * @see CircuitCanvas#getSerializedTextLabels()
+     */
+    public void saveCircuit(String file, List<GateData> gates, List<String> labels, DoubleConsumer progress)
+            throws IOException {
+        if (isBinary(file)) {
+            writeAtomically(Path.of(file),
+                    channel -> new CircuitBinaryWriter(channel).writeSerialized(gates, labels, progress));
+            return;
+        }
+        writeJson(Path.of(file), writer -> {
+            int written = 0;
+            for (GateData gate : gates) {
+                writer.writeGate(gate);
+                progress.accept((double) ++written / gates.size());
+            }
+            for (String label : labels) {
+                writer.writeTextLabel(label);
+            }
+        });
+    }
+
+    /**
+     * Loads a circuit from a file. Text labels are returned as
+     * {@link TextLabelData}, so this method does not need the JavaFX toolkit.
      * 
      * @param filePath The file path from where to load the circuit.
-     * @return A list of LogicGates reconstructed from the saved data.
+     * @return A list of the gate and text label data read from the file.
      * @throws IOException If an I/O error occurs.
      */
     public List<CircuitComponent> loadCircuit(String filePath) throws IOException {
-        Type type = new TypeToken<List<CircuitComponent>>() {
-        }.getType();
-        try (FileReader reader = new FileReader(filePath)) {
-            return gson.fromJson(reader, type);
+        List<CircuitComponent> components = new ArrayList<>();
+        loadCircuit(filePath, components::add, progress -> {
+        });
+        return components;
+    }
+
+    /**
+     * Loads a circuit from a file, passing each component to the consumer. Files
+     * ending in {@link #BINARY_EXTENSION} are read with a
+     * {@link CircuitBinaryReader} from a memory-mapped buffer. All others are read
+     * as JSON with a {@link CircuitJsonReader}, which passes on each component as
+     * soon as it is read, so only one component is held in memory at a time.
+     * 
+     * @param filePath The file path from where to load the circuit.
+     * @param consumer The consumer receiving each component.
+     * @param progress Called with the fraction of the file read after each
+     *                 component.
+     * @throws IOException If an I/O error occurs or the file is not a circuit
+     *                     file.
+     */
+    public void loadCircuit(String filePath, Consumer<CircuitComponent> consumer, DoubleConsumer progress)
+            throws IOException {
+        if (isBinary(filePath)) {
+            new CircuitBinaryReader(Path.of(filePath)).read(consumer, progress);
+            return;
+        }
+        try (CircuitJsonReader reader = new CircuitJsonReader(Path.of(filePath))) {
+            while (reader.hasNext()) {
+                consumer.accept(reader.next());
+                progress.accept(reader.getProgress());
+            }
+        }
+    }
+
+    /**
+     * Loads only the gates of a circuit from a file, passing the data of each
+     * gate to the consumer. Text labels are skipped without being parsed, for
+     * headless tools that only simulate the circuit.
+     * 
+     * @param filePath The file path from where to load the circuit.
+     * @param consumer The consumer receiving the data of each gate.
+     * @throws IOException If an I/O error occurs or the file is not a circuit
+     *                     file.
+     */
+    public void loadGates(String filePath, Consumer<GateData> consumer) throws IOException {
+        if (isBinary(filePath)) {
+            new CircuitBinaryReader(Path.of(filePath), false).read(component -> {
+                if (component instanceof GateData gate) {
+                    consumer.accept(gate);
+                }
+            }, progress -> {
+            });
+            return;
+        }
+        try (CircuitJsonReader reader = new CircuitJsonReader(Path.of(filePath), false)) {
+            while (reader.hasNext()) {
+                if (reader.next() instanceof GateData gate) {
+                    consumer.accept(gate);
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts a circuit file between the JSON and binary formats. The format of
+     * each file is determined by its extension. No JavaFX node is created, so
+     * files can be converted without starting the JavaFX toolkit.
+     * 
+     * @param sourceFile The file to read.
+     * @param targetFile The file to write.
+     * @throws IOException If an I/O error occurs or the source file is not a
+     *                     circuit file.
+     */
+    public void convertCircuit(String sourceFile, String targetFile) throws IOException {
+        saveCircuit(targetFile, loadCircuit(sourceFile));
+    }
+
+    /**
+     * Checks if the specified file is in the binary format.
+     * 
+     * @param file The file path.
+     * @return true if the file ends in {@link #BINARY_EXTENSION}, false otherwise
+     */
+    public static boolean isBinary(String file) {
+        return file.toLowerCase().endsWith(BINARY_EXTENSION);
+    }
+
+    /**
+     * Writes a circuit file in the JSON format through a
+     * {@link CircuitJsonWriter} on a buffered channel.
+     * 
+     * @param path    The file to write.
+     * @param content Writes the components of the circuit.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void writeJson(Path path, CircuitContent content) throws IOException {
+        writeAtomically(path, channel -> {
+            CircuitJsonWriter writer = new CircuitJsonWriter(new BufferedWriter(
+                    Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE));
+            content.writeTo(writer);
+            writer.finish();
+        });
+    }
+
+    /**
+     * Writes a circuit file in the binary format through a
+     * {@link CircuitBinaryWriter}.
+     * 
+     * @param path   The file to write.
+     * @param gates  The data of the gates.
+     * @param labels The text labels.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void writeBinary(Path path, List<GateData> gates, List<TextLabel> labels) throws IOException {
+        writeAtomically(path, channel -> new CircuitBinaryWriter(channel).write(gates, labels));
+    }
+
+    /**
+     * Writes a file under a temporary name in the same directory and then moves
+     * it into place, so an interrupted save never leaves a partially written file
+     * behind. The temporary file is created with the default permissions, or
+     * with those of the file it replaces, so saving does not change who can
+     * read the file.
+     * 
+     * @param path    The file to write.
+     * @param content Writes the contents of the file to a channel.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void writeAtomically(Path path, FileContent content) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Path temp = directory.resolve("." + path.getFileName() + "."
+                + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".tmp");
+        Files.createFile(temp);
+        try {
+            copyPermissions(path, temp);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                content.writeTo(channel);
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
         }
     }
+
+    /**
+     * Copies the POSIX permissions of an existing file onto another file. Does
+     * nothing if the source does not exist or the file system has no POSIX
+     * permissions.
+     * 
+     * @param source The file whose permissions are copied.
+     * @param target The file receiving the permissions.
+     * @throws IOException If an I/O error occurs.
+     */
+    private static void copyPermissions(Path source, Path target) throws IOException {
+        if (Files.exists(source)
+                && Files.getFileStore(target).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+        }
+    }
+
+    /**
+     * Writes the components of a circuit.
+     */
+    @FunctionalInterface
+    private interface CircuitContent {
+        /**
+         * Writes the components of the circuit to the writer.
+         * 
+         * @param writer the writer of the circuit file
+         * @throws IOException If an I/O error occurs.
+         */
+        void writeTo(CircuitJsonWriter writer) throws IOException;
+    }
+
+    /**
+     * Writes the contents of a file.
+     */
+    @FunctionalInterface
+    private interface FileContent {
+        /**
+         * Writes the contents of the file to the channel.
+         * 
+         * @param channel the channel of the file
+         * @throws IOException If an I/O error occurs.
+         */
+        void writeTo(FileChannel channel) throws IOException;
+    }
 }
@@ -0,0 +1,92 @@
+package com.paperturtle.managers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import com.paperturtle.components.SubCircuitLibrary;
+import com.paperturtle.utils.CircuitComponent;
+
+import javafx.concurrent.Task;
+
+/**
+ * The CircuitLoadTask class reads a circuit file on a background thread. The
+ * file is parsed into a detached list of gate and text label data, which holds
+ * no JavaFX nodes, so it can be built off the JavaFX application thread. The
+ * gates and labels are created and attached to the canvas in a single batch
+ * once the task succeeds.
+ *
+ * <p>
+ * The progress of the task follows the fraction of the file read, and its
+ * message reports the amount read and the throughput. The task can be
+ * cancelled at any time; the canvas is not touched until the file has been
+ * read completely. The task fails if the circuit uses a sub-circuit whose
+ * definition is not in the library.
+ * </p>
+ *
+ * @see CircuitFileManager#loadCircuit(String, java.util.function.Consumer,
+ *      java.util.function.DoubleConsumer)
+ * @see com.paperturtle.gui.CircuitCanvas#loadComponents(List)
+ *
+ * @author Seweryn Czabanowski
+ */
+public final class CircuitLoadTask extends Task<List<CircuitComponent>> {
+    /**
+     * The smallest change in progress that is reported.
+     */
+    private static final double PROGRESS_STEP = 0.005;
+
+    /**
+     * The file to load.
+     */
+    private final Path file;
+
+    /**
+     * The progress last reported.
+     */
+    private double reportedProgress = -1;
+
+    /**
+     * Constructs a CircuitLoadTask for the specified file.
+     *
+     * @param file the circuit file to load
+     */
+    public CircuitLoadTask(Path file) {
+        this.file = file;
+        updateTitle("Loading " + file.getFileName());
+    }
+
+    @Override
+    protected List<CircuitComponent> call() throws Exception {
+        long size = Files.size(file);
+        long start = System.nanoTime();
+        List<CircuitComponent> components = new ArrayList<>();
+        new CircuitFileManager().loadCircuit(file.toString(), component -> {
+            if (isCancelled()) {
+                throw new CancellationException();
+            }
+            components.add(component);
+        }, progress -> {
+            if (isCancelled()) {
+                throw new CancellationException();
+            }
+            if (progress - reportedProgress >= PROGRESS_STEP || progress == 1) {
+                reportedProgress = progress;
+                updateProgress(progress, 1);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                updateMessage(String.format("Loading %s: %.1f of %.1f MB (%.1f MB/s)", file.getFileName(),
+                        progress * size / 1e6, size / 1e6, seconds > 0 ? progress * size / 1e6 / seconds : 0));
+            }
+        });
+
+        SubCircuitLibrary.requireDefinitions(components);
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        updateMessage(String.format("Read %,d components from %s in %.2f s (%,.0f components/s, %.1f MB/s)",
+                components.size(), file.getFileName(), seconds, components.size() / seconds,
+                size / 1e6 / seconds));
+        return components;
+    }
+}
@@ -0,0 +1,92 @@
+package com.paperturtle.managers;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import com.paperturtle.data.GateData;
+import com.paperturtle.gui.CircuitCanvas;
+
+import javafx.concurrent.Task;
+
+/**
+ * The CircuitSaveTask class writes a circuit file on a background thread. The
+ * data of the gates and text labels is captured from the canvas when the task
+ * is constructed, which must happen on the JavaFX application thread; encoding
+ * and writing the file then happen off it, so the canvas can keep changing.
+ *
+ * <p>
+ * The progress of the task follows the fraction of the gates written, and its
+ * message reports the throughput. The file is written atomically, so
+ * cancelling the task leaves any existing file untouched.
+ * </p>
+ *
+ * @see CircuitFileManager#saveCircuit(String, List, List,
+ *      java.util.function.DoubleConsumer)
+ *
+ * @author Seweryn Czabanowski
+ */
+public final class CircuitSaveTask extends Task<Void> {
+    /**
+     * The smallest change in progress that is reported.
+     */
+    private static final double PROGRESS_STEP = 0.005;
+
+    /**
+     * The file to save.
+     */
+    private final Path file;
+
+    /**
+     * The data of the gates, captured from the canvas.
+     */
+    private final List<GateData> gates;
+
+    /**
+     * The JSON of the text labels, captured from the canvas.
+     */
+    private final List<String> labels;
+
+    /**
+     * The progress last reported.
+     */
+    private double reportedProgress = -1;
+
+    /**
+     * Constructs a CircuitSaveTask saving the current circuit of the specified
+     * canvas to a file.
+     *
+     * @param canvas the canvas whose circuit is saved
+     * @param file   the file to save the circuit to
+     */
+    public CircuitSaveTask(CircuitCanvas canvas, Path file) {
+        this.file = file;
+        this.gates = canvas.getAllGateData();
+        this.labels = canvas.getSerializedTextLabels();
+        updateTitle("Saving " + file.getFileName());
+    }
+
+    @Override
+    protected Void call() throws Exception {
+        long start = System.nanoTime();
+        new CircuitFileManager().saveCircuit(file.toString(), gates, labels, progress -> {
+            if (isCancelled()) {
+                throw new CancellationException();
+            }
+            if (progress - reportedProgress >= PROGRESS_STEP || progress == 1) {
+                reportedProgress = progress;
+                updateProgress(progress, 1);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                updateMessage(String.format("Saving %s: %,d of %,d gates (%,.0f gates/s)", file.getFileName(),
+                        Math.round(progress * gates.size()), gates.size(),
+                        seconds > 0 ? progress * gates.size() / seconds : 0));
+            }
+        });
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        updateMessage(String.format("Wrote %,d gates to %s in %.2f s (%,.0f gates/s, %.1f MB/s)", gates.size(),
+                file.getFileName(), seconds, gates.size() / seconds, Files.size(file) / 1e6 / seconds));
+        return null;
+    }
+}
@@ -0,0 +1,703 @@
+package com.paperturtle.managers;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.paperturtle.components.LogicGate;
+import com.paperturtle.components.inputs.ClockGate;
+import com.paperturtle.gui.CircuitCanvas;
+import com.paperturtle.simulation.ClockRunner;
+
+import javafx.animation.AnimationTimer;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+
+/**
+ * The ClockManager class drives every clock on the circuit canvas from a single
+ * simulated time base, replacing one animation per clock.
+ *
+ * <p>
+ * Simulated time is counted in integer ticks. The signal duration of every
+ * clock is converted to an exact fraction of a second, and a tick is chosen as
+ * the largest unit that divides all of them, so clock edges never drift apart
+ * from rounding. Clock edges are aligned to multiples of their signal duration,
+ * so clocks with the same or commensurate durations switch together.
+ * </p>
+ *
+ * <p>
+ * Once per frame, the manager advances simulated time by the elapsed wall-clock
+ * time and fires every clock edge that became due, in order. All clocks
+ * switching at the same instant are propagated together in one pass of the
+ * simulation engine on the simulation thread, and the gates are updated at
+ * most once per frame from the latest state it published.
+ * </p>
+ *
+ * <p>
+ * Clocks can also be {@link #fastForward(ClockGate, long, List) fast-forwarded}
+ * by a number of cycles. A {@link ClockRunner} then runs them on the simulation
+ * thread as fast as possible, and the gates are updated once when the run
+ * ends.
+ * </p>
+ *
+ * @see ClockGate
+ * @see ClockRunner
+ * @see SimulationManager
+ *
+ * @author Seweryn Czabanowski
+ */
+public class ClockManager {
+    /**
+     * The number of nanoseconds in a second.
+     */
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * The largest amount of wall-clock time, in nanoseconds, simulated in a
+     * single frame. Longer pauses, for example while a dialog is open, are not
+     * caught up.
+     */
+    private static final long MAX_FRAME_NANOS = 100_000_000L;
+
+    /**
+     * The largest number of clock edges fired in a single frame. When more edges
+     * are due, simulated time falls behind wall-clock time instead of stalling
+     * the user interface.
+     */
+    private static final int MAX_EDGES_PER_FRAME = 100_000;
+
+    /**
+     * The largest number of commands the simulation thread may have waiting
+     * before no more clock edges are fired. When the simulation cannot keep up,
+     * simulated time falls behind wall-clock time instead of queueing unbounded
+     * work.
+     */
+    private static final int MAX_BACKLOG = 100_000;
+
+    /**
+     * The canvas on which the circuit is drawn.
+     */
+    private final CircuitCanvas canvas;
+
+    /**
+     * The scheduling state of each registered clock.
+     */
+    private final Map<ClockGate, ScheduledClock> clocks = new IdentityHashMap<>();
+
+    /**
+     * The running clocks, ordered by their next edge.
+     */
+    private final PriorityQueue<ScheduledClock> queue = new PriorityQueue<>(
+            Comparator.comparingLong(clock -> clock.nextEdge));
+
+    /**
+     * The number of ticks in a second of simulated time.
+     */
+    private long ticksPerSecond = 1;
+
+    /**
+     * The current simulated time, in ticks.
+     */
+    private long time = 0;
+
+    /**
+     * The fraction of a tick elapsed beyond {@link #time}, in units of
+     * 1/{@value #NANOS_PER_SECOND} tick.
+     */
+    private long remainder = 0;
+
+    /**
+     * The timestamp of the previous frame, in nanoseconds, or -1 if no frame
+     * has been handled since the timer started.
+     */
+    private long lastFrame = -1;
+
+    /**
+     * The clocks that were switched outside of a frame to bring them into
+     * phase, and still have to be propagated.
+     */
+    private final List<ClockGate> realigned = new ArrayList<>();
+
+    /**
+     * The timer calling {@link #handleFrame(long)} once per frame, or null if it
+     * has not been created yet.
+     */
+    private AnimationTimer timer;
+
+    /**
+     * A flag indicating whether the timer is running.
+     */
+    private boolean timerRunning = false;
+
+    /**
+     * A flag indicating whether a fast-forward is in progress.
+     */
+    private boolean fastForwarding = false;
+
+    /**
+     * The scheduling state of a clock.
+     */
+    private static final class ScheduledClock {
+        /**
+         * The clock.
+         */
+        final ClockGate gate;
+
+        /**
+         * The time between two edges of the clock, in ticks.
+         */
+        long period;
+
+        /**
+         * The time of the next edge of the clock, in ticks.
+         */
+        long nextEdge;
+
+        /**
+         * A flag indicating whether the clock is in the queue.
+         */
+        boolean queued;
+
+        /**
+         * Constructs the scheduling state of a clock.
+         *
+         * @param gate the clock
+         */
+        ScheduledClock(ClockGate gate) {
+            this.gate = gate;
+        }
+    }
+
+    /**
+     * Constructs a ClockManager for the specified circuit canvas.
+     *
+     * @param canvas the circuit canvas to manage
+     */
+    public ClockManager(CircuitCanvas canvas) {
+        this.canvas = canvas;
+    }
+
+    /**
+     * Registers a clock, so that it is driven by this manager. Registering a
+     * clock that is already registered has no effect.
+     *
+     * @param clock the clock
+     */
+    public void register(ClockGate clock) {
+        if (clocks.containsKey(clock)) {
+            return;
+        }
+        clock.setClockManager(this);
+        clocks.put(clock, new ScheduledClock(clock));
+        reschedule(clock);
+        startTimer();
+    }
+
+    /**
+     * Unregisters a clock, so that it stops switching.
+     *
+     * @param clock the clock
+     */
+    public void unregister(ClockGate clock) {
+        ScheduledClock scheduled = clocks.remove(clock);
+        if (scheduled != null && scheduled.queued) {
+            queue.remove(scheduled);
+        }
+        realigned.remove(clock);
+        if (clocks.isEmpty()) {
+            stopTimer();
+        }
+    }
+
+    /**
+     * Unregisters all clocks.
+     */
+    public void clear() {
+        clocks.clear();
+        queue.clear();
+        realigned.clear();
+        stopTimer();
+    }
+
+    /**
+     * Schedules the next edge of a clock after it was started, stopped, or its
+     * signal duration changed. A running clock is brought into phase with the
+     * time base: its edges fall on multiples of its signal duration, and it is
+     * high during every odd signal duration.
+     *
+     * @param clock the clock
+     */
+    public void reschedule(ClockGate clock) {
+        ScheduledClock scheduled = clocks.get(clock);
+        if (scheduled == null) {
+            return;
+        }
+        if (scheduled.queued) {
+            queue.remove(scheduled);
+            scheduled.queued = false;
+        }
+        if (!clock.isRunning()) {
+            return;
+        }
+
+        try {
+            scheduled.period = toTicks(clock.getSignalDuration());
+        } catch (ArithmeticException e) {
+            System.out.println("Clock signal duration out of range: " + clock.getSignalDuration());
+            return;
+        }
+        long cycle = time / scheduled.period;
+        scheduled.nextEdge = (cycle + 1) * scheduled.period;
+        if (clock.evaluate() != (cycle % 2 == 1)) {
+            clock.invert();
+            realigned.add(clock);
+        }
+        scheduled.queued = true;
+        queue.add(scheduled);
+    }
+
+    /**
+     * Returns the current simulated time.
+     *
+     * @return the simulated time, in seconds
+     */
+    public double getTime() {
+        return (double) time / ticksPerSecond;
+    }
+
+    /**
+     * Advances simulated time by the wall-clock time elapsed since the previous
+     * frame, fires all clock edges that became due, and updates the gates once.
+     *
+     * @param now the timestamp of the current frame, in nanoseconds
+     */
+    private void handleFrame(long now) {
+        if (lastFrame < 0) {
+            lastFrame = now;
+            return;
+        }
+        long elapsed = Math.min(now - lastFrame, MAX_FRAME_NANOS);
+        lastFrame = now;
+
+        long scaled = elapsed * ticksPerSecond + remainder;
+        long target = time + scaled / NANOS_PER_SECOND;
+        remainder = scaled % NANOS_PER_SECOND;
+
+        boolean changed = scheduleRealigned();
+        if (fireEdges(target) || changed) {
+            canvas.getSimulationManager().flush();
+        }
+    }
+
+    /**
+     * Schedules the clocks that were switched to bring them into phase.
+     *
+     * @return true if any clock was scheduled
+     */
+    private boolean scheduleRealigned() {
+        SimulationManager simulation = canvas.getSimulationManager();
+        boolean changed = !realigned.isEmpty();
+        realigned.forEach(simulation::schedule);
+        realigned.clear();
+        return changed;
+    }
+
+    /**
+     * Shows a dialog for fast-forwarding the circuit by a number of cycles of
+     * the specified clock.
+     *
+     * @param reference the clock whose cycles are counted
+     */
+    public void showFastForwardDialog(ClockGate reference) {
+        Alert alert = new Alert(AlertType.CONFIRMATION);
+        alert.setTitle("Fast Forward");
+        alert.setHeaderText("Run clock cycles as fast as possible.");
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setPadding(new Insets(20, 150, 10, 10));
+
+        TextField cyclesField = new TextField("1000");
+        cyclesField.setPromptText("Enter the number of cycles");
+        List<LogicGate> selected = canvas.getSelectedGates();
+        CheckBox stopBox = new CheckBox("Stop when a selected gate is on");
+        stopBox.setDisable(selected.isEmpty());
+
+        grid.add(new Label("Cycles:"), 0, 0);
+        grid.add(cyclesField, 1, 0);
+        grid.add(stopBox, 1, 1);
+
+        alert.getDialogPane().setContent(grid);
+        Optional<ButtonType> result = alert.showAndWait();
+        if (result.isEmpty() || result.get() != ButtonType.OK) {
+            return;
+        }
+
+        try {
+            long cycles = Long.parseLong(cyclesField.getText().trim());
+            if (cycles > 0) {
+                fastForward(reference, cycles, stopBox.isSelected() ? selected : List.of());
+            } else {
+                showError("The number of cycles must be positive: " + cycles);
+            }
+        } catch (NumberFormatException e) {
+            showError("Invalid number of cycles: " + cyclesField.getText());
+        }
+    }
+
+    /**
+     * Shows an error alert for the fast-forward dialog.
+     *
+     * @param content the error message
+     */
+    private void showError(String content) {
+        Alert alert = new Alert(AlertType.ERROR);
+        alert.setTitle("Fast Forward");
+        alert.setHeaderText(null);
+        alert.setContentText(content);
+        alert.showAndWait();
+    }
+
+    /**
+     * Fast-forwards the circuit by a number of cycles of the specified clock, as
+     * fast as possible on the simulation thread. All running clocks keep switching on
+     * the same time base; a paused reference clock is run as well. While the run
+     * is in progress, a window showing its progress blocks the canvas, and no
+     * gate is updated. When it ends, every changed gate is updated at once and
+     * the number of cycles per second achieved is reported.
+     *
+     * @param reference the clock whose cycles are counted
+     * @param cycles    the number of cycles to run
+     * @param watched   the gates that end the run early when any of them is on
+     */
+    public void fastForward(ClockGate reference, long cycles, List<LogicGate> watched) {
+        SimulationManager simulation = canvas.getSimulationManager();
+        ScheduledClock scheduledReference = clocks.get(reference);
+        if (fastForwarding || scheduledReference == null || simulation.isSuspended()) {
+            return;
+        }
+        if (!scheduledReference.queued) {
+            try {
+                scheduledReference.period = toTicks(reference.getSignalDuration());
+            } catch (ArithmeticException e) {
+                System.out.println("Clock signal duration out of range: " + reference.getSignalDuration());
+                return;
+            }
+            scheduledReference.nextEdge = (time / scheduledReference.period + 1) * scheduledReference.period;
+        }
+        if (scheduleRealigned()) {
+            simulation.flush();
+        }
+
+        List<ScheduledClock> running = new ArrayList<>(queue);
+        if (!scheduledReference.queued) {
+            running.add(scheduledReference);
+        }
+        running.removeIf(scheduled -> simulation.indexOf(scheduled.gate) < 0);
+        if (!running.contains(scheduledReference)) {
+            return;
+        }
+        int[] indices = new int[running.size()];
+        long[] periods = new long[running.size()];
+        long[] nextEdges = new long[running.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = simulation.indexOf(running.get(i).gate);
+            periods[i] = running.get(i).period;
+            nextEdges[i] = running.get(i).nextEdge;
+        }
+        int[] watchedIndices = watched.stream().mapToInt(simulation::indexOf).filter(index -> index >= 0)
+                .toArray();
+
+        stopTimer();
+        fastForwarding = true;
+        ClockRunner runner = new ClockRunner(indices, periods, nextEdges, time);
+        int referencePosition = running.indexOf(scheduledReference);
+        AtomicBoolean cancelled = new AtomicBoolean();
+
+        Task<Long> task = new Task<>() {
+            @Override
+            protected Long call() throws Exception {
+                CompletableFuture<Long> result = new CompletableFuture<>();
+                simulation.execute(engine -> {
+                    try {
+                        result.complete(runner.run(engine, referencePosition, cycles, watchedIndices,
+                                cancelled::get, done -> updateProgress(done, cycles)));
+                    } catch (RuntimeException e) {
+                        result.completeExceptionally(e);
+                    }
+                });
+                return result.get();
+            }
+        };
+
+        Stage progressStage = createProgressStage(task, cancelled);
+        long start = System.nanoTime();
+        task.setOnSucceeded(e -> {
+            long elapsed = System.nanoTime() - start;
+            progressStage.close();
+            finishFastForward(running, runner);
+            showReport(task.getValue(), elapsed, runner.isStopped(), cancelled.get());
+        });
+        task.setOnFailed(e -> {
+            progressStage.close();
+            finishFastForward(running, runner);
+            task.getException().printStackTrace();
+        });
+
+        progressStage.show();
+        Thread thread = new Thread(task, "fast-forward");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Takes over the state reached by a fast-forward: the clocks are set to the
+     * levels and next edges of the run, the simulated time is advanced, and
+     * the clocks are driven by the frame timer again.
+     *
+     * @param running the clocks that were run
+     * @param runner  the runner that ran the clocks
+     */
+    private void finishFastForward(List<ScheduledClock> running, ClockRunner runner) {
+        long[] nextEdges = runner.getNextEdges();
+        boolean[] levels = runner.getLevels();
+        queue.clear();
+        for (int i = 0; i < levels.length; i++) {
+            ScheduledClock scheduled = running.get(i);
+            scheduled.nextEdge = nextEdges[i];
+            if (scheduled.gate.evaluate() != levels[i]) {
+                scheduled.gate.invert();
+            }
+            if (scheduled.queued) {
+                queue.add(scheduled);
+            }
+        }
+        time = runner.getTime();
+        remainder = 0;
+        fastForwarding = false;
+        if (!clocks.isEmpty()) {
+            startTimer();
+        }
+    }
+
+    /**
+     * Reports the outcome of a fast-forward.
+     *
+     * @param cycles    the number of cycles completed
+     * @param elapsed   the wall-clock time taken, in nanoseconds
+     * @param stopped   true if the run ended because a watched gate was on
+     * @param cancelled true if the run was cancelled
+     */
+    private void showReport(long cycles, long elapsed, boolean stopped, boolean cancelled) {
+        double seconds = elapsed / (double) NANOS_PER_SECOND;
+        StringBuilder message = new StringBuilder(String.format("Ran %,d cycles in %.3f s (%,.0f cycles per second).",
+                cycles, seconds, seconds > 0 ? cycles / seconds : 0.0));
+        if (stopped) {
+            message.append(System.lineSeparator()).append("Stopped because a selected gate is on.");
+        } else if (cancelled) {
+            message.append(System.lineSeparator()).append("Cancelled.");
+        }
+
+        Alert alert = new Alert(AlertType.INFORMATION);
+        alert.setTitle("Fast Forward");
+        alert.setHeaderText("Fast-forward finished.");
+        alert.setContentText(message.toString());
+        alert.show();
+    }
+
+    /**
+     * Creates a window showing the progress of a fast-forward, with a button to
+     * cancel it. The window blocks the canvas while it is shown.
+     *
+     * @param task      the task running the fast-forward
+     * @param cancelled the flag set when the run is cancelled
+     * @return the progress window
+     */
+    private Stage createProgressStage(Task<?> task, AtomicBoolean cancelled) {
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setPrefWidth(300);
+        progressBar.progressProperty().bind(task.progressProperty());
+
+        Button cancelButton = new Button("Cancel");
+        cancelButton.setOnAction(e -> cancelled.set(true));
+
+        VBox vbox = new VBox(10, progressBar, cancelButton);
+        vbox.setPadding(new Insets(10));
+
+        Stage stage = new Stage();
+        stage.setTitle("Fast Forward");
+        stage.initModality(Modality.APPLICATION_MODAL);
+        stage.setScene(new Scene(vbox));
+        stage.setOnCloseRequest(e -> {
+            cancelled.set(true);
+            e.consume();
+        });
+        return stage;
+    }
+
+    /**
+     * Fires all clock edges up to the specified time. The clocks switching at
+     * the same instant are propagated together.
+     *
+     * @param target the time to advance to, in ticks
+     * @return true if any edge was fired
+     */
+    private boolean fireEdges(long target) {
+        SimulationManager simulation = canvas.getSimulationManager();
+        List<ScheduledClock> fired = new ArrayList<>();
+        int edges = 0;
+        while (!queue.isEmpty() && queue.peek().nextEdge <= target) {
+            if (edges >= MAX_EDGES_PER_FRAME || simulation.getBacklog() > MAX_BACKLOG) {
+                target = queue.peek().nextEdge;
+                remainder = 0;
+                break;
+            }
+            long edge = queue.peek().nextEdge;
+            while (!queue.isEmpty() && queue.peek().nextEdge == edge) {
+                ScheduledClock scheduled = queue.poll();
+                scheduled.gate.invert();
+                simulation.schedule(scheduled.gate);
+                scheduled.nextEdge += scheduled.period;
+                fired.add(scheduled);
+                edges++;
+            }
+            simulation.flush();
+            queue.addAll(fired);
+            fired.clear();
+        }
+        time = target;
+        return edges > 0;
+    }
+
+    /**
+     * Converts a duration to ticks, refining the tick if the duration is not a
+     * whole number of ticks. Durations are resolved to the nanosecond.
+     *
+     * @param seconds the duration, in seconds
+     * @return the duration in ticks, at least 1
+     * @throws ArithmeticException if the duration does not fit in the time base
+     */
+    private long toTicks(double seconds) {
+        BigDecimal value = BigDecimal.valueOf(seconds).stripTrailingZeros();
+        if (value.scale() > 9) {
+            value = value.setScale(9, RoundingMode.HALF_UP);
+        } else if (value.scale() < 0) {
+            value = value.setScale(0);
+        }
+        long numerator = value.unscaledValue().longValueExact();
+        long denominator = BigDecimal.TEN.pow(value.scale()).longValueExact();
+        if (numerator <= 0) {
+            numerator = 1;
+            denominator = NANOS_PER_SECOND;
+        }
+
+        long divisor = gcd(numerator, denominator);
+        numerator /= divisor;
+        denominator /= divisor;
+        long refined = Math.multiplyExact(ticksPerSecond / gcd(ticksPerSecond, denominator), denominator);
+        long ticks = Math.multiplyExact(numerator, refined / denominator);
+        if (refined != ticksPerSecond) {
+            rescale(refined / ticksPerSecond);
+        }
+        return ticks;
+    }
+
+    /**
+     * Divides every tick into the specified number of smaller ticks, keeping all
+     * scheduled edges at the same instants. Every scaled value is computed
+     * before any is stored, so the time base is left unchanged if one of them
+     * does not fit.
+     *
+     * @param factor the number of new ticks per old tick
+     * @throws ArithmeticException if the simulated time no longer fits in the time
+     *                             base
+     */
+    private void rescale(long factor) {
+        long scaledTicksPerSecond = Math.multiplyExact(ticksPerSecond, factor);
+        long scaledRemainder = Math.multiplyExact(remainder, factor);
+        long scaledTime = Math.addExact(Math.multiplyExact(time, factor), scaledRemainder / NANOS_PER_SECOND);
+        List<ScheduledClock> scheduledClocks = new ArrayList<>(clocks.values());
+        long[] periods = new long[scheduledClocks.size()];
+        long[] nextEdges = new long[scheduledClocks.size()];
+        for (int i = 0; i < periods.length; i++) {
+            periods[i] = Math.multiplyExact(scheduledClocks.get(i).period, factor);
+            nextEdges[i] = Math.multiplyExact(scheduledClocks.get(i).nextEdge, factor);
+        }
+
+        for (int i = 0; i < periods.length; i++) {
+            scheduledClocks.get(i).period = periods[i];
+            scheduledClocks.get(i).nextEdge = nextEdges[i];
+        }
+        time = scaledTime;
+        remainder = scaledRemainder % NANOS_PER_SECOND;
+        ticksPerSecond = scaledTicksPerSecond;
+    }
+
+    /**
+     * Computes the greatest common divisor of two positive numbers.
+     *
+     * @param a the first number
+     * @param b the second number
+     * @return the greatest common divisor
+     */
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    /**
+     * Starts the timer if it is not running.
+     */
+    private void startTimer() {
+        if (timerRunning || fastForwarding) {
+            return;
+        }
+        if (timer == null) {
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    handleFrame(now);
+                }
+            };
+        }
+        lastFrame = -1;
+        timerRunning = true;
+        timer.start();
+    }
+
+    /**
+     * Stops the timer if it is running.
+     */
+    private void stopTimer() {
+        if (timerRunning) {
+            timerRunning = false;
+            timer.stop();
+        }
+    }
+}
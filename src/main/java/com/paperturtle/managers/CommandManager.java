@@ -1,6 +1,9 @@
 package com.paperturtle.managers;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
+import java.util.function.Consumer;
 
 import com.paperturtle.commands.Command;
 
@@ -23,6 +26,11 @@ public class CommandManager {
      */
     private Stack<Command> redoStack = new Stack<>();
 
+    /**
+     * The listeners notified after a command is executed, undone or redone.
+     */
+    private final List<Consumer<Command>> listeners = new ArrayList<>();
+
     /**
      * Executes a command and pushes it onto the undo stack.
      * Clears the redo stack.
@@ -33,6 +41,7 @@ public class CommandManager {
         command.execute();
         undoStack.push(command);
         redoStack.clear();
+        notifyListeners(command);
     }
 
     /**
@@ -43,6 +52,7 @@ public class CommandManager {
             Command command = undoStack.pop();
             command.undo();
             redoStack.push(command);
+            notifyListeners(command);
         }
     }
 
@@ -54,6 +64,37 @@ public class CommandManager {
             Command command = redoStack.pop();
             command.execute();
             undoStack.push(command);
+            notifyListeners(command);
+        }
+    }
+
+    /**
+     * Adds a listener that is notified after each command is executed, undone
+     * or redone.
+     * 
+     * @param listener the listener to add
+     */
+    public void addListener(Consumer<Command> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added by {@link #addListener(Consumer)}.
+     * 
+     * @param listener the listener to remove
+     */
+    public void removeListener(Consumer<Command> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Notifies the listeners that a command was executed, undone or redone.
+     * 
+     * @param command the command
+     */
+    private void notifyListeners(Command command) {
+        for (Consumer<Command> listener : listeners) {
+            listener.accept(command);
         }
     }
 
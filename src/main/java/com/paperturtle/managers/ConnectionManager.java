@@ -7,6 +7,7 @@ import java.util.Optional;
 import com.paperturtle.commands.AddConnectionCommand;
 import com.paperturtle.commands.RemoveConnectionCommand;
 import com.paperturtle.components.LogicGate;
+import com.paperturtle.data.ConnectionInfo;
 import com.paperturtle.gui.CircuitCanvas;
 
 import javafx.geometry.Point2D;
@@ -48,6 +49,12 @@ public class ConnectionManager {
      * @param connection the connection line to remove
      */
     public void removeConnection(Line connection) {
+        ConnectionInfo info = canvas.getConnectionInfo(connection);
+        if (info != null && info.targetGate != null && info.inputIndex != -1) {
+            canvas.getCommandManager().executeCommand(new RemoveConnectionCommand(canvas, info.sourceGate,
+                    info.targetGate, connection, info.inputIndex));
+            return;
+        }
         Optional.ofNullable(canvas.getLineToStartGateMap().get(connection))
                 .ifPresentOrElse(sourceGate -> {
                     LogicGate targetGate = canvas.getGateManager().findTargetGate(connection);
@@ -71,11 +78,13 @@ public class ConnectionManager {
      * @param logicGate the logic gate whose connections are to be removed
      */
     public void removeAllConnections(LogicGate logicGate) {
+        canvas.getSimulationManager().invalidate();
         List<Line> outputConnections = new ArrayList<>(logicGate.getOutputConnections());
         for (Line line : outputConnections) {
-            LogicGate targetGate = canvas.getGateManager().findTargetGate(line);
+            ConnectionInfo info = canvas.unregisterConnection(line);
+            LogicGate targetGate = info != null ? info.targetGate : canvas.getGateManager().findTargetGate(line);
             if (targetGate != null) {
-                int index = targetGate.findInputConnectionIndex(line);
+                int index = info != null ? info.inputIndex : targetGate.findInputConnectionIndex(line);
                 if (index != -1) {
                     targetGate.removeInputConnection(line, index);
                     targetGate.getInputs().remove(logicGate);
@@ -83,7 +92,6 @@ public class ConnectionManager {
                     targetGate.propagateStateChange();
                 }
             }
-            canvas.getLineToStartGateMap().remove(line);
             canvas.getChildren().remove(line);
         }
 
@@ -91,14 +99,14 @@ public class ConnectionManager {
         for (List<Line> connections : inputConnections) {
             List<Line> connectionsCopy = new ArrayList<>(connections);
             for (Line line : connectionsCopy) {
-                LogicGate sourceGate = canvas.getLineToStartGateMap().get(line);
+                ConnectionInfo info = canvas.unregisterConnection(line);
+                LogicGate sourceGate = info != null ? info.sourceGate : canvas.getLineToStartGateMap().remove(line);
                 if (sourceGate != null) {
                     sourceGate.getOutputConnections().remove(line);
                     sourceGate.getOutputGates().remove(logicGate);
                     sourceGate.evaluate();
                     sourceGate.propagateStateChange();
                 }
-                canvas.getLineToStartGateMap().remove(line);
                 canvas.getChildren().remove(line);
             }
         }
@@ -113,7 +121,7 @@ public class ConnectionManager {
      * @return true if the connection is successfully finalized, false otherwise
      */
     public boolean finalizeConnection(double x, double y, Circle outputMarker) {
-        for (Node node : canvas.getChildren()) {
+        for (Node node : canvas.getNodesAt(x, y)) {
             if (node instanceof Circle inputMarker && node != outputMarker && inputMarker.contains(x, y)
                     && inputMarker.getOpacity() == 1.0) {
                 return tryToConnect(inputMarker, outputMarker);
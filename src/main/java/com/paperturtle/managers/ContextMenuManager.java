@@ -5,6 +5,8 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import com.paperturtle.components.LogicGate;
+import com.paperturtle.components.bus.BusMergerGate;
+import com.paperturtle.components.bus.BusSplitterGate;
 import com.paperturtle.components.inputs.ClockGate;
 import com.paperturtle.components.outputs.FourBitDigitGate;
 import com.paperturtle.components.outputs.Lightbulb;
@@ -81,6 +83,18 @@ public class ContextMenuManager {
         if (gate instanceof ClockGate) {
             MenuItem editItem = new MenuItem("Edit time");
             editItem.setOnAction(e -> ((ClockGate) gate).showTimeEditDialog());
+            MenuItem stepItem = new MenuItem("Step cycle");
+            stepItem.setOnAction(e -> ((ClockGate) gate).step());
+            MenuItem fastForwardItem = new MenuItem("Fast forward");
+            fastForwardItem.setOnAction(e -> canvas.getClockManager().showFastForwardDialog((ClockGate) gate));
+            contextMenu.getItems().addAll(deleteItem, propertiesItem, editItem, stepItem, fastForwardItem);
+        } else if (gate instanceof BusMergerGate) {
+            MenuItem editItem = new MenuItem("Edit bits");
+            editItem.setOnAction(e -> ((BusMergerGate) gate).showBitsEditDialog());
+            contextMenu.getItems().addAll(deleteItem, propertiesItem, editItem);
+        } else if (gate instanceof BusSplitterGate) {
+            MenuItem editItem = new MenuItem("Edit bits");
+            editItem.setOnAction(e -> ((BusSplitterGate) gate).showBitsEditDialog());
             contextMenu.getItems().addAll(deleteItem, propertiesItem, editItem);
         } else {
             contextMenu.getItems().addAll(deleteItem, propertiesItem);
@@ -5,10 +5,15 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.paperturtle.components.LogicGate;
+import com.paperturtle.components.inputs.ClockGate;
 import com.paperturtle.components.inputs.SwitchGate;
 import com.paperturtle.components.utilities.TextLabel;
+import com.paperturtle.data.ConnectionInfo;
+import com.paperturtle.data.MarkerInfo;
 import com.paperturtle.gui.CircuitCanvas;
 
+import javafx.geometry.BoundingBox;
+import javafx.scene.Node;
 import javafx.scene.image.ImageView;
 import javafx.scene.shape.Circle;
 import javafx.scene.shape.Line;
@@ -44,6 +49,11 @@ public class GateManager {
     public void removeGate(ImageView gate) {
         LogicGate logicGate = canvas.getGateImageViews().get(gate);
         if (logicGate != null) {
+            AutosaveManager autosave = canvas.getAutosaveManager();
+            autosave.markChanged(logicGate);
+            logicGate.getInputs().forEach(autosave::markChanged);
+            logicGate.getOutputGates().forEach(autosave::markChanged);
+
             for (List<Line> inputConnectionList : logicGate.getInputConnections()) {
                 for (Line line : inputConnectionList) {
                     canvas.getChildren().remove(line);
@@ -55,6 +65,7 @@ public class GateManager {
             }
 
             canvas.getConnectionManager().removeAllConnections(logicGate);
+            canvas.unregisterMarkers(logicGate);
             canvas.getChildren().removeAll(logicGate.getInputMarkers());
             if (logicGate.getOutputMarker() != null) {
                 canvas.getChildren().remove(logicGate.getOutputMarker());
@@ -62,6 +73,11 @@ public class GateManager {
             canvas.getChildren().remove(gate);
             canvas.getGateImageViews().remove(gate);
             canvas.getGateMarkers().remove(gate);
+            canvas.getGateRegistry().unregister(logicGate);
+            if (logicGate instanceof ClockGate) {
+                canvas.getClockManager().unregister((ClockGate) logicGate);
+            }
+            canvas.getSimulationManager().invalidate();
 
             logicGate.getInputs().forEach(inputGate -> {
                 inputGate.getOutputGates().remove(logicGate);
@@ -111,11 +127,25 @@ public class GateManager {
     /**
      * Finds the logic gate for the specified input marker.
      * 
+     * Registered markers are looked up in constant time. Otherwise, gates near
+     * the marker are looked up in the spatial index of the canvas first; all
+     * gates are only searched if none of them owns the marker.
+     * 
      * @param inputMarker the input marker to find the gate for
      * @return the logic gate that corresponds to the input marker, or null if not
      *         found
      */
     public LogicGate findGateForInputMarker(Circle inputMarker) {
+        MarkerInfo info = canvas.getMarkerInfo(inputMarker);
+        if (info != null && !info.isOutput()) {
+            return info.gate;
+        }
+        for (Node node : canvas.getNodesIn(inputMarker.getBoundsInParent())) {
+            LogicGate gate = canvas.getGateImageViews().get(node);
+            if (gate != null && gate.getInputMarkers().contains(inputMarker)) {
+                return gate;
+            }
+        }
         return canvas.getGateImageViews().values().stream()
                 .filter(gate -> gate.getInputMarkers().contains(inputMarker))
                 .findFirst()
@@ -131,17 +161,36 @@ public class GateManager {
      * @return the index of the input marker, or -1 if not found
      */
     public int findInputMarkerIndex(LogicGate gate, Circle inputMarker) {
+        MarkerInfo info = canvas.getMarkerInfo(inputMarker);
+        if (info != null && info.gate == gate) {
+            return info.pinIndex;
+        }
         return gate.getInputMarkers().indexOf(inputMarker);
     }
 
     /**
      * Finds the target gate for the specified connection line.
      * 
+     * Registered connections are looked up in constant time. Otherwise, gates
+     * near the end of the line are looked up in the spatial index of the canvas
+     * first; all gates are only searched if none of them is the target.
+     * 
      * @param connection the connection line to find the target gate for
      * @return the target gate that corresponds to the connection line, or null if
      *         not found
      */
     public LogicGate findTargetGate(Line connection) {
+        ConnectionInfo info = canvas.getConnectionInfo(connection);
+        if (info != null && info.targetGate != null) {
+            return info.targetGate;
+        }
+        BoundingBox end = new BoundingBox(connection.getEndX() - 1, connection.getEndY() - 1, 2, 2);
+        for (Node node : canvas.getNodesIn(end)) {
+            LogicGate gate = canvas.getGateImageViews().get(node);
+            if (gate != null && gate.findInputConnectionIndex(connection) != -1) {
+                return gate;
+            }
+        }
         return canvas.getGateImageViews().values().stream()
                 .filter(gate -> gate.getInputConnections().stream()
                         .anyMatch(list -> list.contains(connection)))
@@ -0,0 +1,166 @@
+package com.paperturtle.managers;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Line;
+
+/**
+ * The RepaintManager class coalesces the visual updates of connections and
+ * gate images into at most one update per node and frame.
+ *
+ * <p>
+ * Gates request a new stroke for their output connections, or a new image,
+ * whenever their state changes. The requests are recorded in a dirty set keyed
+ * by node, where a later request for the same node replaces an earlier one,
+ * and an {@link AnimationTimer} applies the set once per frame. A node that
+ * changes several times within a frame is therefore updated only once, with
+ * its latest value, and a node that already shows the requested value is not
+ * touched at all.
+ * </p>
+ *
+ * <p>
+ * The manager counts the updates it applied to nodes and the requests it
+ * coalesced, that is requests that were replaced by a later request for the
+ * same node before they were applied. All methods must be called on the JavaFX
+ * application thread.
+ * </p>
+ *
+ * @see com.paperturtle.components.LogicGate
+ *
+ * @author Seweryn Czabanowski
+ */
+public class RepaintManager {
+    /**
+     * The stroke requested for each connection since the last frame.
+     */
+    private final Map<Line, Paint> strokes = new IdentityHashMap<>();
+
+    /**
+     * The image requested for each image view since the last frame.
+     */
+    private final Map<ImageView, Image> images = new IdentityHashMap<>();
+
+    /**
+     * The number of updates applied to nodes.
+     */
+    private long appliedCount = 0;
+
+    /**
+     * The number of requests replaced by a later request for the same node.
+     */
+    private long coalescedCount = 0;
+
+    /**
+     * The timer applying the requests once per frame, or null if it has not
+     * been created yet.
+     */
+    private AnimationTimer timer;
+
+    /**
+     * A flag indicating whether the timer is running.
+     */
+    private boolean timerRunning = false;
+
+    /**
+     * Requests a new stroke for a connection, applied at the next frame.
+     *
+     * @param line  the connection
+     * @param paint the new stroke
+     */
+    public void setStroke(Line line, Paint paint) {
+        if (strokes.put(line, paint) != null) {
+            coalescedCount++;
+        }
+        startTimer();
+    }
+
+    /**
+     * Requests a new image for an image view, applied at the next frame.
+     *
+     * @param imageView the image view
+     * @param image     the new image
+     */
+    public void setImage(ImageView imageView, Image image) {
+        if (images.put(imageView, image) != null) {
+            coalescedCount++;
+        }
+        startTimer();
+    }
+
+    /**
+     * Applies all pending requests immediately.
+     */
+    public void flush() {
+        strokes.forEach((line, paint) -> {
+            if (!paint.equals(line.getStroke())) {
+                line.setStroke(paint);
+                appliedCount++;
+            }
+        });
+        strokes.clear();
+
+        images.forEach((imageView, image) -> {
+            if (image != imageView.getImage()) {
+                imageView.setImage(image);
+                appliedCount++;
+            }
+        });
+        images.clear();
+    }
+
+    /**
+     * Returns the number of updates applied to nodes.
+     *
+     * @return the number of updates applied
+     */
+    public long getAppliedCount() {
+        return appliedCount;
+    }
+
+    /**
+     * Returns the number of requests that were replaced by a later request for
+     * the same node.
+     *
+     * @return the number of requests coalesced
+     */
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Applies the pending requests of a frame, and stops the timer once a frame
+     * passed without any.
+     */
+    private void handleFrame() {
+        if (strokes.isEmpty() && images.isEmpty()) {
+            timerRunning = false;
+            timer.stop();
+            return;
+        }
+        flush();
+    }
+
+    /**
+     * Starts the timer if it is not running.
+     */
+    private void startTimer() {
+        if (timerRunning) {
+            return;
+        }
+        if (timer == null) {
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    handleFrame();
+                }
+            };
+        }
+        timerRunning = true;
+        timer.start();
+    }
+}
@@ -0,0 +1,502 @@
+package com.paperturtle.managers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.paperturtle.components.GateRegistry;
+import com.paperturtle.components.LogicGate;
+import com.paperturtle.components.bus.BusGate;
+import com.paperturtle.components.bus.SubCircuitBusGate;
+import com.paperturtle.components.gates.SubCircuitGate;
+import com.paperturtle.gui.CircuitCanvas;
+import com.paperturtle.simulation.Netlist;
+import com.paperturtle.simulation.NetlistBuilder;
+import com.paperturtle.simulation.SimulationEngine;
+import com.paperturtle.simulation.SimulationThread;
+import com.paperturtle.simulation.StateSnapshot;
+
+import javafx.animation.AnimationTimer;
+
+/**
+ * The SimulationManager class is responsible for compiling the gates on the
+ * circuit canvas into a netlist, running the simulation engine over it, and
+ * pushing the results back to the gates, which act as views over the engine.
+ *
+ * <p>
+ * The netlist is compiled lazily: any change to the wiring only marks it as
+ * outdated, and it is rebuilt the next time a value is read or a change is
+ * propagated.
+ * </p>
+ *
+ * <p>
+ * Once compiled, the netlist is handed to a {@link SimulationThread}, which
+ * creates, settles and owns its engine from then on. Changes to inputs are
+ * posted to that thread and propagated there, so a heavy simulation never
+ * blocks the user interface. Once per pulse, the manager takes the latest
+ * snapshot the thread published and updates every gate whose output differs
+ * from what it shows; the user interface never waits for the simulation
+ * either.
+ * </p>
+ *
+ * <p>
+ * Bulk changes can {@link #suspend()} the simulation, so that adding thousands
+ * of gates and connections does not recompile and propagate after each of
+ * them. The circuit is compiled and settled once when it is
+ * {@link #resume() resumed}.
+ * </p>
+ *
+ * @see SimulationEngine
+ * @see SimulationThread
+ * @see Netlist
+ *
+ * @author Seweryn Czabanowski
+ */
+public class SimulationManager {
+    /**
+     * The canvas on which the circuit is drawn.
+     */
+    private final CircuitCanvas canvas;
+
+    /**
+     * The gate at each netlist index.
+     */
+    private final List<LogicGate> gates = new ArrayList<>();
+
+    /**
+     * The netlist index of each compiled gate by its handle in the
+     * {@link com.paperturtle.components.GateRegistry}, or -1 for gates that are
+     * not compiled.
+     */
+    private int[] indices = new int[0];
+
+    /**
+     * The current netlist.
+     */
+    private Netlist netlist;
+
+    /**
+     * The value every gate shows, by netlist index.
+     */
+    private boolean[] values = new boolean[0];
+
+    /**
+     * The word every bus gate shows, by netlist index.
+     */
+    private long[] words = new long[0];
+
+    /**
+     * The generation of the current netlist, incremented by every compilation.
+     */
+    private int generation = 0;
+
+    /**
+     * A flag indicating whether the wiring changed since the last compilation.
+     */
+    private boolean dirty = true;
+
+    /**
+     * The number of unfinished calls to {@link #suspend()}.
+     */
+    private int suspendCount = 0;
+
+    /**
+     * The thread running the engine, or null before the first compilation.
+     */
+    private SimulationThread thread;
+
+    /**
+     * The timer applying the latest snapshot once per pulse, or null before the
+     * first compilation.
+     */
+    private AnimationTimer pulse;
+
+    /**
+     * Constructs a SimulationManager for the specified circuit canvas.
+     *
+     * @param canvas the circuit canvas to manage
+     */
+    public SimulationManager(CircuitCanvas canvas) {
+        this.canvas = canvas;
+    }
+
+    /**
+     * Marks the compiled netlist as outdated. Must be called whenever gates are
+     * added to or removed from the canvas, or their inputs change.
+     */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * Suspends the simulation. Until it is resumed, changes are neither compiled
+     * nor propagated, and gates report the state they currently show. Calls may
+     * be nested; each must be matched by a call to {@link #resume()}.
+     */
+    public void suspend() {
+        suspendCount++;
+    }
+
+    /**
+     * Resumes the simulation. When the last suspension ends, the circuit is
+     * compiled and settled once, and every changed gate is updated.
+     *
+     * @throws IllegalStateException if the simulation is not suspended
+     */
+    public void resume() {
+        if (suspendCount == 0) {
+            throw new IllegalStateException("Simulation is not suspended");
+        }
+        if (--suspendCount == 0) {
+            dirty = true;
+            ensureCompiled();
+        }
+    }
+
+    /**
+     * Checks if the simulation is suspended.
+     *
+     * @return true if the simulation is suspended, false otherwise
+     */
+    public boolean isSuspended() {
+        return suspendCount > 0;
+    }
+
+    /**
+     * Returns the simulated output of the specified gate, as of the latest
+     * snapshot applied. While the simulation is suspended, the state the gate
+     * currently shows is returned.
+     *
+     * @param gate the logic gate
+     * @return the current output of the gate
+     */
+    public boolean getOutput(LogicGate gate) {
+        if (isSuspended()) {
+            return gate.getCurrentState();
+        }
+        ensureCompiled();
+        int index = getIndex(gate);
+        return index >= 0 ? values[index] : gate.evaluate();
+    }
+
+    /**
+     * Returns the netlist index of the specified gate, compiling the circuit
+     * first if necessary.
+     *
+     * @param gate the logic gate
+     * @return the index of the gate, or -1 if it is not part of the circuit
+     */
+    public int indexOf(LogicGate gate) {
+        ensureCompiled();
+        return getIndex(gate);
+    }
+
+    /**
+     * Propagates a state change of the specified gate through the circuit. The
+     * gates whose output changed are updated at the next pulse.
+     *
+     * @param gate the logic gate whose state changed
+     */
+    public void propagate(LogicGate gate) {
+        schedule(gate);
+        flush();
+    }
+
+    /**
+     * Schedules the specified gate to be re-evaluated by the next
+     * {@link #flush()}. For switches and clocks, the gate's current state is
+     * taken as the new value of the input. Ignored while the simulation is
+     * suspended.
+     *
+     * @param gate the logic gate whose state changed
+     */
+    public void schedule(LogicGate gate) {
+        if (isSuspended()) {
+            return;
+        }
+        ensureCompiled();
+        int index = getIndex(gate);
+        if (index < 0) {
+            return;
+        }
+        if (netlist.getType(index).isExternal()) {
+            boolean value = gate.evaluate();
+            thread.execute(engine -> engine.setInput(index, value));
+        } else {
+            thread.execute(engine -> engine.schedule(index));
+        }
+    }
+
+    /**
+     * Processes all scheduled changes as one propagation, separately from the
+     * changes scheduled afterwards. The gates whose output changed are updated
+     * at the next pulse. Ignored while the simulation is suspended.
+     */
+    public void flush() {
+        if (isSuspended()) {
+            return;
+        }
+        ensureCompiled();
+        thread.execute(SimulationEngine::propagate);
+    }
+
+    /**
+     * Runs a command on the simulation thread, after all changes scheduled
+     * before. No snapshot is published while the command runs, so the gates
+     * are updated once at the pulse after it ends.
+     *
+     * @param command the command, which receives the engine of the current
+     *                circuit
+     */
+    public void execute(Consumer<SimulationEngine> command) {
+        ensureCompiled();
+        thread.execute(command);
+    }
+
+    /**
+     * Returns the number of commands the simulation thread has not run yet.
+     *
+     * @return the number of commands
+     */
+    public int getBacklog() {
+        return thread != null ? thread.getBacklog() : 0;
+    }
+
+    /**
+     * Stops the simulation thread and the timer applying its snapshots. The
+     * gates keep the state they show.
+     */
+    public void shutdown() {
+        if (pulse != null) {
+            pulse.stop();
+        }
+        if (thread != null) {
+            thread.shutdown();
+        }
+    }
+
+    /**
+     * Returns the current netlist, compiling it first if necessary.
+     *
+     * @return the netlist
+     */
+    public Netlist getNetlist() {
+        ensureCompiled();
+        return netlist;
+    }
+
+    /**
+     * Returns a copy of the value every gate shows, compiling the circuit first
+     * if necessary.
+     *
+     * @return the values, indexed by netlist index
+     */
+    public boolean[] getValues() {
+        ensureCompiled();
+        return values.clone();
+    }
+
+    /**
+     * Compiles the netlist if the wiring changed since the last compilation.
+     */
+    private void ensureCompiled() {
+        if (dirty) {
+            compile();
+        }
+    }
+
+    /**
+     * Compiles the gates registered on the canvas into a new netlist. Gates are
+     * looked up by their handle, so compiling needs no maps. The netlist is
+     * built on the JavaFX application thread, but its engine is created and
+     * settled on the simulation thread, after every command posted before: it
+     * takes over the state of the previous engine for every gate that is part
+     * of both netlists, so flip-flop changes that were not published yet are
+     * kept. Only external inputs, whose value is set here, and gates that are
+     * new to the netlist start from the state their view shows.
+     */
+    private void compile() {
+        dirty = false;
+        List<LogicGate> previousGates = new ArrayList<>(gates);
+        int[] previousIndices = indices;
+        gates.clear();
+        GateRegistry registry = canvas.getGateRegistry();
+        indices = new int[registry.capacity()];
+        Arrays.fill(indices, -1);
+
+        NetlistBuilder builder = new NetlistBuilder();
+        for (int handle = 0; handle < indices.length; handle++) {
+            LogicGate gate = registry.get(handle);
+            if (gate instanceof SubCircuitGate subCircuit) {
+                indices[handle] = builder.addSubCircuit(subCircuit.getInstance());
+                gates.add(gate);
+            } else if (gate instanceof SubCircuitBusGate subCircuitBus) {
+                indices[handle] = builder.addSubCircuit(subCircuitBus.getInstance());
+                gates.add(gate);
+            } else if (gate instanceof BusGate bus) {
+                indices[handle] = builder.addBusGate(gate.getGateType(), bus.getOffset(), bus.getWidth());
+                gates.add(gate);
+            } else if (gate != null) {
+                indices[handle] = builder.addGate(gate.getGateType());
+                gates.add(gate);
+            }
+        }
+        for (int i = 0; i < gates.size(); i++) {
+            if (gates.get(i).getGateType().usesPins()) {
+                connectPins(builder, gates.get(i), i);
+                continue;
+            }
+            for (LogicGate input : gates.get(i).getInputs()) {
+                int source = getIndex(input);
+                if (source >= 0) {
+                    builder.connect(source, i);
+                }
+            }
+        }
+
+        Netlist compiled = builder.build();
+        netlist = compiled;
+        values = new boolean[compiled.size()];
+        words = new long[compiled.size()];
+        boolean[] seeds = new boolean[compiled.size()];
+        int[] sources = new int[compiled.size()];
+        for (int i = 0; i < gates.size(); i++) {
+            LogicGate gate = gates.get(i);
+            values[i] = gate.getCurrentState();
+            words[i] = gate instanceof BusGate bus ? bus.getWord() : 0L;
+            boolean external = compiled.getType(i).isExternal();
+            seeds[i] = external ? gate.evaluate() : values[i];
+            sources[i] = external ? -1 : getPreviousIndex(gate, previousGates, previousIndices);
+        }
+
+        generation++;
+        if (thread == null) {
+            thread = new SimulationThread("simulation");
+            startPulse();
+        }
+        thread.load(previous -> {
+            SimulationEngine engine = new SimulationEngine(compiled);
+            for (int i = 0; i < seeds.length; i++) {
+                engine.setValue(i, seeds[i]);
+            }
+            if (previous != null) {
+                engine.transferState(previous, sources);
+            }
+            engine.settle();
+            return engine;
+        }, generation);
+    }
+
+    /**
+     * Returns the netlist index a gate had in the previous compilation.
+     *
+     * @param gate            the logic gate
+     * @param previousGates   the gate at each index of the previous netlist
+     * @param previousIndices the index of each handle in the previous netlist
+     * @return the previous index of the gate, or -1 if it was not compiled
+     */
+    private static int getPreviousIndex(LogicGate gate, List<LogicGate> previousGates, int[] previousIndices) {
+        int handle = gate.getHandle();
+        if (handle < 0 || handle >= previousIndices.length) {
+            return -1;
+        }
+        int index = previousIndices[handle];
+        return index >= 0 && previousGates.get(index) == gate ? index : -1;
+    }
+
+    /**
+     * Connects the inputs of a gate that tells its inputs apart by pin, such as
+     * a sub-circuit or a bus merger, each to the pin it ends at.
+     *
+     * @param builder the netlist builder
+     * @param gate    the gate
+     * @param index   the netlist index of the gate
+     */
+    private void connectPins(NetlistBuilder builder, LogicGate gate, int index) {
+        for (int pin = 0; pin < gate.getInputPoints().size(); pin++) {
+            LogicGate input = gate.getInputSource(pin);
+            int source = input != null ? getIndex(input) : -1;
+            if (source >= 0) {
+                builder.connect(source, index, pin);
+            }
+        }
+    }
+
+    /**
+     * Returns the netlist index of a gate in the current compilation.
+     *
+     * @param gate the logic gate
+     * @return the index of the gate, or -1 if it is not compiled
+     */
+    private int getIndex(LogicGate gate) {
+        int handle = gate.getHandle();
+        if (handle < 0 || handle >= indices.length) {
+            return -1;
+        }
+        int index = indices[handle];
+        return index >= 0 && gates.get(index) == gate ? index : -1;
+    }
+
+    /**
+     * Starts the timer applying the latest snapshot once per pulse.
+     */
+    private void startPulse() {
+        pulse = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                applySnapshot();
+            }
+        };
+        pulse.start();
+    }
+
+    /**
+     * Takes the latest snapshot published by the simulation thread and updates
+     * every gate whose output differs from what it shows. Snapshots of an
+     * outdated netlist, and snapshots taken while the simulation is suspended,
+     * are dropped.
+     */
+    private void applySnapshot() {
+        StateSnapshot snapshot = thread.poll();
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            if (snapshot.getGeneration() != generation || isSuspended()) {
+                return;
+            }
+            for (int index = 0; index < values.length; index++) {
+                boolean value = snapshot.getValue(index);
+                boolean wordChanged = netlist.getType(index).isBus() && snapshot.getWord(index) != words[index];
+                if (value != values[index] || wordChanged) {
+                    values[index] = value;
+                    words[index] = snapshot.getWord(index);
+                    updateView(index);
+                }
+            }
+        } finally {
+            thread.release(snapshot);
+        }
+    }
+
+    /**
+     * Pushes the shown state of a changed gate to its view. Gates that display
+     * their individual inputs are updated as well, and bus components receive
+     * their new word.
+     *
+     * @param index the netlist index of the changed gate
+     */
+    private void updateView(int index) {
+        if (gates.get(index) instanceof BusGate bus) {
+            bus.applySimulatedWord(words[index]);
+        }
+        gates.get(index).applySimulatedState(values[index]);
+        for (int o = 0; o < netlist.getOutputCount(index); o++) {
+            int target = netlist.getOutput(index, o);
+            if (netlist.getType(target).tracksInputs()) {
+                gates.get(target).applySimulatedState(values[target]);
+            }
+        }
+    }
+}
@@ -1,10 +1,10 @@
 package com.paperturtle.managers;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import com.paperturtle.components.LogicGate;
 import com.paperturtle.components.inputs.HighConstantGate;
@@ -13,18 +13,26 @@ import com.paperturtle.components.inputs.SwitchGate;
 import com.paperturtle.components.outputs.FourBitDigitGate;
 import com.paperturtle.components.outputs.Lightbulb;
 import com.paperturtle.gui.CircuitCanvas;
+import com.paperturtle.simulation.GateType;
+import com.paperturtle.simulation.Netlist;
+import com.paperturtle.simulation.PagedTruthTable;
+import com.paperturtle.simulation.TruthTableExporter;
+import com.paperturtle.simulation.TruthTableGenerator;
 
 import javafx.beans.property.ReadOnlyStringWrapper;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
@@ -34,11 +42,24 @@ import javafx.stage.Stage;
  * The TruthTableManager class is responsible for generating the truth table for
  * selected gates and displaying it in a table.
  * 
+ * <p>
+ * The table is computed from a snapshot of the compiled netlist by a
+ * {@link TruthTableGenerator}, without changing the state of any gate on the
+ * canvas. The table view is backed by a {@link PagedTruthTable} that computes
+ * rows only when they are shown, while a {@link TruthTableExporter} streams all
+ * rows to a file in parallel off the JavaFX application thread.
+ * </p>
+ * 
  * @see CircuitCanvas
  * 
  * @author Seweryn Czabanowski
  */
 public class TruthTableManager {
+    /**
+     * The maximum number of rows the truth table window is sized to show.
+     */
+    private static final int MAX_VISIBLE_ROWS = 32;
+
     /**
      * The canvas on which the circuit is drawn.
      */
@@ -88,107 +109,121 @@ public class TruthTableManager {
             return;
         }
 
-        int numInputs = switchGates.size();
-        int numConstants = constantInputs.size();
-        int numLightbulbs = lightbulbs.size();
-        int numFourBitDigitGates = fourBitDigitGates.size();
-        int totalCombinations = 1 << numInputs;
-
-        Boolean[][] truthTableInputs = new Boolean[totalCombinations][numInputs + numConstants];
-        Object[][] truthTableOutputs = new Object[totalCombinations][numLightbulbs + numFourBitDigitGates];
+        if (switchGates.size() > 30) {
+            Alert alert = new Alert(AlertType.WARNING);
+            alert.setTitle("Warning");
+            alert.setHeaderText(null);
+            alert.setContentText("A truth table can have at most 30 switch inputs.");
+            alert.showAndWait();
+            return;
+        }
 
-        boolean[] initialStates = new boolean[numInputs];
-        for (int i = 0; i < numInputs; i++) {
-            initialStates[i] = switchGates.get(i).getState();
+        SimulationManager simulation = canvas.getSimulationManager();
+        Netlist netlist = simulation.getNetlist();
+        List<LogicGate> outputGates = new ArrayList<>(lightbulbs);
+        outputGates.addAll(fourBitDigitGates);
+        int[] outputs = outputGates.stream().mapToInt(simulation::indexOf).toArray();
+        if (dependsOnBus(netlist, outputs)) {
+            Alert alert = new Alert(AlertType.WARNING);
+            alert.setTitle("Warning");
+            alert.setHeaderText(null);
+            alert.setContentText("A truth table cannot be generated for outputs driven by bus components.");
+            alert.showAndWait();
+            return;
         }
+        TruthTableGenerator generator = new TruthTableGenerator(netlist,
+                switchGates.stream().mapToInt(simulation::indexOf).toArray(), outputs, simulation.getValues());
 
-        for (int i = 0; i < totalCombinations; i++) {
-            for (int j = 0; j < numInputs; j++) {
-                truthTableInputs[i][j] = (i & (1 << j)) != 0;
-            }
+        displaySimplifiedTruthTable(new PagedTruthTable(generator), constantInputs);
+    }
 
-            for (int j = 0; j < numConstants; j++) {
-                truthTableInputs[i][numInputs + j] = constantInputs.get(j);
+    /**
+     * Checks if any of the outputs depends on a bus component, whose words
+     * cannot be evaluated for 64 input combinations at once. Bus components
+     * outside the fan-in cone of the outputs are never evaluated for the table,
+     * so they do not count.
+     * 
+     * @param netlist the compiled circuit
+     * @param outputs the netlist indices of the outputs
+     * @return true if a bus component drives any of the outputs
+     */
+    private boolean dependsOnBus(Netlist netlist, int[] outputs) {
+        boolean[] cone = netlist.getFanInCone(outputs);
+        for (int gate = 0; gate < cone.length; gate++) {
+            if (cone[gate] && netlist.getType(gate).isBus()) {
+                return true;
             }
         }
+        return false;
+    }
 
-        for (int i = 0; i < totalCombinations; i++) {
-            for (int j = 0; j < numInputs; j++) {
-                switchGates.get(j).setState(truthTableInputs[i][j]);
-            }
-
-            for (int k = 0; k < numLightbulbs; k++) {
-                truthTableOutputs[i][k] = lightbulbs.get(k).evaluate();
-            }
+    /**
+     * Creates a window showing the progress of a truth table generation, with a
+     * button to cancel it.
+     * 
+     * @param task the task generating the truth table
+     * @return the progress window
+     */
+    private Stage createProgressStage(Task<?> task) {
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setPrefWidth(300);
+        progressBar.progressProperty().bind(task.progressProperty());
 
-            for (int k = 0; k < numFourBitDigitGates; k++) {
-                truthTableOutputs[i][numLightbulbs + k] = fourBitDigitGates.get(k).getOutputValue();
-            }
-        }
+        Button cancelButton = new Button("Cancel");
+        cancelButton.setOnAction(e -> task.cancel());
 
-        for (int i = 0; i < numInputs; i++) {
-            switchGates.get(i).setState(initialStates[i]);
-        }
-        lightbulbs.forEach(Lightbulb::evaluate);
-        fourBitDigitGates.forEach(FourBitDigitGate::evaluate);
+        VBox vbox = new VBox(10, progressBar, cancelButton);
+        vbox.setPadding(new Insets(10));
 
-        displaySimplifiedTruthTable(truthTableInputs, truthTableOutputs);
+        Stage stage = new Stage();
+        stage.setTitle("Generating Truth Table");
+        stage.setScene(new Scene(vbox));
+        stage.setOnCloseRequest(e -> task.cancel());
+        return stage;
     }
 
     /**
-     * Displays the simplified truth table.
+     * Displays the simplified truth table. Rows are computed by the truth table
+     * only when the table view shows them. The columns cannot be sorted, since
+     * sorting would compute every row, and the rows are already in the order of
+     * their inputs.
      * 
-     * @param inputs  the input values of the truth table
-     * @param outputs the output values of the truth table
+     * @param truthTable     the truth table to display
+     * @param constantInputs the values of the selected constant inputs
      */
-    private void displaySimplifiedTruthTable(Boolean[][] inputs, Object[][] outputs) {
-        TableView<List<String>> table = new TableView<>();
-        ObservableList<List<String>> data = FXCollections.observableArrayList();
+    private void displaySimplifiedTruthTable(PagedTruthTable truthTable, List<Boolean> constantInputs) {
+        TableView<Integer> table = new TableView<>();
+        int numInputs = truthTable.getInputCount();
 
-        for (int i = 0; i < inputs[0].length; i++) {
+        for (int i = 0; i < numInputs + constantInputs.size(); i++) {
             final int colIndex = i;
-            TableColumn<List<String>, String> inputColumn = new TableColumn<>("I" + (i + 1));
-            inputColumn.setCellValueFactory(param -> new ReadOnlyStringWrapper(param.getValue().get(colIndex)));
+            TableColumn<Integer, String> inputColumn = new TableColumn<>("I" + (i + 1));
+            inputColumn.setCellValueFactory(param -> new ReadOnlyStringWrapper(
+                    formatInput(truthTable, constantInputs, param.getValue(), colIndex)));
+            inputColumn.setSortable(false);
             table.getColumns().add(inputColumn);
         }
 
-        for (int i = 0; i < outputs[0].length; i++) {
-            final int colIndex = inputs[0].length + i;
-            TableColumn<List<String>, String> outputColumn = new TableColumn<>("O" + (i + 1));
-            outputColumn.setCellValueFactory(param -> new ReadOnlyStringWrapper(param.getValue().get(colIndex)));
+        for (int i = 0; i < truthTable.getOutputCount(); i++) {
+            final int colIndex = i;
+            TableColumn<Integer, String> outputColumn = new TableColumn<>("O" + (i + 1));
+            outputColumn.setCellValueFactory(param -> new ReadOnlyStringWrapper(
+                    formatOutput(truthTable, param.getValue(), colIndex)));
+            outputColumn.setSortable(false);
             table.getColumns().add(outputColumn);
         }
 
-        for (int i = 0; i < inputs.length; i++) {
-            List<String> row = new ArrayList<>();
-            boolean rowIsEmpty = true;
-
-            for (Boolean input : inputs[i]) {
-                row.add(input ? "true" : "false");
-                if (input != null) {
-                    rowIsEmpty = false;
-                }
-            }
-
-            for (Object output : outputs[i]) {
-                if (output instanceof Boolean) {
-                    row.add((Boolean) output ? "true" : "false");
-                } else if (output instanceof Integer) {
-                    row.add(output.toString());
-                }
-            }
-
-            if (!rowIsEmpty) {
-                data.add(row);
-            }
-        }
-
-        table.setItems(data);
+        int rowCount = (int) truthTable.getRowCount();
+        table.setItems(new RowIndexList(rowCount));
 
         Button exportButton = new Button("Export to CSV");
-        exportButton.setOnAction(e -> exportTruthTableToCsv(inputs, outputs));
+        exportButton.setOnAction(e -> exportTruthTable(truthTable, constantInputs, TruthTableExporter.Format.CSV));
 
-        VBox vbox = new VBox(exportButton, table);
+        Button exportBinaryButton = new Button("Export to Binary");
+        exportBinaryButton.setOnAction(
+                e -> exportTruthTable(truthTable, constantInputs, TruthTableExporter.Format.BINARY));
+
+        VBox vbox = new VBox(new HBox(exportButton, exportBinaryButton), table);
 
         Stage stage = new Stage();
         stage.setTitle("Truth Table");
@@ -198,7 +233,7 @@ public class TruthTableManager {
         table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
 
         double rowHeight = 25;
-        double tableHeight = rowHeight * (data.size() + 1);
+        double tableHeight = rowHeight * (Math.min(rowCount, MAX_VISIBLE_ROWS) + 1);
         table.setPrefHeight(tableHeight);
 
         vbox.setPrefWidth(Region.USE_COMPUTED_SIZE);
@@ -208,8 +243,11 @@ public class TruthTableManager {
 
         ContextMenu contextMenu = new ContextMenu();
         MenuItem exportCsv = new MenuItem("Export to CSV");
-        exportCsv.setOnAction(e -> exportTruthTableToCsv(inputs, outputs));
-        contextMenu.getItems().add(exportCsv);
+        exportCsv.setOnAction(e -> exportTruthTable(truthTable, constantInputs, TruthTableExporter.Format.CSV));
+        MenuItem exportBinary = new MenuItem("Export to Binary");
+        exportBinary.setOnAction(
+                e -> exportTruthTable(truthTable, constantInputs, TruthTableExporter.Format.BINARY));
+        contextMenu.getItems().addAll(exportCsv, exportBinary);
 
         table.setContextMenu(contextMenu);
         table.getStylesheets().add(getClass().getResource("/com/paperturtle/styles.css").toExternalForm());
@@ -218,57 +256,137 @@ public class TruthTableManager {
     }
 
     /**
-     * Exports the truth table to a CSV file.
+     * Exports the truth table to a file in the specified format. The rows are
+     * generated in parallel and written while they are generated, in the
+     * background while a progress window is shown.
      * 
-     * @param inputs  the input values of the truth table
-     * @param outputs the output values of the truth table
+     * @param truthTable     the truth table to export
+     * @param constantInputs the values of the selected constant inputs
+     * @param format         the format of the file
      */
-    private void exportTruthTableToCsv(Boolean[][] inputs, Object[][] outputs) {
+    private void exportTruthTable(PagedTruthTable truthTable, List<Boolean> constantInputs,
+            TruthTableExporter.Format format) {
         FileChooser fileChooser = new FileChooser();
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files (*.csv)", "*.csv"));
+        if (format == TruthTableExporter.Format.CSV) {
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files (*.csv)", "*.csv"));
+            fileChooser.setInitialFileName("truth_table.csv");
+        } else {
+            fileChooser.getExtensionFilters()
+                    .add(new FileChooser.ExtensionFilter("Binary truth tables (*.lgtt)", "*.lgtt"));
+            fileChooser.setInitialFileName("truth_table.lgtt");
+        }
         File desktop = new File(System.getProperty("user.home"), "Desktop");
-        fileChooser.setInitialFileName("truth_table.csv");
         fileChooser.setInitialDirectory(desktop);
         Stage stage = new Stage();
         File file = fileChooser.showSaveDialog(stage);
 
-        if (file != null) {
-            try (FileWriter writer = new FileWriter(file)) {
-                StringBuilder sb = new StringBuilder();
-
-                for (int i = 0; i < inputs[0].length; i++) {
-                    sb.append("I").append(i + 1).append(",");
-                }
-
-                for (int i = 0; i < outputs[0].length; i++) {
-                    sb.append("O").append(i + 1);
-                    if (i < outputs[0].length - 1) {
-                        sb.append(",");
-                    }
-                }
-                sb.append("\n");
-
-                for (int i = 0; i < inputs.length; i++) {
-                    for (Boolean input : inputs[i]) {
-                        sb.append(input ? "true" : "false").append(",");
-                    }
-                    for (int j = 0; j < outputs[i].length; j++) {
-                        if (outputs[i][j] instanceof Boolean) {
-                            sb.append((Boolean) outputs[i][j] ? "true" : "false");
-                        } else if (outputs[i][j] instanceof Integer) {
-                            sb.append(outputs[i][j].toString());
-                        }
-                        if (j < outputs[i].length - 1) {
-                            sb.append(",");
-                        }
-                    }
-                    sb.append("\n");
-                }
-
-                writer.write(sb.toString());
-            } catch (IOException e) {
-                e.printStackTrace();
+        if (file == null) {
+            return;
+        }
+
+        boolean[] constants = new boolean[constantInputs.size()];
+        for (int i = 0; i < constants.length; i++) {
+            constants[i] = constantInputs.get(i);
+        }
+        TruthTableExporter exporter = new TruthTableExporter(truthTable.getGenerator(), constants);
+
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws IOException {
+                long total = truthTable.getRowCount();
+                exporter.export(file.toPath(), format, ForkJoinPool.commonPool(),
+                        done -> updateProgress(done, total), this::isCancelled);
+                return null;
+            }
+        };
+
+        Stage progressStage = createProgressStage(task);
+        task.setOnSucceeded(e -> progressStage.close());
+        task.setOnFailed(e -> {
+            progressStage.close();
+            task.getException().printStackTrace();
+        });
+        task.setOnCancelled(e -> progressStage.close());
+
+        progressStage.show();
+        Thread thread = new Thread(task, "truth-table-export");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Formats the value of an input column in the specified row.
+     * 
+     * @param truthTable     the truth table
+     * @param constantInputs the values of the selected constant inputs
+     * @param row            the index of the row
+     * @param column         the index of the input column
+     * @return the formatted value
+     */
+    private String formatInput(PagedTruthTable truthTable, List<Boolean> constantInputs, long row, int column) {
+        int numInputs = truthTable.getInputCount();
+        boolean value = column < numInputs ? truthTable.getInput(row, column) : constantInputs.get(column - numInputs);
+        return value ? "true" : "false";
+    }
+
+    /**
+     * Formats the value of an output column in the specified row.
+     * 
+     * @param truthTable the truth table
+     * @param row        the index of the row
+     * @param output     the index of the output column
+     * @return the formatted value
+     */
+    private String formatOutput(PagedTruthTable truthTable, long row, int output) {
+        return formatValue(truthTable.getGenerator().getOutputType(output), truthTable.getOutput(row, output));
+    }
+
+    /**
+     * Formats an output value: four-bit digits show a number, every other output
+     * shows true or false.
+     * 
+     * @param type  the type of the output gate
+     * @param value the output value
+     * @return the formatted value
+     */
+    private static String formatValue(GateType type, int value) {
+        if (type == GateType.FOUR_BIT_DIGIT) {
+            return Integer.toString(value);
+        }
+        return value != 0 ? "true" : "false";
+    }
+
+    /**
+     * A read-only list of row indices backing the truth table view. The list
+     * stores nothing; each item is its own index. It cannot be reordered, so the
+     * columns of the view are not sortable.
+     */
+    private static class RowIndexList extends ObservableListBase<Integer> {
+        /**
+         * The number of rows.
+         */
+        private final int size;
+
+        /**
+         * Constructs a RowIndexList with the specified number of rows.
+         * 
+         * @param size the number of rows
+         */
+        RowIndexList(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public Integer get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(index);
             }
+            return index;
+        }
+
+        @Override
+        public int size() {
+            return size;
         }
     }
 }
@@ -0,0 +1,280 @@
+package com.paperturtle.serializers;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.paperturtle.data.GateData;
+import com.paperturtle.data.GateData.ConnectionData;
+import com.paperturtle.data.TextLabelData;
+import com.paperturtle.utils.CircuitComponent;
+
+import javafx.geometry.Point2D;
+
+/**
+ * Reads circuits in the binary {@code .lgb} format described in
+ * {@link CircuitBinaryWriter}. The file is memory-mapped and decoded directly
+ * from the mapped buffer, without copying it into the heap first.
+ *
+ * <p>
+ * The inputs of each gate are rebuilt from the outputs of the other gates, with
+ * the pin as the point index, so the gates are passed on once all of them have
+ * been decoded. Text labels are passed on as they are decoded, as
+ * {@link TextLabelData} holding their JSON.
+ * </p>
+ *
+ * @see CircuitBinaryWriter
+ *
+ * @author Seweryn Czabanowski
+ */
+public class CircuitBinaryReader {
+    /**
+     * The file being read.
+     */
+    private final Path path;
+
+    /**
+     * A flag indicating whether text labels are read or skipped.
+     */
+    private final boolean labels;
+
+    /**
+     * Constructs a CircuitBinaryReader for the specified file.
+     *
+     * @param path the circuit file
+     */
+    public CircuitBinaryReader(Path path) {
+        this(path, true);
+    }
+
+    /**
+     * Constructs a CircuitBinaryReader for the specified file that optionally
+     * skips text labels, for readers that only need the gates.
+     *
+     * @param path   the circuit file
+     * @param labels true to read text labels, false to skip them
+     */
+    public CircuitBinaryReader(Path path, boolean labels) {
+        this.path = path;
+        this.labels = labels;
+    }
+
+    /**
+     * Reads the circuit, passing each component to the consumer.
+     *
+     * @param consumer the consumer receiving each component
+     * @param progress called with the fraction of the file read after each
+     *                 component is decoded
+     * @throws IOException if the file cannot be read or is not a binary circuit
+     *                     file
+     */
+    public void read(Consumer<CircuitComponent> consumer, DoubleConsumer progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(path)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Circuit file too large: " + channel.size() + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            read(buffer, consumer, progress);
+        } catch (BufferUnderflowException | IllegalArgumentException | JsonParseException e) {
+            throw new IOException("Invalid circuit file: " + path, e);
+        }
+    }
+
+    /**
+     * Decodes the contents of the file.
+     *
+     * @param buffer   the mapped file
+     * @param consumer the consumer receiving each component
+     * @param progress the progress callback
+     * @throws IOException if the file is not a binary circuit file
+     */
+    private void read(MappedByteBuffer buffer, Consumer<CircuitComponent> consumer, DoubleConsumer progress)
+            throws IOException {
+        byte[] magic = new byte[CircuitBinaryWriter.MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, CircuitBinaryWriter.MAGIC)) {
+            throw new IOException("Not a binary circuit file: " + path);
+        }
+        byte version = buffer.get();
+        if (version != CircuitBinaryWriter.VERSION) {
+            throw new IOException("Unsupported binary circuit version: " + version);
+        }
+
+        String[] types = new String[getLength(buffer)];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = getString(buffer);
+        }
+        String[] ids = new String[getLength(buffer)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = getString(buffer);
+        }
+
+        GateData[] gates = new GateData[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            gates[i] = gate(gates, ids, i);
+            readGate(buffer, gates, ids, types, i);
+            progress.accept((double) buffer.position() / buffer.limit());
+        }
+        for (GateData gate : gates) {
+            gate.inputs.sort((a, b) -> Integer.compare(a.pointIndex, b.pointIndex));
+            consumer.accept(gate);
+        }
+
+        int labelCount = labels ? getCount(buffer) : 0;
+        for (int i = 0; i < labelCount; i++) {
+            String label = getString(buffer);
+            if (!JsonParser.parseString(label).isJsonObject()) {
+                throw new IOException("Invalid text label " + i + " in " + path);
+            }
+            consumer.accept(new TextLabelData(label));
+            progress.accept((double) buffer.position() / buffer.limit());
+        }
+        progress.accept(1);
+    }
+
+    /**
+     * Decodes the record of a gate into its data, and adds the gate to the
+     * inputs of the gates it drives.
+     *
+     * @param buffer the mapped file
+     * @param gates  the data of the gates, created on first use
+     * @param ids    the ID of each gate
+     * @param types  the type table
+     * @param index  the index of the gate
+     * @throws IOException if the record is invalid
+     */
+    private void readGate(MappedByteBuffer buffer, GateData[] gates, String[] ids, String[] types, int index)
+            throws IOException {
+        GateData gate = gates[index];
+        int type = getCount(buffer);
+        if (type >= types.length) {
+            throw new IOException("Invalid type index " + type + " of gate " + ids[index]);
+        }
+        gate.type = types[type];
+
+        int flags = buffer.get();
+        gate.state = (flags & CircuitBinaryWriter.FLAG_STATE) != 0;
+        if ((flags & CircuitBinaryWriter.FLAG_INTEGRAL_POSITION) != 0) {
+            int x = unzigzag(getVarint(buffer));
+            int y = unzigzag(getVarint(buffer));
+            gate.position = new Point2D(x, y);
+        } else if ((flags & CircuitBinaryWriter.FLAG_POSITION) != 0) {
+            gate.position = new Point2D(buffer.getDouble(), buffer.getDouble());
+        }
+        gate.maxOutputConnections = getCount(buffer);
+
+        int outputCount = getCount(buffer);
+        for (int o = 0; o < outputCount; o++) {
+            long reference = getVarint(buffer);
+            long target = reference >>> CircuitBinaryWriter.PIN_BITS;
+            int pin = (int) (reference & CircuitBinaryWriter.PIN_ESCAPE);
+            if (pin == CircuitBinaryWriter.PIN_ESCAPE) {
+                pin += getCount(buffer);
+            }
+            if (target >= ids.length) {
+                throw new IOException("Invalid target index " + target + " of gate " + ids[index]);
+            }
+            gate.outputs.add(new ConnectionData(ids[(int) target], pin));
+            gate(gates, ids, (int) target).inputs.add(new ConnectionData(ids[index], pin));
+        }
+    }
+
+    /**
+     * Returns the data of a gate, creating it if necessary.
+     *
+     * @param gates the data of the gates
+     * @param ids   the ID of each gate
+     * @param index the index of the gate
+     * @return the data of the gate
+     */
+    private static GateData gate(GateData[] gates, String[] ids, int index) {
+        if (gates[index] == null) {
+            gates[index] = new GateData();
+            gates[index].id = ids[index];
+        }
+        return gates[index];
+    }
+
+    /**
+     * Decodes a varint that is used as a count or an index.
+     *
+     * @param buffer the mapped file
+     * @return the value
+     * @throws IOException if the value does not fit in an int
+     */
+    private static int getCount(MappedByteBuffer buffer) throws IOException {
+        long value = getVarint(buffer);
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("Invalid count: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decodes a varint that is used as the length of a string or table. Every
+     * element takes at least one byte, so the length cannot be larger than the
+     * rest of the file.
+     *
+     * @param buffer the mapped file
+     * @return the length
+     * @throws IOException if the length is larger than the rest of the file
+     */
+    private static int getLength(MappedByteBuffer buffer) throws IOException {
+        int length = getCount(buffer);
+        if (length > buffer.remaining()) {
+            throw new IOException("Invalid length: " + length);
+        }
+        return length;
+    }
+
+    /**
+     * Decodes a varint.
+     *
+     * @param buffer the mapped file
+     * @return the value
+     * @throws IOException if the varint is longer than 64 bits
+     */
+    private static long getVarint(MappedByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid varint at " + buffer.position());
+    }
+
+    /**
+     * Decodes a zigzag-encoded integer.
+     *
+     * @param value the encoded value
+     * @return the signed integer
+     */
+    private static int unzigzag(long value) {
+        int n = (int) value;
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    /**
+     * Decodes a length-prefixed UTF-8 string.
+     *
+     * @param buffer the mapped file
+     * @return the string
+     * @throws IOException if the length is invalid
+     */
+    private static String getString(MappedByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[getLength(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
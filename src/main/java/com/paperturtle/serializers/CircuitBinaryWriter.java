@@ -0,0 +1,334 @@
+package com.paperturtle.serializers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleConsumer;
+
+import com.paperturtle.components.utilities.TextLabel;
+import com.paperturtle.data.GateData;
+import com.paperturtle.data.GateData.ConnectionData;
+
+/**
+ * Writes circuits in the compact binary {@code .lgb} format. Gates refer to
+ * each other by their index in the file instead of their string ID, gate types
+ * are stored once in a string table, and all numbers are variable-length
+ * encoded:
+ *
+ * <pre>
+ * magic          4 bytes  "LGCB"
+ * version        1 byte   1
+ * type count     varint
+ * types          string per type
+ * gate count     varint
+ * gate ids       string per gate, in gate order
+ * gates          per gate:
+ *   type         varint   index in the type table
+ *   flags        1 byte   bit 0: state, bit 1: has position, bit 2: integral
+ *                         position
+ *   position     if integral: zigzag varint x and y, otherwise two doubles
+ *   max outputs  varint
+ *   output count varint
+ *   outputs      per output: varint (target gate index &lt;&lt; 4 | min(pin, 15)),
+ *                followed by varint (pin - 15) if the pin is 15 or more
+ * label count    varint
+ * labels         string per label: the JSON of its {@link TextLabelSerializer}
+ *                properties
+ * </pre>
+ *
+ * <p>
+ * A varint is an unsigned LEB128 number, seven bits per byte with the least
+ * significant group first. A string is a varint byte length followed by UTF-8
+ * bytes. Doubles are big-endian. The inputs of a gate are not stored, since
+ * they follow from the outputs of the other gates.
+ * </p>
+ *
+ * @see CircuitBinaryReader
+ *
+ * @author Seweryn Czabanowski
+ */
+public class CircuitBinaryWriter {
+    /**
+     * The magic number at the start of binary circuit files.
+     */
+    static final byte[] MAGIC = { 'L', 'G', 'C', 'B' };
+
+    /**
+     * The version of the binary format.
+     */
+    static final byte VERSION = 1;
+
+    /**
+     * The flag set if the gate is on.
+     */
+    static final int FLAG_STATE = 1;
+
+    /**
+     * The flag set if the gate has a position.
+     */
+    static final int FLAG_POSITION = 1 << 1;
+
+    /**
+     * The flag set if both coordinates of the position are integers stored as
+     * varints.
+     */
+    static final int FLAG_INTEGRAL_POSITION = 1 << 2;
+
+    /**
+     * The number of bits of an output reference holding the pin index.
+     */
+    static final int PIN_BITS = 4;
+
+    /**
+     * The largest pin index stored directly in an output reference.
+     */
+    static final int PIN_ESCAPE = (1 << PIN_BITS) - 1;
+
+    /**
+     * The size of the write buffer in bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The serializer used for text labels.
+     */
+    private final TextLabelSerializer labelSerializer = new TextLabelSerializer();
+
+    /**
+     * The buffer collecting bytes before they are written.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * The channel being written.
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * Constructs a CircuitBinaryWriter for the specified channel.
+     *
+     * @param channel the channel the file is written to
+     */
+    public CircuitBinaryWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes a complete circuit. Connections to gates that are not part of the
+     * circuit are left out.
+     *
+     * @param gates  the data of the gates
+     * @param labels the text labels
+     * @throws IOException if the channel cannot be written
+     */
+    public void write(Collection<GateData> gates, Collection<TextLabel> labels) throws IOException {
+        List<String> serializedLabels = new ArrayList<>(labels.size());
+        for (TextLabel label : labels) {
+            serializedLabels.add(labelSerializer.serialize(label, TextLabel.class, null).getAsJsonObject()
+                    .getAsJsonObject("data").toString());
+        }
+        writeSerialized(gates, serializedLabels, progress -> {
+        });
+    }
+
+    /**
+     * Writes a complete circuit whose text labels are already serialized, so
+     * that it can be written on a thread other than the one owning the labels.
+     * Connections to gates that are not part of the circuit are left out.
+     *
+     * @param gates    the data of the gates
+     * @param labels   the JSON of the {@link TextLabelSerializer} properties of
+     *                 each text label
+     * @param progress called with the fraction of the gates written after each
+     *                 gate
+     * @throws IOException if the channel cannot be written
+     */
+    public void writeSerialized(Collection<GateData> gates, Collection<String> labels, DoubleConsumer progress)
+            throws IOException {
+        Map<String, Integer> types = new LinkedHashMap<>();
+        Map<String, Integer> indices = new HashMap<>();
+        for (GateData gate : gates) {
+            types.putIfAbsent(gate.type, types.size());
+            indices.putIfAbsent(gate.id, indices.size());
+        }
+
+        put(MAGIC);
+        put(VERSION);
+        putVarint(types.size());
+        for (String type : types.keySet()) {
+            putString(type);
+        }
+        putVarint(gates.size());
+        for (GateData gate : gates) {
+            putString(gate.id);
+        }
+        int written = 0;
+        for (GateData gate : gates) {
+            writeGate(gate, types, indices);
+            progress.accept((double) ++written / gates.size());
+        }
+        putVarint(labels.size());
+        for (String label : labels) {
+            putString(label);
+        }
+        flush();
+    }
+
+    /**
+     * Writes the record of a gate.
+     *
+     * @param gate    the data of the gate
+     * @param types   the index of each type in the type table
+     * @param indices the index of each gate by its ID
+     * @throws IOException if the channel cannot be written
+     */
+    private void writeGate(GateData gate, Map<String, Integer> types, Map<String, Integer> indices)
+            throws IOException {
+        putVarint(types.get(gate.type));
+
+        int flags = gate.state ? FLAG_STATE : 0;
+        boolean integral = false;
+        if (gate.position != null) {
+            flags |= FLAG_POSITION;
+            integral = isInt(gate.position.getX()) && isInt(gate.position.getY());
+            if (integral) {
+                flags |= FLAG_INTEGRAL_POSITION;
+            }
+        }
+        put((byte) flags);
+        if (integral) {
+            putVarint(zigzag((int) gate.position.getX()));
+            putVarint(zigzag((int) gate.position.getY()));
+        } else if (gate.position != null) {
+            ensureRemaining(2 * Double.BYTES);
+            buffer.putDouble(gate.position.getX());
+            buffer.putDouble(gate.position.getY());
+        }
+        putVarint(gate.maxOutputConnections);
+
+        int count = 0;
+        for (ConnectionData output : gate.outputs) {
+            if (indices.containsKey(output.gateId)) {
+                count++;
+            }
+        }
+        putVarint(count);
+        for (ConnectionData output : gate.outputs) {
+            Integer target = indices.get(output.gateId);
+            if (target != null) {
+                int pin = Math.min(output.pointIndex, PIN_ESCAPE);
+                putVarint(((long) target << PIN_BITS) | pin);
+                if (pin == PIN_ESCAPE) {
+                    putVarint(output.pointIndex - PIN_ESCAPE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a coordinate is an integer that fits in an int.
+     *
+     * @param value the coordinate
+     * @return true if the coordinate can be stored as a varint
+     */
+    private static boolean isInt(double value) {
+        return value == (int) value;
+    }
+
+    /**
+     * Maps a signed integer to an unsigned one, so that small negative numbers
+     * are encoded in few bytes.
+     *
+     * @param value the signed integer
+     * @return the zigzag-encoded value
+     */
+    private static long zigzag(int value) {
+        return Integer.toUnsignedLong((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Appends a varint to the buffer.
+     *
+     * @param value the non-negative value
+     * @throws IOException if the channel cannot be written
+     */
+    private void putVarint(long value) throws IOException {
+        ensureRemaining(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Appends a length-prefixed UTF-8 string to the buffer.
+     *
+     * @param value the string
+     * @throws IOException if the channel cannot be written
+     */
+    private void putString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarint(bytes.length);
+        put(bytes);
+    }
+
+    /**
+     * Appends bytes to the buffer, writing it out whenever it is full.
+     *
+     * @param bytes the bytes to append
+     * @throws IOException if the channel cannot be written
+     */
+    private void put(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensureRemaining(1);
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Appends a byte to the buffer, writing it out whenever it is full.
+     *
+     * @param value the byte to append
+     * @throws IOException if the channel cannot be written
+     */
+    private void put(byte value) throws IOException {
+        ensureRemaining(1);
+        buffer.put(value);
+    }
+
+    /**
+     * Writes the buffer out if it has less than the specified space left.
+     *
+     * @param bytes the number of bytes that must fit in the buffer
+     * @throws IOException if the channel cannot be written
+     */
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the contents of the buffer to the channel.
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
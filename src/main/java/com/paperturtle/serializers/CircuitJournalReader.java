@@ -0,0 +1,126 @@
+package com.paperturtle.serializers;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import com.paperturtle.data.GateData;
+import com.paperturtle.data.GateData.ConnectionData;
+import com.paperturtle.data.JournalRecord;
+
+import javafx.geometry.Point2D;
+
+/**
+ * Reads the records of the autosave journal written by
+ * {@link CircuitJournalWriter}. Reading stops at the first frame that is
+ * incomplete or fails its checksum, which is where the application stopped
+ * writing.
+ *
+ * @see CircuitJournalWriter
+ *
+ * @author Seweryn Czabanowski
+ */
+public class CircuitJournalReader {
+    /**
+     * The journal file.
+     */
+    private final Path path;
+
+    /**
+     * Constructs a CircuitJournalReader for the specified file.
+     *
+     * @param path the journal file
+     */
+    public CircuitJournalReader(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Reads the complete records of the journal, passing each to the consumer.
+     *
+     * @param consumer the consumer receiving each record
+     * @return the number of records read
+     * @throws IOException if the file cannot be read
+     */
+    public int read(Consumer<JournalRecord> consumer) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        int count = 0;
+        while (buffer.remaining() >= CircuitJournalWriter.HEADER_SIZE) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            consumer.accept(readRecord(new DataInputStream(new ByteArrayInputStream(payload))));
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Decodes the payload of a record.
+     *
+     * @param in the stream over the payload
+     * @return the record
+     * @throws IOException if the payload is invalid
+     */
+    private JournalRecord readRecord(DataInputStream in) throws IOException {
+        JournalRecord record = new JournalRecord();
+        record.sequence = in.readLong();
+        int gateCount = in.readInt();
+        for (int i = 0; i < gateCount; i++) {
+            record.gates.add(readGate(in));
+        }
+        int removedCount = in.readInt();
+        for (int i = 0; i < removedCount; i++) {
+            record.removedGateIds.add(in.readUTF());
+        }
+        if (in.readBoolean()) {
+            int labelCount = in.readInt();
+            record.labels = new ArrayList<>(labelCount);
+            for (int i = 0; i < labelCount; i++) {
+                record.labels.add(in.readUTF());
+            }
+        }
+        return record;
+    }
+
+    /**
+     * Decodes the data of a gate.
+     *
+     * @param in the stream over the payload
+     * @return the data of the gate
+     * @throws IOException if the payload is invalid
+     */
+    private GateData readGate(DataInputStream in) throws IOException {
+        GateData gate = new GateData();
+        gate.id = in.readUTF();
+        gate.type = in.readUTF();
+        gate.state = in.readBoolean();
+        if (in.readBoolean()) {
+            gate.position = new Point2D(in.readDouble(), in.readDouble());
+        }
+        gate.maxOutputConnections = in.readInt();
+        int outputCount = in.readInt();
+        for (int i = 0; i < outputCount; i++) {
+            gate.outputs.add(new ConnectionData(in.readUTF(), in.readInt()));
+        }
+        return gate;
+    }
+}
@@ -0,0 +1,156 @@
+package com.paperturtle.serializers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import com.paperturtle.data.GateData;
+import com.paperturtle.data.GateData.ConnectionData;
+import com.paperturtle.data.JournalRecord;
+
+/**
+ * Appends records to the append-only autosave journal. Each record is written
+ * as a frame:
+ *
+ * <pre>
+ * length         4 bytes  length of the payload
+ * checksum       4 bytes  CRC-32 of the payload
+ * payload:
+ *   sequence     8 bytes
+ *   gate count   4 bytes
+ *   gates        per gate: id, type, state, has position, x, y, max outputs,
+ *                output count, and per output the target id and pin
+ *   removed      4 bytes count, followed by the id of each removed gate
+ *   has labels   1 byte
+ *   labels       if present: 4 bytes count, followed by the JSON of each label
+ * </pre>
+ *
+ * <p>
+ * Strings are written in modified UTF-8 as by
+ * {@link DataOutputStream#writeUTF(String)}. A frame that was only partly
+ * written when the application stopped fails its checksum and ends the
+ * journal when it is read back.
+ * </p>
+ *
+ * @see CircuitJournalReader
+ *
+ * @author Seweryn Czabanowski
+ */
+public class CircuitJournalWriter implements Closeable {
+    /**
+     * The size of the frame header in bytes.
+     */
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * The channel of the journal file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The buffer the payload of a record is encoded into.
+     */
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+
+    /**
+     * The stream used to encode the payload.
+     */
+    private final DataOutputStream out = new DataOutputStream(payload);
+
+    /**
+     * Opens a CircuitJournalWriter that appends to the specified file, creating
+     * it if necessary.
+     *
+     * @param path the journal file
+     * @throws IOException if the file cannot be opened
+     */
+    public CircuitJournalWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    /**
+     * Appends a record and forces it to the storage device.
+     *
+     * @param record the record to append
+     * @throws IOException if the file cannot be written
+     */
+    public void append(JournalRecord record) throws IOException {
+        payload.reset();
+        out.writeLong(record.sequence);
+        out.writeInt(record.gates.size());
+        for (GateData gate : record.gates) {
+            writeGate(gate);
+        }
+        out.writeInt(record.removedGateIds.size());
+        for (String id : record.removedGateIds) {
+            out.writeUTF(id);
+        }
+        out.writeBoolean(record.labels != null);
+        if (record.labels != null) {
+            out.writeInt(record.labels.size());
+            for (String label : record.labels) {
+                out.writeUTF(label);
+            }
+        }
+        out.flush();
+
+        CRC32 checksum = new CRC32();
+        checksum.update(payload.toByteArray());
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + payload.size());
+        frame.putInt(payload.size());
+        frame.putInt((int) checksum.getValue());
+        frame.put(payload.toByteArray());
+        frame.flip();
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Discards all records of the journal.
+     *
+     * @throws IOException if the file cannot be truncated
+     */
+    public void truncate() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes the data of a gate. The inputs are not written, since they follow
+     * from the outputs of the other gates.
+     *
+     * @param gate the data of the gate
+     * @throws IOException if the payload cannot be written
+     */
+    private void writeGate(GateData gate) throws IOException {
+        out.writeUTF(gate.id);
+        out.writeUTF(gate.type);
+        out.writeBoolean(gate.state);
+        out.writeBoolean(gate.position != null);
+        if (gate.position != null) {
+            out.writeDouble(gate.position.getX());
+            out.writeDouble(gate.position.getY());
+        }
+        out.writeInt(gate.maxOutputConnections);
+        out.writeInt(gate.outputs.size());
+        for (ConnectionData output : gate.outputs) {
+            out.writeUTF(output.gateId);
+            out.writeInt(output.pointIndex);
+        }
+    }
+}
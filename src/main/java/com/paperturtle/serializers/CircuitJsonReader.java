@@ -0,0 +1,357 @@
+package com.paperturtle.serializers;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.paperturtle.data.GateData;
+import com.paperturtle.data.GateData.ConnectionData;
+import com.paperturtle.data.TextLabelData;
+import com.paperturtle.utils.CircuitComponent;
+
+import javafx.geometry.Point2D;
+
+/**
+ * Reads the components of a circuit file one at a time with a Gson
+ * {@link JsonReader}, instead of parsing the whole file into a tree first.
+ * Only the component being read is held in memory, so files of any size can be
+ * loaded with bounded memory.
+ *
+ * <p>
+ * The file must be a JSON array of objects with a {@code componentType} and a
+ * {@code data} property, as written by
+ * {@link com.paperturtle.managers.CircuitFileManager}. Gates are read field by
+ * field; text labels are small and are parsed into a tree and kept as
+ * {@link TextLabelData}, so the reader never creates JavaFX nodes and can run
+ * on any thread.
+ * </p>
+ *
+ * @see CircuitJsonWriter
+ *
+ * @author Seweryn Czabanowski
+ */
+public class CircuitJsonReader implements Closeable {
+    /**
+     * The size of the character buffer of the reader.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The value of the component type for gates.
+     */
+    private static final String GATE_TYPE = "gate";
+
+    /**
+     * The value of the component type for text labels.
+     */
+    private static final String TEXT_LABEL_TYPE = "textLabel";
+
+    /**
+     * The channel of the file being read.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The size of the file in bytes.
+     */
+    private final long size;
+
+    /**
+     * The reader of the JSON tokens.
+     */
+    private final JsonReader reader;
+
+    /**
+     * A flag indicating whether text labels are read or skipped.
+     */
+    private final boolean labels;
+
+    /**
+     * A flag indicating whether the opening bracket of the array has been read.
+     */
+    private boolean started = false;
+
+    /**
+     * Opens a CircuitJsonReader for the specified file.
+     *
+     * @param path the circuit file
+     * @throws IOException if the file cannot be opened
+     */
+    public CircuitJsonReader(Path path) throws IOException {
+        this(path, true);
+    }
+
+    /**
+     * Opens a CircuitJsonReader for the specified file that optionally skips text
+     * labels, for readers that only need the gates.
+     *
+     * @param path   the circuit file
+     * @param labels true to read text labels, false to skip them
+     * @throws IOException if the file cannot be opened
+     */
+    public CircuitJsonReader(Path path, boolean labels) throws IOException {
+        this.labels = labels;
+        this.channel = FileChannel.open(path);
+        this.size = channel.size();
+        this.reader = new JsonReader(new BufferedReader(
+                new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8), BUFFER_SIZE));
+    }
+
+    /**
+     * Checks if there are more components in the file.
+     *
+     * @return true if there are more components, false otherwise
+     * @throws IOException if the file cannot be read or is not a circuit file
+     */
+    public boolean hasNext() throws IOException {
+        try {
+            if (!started) {
+                reader.beginArray();
+                started = true;
+            }
+            if (reader.hasNext()) {
+                return true;
+            }
+            reader.endArray();
+            return false;
+        } catch (IllegalStateException e) {
+            throw new IOException("Invalid circuit file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the next component of the file.
+     *
+     * @return the next component, or null for a text label if text labels are
+     *         skipped
+     * @throws IOException            if the file cannot be read or is not a
+     *                                circuit file
+     * @throws NoSuchElementException if there are no more components
+     */
+    public CircuitComponent next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return readComponent();
+        } catch (IllegalStateException | JsonParseException | NumberFormatException e) {
+            throw new IOException("Invalid circuit file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the fraction of the file read so far.
+     *
+     * @return the progress, between 0 and 1
+     */
+    public double getProgress() {
+        try {
+            return size == 0 ? 1 : Math.min(1, (double) channel.position() / size);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Reads a component object. The data of a component is normally preceded by
+     * its type; if it is not, the data is buffered until the type is known.
+     *
+     * @return the component
+     * @throws IOException if the file cannot be read
+     */
+    private CircuitComponent readComponent() throws IOException {
+        String componentType = null;
+        JsonElement bufferedData = null;
+        CircuitComponent component = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("componentType")) {
+                componentType = reader.nextString();
+            } else if (name.equals("data") && componentType != null) {
+                component = readData(componentType, reader);
+            } else if (name.equals("data")) {
+                bufferedData = JsonParser.parseReader(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (component == null && bufferedData != null && componentType != null) {
+            try (JsonReader dataReader = new JsonReader(new StringReader(bufferedData.toString()))) {
+                component = readData(componentType, dataReader);
+            }
+        }
+        if (component == null && !labels && TEXT_LABEL_TYPE.equals(componentType)) {
+            return null;
+        }
+        if (component == null) {
+            throw new JsonParseException("Component without data or type at " + reader.getPath());
+        }
+        return component;
+    }
+
+    /**
+     * Reads the data of a component of the specified type.
+     *
+     * @param componentType the type of the component
+     * @param in            the reader positioned at the data
+     * @return the component
+     * @throws IOException if the file cannot be read
+     */
+    private CircuitComponent readData(String componentType, JsonReader in) throws IOException {
+        switch (componentType) {
+            case GATE_TYPE:
+                return readGate(in);
+            case TEXT_LABEL_TYPE:
+                if (!labels) {
+                    in.skipValue();
+                    return null;
+                }
+                return readTextLabel(in);
+            default:
+                throw new JsonParseException("Unknown component type: " + componentType);
+        }
+    }
+
+    /**
+     * Reads the data of a gate.
+     *
+     * @param in the reader positioned at the data
+     * @return the gate data
+     * @throws IOException if the file cannot be read
+     */
+    private GateData readGate(JsonReader in) throws IOException {
+        GateData gateData = new GateData();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    gateData.id = in.nextString();
+                    break;
+                case "type":
+                    gateData.type = in.nextString();
+                    break;
+                case "position":
+                    gateData.position = readPoint(in);
+                    break;
+                case "state":
+                    gateData.state = in.nextBoolean();
+                    break;
+                case "inputs":
+                    readConnections(in, gateData.inputs);
+                    break;
+                case "outputs":
+                    readConnections(in, gateData.outputs);
+                    break;
+                case "maxOutputConnections":
+                    gateData.maxOutputConnections = in.nextInt();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return gateData;
+    }
+
+    /**
+     * Reads a point.
+     *
+     * @param in the reader positioned at the point
+     * @return the point
+     * @throws IOException if the file cannot be read
+     */
+    private Point2D readPoint(JsonReader in) throws IOException {
+        double x = 0;
+        double y = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "x":
+                    x = in.nextDouble();
+                    break;
+                case "y":
+                    y = in.nextDouble();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return new Point2D(x, y);
+    }
+
+    /**
+     * Reads an array of connections.
+     *
+     * @param in          the reader positioned at the array
+     * @param connections the list the connections are added to
+     * @throws IOException if the file cannot be read
+     */
+    private void readConnections(JsonReader in, List<ConnectionData> connections) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return;
+        }
+        in.beginArray();
+        while (in.hasNext()) {
+            String gateId = null;
+            int pointIndex = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "gateId":
+                        gateId = in.nextString();
+                        break;
+                    case "pointIndex":
+                        pointIndex = in.nextInt();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            connections.add(new ConnectionData(gateId, pointIndex));
+        }
+        in.endArray();
+    }
+
+    /**
+     * Reads the data of a text label. Labels written by the
+     * {@link TextLabelSerializer} wrap their properties in a second
+     * {@code data} object, which is unwrapped here.
+     *
+     * @param in the reader positioned at the data
+     * @return the data of the text label
+     * @throws IOException if the file cannot be read
+     */
+    private TextLabelData readTextLabel(JsonReader in) throws IOException {
+        JsonObject data = JsonParser.parseReader(in).getAsJsonObject();
+        if (!data.has("label") && data.has("data")) {
+            data = data.getAsJsonObject("data");
+        }
+        return new TextLabelData(data.toString());
+    }
+}
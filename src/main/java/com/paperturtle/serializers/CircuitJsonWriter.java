@@ -0,0 +1,180 @@
+package com.paperturtle.serializers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import com.paperturtle.components.utilities.TextLabel;
+import com.paperturtle.data.GateData;
+import com.paperturtle.data.GateData.ConnectionData;
+import com.paperturtle.data.TextLabelData;
+import com.paperturtle.utils.CircuitComponent;
+
+/**
+ * Writes the components of a circuit file one at a time with a Gson
+ * {@link JsonWriter}, instead of serializing the whole circuit into a string
+ * first. The output has the same layout as the files read by
+ * {@link CircuitJsonReader}: a JSON array of objects with a
+ * {@code componentType} and a {@code data} property.
+ *
+ * <p>
+ * Gates are written field by field. Text labels are written with the
+ * properties produced by the {@link TextLabelSerializer}, directly inside the
+ * {@code data} object.
+ * </p>
+ *
+ * @author Seweryn Czabanowski
+ */
+public class CircuitJsonWriter implements Closeable {
+    /**
+     * The Gson instance used to write the small trees of text labels.
+     */
+    private static final Gson GSON = new Gson();
+
+    /**
+     * The value of the component type for text labels.
+     */
+    private static final String TEXT_LABEL_TYPE = "textLabel";
+
+    /**
+     * The writer of the JSON tokens.
+     */
+    private final JsonWriter writer;
+
+    /**
+     * The serializer used for text labels.
+     */
+    private final TextLabelSerializer labelSerializer = new TextLabelSerializer();
+
+    /**
+     * Opens a CircuitJsonWriter on the specified writer and starts the array of
+     * components, which is ended by {@link #finish()}.
+     *
+     * @param out the writer the file is written to; should be buffered
+     * @throws IOException if the writer cannot be written
+     */
+    public CircuitJsonWriter(Writer out) throws IOException {
+        this.writer = new JsonWriter(out);
+        writer.beginArray();
+    }
+
+    /**
+     * Writes a component.
+     *
+     * @param component the component to write
+     * @throws IOException              if the writer cannot be written
+     * @throws IllegalArgumentException if the component type is not supported
+     */
+    public void write(CircuitComponent component) throws IOException {
+        if (component instanceof GateData gateData) {
+            writeGate(gateData);
+        } else if (component instanceof TextLabel textLabel) {
+            writeTextLabel(textLabel);
+        } else if (component instanceof TextLabelData textLabelData) {
+            writeTextLabel(textLabelData.json);
+        } else {
+            throw new IllegalArgumentException("Unknown component type: " + component.getComponentType());
+        }
+    }
+
+    /**
+     * Writes a gate.
+     *
+     * @param gateData the data of the gate
+     * @throws IOException if the writer cannot be written
+     */
+    public void writeGate(GateData gateData) throws IOException {
+        writer.beginObject();
+        writer.name("componentType").value(gateData.getComponentType());
+        writer.name("data").beginObject();
+        writer.name("id").value(gateData.id);
+        writer.name("type").value(gateData.type);
+        if (gateData.position != null) {
+            writer.name("position").beginObject();
+            writer.name("x").value(gateData.position.getX());
+            writer.name("y").value(gateData.position.getY());
+            writer.endObject();
+        }
+        writer.name("state").value(gateData.state);
+        writeConnections("inputs", gateData.inputs);
+        writeConnections("outputs", gateData.outputs);
+        writer.name("maxOutputConnections").value(gateData.maxOutputConnections);
+        writer.endObject();
+        writer.endObject();
+    }
+
+    /**
+     * Writes a text label.
+     *
+     * @param textLabel the text label
+     * @throws IOException if the writer cannot be written
+     */
+    public void writeTextLabel(TextLabel textLabel) throws IOException {
+        JsonObject data = labelSerializer.serialize(textLabel, TextLabel.class, null).getAsJsonObject()
+                .getAsJsonObject("data");
+        writer.beginObject();
+        writer.name("componentType").value(textLabel.getComponentType());
+        writer.name("data");
+        GSON.toJson(data, writer);
+        writer.endObject();
+    }
+
+    /**
+     * Writes a text label that is already serialized, so that it can be written
+     * on a thread other than the one owning the label.
+     *
+     * @param json the JSON of the {@link TextLabelSerializer} properties of the
+     *             text label
+     * @throws IOException if the writer cannot be written
+     */
+    public void writeTextLabel(String json) throws IOException {
+        writer.beginObject();
+        writer.name("componentType").value(TEXT_LABEL_TYPE);
+        writer.name("data").jsonValue(json);
+        writer.endObject();
+    }
+
+    /**
+     * Ends the array of components and flushes the underlying writer. No
+     * components can be written afterwards.
+     *
+     * @throws IOException if the writer cannot be written
+     */
+    public void finish() throws IOException {
+        writer.endArray();
+        writer.flush();
+    }
+
+    /**
+     * Closes the underlying writer.
+     *
+     * @throws IOException if the writer cannot be closed, or the array of
+     *                     components was not finished
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Writes an array of connections.
+     *
+     * @param name        the name of the property
+     * @param connections the connections
+     * @throws IOException if the writer cannot be written
+     */
+    private void writeConnections(String name, List<ConnectionData> connections) throws IOException {
+        writer.name(name).beginArray();
+        for (ConnectionData connection : connections) {
+            writer.beginObject();
+            writer.name("gateId").value(connection.gateId);
+            writer.name("pointIndex").value(connection.pointIndex);
+            writer.endObject();
+        }
+        writer.endArray();
+    }
+}
@@ -1,6 +1,6 @@
 /**
- * This package contains the classes for serializing Text labels and Point2D
- * objects from JavaFX used in the application.
+ * This package contains the classes for serializing Text labels and for
+ * reading and writing circuit files in the formats used by the application.
  * 
  * <p>
  * It includes classes for representing and handling the serialization of these
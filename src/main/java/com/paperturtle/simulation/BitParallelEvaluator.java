@@ -0,0 +1,218 @@
+package com.paperturtle.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Evaluates a {@link Netlist} for 64 input combinations at a time. The
+ * combinations are numbered like the rows of a truth table: in row {@code r},
+ * input {@code j} is true if bit {@code j} of {@code r} is set. Each call to
+ * {@link #evaluate(long)} computes 64 consecutive rows by packing one row into
+ * each bit of a {@code long} and evaluating every gate once with word-wide
+ * bitwise operations.
+ *
+ * <p>
+ * Only the fan-in cone of the outputs is evaluated, so gates that do not drive
+ * any output, such as bus components elsewhere on the canvas, are skipped.
+ * Gates that are not listed as inputs, such as unselected switches or clocks,
+ * keep the value they have in the state the evaluator was created with. Gates
+ * in feedback loops start every block from that state as well and are iterated
+ * until they are stable, so each row is computed independently of the others.
+ * </p>
+ *
+ * @see Netlist#evaluate(int, long[])
+ *
+ * @author Seweryn Czabanowski
+ */
+public class BitParallelEvaluator {
+    /**
+     * The number of rows evaluated by each call to {@link #evaluate(long)}.
+     */
+    public static final int LANES = 64;
+
+    /**
+     * The value words of the first six inputs, which vary within a block of 64
+     * rows.
+     */
+    private static final long[] PATTERNS = {
+            0xAAAAAAAAAAAAAAAAL,
+            0xCCCCCCCCCCCCCCCCL,
+            0xF0F0F0F0F0F0F0F0L,
+            0xFF00FF00FF00FF00L,
+            0xFFFF0000FFFF0000L,
+            0xFFFFFFFF00000000L
+    };
+
+    /**
+     * The netlist being evaluated.
+     */
+    private final Netlist netlist;
+
+    /**
+     * The indices of the gates driven by the row bits, lowest bit first.
+     */
+    private final int[] inputs;
+
+    /**
+     * The gates of the fan-in cone of the outputs, in evaluation order.
+     */
+    private final int[] order;
+
+    /**
+     * The number of gates at the start of {@link #order} that are not part of a
+     * feedback loop.
+     */
+    private final int acyclicCount;
+
+    /**
+     * The value every gate starts from in each block.
+     */
+    private final long[] initialWords;
+
+    /**
+     * The current value word of every gate.
+     */
+    private final long[] words;
+
+    /**
+     * Constructs a BitParallelEvaluator for the specified netlist.
+     *
+     * @param netlist the netlist to evaluate
+     * @param inputs  the indices of the gates driven by the row bits, lowest bit
+     *                first
+     * @param outputs the indices of the gates whose values are read
+     * @param state   the value of every gate that the evaluation starts from
+     * @throws IllegalArgumentException if there are more than 62 inputs
+     */
+    public BitParallelEvaluator(Netlist netlist, int[] inputs, int[] outputs, boolean[] state) {
+        if (inputs.length > 62) {
+            throw new IllegalArgumentException("Too many inputs: " + inputs.length);
+        }
+        this.netlist = netlist;
+        this.inputs = inputs.clone();
+        boolean[] cone = netlist.getFanInCone(outputs);
+        int[] coneOrder = new int[netlist.order.length];
+        int coneSize = 0;
+        int coneAcyclicCount = 0;
+        for (int i = 0; i < netlist.order.length; i++) {
+            if (cone[netlist.order[i]]) {
+                coneOrder[coneSize++] = netlist.order[i];
+                if (i < netlist.acyclicCount) {
+                    coneAcyclicCount++;
+                }
+            }
+        }
+        this.order = Arrays.copyOf(coneOrder, coneSize);
+        this.acyclicCount = coneAcyclicCount;
+        this.initialWords = new long[netlist.size()];
+        this.words = new long[netlist.size()];
+        for (int i = 0; i < initialWords.length; i++) {
+            initialWords[i] = state[i] ? -1L : 0L;
+        }
+    }
+
+    /**
+     * Evaluates the 64 rows starting at the specified row.
+     *
+     * @param firstRow the first row of the block; must be a multiple of
+     *                 {@link #LANES}
+     */
+    public void evaluate(long firstRow) {
+        System.arraycopy(initialWords, 0, words, 0, words.length);
+        for (int j = 0; j < inputs.length; j++) {
+            words[inputs[j]] = inputWord(j, firstRow);
+        }
+
+        for (int i = 0; i < acyclicCount; i++) {
+            words[order[i]] = netlist.evaluate(order[i], words);
+        }
+
+        int cyclicCount = order.length - acyclicCount;
+        boolean unstable = cyclicCount > 0;
+        for (int pass = 0; unstable && pass <= cyclicCount; pass++) {
+            unstable = false;
+            for (int i = acyclicCount; i < order.length; i++) {
+                long word = netlist.evaluate(order[i], words);
+                unstable |= word != words[order[i]];
+                words[order[i]] = word;
+            }
+        }
+    }
+
+    /**
+     * Returns the value word of a gate after the last evaluation. Bit {@code l}
+     * holds the value in row {@code firstRow + l}.
+     *
+     * @param gate the index of the gate
+     * @return the value word of the gate
+     */
+    public long getWord(int gate) {
+        return words[gate];
+    }
+
+    /**
+     * Returns the value of a gate in one row of the last evaluation.
+     *
+     * @param gate the index of the gate
+     * @param lane the position of the row within the block
+     * @return the value of the gate in that row
+     */
+    public boolean getValue(int gate, int lane) {
+        return (words[gate] >>> lane & 1L) != 0;
+    }
+
+    /**
+     * Returns the number of true inputs of a gate in one row of the last
+     * evaluation.
+     *
+     * @param gate the index of the gate
+     * @param lane the position of the row within the block
+     * @return the number of true inputs in that row
+     */
+    public int getActiveInputCount(int gate, int lane) {
+        int count = 0;
+        for (int i = netlist.fanInStart[gate]; i < netlist.fanInStart[gate + 1]; i++) {
+            count += (int) (words[netlist.fanIn[i]] >>> lane & 1L);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the value a gate displays in one row of the last evaluation: the
+     * number of true inputs, at most four, for a four-bit digit, and 0 or 1 for
+     * any other gate.
+     *
+     * @param gate the index of the gate
+     * @param lane the position of the row within the block
+     * @return the displayed value in that row
+     */
+    public int getDisplayedValue(int gate, int lane) {
+        if (netlist.types[gate] == GateType.FOUR_BIT_DIGIT) {
+            return Math.min(getActiveInputCount(gate, lane), 4);
+        }
+        return getValue(gate, lane) ? 1 : 0;
+    }
+
+    /**
+     * Returns the netlist being evaluated.
+     *
+     * @return the netlist
+     */
+    public Netlist getNetlist() {
+        return netlist;
+    }
+
+    /**
+     * Returns the value word of an input within the block starting at the
+     * specified row.
+     *
+     * @param bit      the row bit driving the input
+     * @param firstRow the first row of the block
+     * @return the value word of the input
+     */
+    private static long inputWord(int bit, long firstRow) {
+        if (bit < PATTERNS.length) {
+            return PATTERNS[bit];
+        }
+        return (firstRow >>> bit & 1L) != 0 ? -1L : 0L;
+    }
+}
@@ -0,0 +1,182 @@
+package com.paperturtle.simulation;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * Advances simulated time on a {@link SimulationEngine} as fast as possible,
+ * switching clock inputs at their scheduled edges without updating any view.
+ * The runner works on the same time base as the clocks on the canvas: every
+ * clock has a period and a next edge in integer ticks, and all clocks switching
+ * at the same instant are propagated together.
+ *
+ * <p>
+ * A run lasts a number of cycles of a reference clock, counted by its rising
+ * edges, and ends early when any watched gate is on or when it is cancelled.
+ * The runner only touches the engine it is given, so it runs on the thread
+ * that owns the engine; the state it reached can be read once the run ended.
+ * </p>
+ *
+ * @see com.paperturtle.managers.ClockManager
+ *
+ * @author Seweryn Czabanowski
+ */
+public class ClockRunner {
+    /**
+     * The number of clock edges between two checks for cancellation and
+     * progress reports.
+     */
+    private static final int CHECK_INTERVAL = 1024;
+
+    /**
+     * The netlist index of each clock.
+     */
+    private final int[] clocks;
+
+    /**
+     * The time between two edges of each clock, in ticks.
+     */
+    private final long[] periods;
+
+    /**
+     * The time of the next edge of each clock, in ticks.
+     */
+    private final long[] nextEdges;
+
+    /**
+     * The current simulated time, in ticks.
+     */
+    private long time;
+
+    /**
+     * The level of each clock when the run ended.
+     */
+    private final boolean[] levels;
+
+    /**
+     * A flag indicating whether the run ended because a watched gate was on.
+     */
+    private boolean stopped = false;
+
+    /**
+     * Constructs a ClockRunner for the specified clocks. The array of next edges
+     * is updated in place while the runner advances.
+     *
+     * @param clocks    the netlist index of each clock
+     * @param periods   the time between two edges of each clock, in ticks
+     * @param nextEdges the time of the next edge of each clock, in ticks
+     * @param time      the current simulated time, in ticks
+     */
+    public ClockRunner(int[] clocks, long[] periods, long[] nextEdges, long time) {
+        this.clocks = clocks;
+        this.periods = periods;
+        this.nextEdges = nextEdges;
+        this.time = time;
+        this.levels = new boolean[clocks.length];
+    }
+
+    /**
+     * Runs the specified number of cycles of a reference clock.
+     *
+     * @param engine    the engine whose clock inputs are switched
+     * @param reference the position of the reference clock in the clock arrays
+     * @param cycles    the number of cycles to run
+     * @param watched   the netlist indices of the gates that end the run when
+     *                  any of them is on
+     * @param cancelled checked regularly; the run ends when it returns true
+     * @param progress  called regularly with the number of cycles completed
+     * @return the number of cycles completed
+     */
+    public long run(SimulationEngine engine, int reference, long cycles, int[] watched, BooleanSupplier cancelled,
+            LongConsumer progress) {
+        long completed = 0;
+        int edges = 0;
+        while (completed < cycles) {
+            long edge = nextEdges[0];
+            for (int i = 1; i < clocks.length; i++) {
+                edge = Math.min(edge, nextEdges[i]);
+            }
+            for (int i = 0; i < clocks.length; i++) {
+                if (nextEdges[i] == edge) {
+                    boolean value = !engine.getValue(clocks[i]);
+                    engine.setInput(clocks[i], value);
+                    nextEdges[i] += periods[i];
+                    if (i == reference && value) {
+                        completed++;
+                    }
+                    edges++;
+                }
+            }
+            time = edge;
+            engine.propagate();
+
+            if (isAnyOn(engine, watched)) {
+                stopped = true;
+                break;
+            }
+            if (edges >= CHECK_INTERVAL) {
+                edges = 0;
+                progress.accept(completed);
+                if (cancelled.getAsBoolean()) {
+                    break;
+                }
+            }
+        }
+        for (int i = 0; i < clocks.length; i++) {
+            levels[i] = engine.getValue(clocks[i]);
+        }
+        return completed;
+    }
+
+    /**
+     * Checks if any of the specified gates is on.
+     *
+     * @param engine the engine
+     * @param gates  the netlist indices of the gates
+     * @return true if any gate is on
+     */
+    private static boolean isAnyOn(SimulationEngine engine, int[] gates) {
+        for (int gate : gates) {
+            if (engine.getValue(gate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the level of each clock when the run ended.
+     *
+     * @return the levels
+     */
+    public boolean[] getLevels() {
+        return levels;
+    }
+
+    /**
+     * Checks if the run ended because a watched gate was on.
+     *
+     * @return true if a watched gate was on
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Returns the time of the next edge of each clock.
+     *
+     * @return the next edges, in ticks
+     */
+    public long[] getNextEdges() {
+        return nextEdges;
+    }
+
+    /**
+     * Returns the current simulated time.
+     *
+     * @return the simulated time, in ticks
+     */
+    public long getTime() {
+        return time;
+    }
+}
@@ -0,0 +1,155 @@
+package com.paperturtle.simulation;
+
+import java.util.Arrays;
+
+/**
+ * A timing wheel of pending gate evaluations. Each gate is scheduled for the
+ * timestep equal to its level in the netlist, so a gate is only evaluated after
+ * all of its inputs have settled, and scheduling the same gate twice for one
+ * timestep has no effect.
+ *
+ * <p>
+ * Gates in feedback loops have no level; they are scheduled one timestep after
+ * the current one, which models a unit gate delay and lets oscillating loops be
+ * detected by the number of timesteps they take.
+ * </p>
+ *
+ * @see SimulationEngine
+ *
+ * @author Seweryn Czabanowski
+ */
+public class EventScheduler {
+    /**
+     * The netlist whose gates are scheduled.
+     */
+    private final Netlist netlist;
+
+    /**
+     * The gates pending in each slot of the wheel.
+     */
+    private final int[][] slots;
+
+    /**
+     * The number of gates pending in each slot of the wheel.
+     */
+    private final int[] slotSizes;
+
+    /**
+     * The timestep each gate is pending for, or -1 if it is not pending.
+     */
+    private final int[] scheduledAt;
+
+    /**
+     * The timestep currently being processed.
+     */
+    private int time = 0;
+
+    /**
+     * The position of the next gate to return in the current slot.
+     */
+    private int cursor = 0;
+
+    /**
+     * The number of gates pending in all slots.
+     */
+    private int pending = 0;
+
+    /**
+     * Constructs an EventScheduler for the specified netlist.
+     *
+     * @param netlist the netlist whose gates are scheduled
+     */
+    public EventScheduler(Netlist netlist) {
+        this.netlist = netlist;
+        int slotCount = netlist.getMaxLevel() + 2;
+        this.slots = new int[slotCount][4];
+        this.slotSizes = new int[slotCount];
+        this.scheduledAt = new int[netlist.size()];
+        Arrays.fill(scheduledAt, -1);
+    }
+
+    /**
+     * Schedules a gate for evaluation at its level, or at the next timestep if it
+     * is part of a feedback loop. Does nothing if the gate is already pending for
+     * that timestep.
+     *
+     * @param gate the index of the gate
+     */
+    public void schedule(int gate) {
+        int level = netlist.levels[gate];
+        int at = level > time ? level : time + 1;
+        if (scheduledAt[gate] == at) {
+            return;
+        }
+        scheduledAt[gate] = at;
+        int slot = at % slots.length;
+        if (slotSizes[slot] == slots[slot].length) {
+            slots[slot] = Arrays.copyOf(slots[slot], slotSizes[slot] * 2);
+        }
+        slots[slot][slotSizes[slot]++] = gate;
+        pending++;
+    }
+
+    /**
+     * Returns the next pending gate in timestep order and removes it from the
+     * wheel. Once the wheel is empty, the time is reset to zero.
+     *
+     * @return the index of the next gate, or -1 if no gate is pending
+     */
+    public int next() {
+        if (pending == 0) {
+            reset();
+            return -1;
+        }
+        int slot = time % slots.length;
+        while (cursor == slotSizes[slot]) {
+            slotSizes[slot] = 0;
+            cursor = 0;
+            time++;
+            slot = time % slots.length;
+        }
+        int gate = slots[slot][cursor++];
+        pending--;
+        if (scheduledAt[gate] == time) {
+            scheduledAt[gate] = -1;
+        }
+        return gate;
+    }
+
+    /**
+     * Returns the timestep currently being processed.
+     *
+     * @return the current timestep
+     */
+    public int getTime() {
+        return time;
+    }
+
+    /**
+     * Checks if no gate is pending.
+     *
+     * @return true if the wheel is empty
+     */
+    public boolean isEmpty() {
+        return pending == 0;
+    }
+
+    /**
+     * Discards all pending gates and resets the time to zero.
+     */
+    public void clear() {
+        Arrays.fill(scheduledAt, -1);
+        Arrays.fill(slotSizes, 0);
+        pending = 0;
+        reset();
+    }
+
+    /**
+     * Resets the time to zero once the wheel is empty.
+     */
+    private void reset() {
+        slotSizes[time % slots.length] = 0;
+        time = 0;
+        cursor = 0;
+    }
+}
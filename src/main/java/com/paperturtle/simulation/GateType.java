@@ -0,0 +1,232 @@
+package com.paperturtle.simulation;
+
+/**
+ * Enumerates the kinds of gates the simulation engine knows how to evaluate.
+ * Every component on the canvas maps to exactly one of these types.
+ *
+ * @see Netlist
+ *
+ * @author Seweryn Czabanowski
+ */
+public enum GateType {
+    /**
+     * Outputs true only when exactly two inputs are connected and both are true.
+     */
+    AND,
+
+    /**
+     * Outputs true when at least one input is true.
+     */
+    OR,
+
+    /**
+     * Outputs the inverse of its first input, or false if it is unconnected.
+     */
+    NOT,
+
+    /**
+     * Outputs its first input, or false if it is unconnected.
+     */
+    BUFFER,
+
+    /**
+     * Outputs false only when all inputs are true.
+     */
+    NAND,
+
+    /**
+     * Outputs true only when all inputs are false.
+     */
+    NOR,
+
+    /**
+     * Outputs true when an odd number of inputs are true.
+     */
+    XOR,
+
+    /**
+     * Outputs true when an even number of inputs are true.
+     */
+    XNOR,
+
+    /**
+     * Outputs its first input while the second (enable) input is true.
+     */
+    TRISTATE,
+
+    /**
+     * An input whose value is set from outside the netlist by the user.
+     */
+    SWITCH,
+
+    /**
+     * An input whose value is set from outside the netlist by a clock.
+     */
+    CLOCK,
+
+    /**
+     * An input that always outputs true.
+     */
+    HIGH_CONSTANT,
+
+    /**
+     * An input that always outputs false.
+     */
+    LOW_CONSTANT,
+
+    /**
+     * An output that is lit when at least one input is true.
+     */
+    LIGHTBULB,
+
+    /**
+     * An output that displays the number of true inputs.
+     */
+    FOUR_BIT_DIGIT,
+
+    /**
+     * Outputs one output of a sub-circuit instance, computed by the shared
+     * netlist of its definition from the instance's inputs.
+     *
+     * @see SubCircuitInstance
+     */
+    SUBCIRCUIT,
+
+    /**
+     * Outputs a bus word holding every output of a sub-circuit instance, output
+     * pin {@code k} in bit {@code k}, so a module with several outputs is
+     * evaluated once for all of them.
+     *
+     * @see SubCircuitInstance#ALL_OUTPUTS
+     */
+    SUBCIRCUIT_BUS,
+
+    /**
+     * Outputs a bus word built from its inputs: input pin {@code i} supplies the
+     * bits {@code i * w .. (i + 1) * w} of the word, where {@code w} is the width
+     * of the gate.
+     */
+    BUS_MERGE,
+
+    /**
+     * Outputs the bits {@code offset .. offset + width} of the bus word on its
+     * first input, shifted down to bit 0.
+     */
+    BUS_SPLIT,
+
+    /**
+     * Outputs the bitwise AND of the bus words on its inputs.
+     */
+    BUS_AND,
+
+    /**
+     * Outputs the bitwise OR of the bus words on its inputs.
+     */
+    BUS_OR,
+
+    /**
+     * Outputs the bitwise XOR of the bus words on its inputs.
+     */
+    BUS_XOR,
+
+    /**
+     * A D flip-flop that stores its D input (pin 0) on the rising edge of its
+     * clock input (pin 1).
+     */
+    EDGE_D_FLIPFLOP,
+
+    /**
+     * A JK flip-flop that, on the rising edge of its clock input (pin 1), sets on
+     * J (pin 0), resets on K (pin 2) and toggles when both are true.
+     */
+    EDGE_JK_FLIPFLOP,
+
+    /**
+     * A T flip-flop that toggles on the rising edge of its clock input (pin 1)
+     * while its T input (pin 0) is true.
+     */
+    SYNC_T_FLIPFLOP,
+
+    /**
+     * A D latch that follows its D input (pin 0) while its enable input (pin 1)
+     * is true, and holds its value otherwise.
+     */
+    LEVEL_D_FLIPFLOP,
+
+    /**
+     * An RS latch that, while its enable input (pin 1) is true, sets on S (pin 0)
+     * and resets on R (pin 2). Setting takes precedence.
+     */
+    SYNC_RS_FLIPFLOP,
+
+    /**
+     * An RS latch with active-low inputs that sets while S (pin 0) is false and
+     * resets while R (pin 1) is false. Unconnected inputs read as true, and
+     * setting takes precedence.
+     */
+    ASYNC_RS_FLIPFLOP;
+
+    /**
+     * Checks if gates of this type take their value from outside the netlist.
+     *
+     * @return true for switches and clocks, false otherwise
+     */
+    public boolean isExternal() {
+        return this == SWITCH || this == CLOCK;
+    }
+
+    /**
+     * Checks if gates of this type need to be notified when any of their inputs
+     * change, even if their own output value stays the same.
+     *
+     * @return true for components whose display depends on individual inputs
+     */
+    public boolean tracksInputs() {
+        return this == FOUR_BIT_DIGIT;
+    }
+
+    /**
+     * Checks if gates of this type output a bus word of up to 64 bits instead of
+     * a single bit. The boolean value of a bus gate is true when any bit of its
+     * word is set.
+     *
+     * @return true for bus gates, false otherwise
+     */
+    public boolean isBus() {
+        return this == BUS_MERGE || this == BUS_SPLIT || this == BUS_AND || this == BUS_OR || this == BUS_XOR
+                || this == SUBCIRCUIT_BUS;
+    }
+
+    /**
+     * Checks if gates of this type tell their inputs apart by the pin they are
+     * connected to rather than by their position among the connected inputs.
+     *
+     * @return true for sub-circuits, bus mergers and flip-flops, false otherwise
+     */
+    public boolean usesPins() {
+        return this == SUBCIRCUIT || this == SUBCIRCUIT_BUS || this == BUS_MERGE || isSequential();
+    }
+
+    /**
+     * Checks if gates of this type store a value, so that their output depends
+     * on their previous output as well as on their inputs.
+     *
+     * @return true for flip-flops and latches, false otherwise
+     */
+    public boolean isSequential() {
+        return isEdgeTriggered() || this == LEVEL_D_FLIPFLOP || this == SYNC_RS_FLIPFLOP
+                || this == ASYNC_RS_FLIPFLOP;
+    }
+
+    /**
+     * Checks if gates of this type only change their output on the rising edge
+     * of their clock input. Their output never depends directly on their inputs,
+     * so connections into them do not count as dependencies when the netlist is
+     * levelized.
+     *
+     * @return true for edge-triggered flip-flops, false otherwise
+     */
+    public boolean isEdgeTriggered() {
+        return this == EDGE_D_FLIPFLOP || this == EDGE_JK_FLIPFLOP || this == SYNC_T_FLIPFLOP;
+    }
+}
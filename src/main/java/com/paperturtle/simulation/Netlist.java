@@ -0,0 +1,607 @@
+package com.paperturtle.simulation;
+
+/**
+ * An immutable, compiled representation of a circuit. Gates are addressed by
+ * dense int indices and their connections are stored in compressed arrays, so
+ * the netlist can be shared between threads and evaluated without touching any
+ * JavaFX node.
+ *
+ * <p>
+ * The gates are levelized: {@link #getOrder()} lists every gate such that each
+ * gate appears after all of its inputs. Gates that are part of (or fed by) a
+ * feedback loop cannot be ordered this way and are placed at the end of the
+ * order, starting at {@link #getAcyclicCount()}. Edge-triggered flip-flops
+ * only change at clock edges, so they are levelized as sources, and a feedback
+ * loop through a flip-flop does not count as a loop.
+ * </p>
+ *
+ * @see NetlistBuilder
+ * @see SimulationEngine
+ *
+ * @author Seweryn Czabanowski
+ */
+public final class Netlist {
+    /**
+     * The input pin of the clock of every edge-triggered flip-flop.
+     */
+    public static final int CLOCK_PIN = 1;
+
+    /**
+     * The type of each gate.
+     */
+    final GateType[] types;
+
+    /**
+     * The offset of each gate's inputs in {@link #fanIn}; the inputs of gate
+     * {@code i} are {@code fanIn[fanInStart[i] .. fanInStart[i + 1])}.
+     */
+    final int[] fanInStart;
+
+    /**
+     * The source gate of every input connection, grouped by target gate in input
+     * order.
+     */
+    final int[] fanIn;
+
+    /**
+     * The input pin of every input connection, parallel to {@link #fanIn}.
+     */
+    final int[] fanInPins;
+
+    /**
+     * The offset of each gate's outputs in {@link #fanOut}; the outputs of gate
+     * {@code i} are {@code fanOut[fanOutStart[i] .. fanOutStart[i + 1])}.
+     */
+    final int[] fanOutStart;
+
+    /**
+     * The target gate of every output connection, grouped by source gate.
+     */
+    final int[] fanOut;
+
+    /**
+     * The gates in evaluation order.
+     */
+    final int[] order;
+
+    /**
+     * The level of each gate; sources are on level 0 and every other gate is one
+     * level above its deepest input. Gates in feedback loops have level -1.
+     */
+    final int[] levels;
+
+    /**
+     * The number of gates at the start of {@link #order} that are not part of a
+     * feedback loop.
+     */
+    final int acyclicCount;
+
+    /**
+     * The highest level of any gate.
+     */
+    final int maxLevel;
+
+    /**
+     * The sub-circuit instance of each {@link GateType#SUBCIRCUIT} and
+     * {@link GateType#SUBCIRCUIT_BUS} gate, or null for all other gates.
+     */
+    final SubCircuitInstance[] subCircuits;
+
+    /**
+     * The bit offset of each bus gate; 0 for all other gates.
+     */
+    final int[] offsets;
+
+    /**
+     * The bit width of each bus gate; 1 for all other gates.
+     */
+    final int[] widths;
+
+    /**
+     * Constructs a Netlist from already compiled arrays. Use
+     * {@link NetlistBuilder} to create instances.
+     */
+    Netlist(GateType[] types, int[] fanInStart, int[] fanIn, int[] fanInPins, int[] fanOutStart, int[] fanOut,
+            int[] order, int[] levels, int acyclicCount, int maxLevel, SubCircuitInstance[] subCircuits,
+            int[] offsets, int[] widths) {
+        this.types = types;
+        this.fanInStart = fanInStart;
+        this.fanIn = fanIn;
+        this.fanInPins = fanInPins;
+        this.fanOutStart = fanOutStart;
+        this.fanOut = fanOut;
+        this.order = order;
+        this.levels = levels;
+        this.acyclicCount = acyclicCount;
+        this.maxLevel = maxLevel;
+        this.subCircuits = subCircuits;
+        this.offsets = offsets;
+        this.widths = widths;
+    }
+
+    /**
+     * Computes the output of a gate from the current values of its inputs.
+     * External inputs keep whatever value is stored for them.
+     *
+     * @param gate   the index of the gate to evaluate
+     * @param values the current value of every gate
+     * @return the new output of the gate
+     */
+    public boolean evaluate(int gate, boolean[] values) {
+        int from = fanInStart[gate];
+        int to = fanInStart[gate + 1];
+        int count = to - from;
+
+        switch (types[gate]) {
+            case AND:
+                return count == 2 && values[fanIn[from]] && values[fanIn[from + 1]];
+            case OR:
+            case LIGHTBULB:
+            case FOUR_BIT_DIGIT:
+                for (int i = from; i < to; i++) {
+                    if (values[fanIn[i]]) {
+                        return true;
+                    }
+                }
+                return false;
+            case NOT:
+                return count > 0 && !values[fanIn[from]];
+            case BUFFER:
+                return count > 0 && values[fanIn[from]];
+            case NAND:
+                for (int i = from; i < to; i++) {
+                    if (!values[fanIn[i]]) {
+                        return true;
+                    }
+                }
+                return count == 0;
+            case NOR:
+                for (int i = from; i < to; i++) {
+                    if (values[fanIn[i]]) {
+                        return false;
+                    }
+                }
+                return true;
+            case XOR:
+                return parity(from, to, values);
+            case XNOR:
+                return !parity(from, to, values);
+            case TRISTATE:
+                return count >= 2 && values[fanIn[from + 1]] && values[fanIn[from]];
+            case HIGH_CONSTANT:
+                return true;
+            case LOW_CONSTANT:
+                return false;
+            case SUBCIRCUIT:
+                return subCircuits[gate].evaluate(values, fanIn, fanInPins, from, to);
+            case LEVEL_D_FLIPFLOP:
+                return getInput(from, to, 1, values, false) ? getInput(from, to, 0, values, false) : values[gate];
+            case SYNC_RS_FLIPFLOP:
+                if (!getInput(from, to, 1, values, false)) {
+                    return values[gate];
+                }
+                return getInput(from, to, 0, values, false) || !getInput(from, to, 2, values, false) && values[gate];
+            case ASYNC_RS_FLIPFLOP:
+                return !getInput(from, to, 0, values, true) || getInput(from, to, 1, values, true) && values[gate];
+            default:
+                return values[gate];
+        }
+    }
+
+    /**
+     * Computes the output of a gate for 64 independent input combinations at
+     * once. Each bit of a word holds the value of a gate in one combination, so
+     * every gate is evaluated with a few word-wide bitwise operations. External
+     * inputs keep whatever word is stored for them.
+     *
+     * @param gate  the index of the gate to evaluate
+     * @param words the current value word of every gate
+     * @return the new output word of the gate
+     */
+    public long evaluate(int gate, long[] words) {
+        int from = fanInStart[gate];
+        int to = fanInStart[gate + 1];
+        int count = to - from;
+        long word;
+
+        switch (types[gate]) {
+            case AND:
+                return count == 2 ? words[fanIn[from]] & words[fanIn[from + 1]] : 0L;
+            case OR:
+            case LIGHTBULB:
+            case FOUR_BIT_DIGIT:
+                word = 0L;
+                for (int i = from; i < to; i++) {
+                    word |= words[fanIn[i]];
+                }
+                return word;
+            case NOT:
+                return count > 0 ? ~words[fanIn[from]] : 0L;
+            case BUFFER:
+                return count > 0 ? words[fanIn[from]] : 0L;
+            case NAND:
+                word = -1L;
+                for (int i = from; i < to; i++) {
+                    word &= words[fanIn[i]];
+                }
+                return count == 0 ? -1L : ~word;
+            case NOR:
+                word = 0L;
+                for (int i = from; i < to; i++) {
+                    word |= words[fanIn[i]];
+                }
+                return ~word;
+            case XOR:
+            case XNOR:
+                word = 0L;
+                for (int i = from; i < to; i++) {
+                    word ^= words[fanIn[i]];
+                }
+                return types[gate] == GateType.XOR ? word : ~word;
+            case TRISTATE:
+                return count >= 2 ? words[fanIn[from + 1]] & words[fanIn[from]] : 0L;
+            case HIGH_CONSTANT:
+                return -1L;
+            case LOW_CONSTANT:
+                return 0L;
+            case SUBCIRCUIT:
+                return subCircuits[gate].evaluate(words, fanIn, fanInPins, from, to);
+            case LEVEL_D_FLIPFLOP:
+                word = getInput(from, to, 1, words, 0L);
+                return word & getInput(from, to, 0, words, 0L) | ~word & words[gate];
+            case SYNC_RS_FLIPFLOP:
+                word = getInput(from, to, 1, words, 0L);
+                return word & (getInput(from, to, 0, words, 0L) | ~getInput(from, to, 2, words, 0L) & words[gate])
+                        | ~word & words[gate];
+            case ASYNC_RS_FLIPFLOP:
+                return ~getInput(from, to, 0, words, -1L) | getInput(from, to, 1, words, -1L) & words[gate];
+            case BUS_MERGE:
+            case BUS_SPLIT:
+            case BUS_AND:
+            case BUS_OR:
+            case BUS_XOR:
+            case SUBCIRCUIT_BUS:
+                throw new UnsupportedOperationException("Bus gates cannot be evaluated bit-parallel");
+            default:
+                return words[gate];
+        }
+    }
+
+    /**
+     * Computes the value an edge-triggered flip-flop stores on the rising edge of
+     * its clock, from the current values of its inputs and its current output.
+     *
+     * @param gate   the index of the flip-flop
+     * @param values the current value of every gate
+     * @return the next output of the flip-flop, or its current output if the
+     *         gate is not an edge-triggered flip-flop
+     */
+    public boolean sample(int gate, boolean[] values) {
+        int from = fanInStart[gate];
+        int to = fanInStart[gate + 1];
+
+        switch (types[gate]) {
+            case EDGE_D_FLIPFLOP:
+                return getInput(from, to, 0, values, false);
+            case EDGE_JK_FLIPFLOP:
+                boolean j = getInput(from, to, 0, values, false);
+                boolean k = getInput(from, to, 2, values, false);
+                return j && k ? !values[gate] : j || !k && values[gate];
+            case SYNC_T_FLIPFLOP:
+                return getInput(from, to, 0, values, false) != values[gate];
+            default:
+                return values[gate];
+        }
+    }
+
+    /**
+     * Returns the current value of the clock input of an edge-triggered
+     * flip-flop.
+     *
+     * @param gate   the index of the flip-flop
+     * @param values the current value of every gate
+     * @return the value of the clock input, or false if it is unconnected
+     */
+    public boolean getClock(int gate, boolean[] values) {
+        return getInput(fanInStart[gate], fanInStart[gate + 1], CLOCK_PIN, values, false);
+    }
+
+    /**
+     * Returns the value of the input connected to a pin, for gates that tell
+     * their inputs apart by pin.
+     *
+     * @param from        the first input offset of the gate (inclusive)
+     * @param to          the last input offset of the gate (exclusive)
+     * @param pin         the input pin
+     * @param values      the current value of every gate
+     * @param unconnected the value of an unconnected pin
+     * @return the value of the input
+     */
+    private boolean getInput(int from, int to, int pin, boolean[] values, boolean unconnected) {
+        for (int i = from; i < to; i++) {
+            if (fanInPins[i] == pin) {
+                return values[fanIn[i]];
+            }
+        }
+        return unconnected;
+    }
+
+    /**
+     * Returns the word of the input connected to a pin, for gates that tell their
+     * inputs apart by pin.
+     *
+     * @param from        the first input offset of the gate (inclusive)
+     * @param to          the last input offset of the gate (exclusive)
+     * @param pin         the input pin
+     * @param words       the current value word of every gate
+     * @param unconnected the word of an unconnected pin
+     * @return the word of the input
+     */
+    private long getInput(int from, int to, int pin, long[] words, long unconnected) {
+        for (int i = from; i < to; i++) {
+            if (fanInPins[i] == pin) {
+                return words[fanIn[i]];
+            }
+        }
+        return unconnected;
+    }
+
+    /**
+     * Computes the bus word of a bus gate from the current values of its inputs.
+     * Inputs driven by single-bit gates read as the word 1 or 0.
+     *
+     * @param gate   the index of the bus gate to evaluate
+     * @param values the current value of every gate
+     * @param words  the current bus word of every bus gate
+     * @return the new bus word of the gate
+     */
+    public long evaluateBus(int gate, boolean[] values, long[] words) {
+        int from = fanInStart[gate];
+        int to = fanInStart[gate + 1];
+        long word;
+
+        switch (types[gate]) {
+            case BUS_MERGE:
+                word = 0L;
+                for (int i = from; i < to; i++) {
+                    int shift = fanInPins[i] * widths[gate];
+                    if (shift < Long.SIZE) {
+                        word |= (getWord(fanIn[i], values, words) & mask(widths[gate])) << shift;
+                    }
+                }
+                return word;
+            case BUS_SPLIT:
+                return to > from ? getWord(fanIn[from], values, words) >>> offsets[gate] & mask(widths[gate]) : 0L;
+            case BUS_AND:
+                word = to > from ? -1L : 0L;
+                for (int i = from; i < to; i++) {
+                    word &= getWord(fanIn[i], values, words);
+                }
+                return word;
+            case BUS_OR:
+            case BUS_XOR:
+                word = 0L;
+                for (int i = from; i < to; i++) {
+                    word = types[gate] == GateType.BUS_OR ? word | getWord(fanIn[i], values, words)
+                            : word ^ getWord(fanIn[i], values, words);
+                }
+                return word;
+            case SUBCIRCUIT_BUS:
+                return subCircuits[gate].evaluateWord(values, fanIn, fanInPins, from, to);
+            default:
+                return evaluate(gate, values) ? 1L : 0L;
+        }
+    }
+
+    /**
+     * Returns the bus word of a gate: the stored word of a bus gate, or 1 or 0
+     * for a single-bit gate.
+     *
+     * @param gate   the index of the gate
+     * @param values the current value of every gate
+     * @param words  the current bus word of every bus gate
+     * @return the word of the gate
+     */
+    private long getWord(int gate, boolean[] values, long[] words) {
+        if (types[gate].isBus()) {
+            return words[gate];
+        }
+        return values[gate] ? 1L : 0L;
+    }
+
+    /**
+     * Returns a word with the lowest bits set.
+     *
+     * @param width the number of bits to set, from 1 to 64
+     * @return the mask
+     */
+    private static long mask(int width) {
+        return width >= Long.SIZE ? -1L : (1L << width) - 1;
+    }
+
+    /**
+     * Computes the parity of the inputs in the given range of {@link #fanIn}.
+     *
+     * @param from   the first input offset (inclusive)
+     * @param to     the last input offset (exclusive)
+     * @param values the current value of every gate
+     * @return true if an odd number of inputs are true
+     */
+    private boolean parity(int from, int to, boolean[] values) {
+        boolean odd = false;
+        for (int i = from; i < to; i++) {
+            odd ^= values[fanIn[i]];
+        }
+        return odd;
+    }
+
+    /**
+     * Returns the number of gates in the netlist.
+     *
+     * @return the number of gates
+     */
+    public int size() {
+        return types.length;
+    }
+
+    /**
+     * Returns the type of the specified gate.
+     *
+     * @param gate the index of the gate
+     * @return the type of the gate
+     */
+    public GateType getType(int gate) {
+        return types[gate];
+    }
+
+    /**
+     * Returns the sub-circuit instance of the specified gate.
+     *
+     * @param gate the index of the gate
+     * @return the instance, or null if the gate is not a sub-circuit
+     */
+    public SubCircuitInstance getSubCircuit(int gate) {
+        return subCircuits[gate];
+    }
+
+    /**
+     * Returns the number of inputs connected to the specified gate.
+     *
+     * @param gate the index of the gate
+     * @return the number of inputs
+     */
+    public int getInputCount(int gate) {
+        return fanInStart[gate + 1] - fanInStart[gate];
+    }
+
+    /**
+     * Returns the source gate of the specified input.
+     *
+     * @param gate  the index of the gate
+     * @param input the position of the input, in connection order
+     * @return the index of the gate driving that input
+     */
+    public int getInput(int gate, int input) {
+        return fanIn[fanInStart[gate] + input];
+    }
+
+    /**
+     * Returns the pin the specified input is connected to.
+     *
+     * @param gate  the index of the gate
+     * @param input the position of the input, in connection order
+     * @return the input pin of the gate
+     */
+    public int getInputPin(int gate, int input) {
+        return fanInPins[fanInStart[gate] + input];
+    }
+
+    /**
+     * Returns the bit offset of the specified bus gate.
+     *
+     * @param gate the index of the gate
+     * @return the bit offset, or 0 for gates that are not bus gates
+     */
+    public int getOffset(int gate) {
+        return offsets[gate];
+    }
+
+    /**
+     * Returns the bit width of the specified bus gate.
+     *
+     * @param gate the index of the gate
+     * @return the bit width, or 1 for gates that are not bus gates
+     */
+    public int getWidth(int gate) {
+        return widths[gate];
+    }
+
+    /**
+     * Returns the number of gates driven by the specified gate.
+     *
+     * @param gate the index of the gate
+     * @return the number of outputs
+     */
+    public int getOutputCount(int gate) {
+        return fanOutStart[gate + 1] - fanOutStart[gate];
+    }
+
+    /**
+     * Returns a gate driven by the specified gate.
+     *
+     * @param gate   the index of the gate
+     * @param output the position of the output
+     * @return the index of the driven gate
+     */
+    public int getOutput(int gate, int output) {
+        return fanOut[fanOutStart[gate] + output];
+    }
+
+    /**
+     * Returns the fan-in cone of the specified gates: the gates themselves and
+     * every gate that drives one of them, directly or through other gates.
+     *
+     * @param gates the indices of the gates; negative indices are ignored
+     * @return a flag per gate marking whether it is part of the cone
+     */
+    public boolean[] getFanInCone(int[] gates) {
+        boolean[] cone = new boolean[types.length];
+        int[] pending = new int[types.length];
+        int pendingCount = 0;
+        for (int gate : gates) {
+            if (gate >= 0 && !cone[gate]) {
+                cone[gate] = true;
+                pending[pendingCount++] = gate;
+            }
+        }
+        while (pendingCount > 0) {
+            int gate = pending[--pendingCount];
+            for (int i = fanInStart[gate]; i < fanInStart[gate + 1]; i++) {
+                if (!cone[fanIn[i]]) {
+                    cone[fanIn[i]] = true;
+                    pending[pendingCount++] = fanIn[i];
+                }
+            }
+        }
+        return cone;
+    }
+
+    /**
+     * Returns the gates in evaluation order. The returned array must not be
+     * modified.
+     *
+     * @return the evaluation order
+     */
+    public int[] getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns the level of the specified gate.
+     *
+     * @param gate the index of the gate
+     * @return the level, or -1 if the gate is part of a feedback loop
+     */
+    public int getLevel(int gate) {
+        return levels[gate];
+    }
+
+    /**
+     * Returns the number of gates at the start of the evaluation order that are
+     * not part of a feedback loop.
+     *
+     * @return the number of acyclic gates
+     */
+    public int getAcyclicCount() {
+        return acyclicCount;
+    }
+
+    /**
+     * Returns the highest level of any gate.
+     *
+     * @return the maximum level
+     */
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+}
@@ -0,0 +1,238 @@
+package com.paperturtle.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a {@link Netlist} gate by gate. Gates receive consecutive indices in
+ * the order they are added, and the inputs of each gate keep the order in which
+ * they were connected.
+ *
+ * @see Netlist
+ *
+ * @author Seweryn Czabanowski
+ */
+public class NetlistBuilder {
+    /**
+     * The type of each gate added so far.
+     */
+    private final List<GateType> types = new ArrayList<>();
+
+    /**
+     * The source gate of each connection added so far.
+     */
+    private int[] edgeSources = new int[16];
+
+    /**
+     * The target gate of each connection added so far.
+     */
+    private int[] edgeTargets = new int[16];
+
+    /**
+     * The target pin of each connection added so far, or -1 if the connection
+     * uses the next free pin.
+     */
+    private int[] edgePins = new int[16];
+
+    /**
+     * The number of connections added so far.
+     */
+    private int edgeCount = 0;
+
+    /**
+     * The sub-circuit instance of each sub-circuit gate added so far, by index.
+     */
+    private final Map<Integer, SubCircuitInstance> subCircuits = new HashMap<>();
+
+    /**
+     * The bit offset of each bus gate added so far, by index.
+     */
+    private final Map<Integer, Integer> offsets = new HashMap<>();
+
+    /**
+     * The bit width of each bus gate added so far, by index.
+     */
+    private final Map<Integer, Integer> widths = new HashMap<>();
+
+    /**
+     * Adds a gate to the netlist.
+     *
+     * @param type the type of the gate
+     * @return the index of the new gate
+     */
+    public int addGate(GateType type) {
+        types.add(type);
+        return types.size() - 1;
+    }
+
+    /**
+     * Adds a {@link GateType#SUBCIRCUIT} gate evaluated by the specified
+     * instance, or a {@link GateType#SUBCIRCUIT_BUS} gate if the instance drives
+     * {@link SubCircuitInstance#ALL_OUTPUTS all outputs}. Instances of the same
+     * definition share its netlist. The netlist evaluates its own copy of the
+     * instance, so the instance passed in is never touched by an engine.
+     *
+     * @param instance the sub-circuit instance
+     * @return the index of the new gate
+     */
+    public int addSubCircuit(SubCircuitInstance instance) {
+        int gate = addGate(instance.getOutput() == SubCircuitInstance.ALL_OUTPUTS ? GateType.SUBCIRCUIT_BUS
+                : GateType.SUBCIRCUIT);
+        subCircuits.put(gate, instance.copy());
+        return gate;
+    }
+
+    /**
+     * Adds a bus gate. The meaning of the offset and width depends on the type:
+     * a {@link GateType#BUS_SPLIT} outputs {@code width} bits starting at bit
+     * {@code offset} of its input, and a {@link GateType#BUS_MERGE} takes
+     * {@code width} bits from each input pin.
+     *
+     * @param type   the type of the gate
+     * @param offset the bit offset
+     * @param width  the bit width, from 1 to 64
+     * @return the index of the new gate
+     * @throws IllegalArgumentException if the type is not a bus type or the bit
+     *                                  range does not fit in a word
+     */
+    public int addBusGate(GateType type, int offset, int width) {
+        if (!type.isBus() || offset < 0 || width < 1 || offset + width > Long.SIZE) {
+            throw new IllegalArgumentException("Invalid bus gate: " + type + " " + offset + ":" + width);
+        }
+        int gate = addGate(type);
+        offsets.put(gate, offset);
+        widths.put(gate, width);
+        return gate;
+    }
+
+    /**
+     * Connects the output of one gate to the next free input of another.
+     *
+     * @param source the index of the driving gate
+     * @param target the index of the driven gate
+     * @throws IllegalArgumentException if either index is unknown
+     */
+    public void connect(int source, int target) {
+        connect(source, target, -1);
+    }
+
+    /**
+     * Connects the output of one gate to an input pin of another. The inputs of
+     * a gate still keep the order in which they were connected; the pin is only
+     * used by gates that tell their inputs apart by pin.
+     *
+     * @param source the index of the driving gate
+     * @param target the index of the driven gate
+     * @param pin    the input pin of the driven gate, or -1 for the next free
+     *               pin
+     * @throws IllegalArgumentException if either index is unknown
+     * @see GateType#usesPins()
+     */
+    public void connect(int source, int target, int pin) {
+        if (source < 0 || source >= types.size() || target < 0 || target >= types.size()) {
+            throw new IllegalArgumentException("Unknown gate index: " + source + " -> " + target);
+        }
+        if (edgeCount == edgeSources.length) {
+            edgeSources = Arrays.copyOf(edgeSources, edgeCount * 2);
+            edgeTargets = Arrays.copyOf(edgeTargets, edgeCount * 2);
+            edgePins = Arrays.copyOf(edgePins, edgeCount * 2);
+        }
+        edgeSources[edgeCount] = source;
+        edgeTargets[edgeCount] = target;
+        edgePins[edgeCount] = pin;
+        edgeCount++;
+    }
+
+    /**
+     * Returns the number of gates added so far.
+     *
+     * @return the number of gates
+     */
+    public int size() {
+        return types.size();
+    }
+
+    /**
+     * Compiles the gates and connections added so far into a levelized netlist.
+     * Edge-triggered flip-flops are placed on level 0, as their output does not
+     * depend directly on their inputs.
+     *
+     * @return the compiled netlist
+     */
+    public Netlist build() {
+        int size = types.size();
+        int[] fanInStart = new int[size + 1];
+        int[] fanOutStart = new int[size + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            fanInStart[edgeTargets[e] + 1]++;
+            fanOutStart[edgeSources[e] + 1]++;
+        }
+        for (int i = 0; i < size; i++) {
+            fanInStart[i + 1] += fanInStart[i];
+            fanOutStart[i + 1] += fanOutStart[i];
+        }
+
+        int[] fanIn = new int[edgeCount];
+        int[] fanInPins = new int[edgeCount];
+        int[] fanOut = new int[edgeCount];
+        int[] inCursor = Arrays.copyOf(fanInStart, size);
+        int[] outCursor = Arrays.copyOf(fanOutStart, size);
+        for (int e = 0; e < edgeCount; e++) {
+            int target = edgeTargets[e];
+            int position = inCursor[target] - fanInStart[target];
+            fanInPins[inCursor[target]] = edgePins[e] >= 0 ? edgePins[e] : position;
+            fanIn[inCursor[target]++] = edgeSources[e];
+            fanOut[outCursor[edgeSources[e]]++] = target;
+        }
+
+        GateType[] gateTypes = types.toArray(new GateType[0]);
+        int[] levels = new int[size];
+        int[] order = new int[size];
+        int[] pending = new int[size];
+        int ordered = 0;
+        for (int i = 0; i < size; i++) {
+            pending[i] = gateTypes[i].isEdgeTriggered() ? 0 : fanInStart[i + 1] - fanInStart[i];
+            if (pending[i] == 0) {
+                order[ordered++] = i;
+            }
+        }
+
+        int maxLevel = 0;
+        for (int head = 0; head < ordered; head++) {
+            int gate = order[head];
+            for (int o = fanOutStart[gate]; o < fanOutStart[gate + 1]; o++) {
+                int target = fanOut[o];
+                if (gateTypes[target].isEdgeTriggered()) {
+                    continue;
+                }
+                levels[target] = Math.max(levels[target], levels[gate] + 1);
+                maxLevel = Math.max(maxLevel, levels[target]);
+                if (--pending[target] == 0) {
+                    order[ordered++] = target;
+                }
+            }
+        }
+
+        int acyclicCount = ordered;
+        for (int i = 0; i < size; i++) {
+            if (pending[i] > 0) {
+                levels[i] = -1;
+                order[ordered++] = i;
+            }
+        }
+
+        SubCircuitInstance[] instances = new SubCircuitInstance[size];
+        subCircuits.forEach((gate, instance) -> instances[gate] = instance);
+        int[] bitOffsets = new int[size];
+        int[] bitWidths = new int[size];
+        Arrays.fill(bitWidths, 1);
+        offsets.forEach((gate, offset) -> bitOffsets[gate] = offset);
+        widths.forEach((gate, width) -> bitWidths[gate] = width);
+
+        return new Netlist(gateTypes, fanInStart, fanIn, fanInPins, fanOutStart, fanOut,
+                order, levels, acyclicCount, maxLevel, instances, bitOffsets, bitWidths);
+    }
+}
@@ -0,0 +1,151 @@
+package com.paperturtle.simulation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A truth table whose rows are computed on demand. Rows are generated in pages
+ * of consecutive rows, and only a bounded number of the most recently used
+ * pages are kept, so the memory used does not depend on the number of inputs.
+ *
+ * <p>
+ * Input values are derived directly from the row index and never stored. This
+ * class is thread-safe.
+ * </p>
+ *
+ * @see TruthTableGenerator
+ *
+ * @author Seweryn Czabanowski
+ */
+public class PagedTruthTable {
+    /**
+     * The default number of rows per page.
+     */
+    public static final int DEFAULT_PAGE_ROWS = 4096;
+
+    /**
+     * The default number of pages kept in memory.
+     */
+    public static final int DEFAULT_MAX_PAGES = 32;
+
+    /**
+     * The generator computing the pages.
+     */
+    private final TruthTableGenerator generator;
+
+    /**
+     * The number of rows per page.
+     */
+    private final int pageRows;
+
+    /**
+     * The pages kept in memory, in least recently used order.
+     */
+    private final Map<Long, TruthTable> pages;
+
+    /**
+     * Constructs a PagedTruthTable with the default page size and number of
+     * pages.
+     *
+     * @param generator the generator computing the pages
+     */
+    public PagedTruthTable(TruthTableGenerator generator) {
+        this(generator, DEFAULT_PAGE_ROWS, DEFAULT_MAX_PAGES);
+    }
+
+    /**
+     * Constructs a PagedTruthTable with the specified page size and number of
+     * pages.
+     *
+     * @param generator the generator computing the pages
+     * @param pageRows  the number of rows per page; must be a positive multiple of
+     *                  {@link BitParallelEvaluator#LANES}
+     * @param maxPages  the number of pages kept in memory
+     * @throws IllegalArgumentException if the page size or number of pages is
+     *                                  invalid
+     */
+    public PagedTruthTable(TruthTableGenerator generator, int pageRows, int maxPages) {
+        if (pageRows <= 0 || pageRows % BitParallelEvaluator.LANES != 0 || maxPages <= 0) {
+            throw new IllegalArgumentException("Invalid page size " + pageRows + " or page count " + maxPages);
+        }
+        this.generator = generator;
+        this.pageRows = pageRows;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, TruthTable> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    /**
+     * Returns the number of rows of the table.
+     *
+     * @return the number of rows
+     */
+    public long getRowCount() {
+        return generator.getRowCount();
+    }
+
+    /**
+     * Returns the number of inputs of the table.
+     *
+     * @return the number of inputs
+     */
+    public int getInputCount() {
+        return generator.getInputCount();
+    }
+
+    /**
+     * Returns the number of outputs of the table.
+     *
+     * @return the number of outputs
+     */
+    public int getOutputCount() {
+        return generator.getOutputCount();
+    }
+
+    /**
+     * Returns the value of an input in the specified row.
+     *
+     * @param row   the index of the row
+     * @param input the index of the input
+     * @return the value of the input
+     */
+    public boolean getInput(long row, int input) {
+        return (row >>> input & 1L) != 0;
+    }
+
+    /**
+     * Returns the value of an output in the specified row, generating the page
+     * containing the row if it is not in memory.
+     *
+     * @param row    the index of the row
+     * @param output the index of the output
+     * @return the value of the output
+     */
+    public synchronized int getOutput(long row, int output) {
+        TruthTable page = pages.computeIfAbsent(row / pageRows, this::generatePage);
+        return page.getOutput((int) (row - page.getFirstRow()), output);
+    }
+
+    /**
+     * Returns the generator computing the pages.
+     *
+     * @return the generator
+     */
+    public TruthTableGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     * Generates the specified page.
+     *
+     * @param page the index of the page
+     * @return the rows of the page
+     */
+    private TruthTable generatePage(long page) {
+        long firstRow = page * pageRows;
+        return generator.generate(firstRow, (int) Math.min(pageRows, getRowCount() - firstRow));
+    }
+}
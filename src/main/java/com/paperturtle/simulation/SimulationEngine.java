@@ -0,0 +1,439 @@
+package com.paperturtle.simulation;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Evaluates a {@link Netlist} using primitive state arrays. Each call to
+ * {@link #settle()} evaluates every acyclic gate exactly once in levelized
+ * order, and iterates gates in feedback loops until they reach a stable value.
+ *
+ * <p>
+ * Changes to external inputs are handled incrementally by
+ * {@link #propagate()}: only the gates driven by a gate whose value actually
+ * changed are scheduled, through an {@link EventScheduler}, so the work done is
+ * proportional to the part of the circuit that changes.
+ * </p>
+ *
+ * <p>
+ * Bus gates additionally hold a word of up to 64 bits, and their value is true
+ * when any bit of the word is set. A bus gate counts as changed whenever its
+ * word changes, even if its value stays the same.
+ * </p>
+ *
+ * <p>
+ * Edge-triggered flip-flops are updated in two phases. While changes propagate,
+ * every flip-flop whose clock rises only samples the value it will store; once
+ * no more gates are pending, all sampled values are committed at once and the
+ * gates they drive are scheduled. No flip-flop therefore sees the new output of
+ * another flip-flop clocked by the same edge, so registered designs behave the
+ * same regardless of the order in which gates are evaluated.
+ * </p>
+ *
+ * <p>
+ * The engine remembers which gates changed value until the changes are drained,
+ * so that views can update only the components that actually changed.
+ * </p>
+ *
+ * @see Netlist
+ *
+ * @author Seweryn Czabanowski
+ */
+public class SimulationEngine {
+    /**
+     * The netlist being simulated.
+     */
+    private final Netlist netlist;
+
+    /**
+     * The current output value of every gate.
+     */
+    private final boolean[] values;
+
+    /**
+     * The current bus word of every bus gate.
+     */
+    private final long[] words;
+
+    /**
+     * The pending gate evaluations.
+     */
+    private final EventScheduler scheduler;
+
+    /**
+     * A flag per gate marking whether it is already in {@link #changed}.
+     */
+    private final boolean[] changedFlags;
+
+    /**
+     * The gates whose value changed since the changes were last drained.
+     */
+    private final int[] changed;
+
+    /**
+     * The number of valid entries in {@link #changed}.
+     */
+    private int changedCount = 0;
+
+    /**
+     * The value of the clock input each edge-triggered flip-flop last saw.
+     */
+    private final boolean[] clocks;
+
+    /**
+     * The value each sampled flip-flop stores when the samples are committed.
+     */
+    private final boolean[] samples;
+
+    /**
+     * A flag per gate marking whether it is already in {@link #sampled}.
+     */
+    private final boolean[] sampledFlags;
+
+    /**
+     * The flip-flops whose clock rose since the samples were last committed.
+     */
+    private final int[] sampled;
+
+    /**
+     * The number of valid entries in {@link #sampled}.
+     */
+    private int sampledCount = 0;
+
+    /**
+     * Constructs a SimulationEngine for the specified netlist with all gates
+     * initially false.
+     *
+     * @param netlist the netlist to simulate
+     */
+    public SimulationEngine(Netlist netlist) {
+        this.netlist = netlist;
+        this.values = new boolean[netlist.size()];
+        this.words = new long[netlist.size()];
+        this.changedFlags = new boolean[netlist.size()];
+        this.changed = new int[netlist.size()];
+        this.clocks = new boolean[netlist.size()];
+        this.samples = new boolean[netlist.size()];
+        this.sampledFlags = new boolean[netlist.size()];
+        this.sampled = new int[netlist.size()];
+        this.scheduler = new EventScheduler(netlist);
+    }
+
+    /**
+     * Sets the value of a gate without evaluating it or scheduling the gates it
+     * drives. This is used to seed the engine with the values the views currently
+     * show before a full {@link #settle()}. The gate is recorded as changed if its
+     * value differs from the previous one.
+     *
+     * @param gate  the index of the gate
+     * @param value the new value
+     */
+    public void setValue(int gate, boolean value) {
+        if (values[gate] != value) {
+            values[gate] = value;
+            markChanged(gate);
+        }
+    }
+
+    /**
+     * Takes over the state of the engine of a previous netlist of the same
+     * circuit: the value and bus word of every gate that is part of both
+     * netlists, and the state inside its sub-circuit instance. Gates are
+     * recorded as changed like with {@link #setValue(int, boolean)}. Call
+     * {@link #settle()} afterwards to evaluate the new netlist.
+     *
+     * @param previous the engine of the previous netlist, which must be settled
+     *                 and must not be simulated anymore
+     * @param sources  the index in the previous netlist of each gate, or -1 for
+     *                 gates whose state is not taken over
+     */
+    public void transferState(SimulationEngine previous, int[] sources) {
+        for (int gate = 0; gate < values.length; gate++) {
+            int source = sources[gate];
+            if (source < 0 || previous.netlist.types[source] != netlist.types[gate]) {
+                continue;
+            }
+            setValue(gate, previous.values[source]);
+            words[gate] = previous.words[source];
+            if (netlist.subCircuits[gate] != null) {
+                netlist.subCircuits[gate].copyStateFrom(previous.netlist.subCircuits[source]);
+            }
+        }
+    }
+
+    /**
+     * Sets the value of an external input, such as a switch or a clock, and
+     * schedules the gates it drives if the value changed. Call
+     * {@link #propagate()} to process the change.
+     *
+     * @param gate  the index of the gate
+     * @param value the new value
+     */
+    public void setInput(int gate, boolean value) {
+        if (values[gate] != value) {
+            values[gate] = value;
+            markChanged(gate);
+            scheduleFanOut(gate);
+        }
+    }
+
+    /**
+     * Schedules a gate to be re-evaluated by the next {@link #propagate()}.
+     *
+     * @param gate the index of the gate
+     */
+    public void schedule(int gate) {
+        scheduler.schedule(gate);
+    }
+
+    /**
+     * Returns the current value of a gate.
+     *
+     * @param gate the index of the gate
+     * @return the current value
+     */
+    public boolean getValue(int gate) {
+        return values[gate];
+    }
+
+    /**
+     * Returns the current bus word of a gate.
+     *
+     * @param gate the index of the gate
+     * @return the word of a bus gate, or 1 or 0 for a single-bit gate
+     */
+    public long getWord(int gate) {
+        if (netlist.types[gate].isBus()) {
+            return words[gate];
+        }
+        return values[gate] ? 1L : 0L;
+    }
+
+    /**
+     * Returns a copy of the current value of every gate.
+     *
+     * @return the current values, indexed by gate
+     */
+    public boolean[] getValues() {
+        return values.clone();
+    }
+
+    /**
+     * Copies the current value and bus word of every gate into the specified
+     * arrays.
+     *
+     * @param values the array receiving the values, indexed by gate
+     * @param words  the array receiving the bus words, indexed by gate
+     */
+    public void copyState(boolean[] values, long[] words) {
+        System.arraycopy(this.values, 0, values, 0, this.values.length);
+        System.arraycopy(this.words, 0, words, 0, this.words.length);
+    }
+
+    /**
+     * Evaluates the whole netlist once and records which gates changed.
+     * Flip-flops keep their value and take the current value of their clock as
+     * the level from which the next rising edge is detected.
+     *
+     * @return true if any gate changed value since the changes were last drained
+     */
+    public boolean settle() {
+        scheduler.clear();
+        sampledCount = 0;
+        int[] order = netlist.order;
+        int acyclicCount = netlist.acyclicCount;
+
+        for (int i = 0; i < acyclicCount; i++) {
+            update(order[i]);
+        }
+
+        int cyclicCount = order.length - acyclicCount;
+        boolean unstable = cyclicCount > 0;
+        for (int pass = 0; unstable && pass <= cyclicCount; pass++) {
+            unstable = false;
+            for (int i = acyclicCount; i < order.length; i++) {
+                unstable |= update(order[i]);
+            }
+        }
+
+        for (int gate = 0; gate < values.length; gate++) {
+            sampledFlags[gate] = false;
+            if (netlist.types[gate].isEdgeTriggered()) {
+                clocks[gate] = netlist.getClock(gate, values);
+            }
+        }
+        return changedCount > 0;
+    }
+
+    /**
+     * Processes all scheduled gate evaluations in timestep order. A gate whose
+     * value changes schedules the gates it drives; a gate whose value stays the
+     * same stops the propagation. Feedback loops that keep oscillating are
+     * stopped after a bounded number of timesteps.
+     *
+     * <p>
+     * Flip-flops whose clock rose are committed once no more gates are pending,
+     * and the changes they cause are propagated in turn, until the circuit is
+     * stable. Flip-flops clocked by other flip-flops, as in a ripple counter,
+     * therefore take one round each.
+     * </p>
+     *
+     * @return the number of gate evaluations performed
+     */
+    public int propagate() {
+        int limit = netlist.getMaxLevel() + 2 * netlist.size() + 2;
+        int evaluations = 0;
+        for (int round = 0; round <= values.length; round++) {
+            for (int gate = scheduler.next(); gate >= 0; gate = scheduler.next()) {
+                if (scheduler.getTime() > limit) {
+                    scheduler.clear();
+                    break;
+                }
+                evaluations++;
+                if (netlist.types[gate].isEdgeTriggered()) {
+                    sample(gate);
+                } else if (update(gate)) {
+                    scheduleFanOut(gate);
+                }
+            }
+            if (!commit()) {
+                break;
+            }
+        }
+        return evaluations;
+    }
+
+    /**
+     * Advances a clock input by one full cycle: the clock is raised and the
+     * change propagated, then lowered and the change propagated again. A clock
+     * that is already high only completes the falling half of the cycle.
+     *
+     * @param clock the index of the clock input
+     * @return the number of gate evaluations performed
+     */
+    public int step(int clock) {
+        setInput(clock, true);
+        int evaluations = propagate();
+        setInput(clock, false);
+        return evaluations + propagate();
+    }
+
+    /**
+     * Checks the clock of an edge-triggered flip-flop and, if it rose since the
+     * flip-flop last saw it, samples the value the flip-flop stores when the
+     * samples are committed.
+     *
+     * @param gate the index of the flip-flop
+     */
+    private void sample(int gate) {
+        boolean clock = netlist.getClock(gate, values);
+        if (clock && !clocks[gate]) {
+            samples[gate] = netlist.sample(gate, values);
+            if (!sampledFlags[gate]) {
+                sampledFlags[gate] = true;
+                sampled[sampledCount++] = gate;
+            }
+        }
+        clocks[gate] = clock;
+    }
+
+    /**
+     * Stores the sampled value of every flip-flop whose clock rose, and schedules
+     * the gates driven by every flip-flop whose value changed.
+     *
+     * @return true if any flip-flop was sampled
+     */
+    private boolean commit() {
+        if (sampledCount == 0) {
+            return false;
+        }
+        for (int i = 0; i < sampledCount; i++) {
+            int gate = sampled[i];
+            sampledFlags[gate] = false;
+            if (values[gate] != samples[gate]) {
+                values[gate] = samples[gate];
+                markChanged(gate);
+                scheduleFanOut(gate);
+            }
+        }
+        sampledCount = 0;
+        return true;
+    }
+
+    /**
+     * Schedules every gate driven by the specified gate.
+     *
+     * @param gate the index of the gate
+     */
+    private void scheduleFanOut(int gate) {
+        int[] fanOut = netlist.fanOut;
+        for (int o = netlist.fanOutStart[gate]; o < netlist.fanOutStart[gate + 1]; o++) {
+            scheduler.schedule(fanOut[o]);
+        }
+    }
+
+    /**
+     * Re-evaluates a single gate and records it if its value changed.
+     *
+     * @param gate the index of the gate
+     * @return true if the value changed
+     */
+    private boolean update(int gate) {
+        if (netlist.types[gate].isBus()) {
+            long word = netlist.evaluateBus(gate, values, words);
+            if (word == words[gate] && values[gate] == (word != 0)) {
+                return false;
+            }
+            words[gate] = word;
+            values[gate] = word != 0;
+            markChanged(gate);
+            return true;
+        }
+        boolean value = netlist.evaluate(gate, values);
+        if (value == values[gate]) {
+            return false;
+        }
+        values[gate] = value;
+        markChanged(gate);
+        return true;
+    }
+
+    /**
+     * Records that a gate changed value, unless it is already recorded.
+     *
+     * @param gate the index of the gate
+     */
+    private void markChanged(int gate) {
+        if (!changedFlags[gate]) {
+            changedFlags[gate] = true;
+            changed[changedCount++] = gate;
+        }
+    }
+
+    /**
+     * Calls the given action for every gate that changed since the changes were
+     * last drained, then forgets them. The action may safely cause further
+     * changes; those are kept for the next drain.
+     *
+     * @param action the action to perform with each gate index
+     */
+    public void drainChanged(IntConsumer action) {
+        int[] batch = Arrays.copyOf(changed, changedCount);
+        for (int gate : batch) {
+            changedFlags[gate] = false;
+        }
+        changedCount = 0;
+        for (int gate : batch) {
+            action.accept(gate);
+        }
+    }
+
+    /**
+     * Returns the netlist being simulated.
+     *
+     * @return the netlist
+     */
+    public Netlist getNetlist() {
+        return netlist;
+    }
+}
@@ -0,0 +1,208 @@
+package com.paperturtle.simulation;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs a {@link SimulationEngine} on a dedicated thread. The engine is owned
+ * by that thread: other threads never touch it, but post commands that the
+ * thread runs in order, and read the state of the engine from published
+ * {@link StateSnapshot snapshots}.
+ *
+ * <p>
+ * After every batch of commands, the thread propagates the pending changes and
+ * copies the values of all gates into a spare snapshot, which it publishes
+ * with an atomic swap. A reader takes the latest snapshot with
+ * {@link #poll()}, and hands it back with {@link #release(StateSnapshot)} when
+ * it is done with it. Neither side ever waits for the other: a snapshot that is
+ * replaced before it was read is reused for the next one, and the thread
+ * allocates a new snapshot only when none is spare.
+ * </p>
+ *
+ * @see StateSnapshot
+ *
+ * @author Seweryn Czabanowski
+ */
+public final class SimulationThread {
+    /**
+     * The thread running the commands.
+     */
+    private final Thread thread;
+
+    /**
+     * The commands waiting to be run.
+     */
+    private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of commands waiting to be run.
+     */
+    private final AtomicInteger backlog = new AtomicInteger();
+
+    /**
+     * The latest published snapshot, or null if it was taken by a reader.
+     */
+    private final AtomicReference<StateSnapshot> published = new AtomicReference<>();
+
+    /**
+     * A snapshot that is no longer read and can be reused, or null if none.
+     */
+    private final AtomicReference<StateSnapshot> spare = new AtomicReference<>();
+
+    /**
+     * A flag indicating whether the thread should keep running.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * The engine being simulated, or null before the first one is loaded. Only
+     * accessed by the simulation thread.
+     */
+    private SimulationEngine engine;
+
+    /**
+     * The generation of the engine being simulated. Only accessed by the
+     * simulation thread.
+     */
+    private int generation;
+
+    /**
+     * Constructs a SimulationThread and starts it.
+     *
+     * @param name the name of the thread
+     */
+    public SimulationThread(String name) {
+        thread = new Thread(this::runLoop, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Replaces the engine being simulated. Commands posted before are still run
+     * on the previous engine. The new engine is created on the simulation thread
+     * once they have run and their changes have been propagated, so it can take
+     * over the state of the previous engine without racing it; snapshots of the
+     * new engine carry the specified generation, so that readers can tell them
+     * apart.
+     *
+     * @param factory    the function creating the new engine from the previous
+     *                   one, which receives null for the first engine
+     * @param generation the generation of the new engine
+     */
+    public void load(UnaryOperator<SimulationEngine> factory, int generation) {
+        post(() -> {
+            if (engine != null) {
+                engine.propagate();
+            }
+            this.engine = factory.apply(engine);
+            this.generation = generation;
+        });
+    }
+
+    /**
+     * Posts a command to be run on the engine being simulated. The command is
+     * skipped if no engine is loaded yet.
+     *
+     * @param command the command
+     */
+    public void execute(Consumer<SimulationEngine> command) {
+        post(() -> {
+            if (engine != null) {
+                command.accept(engine);
+            }
+        });
+    }
+
+    /**
+     * Takes the latest published snapshot. The caller owns the snapshot until it
+     * releases it.
+     *
+     * @return the snapshot, or null if nothing was published since the last call
+     */
+    public StateSnapshot poll() {
+        return published.getAndSet(null);
+    }
+
+    /**
+     * Hands a snapshot taken with {@link #poll()} back for reuse.
+     *
+     * @param snapshot the snapshot, which must not be read anymore
+     */
+    public void release(StateSnapshot snapshot) {
+        spare.set(snapshot);
+    }
+
+    /**
+     * Returns the number of commands waiting to be run.
+     *
+     * @return the number of commands
+     */
+    public int getBacklog() {
+        return backlog.get();
+    }
+
+    /**
+     * Stops the thread after the command it is currently running.
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Adds a command to the queue and wakes up the thread.
+     *
+     * @param command the command
+     */
+    private void post(Runnable command) {
+        commands.add(command);
+        backlog.incrementAndGet();
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Runs the commands as they are posted, and publishes a snapshot after every
+     * batch of them.
+     */
+    private void runLoop() {
+        while (running) {
+            boolean worked = false;
+            for (Runnable command = commands.poll(); command != null; command = commands.poll()) {
+                backlog.decrementAndGet();
+                worked = true;
+                try {
+                    command.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+            if (worked && engine != null) {
+                engine.propagate();
+                publish();
+            } else if (!worked) {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    /**
+     * Copies the state of the engine into a spare snapshot and publishes it. A
+     * previously published snapshot that was not taken is kept for reuse.
+     */
+    private void publish() {
+        StateSnapshot snapshot = spare.getAndSet(null);
+        if (snapshot == null || snapshot.size() != engine.getNetlist().size()) {
+            snapshot = new StateSnapshot(engine.getNetlist().size());
+        }
+        engine.copyState(snapshot.values, snapshot.words);
+        snapshot.generation = generation;
+        StateSnapshot replaced = published.getAndSet(snapshot);
+        if (replaced != null) {
+            spare.compareAndSet(null, replaced);
+        }
+    }
+}
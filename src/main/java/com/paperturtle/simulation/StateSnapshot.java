@@ -0,0 +1,77 @@
+package com.paperturtle.simulation;
+
+/**
+ * A copy of the values and bus words of every gate of a
+ * {@link SimulationEngine}, published by a {@link SimulationThread} for the
+ * user interface to read. Snapshots are reused: a snapshot must not be read
+ * after it was released back to the thread that published it.
+ *
+ * @see SimulationThread
+ *
+ * @author Seweryn Czabanowski
+ */
+public class StateSnapshot {
+    /**
+     * The value of every gate.
+     */
+    final boolean[] values;
+
+    /**
+     * The bus word of every gate. Only meaningful for bus gates.
+     */
+    final long[] words;
+
+    /**
+     * The generation of the engine the snapshot was taken from.
+     */
+    int generation;
+
+    /**
+     * Constructs an empty StateSnapshot for an engine with the specified number
+     * of gates.
+     *
+     * @param size the number of gates
+     */
+    StateSnapshot(int size) {
+        this.values = new boolean[size];
+        this.words = new long[size];
+    }
+
+    /**
+     * Returns the generation of the engine the snapshot was taken from.
+     *
+     * @return the generation
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the value of a gate.
+     *
+     * @param gate the index of the gate
+     * @return the value
+     */
+    public boolean getValue(int gate) {
+        return values[gate];
+    }
+
+    /**
+     * Returns the word of a bus gate.
+     *
+     * @param gate the index of the bus gate
+     * @return the word
+     */
+    public long getWord(int gate) {
+        return words[gate];
+    }
+
+    /**
+     * Returns the number of gates in the snapshot.
+     *
+     * @return the number of gates
+     */
+    public int size() {
+        return values.length;
+    }
+}
@@ -0,0 +1,224 @@
+package com.paperturtle.simulation;
+
+/**
+ * The compiled definition of a sub-circuit: a reusable module that is stored
+ * once and placed on the canvas any number of times. Every instance shares the
+ * netlist of its definition and only keeps its own value array, so a circuit
+ * built from many copies of a module costs one netlist plus one small array
+ * per copy instead of one component per gate of every copy.
+ *
+ * <p>
+ * The inputs of a sub-circuit are gates of the definition whose value is set
+ * from outside, and its outputs are gates whose value is read back, each in
+ * pin order. The definition is immutable and can be shared between threads.
+ * </p>
+ *
+ * @see SubCircuitInstance
+ *
+ * @author Seweryn Czabanowski
+ */
+public final class SubCircuitDefinition {
+    /**
+     * The name of the sub-circuit.
+     */
+    private final String name;
+
+    /**
+     * The netlist shared by all instances.
+     */
+    private final Netlist netlist;
+
+    /**
+     * The gate of each input pin.
+     */
+    private final int[] inputs;
+
+    /**
+     * The gate of each output pin.
+     */
+    private final int[] outputs;
+
+    /**
+     * Constructs a SubCircuitDefinition.
+     *
+     * @param name    the name of the sub-circuit
+     * @param netlist the compiled netlist of the sub-circuit
+     * @param inputs  the gate of each input pin; these gates must be external
+     * @param outputs the gate of each output pin
+     * @throws IllegalArgumentException if an input gate is not external
+     */
+    public SubCircuitDefinition(String name, Netlist netlist, int[] inputs, int[] outputs) {
+        for (int input : inputs) {
+            if (!netlist.getType(input).isExternal()) {
+                throw new IllegalArgumentException("Input pin is not an external gate: " + input);
+            }
+        }
+        this.name = name;
+        this.netlist = netlist;
+        this.inputs = inputs.clone();
+        this.outputs = outputs.clone();
+    }
+
+    /**
+     * Settles the netlist on the value array of an instance, whose input pins
+     * already hold the input values, and returns the value of an output pin.
+     * Gates in feedback loops keep the values they had in the array, so latches
+     * inside the sub-circuit remember their state between evaluations.
+     *
+     * @param state  the value of every gate of the instance
+     * @param output the output pin
+     * @return the value of the output pin
+     */
+    public boolean evaluate(boolean[] state, int output) {
+        settle(state);
+        return state[outputs[output]];
+    }
+
+    /**
+     * Settles the netlist on the value array of an instance, like
+     * {@link #evaluate(boolean[], int)}, and returns the values of all output
+     * pins at once.
+     *
+     * @param state the value of every gate of the instance
+     * @return a word holding output pin {@code k} in bit {@code k}
+     * @throws IllegalStateException if the definition has more than 64 outputs
+     */
+    public long evaluateOutputs(boolean[] state) {
+        if (outputs.length > Long.SIZE) {
+            throw new IllegalStateException("Too many outputs for a bus: " + outputs.length);
+        }
+        settle(state);
+        long word = 0L;
+        for (int pin = 0; pin < outputs.length; pin++) {
+            if (state[outputs[pin]]) {
+                word |= 1L << pin;
+            }
+        }
+        return word;
+    }
+
+    /**
+     * Settles the netlist on the value array of an instance. Acyclic gates are
+     * evaluated once in order, and the gates in feedback loops are iterated
+     * until they stop changing.
+     *
+     * @param state the value of every gate of the instance
+     */
+    private void settle(boolean[] state) {
+        int[] order = netlist.order;
+        int acyclicCount = netlist.acyclicCount;
+        for (int i = 0; i < acyclicCount; i++) {
+            state[order[i]] = netlist.evaluate(order[i], state);
+        }
+        for (int pass = acyclicCount; pass <= order.length; pass++) {
+            boolean changed = false;
+            for (int i = acyclicCount; i < order.length; i++) {
+                boolean value = netlist.evaluate(order[i], state);
+                if (value != state[order[i]]) {
+                    state[order[i]] = value;
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Settles the netlist for 64 independent input combinations at once and
+     * returns the word of an output pin. The words of the input pins must
+     * already be set; all other gates start from false.
+     *
+     * @param words  the value word of every gate, used as scratch space
+     * @param output the output pin
+     * @return the value word of the output pin
+     */
+    public long evaluate(long[] words, int output) {
+        int[] order = netlist.order;
+        int acyclicCount = netlist.acyclicCount;
+        for (int i = 0; i < acyclicCount; i++) {
+            words[order[i]] = netlist.evaluate(order[i], words);
+        }
+        for (int pass = acyclicCount; pass <= order.length; pass++) {
+            boolean changed = false;
+            for (int i = acyclicCount; i < order.length; i++) {
+                long word = netlist.evaluate(order[i], words);
+                if (word != words[order[i]]) {
+                    words[order[i]] = word;
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                break;
+            }
+        }
+        return words[outputs[output]];
+    }
+
+    /**
+     * Returns the name of the sub-circuit.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the netlist shared by all instances.
+     *
+     * @return the netlist
+     */
+    public Netlist getNetlist() {
+        return netlist;
+    }
+
+    /**
+     * Returns the number of gates of the sub-circuit, which is the size of the
+     * value array of each instance.
+     *
+     * @return the number of gates
+     */
+    public int size() {
+        return netlist.size();
+    }
+
+    /**
+     * Returns the number of input pins.
+     *
+     * @return the number of inputs
+     */
+    public int getInputCount() {
+        return inputs.length;
+    }
+
+    /**
+     * Returns the gate of an input pin.
+     *
+     * @param pin the input pin
+     * @return the index of the gate in the netlist
+     */
+    public int getInput(int pin) {
+        return inputs[pin];
+    }
+
+    /**
+     * Returns the number of output pins.
+     *
+     * @return the number of outputs
+     */
+    public int getOutputCount() {
+        return outputs.length;
+    }
+
+    /**
+     * Returns the gate of an output pin.
+     *
+     * @param pin the output pin
+     * @return the index of the gate in the netlist
+     */
+    public int getOutput(int pin) {
+        return outputs[pin];
+    }
+}
@@ -0,0 +1,215 @@
+package com.paperturtle.simulation;
+
+/**
+ * One placed copy of a sub-circuit, as seen by the netlist it is part of. The
+ * instance refers to the shared {@link SubCircuitDefinition} and owns only the
+ * value array the definition is evaluated on. Every netlist evaluates its own
+ * {@link #copy() copy} of an instance, so engines of different netlists never
+ * share state, and the state is handed from one netlist to the next when the
+ * surrounding circuit is recompiled.
+ *
+ * <p>
+ * An instance drives a single output pin of its definition, or all of them as
+ * one bus word if it is created for {@link #ALL_OUTPUTS}. The inputs of the
+ * instance gate in the surrounding netlist are mapped to input pins by the pin
+ * each of them is connected to, so unconnected pins read as false.
+ * </p>
+ *
+ * @see SubCircuitDefinition
+ * @see NetlistBuilder#addSubCircuit(SubCircuitInstance)
+ *
+ * @author Seweryn Czabanowski
+ */
+public final class SubCircuitInstance {
+    /**
+     * The output pin of an instance that drives all outputs of its definition
+     * as a bus word, output pin {@code k} in bit {@code k}.
+     */
+    public static final int ALL_OUTPUTS = -1;
+
+    /**
+     * The definition shared with the other instances.
+     */
+    private final SubCircuitDefinition definition;
+
+    /**
+     * The output pin this instance drives, or {@link #ALL_OUTPUTS}.
+     */
+    private final int output;
+
+    /**
+     * The value of every gate of the definition in this instance.
+     */
+    private final boolean[] state;
+
+    /**
+     * Constructs a SubCircuitInstance with all gates false.
+     *
+     * @param definition the definition of the sub-circuit
+     * @param output     the output pin the instance drives, or
+     *                   {@link #ALL_OUTPUTS}
+     * @throws IllegalArgumentException if the definition has no such output, or
+     *                                  has more outputs than fit in a bus word
+     */
+    public SubCircuitInstance(SubCircuitDefinition definition, int output) {
+        if (output == ALL_OUTPUTS ? definition.getOutputCount() > Long.SIZE
+                : output < 0 || output >= definition.getOutputCount()) {
+            throw new IllegalArgumentException("Unknown output pin: " + output);
+        }
+        this.definition = definition;
+        this.output = output;
+        this.state = new boolean[definition.size()];
+    }
+
+    /**
+     * Evaluates the instance from the value of every input pin.
+     *
+     * @param inputs the value of each input pin; missing pins read as false
+     * @return the value of the output pin
+     */
+    public boolean evaluate(boolean[] inputs) {
+        setInputs(inputs);
+        return definition.evaluate(state, output);
+    }
+
+    /**
+     * Evaluates the instance from the value of every input pin and returns the
+     * values of all output pins.
+     *
+     * @param inputs the value of each input pin; missing pins read as false
+     * @return a word holding output pin {@code k} in bit {@code k}
+     */
+    public long evaluateWord(boolean[] inputs) {
+        setInputs(inputs);
+        return definition.evaluateOutputs(state);
+    }
+
+    /**
+     * Evaluates the instance from the values of the surrounding netlist.
+     *
+     * @param values  the current value of every gate of the surrounding netlist
+     * @param sources the input connections of the surrounding netlist
+     * @param pins    the input pin of each input connection
+     * @param from    the offset of the first input of the instance gate
+     * @param to      the offset after the last input of the instance gate
+     * @return the value of the output pin
+     */
+    boolean evaluate(boolean[] values, int[] sources, int[] pins, int from, int to) {
+        setInputs(values, sources, pins, from, to);
+        return definition.evaluate(state, output);
+    }
+
+    /**
+     * Evaluates the instance from the values of the surrounding netlist and
+     * returns the values of all output pins.
+     *
+     * @param values  the current value of every gate of the surrounding netlist
+     * @param sources the input connections of the surrounding netlist
+     * @param pins    the input pin of each input connection
+     * @param from    the offset of the first input of the instance gate
+     * @param to      the offset after the last input of the instance gate
+     * @return a word holding output pin {@code k} in bit {@code k}
+     */
+    long evaluateWord(boolean[] values, int[] sources, int[] pins, int from, int to) {
+        setInputs(values, sources, pins, from, to);
+        return definition.evaluateOutputs(state);
+    }
+
+    /**
+     * Sets the input pins of the instance from the value of every input pin.
+     *
+     * @param inputs the value of each input pin; missing pins read as false
+     */
+    private void setInputs(boolean[] inputs) {
+        for (int pin = 0; pin < definition.getInputCount(); pin++) {
+            state[definition.getInput(pin)] = pin < inputs.length && inputs[pin];
+        }
+    }
+
+    /**
+     * Sets the input pins of the instance from the values of the surrounding
+     * netlist. Unconnected pins read as false.
+     *
+     * @param values  the current value of every gate of the surrounding netlist
+     * @param sources the input connections of the surrounding netlist
+     * @param pins    the input pin of each input connection
+     * @param from    the offset of the first input of the instance gate
+     * @param to      the offset after the last input of the instance gate
+     */
+    private void setInputs(boolean[] values, int[] sources, int[] pins, int from, int to) {
+        for (int pin = 0; pin < definition.getInputCount(); pin++) {
+            state[definition.getInput(pin)] = false;
+        }
+        for (int i = from; i < to; i++) {
+            if (pins[i] < definition.getInputCount()) {
+                state[definition.getInput(pins[i])] = values[sources[i]];
+            }
+        }
+    }
+
+    /**
+     * Evaluates the instance for 64 independent input combinations at once.
+     * The state of the instance is not used, so feedback loops inside the
+     * sub-circuit start from false.
+     *
+     * @param words   the current value word of every gate of the surrounding
+     *                netlist
+     * @param sources the input connections of the surrounding netlist
+     * @param pins    the input pin of each input connection
+     * @param from    the offset of the first input of the instance gate
+     * @param to      the offset after the last input of the instance gate
+     * @return the value word of the output pin
+     */
+    long evaluate(long[] words, int[] sources, int[] pins, int from, int to) {
+        long[] scratch = new long[definition.size()];
+        for (int i = from; i < to; i++) {
+            if (pins[i] < definition.getInputCount()) {
+                scratch[definition.getInput(pins[i])] = words[sources[i]];
+            }
+        }
+        return definition.evaluate(scratch, output);
+    }
+
+    /**
+     * Returns a new instance of the same definition and output that starts from
+     * the current state of this instance and evolves independently of it.
+     *
+     * @return the copy
+     */
+    public SubCircuitInstance copy() {
+        SubCircuitInstance copy = new SubCircuitInstance(definition, output);
+        System.arraycopy(state, 0, copy.state, 0, state.length);
+        return copy;
+    }
+
+    /**
+     * Takes over the state of another instance of the same definition, so that
+     * latches inside the sub-circuit keep their values. Instances of other
+     * definitions are ignored.
+     *
+     * @param other the instance whose state is copied
+     */
+    void copyStateFrom(SubCircuitInstance other) {
+        if (other.definition == definition) {
+            System.arraycopy(other.state, 0, state, 0, state.length);
+        }
+    }
+
+    /**
+     * Returns the definition of the instance.
+     *
+     * @return the definition
+     */
+    public SubCircuitDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * Returns the output pin the instance drives.
+     *
+     * @return the output pin, or {@link #ALL_OUTPUTS}
+     */
+    public int getOutput() {
+        return output;
+    }
+}
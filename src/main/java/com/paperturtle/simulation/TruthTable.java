@@ -0,0 +1,146 @@
+package com.paperturtle.simulation;
+
+import java.util.List;
+
+/**
+ * An immutable range of rows of a truth table. The input values of a row are
+ * not stored; in row {@code r}, input {@code j} is true if bit {@code j} of
+ * {@code r} is set. Each output value is stored in a single byte: 0 or 1 for
+ * boolean outputs, or the displayed number for digit outputs.
+ *
+ * @see TruthTableGenerator
+ *
+ * @author Seweryn Czabanowski
+ */
+public final class TruthTable {
+    /**
+     * The index of the first row in the range.
+     */
+    private final long firstRow;
+
+    /**
+     * The number of rows in the range.
+     */
+    private final int rowCount;
+
+    /**
+     * The number of inputs of the table.
+     */
+    private final int inputCount;
+
+    /**
+     * The output values, indexed by output and then by row within the range.
+     */
+    private final byte[][] columns;
+
+    /**
+     * Constructs a TruthTable from already computed output columns.
+     *
+     * @param firstRow   the index of the first row in the range
+     * @param rowCount   the number of rows in the range
+     * @param inputCount the number of inputs of the table
+     * @param columns    the output values, indexed by output and then by row
+     */
+    TruthTable(long firstRow, int rowCount, int inputCount, byte[][] columns) {
+        this.firstRow = firstRow;
+        this.rowCount = rowCount;
+        this.inputCount = inputCount;
+        this.columns = columns;
+    }
+
+    /**
+     * Merges consecutive ranges of the same table into one.
+     *
+     * @param chunks the ranges to merge, in row order
+     * @return the merged range
+     * @throws IllegalArgumentException if the ranges are empty or not consecutive
+     */
+    static TruthTable merge(List<TruthTable> chunks) {
+        if (chunks.isEmpty()) {
+            throw new IllegalArgumentException("No rows to merge");
+        }
+        if (chunks.size() == 1) {
+            return chunks.get(0);
+        }
+
+        TruthTable first = chunks.get(0);
+        long rows = 0;
+        for (TruthTable chunk : chunks) {
+            if (chunk.firstRow != first.firstRow + rows) {
+                throw new IllegalArgumentException("Rows are not consecutive at row " + chunk.firstRow);
+            }
+            rows += chunk.rowCount;
+        }
+        if (rows > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many rows: " + rows);
+        }
+
+        byte[][] columns = new byte[first.columns.length][(int) rows];
+        int offset = 0;
+        for (TruthTable chunk : chunks) {
+            for (int c = 0; c < columns.length; c++) {
+                System.arraycopy(chunk.columns[c], 0, columns[c], offset, chunk.rowCount);
+            }
+            offset += chunk.rowCount;
+        }
+        return new TruthTable(first.firstRow, (int) rows, first.inputCount, columns);
+    }
+
+    /**
+     * Returns the index of the first row in the range.
+     *
+     * @return the index of the first row
+     */
+    public long getFirstRow() {
+        return firstRow;
+    }
+
+    /**
+     * Returns the number of rows in the range.
+     *
+     * @return the number of rows
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of inputs of the table.
+     *
+     * @return the number of inputs
+     */
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    /**
+     * Returns the number of outputs of the table.
+     *
+     * @return the number of outputs
+     */
+    public int getOutputCount() {
+        return columns.length;
+    }
+
+    /**
+     * Returns the value of an input in the specified row.
+     *
+     * @param row   the row within the range
+     * @param input the index of the input
+     * @return the value of the input
+     */
+    public boolean getInput(int row, int input) {
+        return (firstRow + row >>> input & 1L) != 0;
+    }
+
+    /**
+     * Returns the value of an output in the specified row.
+     *
+     * @param row    the row within the range
+     * @param output the index of the output
+     * @return the value of the output
+     */
+    public int getOutput(int row, int output) {
+        return columns[output][row];
+    }
+}
@@ -0,0 +1,325 @@
+package com.paperturtle.simulation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * Writes truth tables to files while they are generated. Rows are generated in
+ * windows of a fixed size on a {@link ForkJoinPool} and written through a
+ * single reusable buffer to a {@link FileChannel}, so the memory used does not
+ * depend on the number of rows.
+ *
+ * <p>
+ * Two formats are supported. {@link Format#CSV} writes one line per row, with
+ * the inputs followed by the constant inputs and the outputs. {@link Format#BINARY}
+ * writes a header followed by the output values of every row packed into a bit
+ * stream:
+ * </p>
+ *
+ * <pre>
+ * magic          4 bytes  "LGTT"
+ * version        1 byte   1
+ * input count    int
+ * constant count int
+ * output count   int
+ * row count      long
+ * output widths  1 byte per output: 1 for true/false, 3 for a four-bit digit
+ * constants      1 byte per constant input: 0 or 1
+ * rows           the output values of each row in order, least significant bit
+ *                first, padded with zero bits to a whole byte at the end
+ * </pre>
+ *
+ * <p>
+ * Input values are not stored in the binary format; in row {@code r}, input
+ * {@code j} is true if bit {@code j} of {@code r} is set. Multi-byte values are
+ * big-endian.
+ * </p>
+ *
+ * @see TruthTableGenerator
+ *
+ * @author Seweryn Czabanowski
+ */
+public class TruthTableExporter {
+    /**
+     * The supported file formats.
+     */
+    public enum Format {
+        /**
+         * Comma-separated values with a header line.
+         */
+        CSV,
+
+        /**
+         * The packed-bit binary format described in {@link TruthTableExporter}.
+         */
+        BINARY
+    }
+
+    /**
+     * The magic number at the start of binary files.
+     */
+    private static final byte[] MAGIC = { 'L', 'G', 'T', 'T' };
+
+    /**
+     * The version of the binary format.
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * The size of the write buffer in bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The number of rows generated before they are written.
+     */
+    private static final int WINDOW_ROWS = 1 << 18;
+
+    /**
+     * The text of a true value in a CSV file.
+     */
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The text of a false value in a CSV file.
+     */
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The generator of the rows.
+     */
+    private final TruthTableGenerator generator;
+
+    /**
+     * The values of the constant inputs.
+     */
+    private final boolean[] constants;
+
+    /**
+     * The buffer collecting bytes before they are written.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * The channel being written.
+     */
+    private FileChannel channel;
+
+    /**
+     * Constructs a TruthTableExporter for the specified generator.
+     *
+     * @param generator the generator of the rows
+     * @param constants the values of the constant inputs
+     */
+    public TruthTableExporter(TruthTableGenerator generator, boolean[] constants) {
+        this.generator = generator;
+        this.constants = constants.clone();
+    }
+
+    /**
+     * Generates the complete table and writes it to a file. If the export is
+     * cancelled or fails, the partially written file is deleted.
+     *
+     * @param path      the file to write
+     * @param format    the format of the file
+     * @param pool      the pool to generate the rows on
+     * @param progress  called with the total number of rows done after each chunk
+     * @param cancelled checked before each chunk; the export stops once it returns
+     *                  true
+     * @throws IOException           if the file cannot be written
+     * @throws CancellationException if the export was cancelled
+     */
+    public synchronized void export(Path path, Format format, ForkJoinPool pool, LongConsumer progress,
+            BooleanSupplier cancelled) throws IOException {
+        boolean complete = false;
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel = fileChannel;
+            buffer.clear();
+            if (format == Format.CSV) {
+                writeCsv(pool, progress, cancelled);
+            } else {
+                writeBinary(pool, progress, cancelled);
+            }
+            flush();
+            complete = true;
+        } finally {
+            channel = null;
+            if (!complete) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Writes the table as CSV.
+     *
+     * @param pool      the pool to generate the rows on
+     * @param progress  the progress callback
+     * @param cancelled the cancellation check
+     * @throws IOException if the file cannot be written
+     */
+    private void writeCsv(ForkJoinPool pool, LongConsumer progress, BooleanSupplier cancelled)
+            throws IOException {
+        int numInputs = generator.getInputCount() + constants.length;
+        int numOutputs = generator.getOutputCount();
+        StringBuilder header = new StringBuilder();
+        for (int i = 0; i < numInputs; i++) {
+            header.append("I").append(i + 1).append(",");
+        }
+        for (int i = 0; i < numOutputs; i++) {
+            header.append("O").append(i + 1).append(i < numOutputs - 1 ? "," : "\n");
+        }
+        put(header.toString().getBytes(StandardCharsets.US_ASCII));
+
+        boolean[] digits = new boolean[numOutputs];
+        for (int i = 0; i < numOutputs; i++) {
+            digits[i] = generator.getOutputType(i) == GateType.FOUR_BIT_DIGIT;
+        }
+
+        long rowCount = generator.getRowCount();
+        for (long firstRow = 0; firstRow < rowCount; firstRow += WINDOW_ROWS) {
+            TruthTable window = generateWindow(pool, firstRow, progress, cancelled);
+            for (int row = 0; row < window.getRowCount(); row++) {
+                for (int j = 0; j < window.getInputCount(); j++) {
+                    put(window.getInput(row, j) ? TRUE : FALSE);
+                    put((byte) ',');
+                }
+                for (boolean constant : constants) {
+                    put(constant ? TRUE : FALSE);
+                    put((byte) ',');
+                }
+                for (int j = 0; j < numOutputs; j++) {
+                    int value = window.getOutput(row, j);
+                    if (digits[j]) {
+                        put((byte) ('0' + value));
+                    } else {
+                        put(value != 0 ? TRUE : FALSE);
+                    }
+                    put((byte) (j < numOutputs - 1 ? ',' : '\n'));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the table in the packed-bit binary format.
+     *
+     * @param pool      the pool to generate the rows on
+     * @param progress  the progress callback
+     * @param cancelled the cancellation check
+     * @throws IOException if the file cannot be written
+     */
+    private void writeBinary(ForkJoinPool pool, LongConsumer progress, BooleanSupplier cancelled)
+            throws IOException {
+        int numOutputs = generator.getOutputCount();
+        long rowCount = generator.getRowCount();
+        int[] widths = new int[numOutputs];
+
+        put(MAGIC);
+        put(VERSION);
+        ensureRemaining(3 * Integer.BYTES + Long.BYTES);
+        buffer.putInt(generator.getInputCount());
+        buffer.putInt(constants.length);
+        buffer.putInt(numOutputs);
+        buffer.putLong(rowCount);
+        for (int i = 0; i < numOutputs; i++) {
+            widths[i] = generator.getOutputType(i) == GateType.FOUR_BIT_DIGIT ? 3 : 1;
+            put((byte) widths[i]);
+        }
+        for (boolean constant : constants) {
+            put((byte) (constant ? 1 : 0));
+        }
+
+        long bits = 0;
+        int bitCount = 0;
+        for (long firstRow = 0; firstRow < rowCount; firstRow += WINDOW_ROWS) {
+            TruthTable window = generateWindow(pool, firstRow, progress, cancelled);
+            for (int row = 0; row < window.getRowCount(); row++) {
+                for (int j = 0; j < numOutputs; j++) {
+                    bits |= (long) window.getOutput(row, j) << bitCount;
+                    bitCount += widths[j];
+                    while (bitCount >= 8) {
+                        put((byte) bits);
+                        bits >>>= 8;
+                        bitCount -= 8;
+                    }
+                }
+            }
+        }
+        if (bitCount > 0) {
+            put((byte) bits);
+        }
+    }
+
+    /**
+     * Generates the window of rows starting at the specified row.
+     *
+     * @param pool      the pool to generate the rows on
+     * @param firstRow  the first row of the window
+     * @param progress  called with the total number of rows done
+     * @param cancelled the cancellation check
+     * @return the rows of the window
+     */
+    private TruthTable generateWindow(ForkJoinPool pool, long firstRow, LongConsumer progress,
+            BooleanSupplier cancelled) {
+        long rows = Math.min(WINDOW_ROWS, generator.getRowCount() - firstRow);
+        return generator.generate(pool, firstRow, rows, done -> progress.accept(firstRow + done), cancelled);
+    }
+
+    /**
+     * Appends bytes to the buffer, writing it out whenever it is full.
+     *
+     * @param bytes the bytes to append
+     * @throws IOException if the file cannot be written
+     */
+    private void put(byte[] bytes) throws IOException {
+        ensureRemaining(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Appends a byte to the buffer, writing it out whenever it is full.
+     *
+     * @param value the byte to append
+     * @throws IOException if the file cannot be written
+     */
+    private void put(byte value) throws IOException {
+        ensureRemaining(1);
+        buffer.put(value);
+    }
+
+    /**
+     * Writes the buffer out if it has less than the specified space left.
+     *
+     * @param bytes the number of bytes that must fit in the buffer
+     * @throws IOException if the file cannot be written
+     */
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the contents of the buffer to the channel.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
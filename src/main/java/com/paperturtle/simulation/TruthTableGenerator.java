@@ -0,0 +1,270 @@
+package com.paperturtle.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * Generates truth tables from an immutable snapshot of a circuit. The snapshot
+ * consists of the compiled {@link Netlist}, the gates used as inputs and
+ * outputs, and the value of every gate when the snapshot was taken, so a
+ * generator can safely be used from any number of threads.
+ *
+ * <p>
+ * Large ranges of rows are split into chunks that are evaluated in parallel on
+ * a {@link ForkJoinPool}, each with its own {@link BitParallelEvaluator}. The
+ * chunks are only merged once all of them are done.
+ * </p>
+ *
+ * @see TruthTable
+ *
+ * @author Seweryn Czabanowski
+ */
+public class TruthTableGenerator {
+    /**
+     * The number of rows evaluated by a single fork/join task.
+     */
+    private static final int CHUNK_ROWS = 1 << 14;
+
+    /**
+     * The netlist of the circuit.
+     */
+    private final Netlist netlist;
+
+    /**
+     * The indices of the gates driven by the row bits, lowest bit first.
+     */
+    private final int[] inputs;
+
+    /**
+     * The indices of the gates whose values form the output columns.
+     */
+    private final int[] outputs;
+
+    /**
+     * The value of every gate when the snapshot was taken.
+     */
+    private final boolean[] state;
+
+    /**
+     * Constructs a TruthTableGenerator from a snapshot of a circuit.
+     *
+     * @param netlist the netlist of the circuit
+     * @param inputs  the indices of the gates driven by the row bits, lowest bit
+     *                first
+     * @param outputs the indices of the gates whose values form the output
+     *                columns
+     * @param state   the value of every gate
+     * @throws IllegalArgumentException if there are more than 62 inputs
+     */
+    public TruthTableGenerator(Netlist netlist, int[] inputs, int[] outputs, boolean[] state) {
+        if (inputs.length > 62) {
+            throw new IllegalArgumentException("Too many inputs: " + inputs.length);
+        }
+        this.netlist = netlist;
+        this.inputs = inputs.clone();
+        this.outputs = outputs.clone();
+        this.state = state.clone();
+    }
+
+    /**
+     * Returns the number of rows of the complete table.
+     *
+     * @return the number of rows
+     */
+    public long getRowCount() {
+        return 1L << inputs.length;
+    }
+
+    /**
+     * Returns the number of inputs of the table.
+     *
+     * @return the number of inputs
+     */
+    public int getInputCount() {
+        return inputs.length;
+    }
+
+    /**
+     * Returns the number of outputs of the table.
+     *
+     * @return the number of outputs
+     */
+    public int getOutputCount() {
+        return outputs.length;
+    }
+
+    /**
+     * Returns the type of the gate forming the specified output column.
+     *
+     * @param output the index of the output
+     * @return the type of the output gate
+     */
+    public GateType getOutputType(int output) {
+        return netlist.getType(outputs[output]);
+    }
+
+    /**
+     * Creates an evaluator for this snapshot. Evaluators are not thread-safe;
+     * each thread needs its own.
+     *
+     * @return a new evaluator
+     */
+    public BitParallelEvaluator createEvaluator() {
+        return new BitParallelEvaluator(netlist, inputs, outputs, state);
+    }
+
+    /**
+     * Generates a range of rows on the calling thread.
+     *
+     * @param firstRow the first row; must be a multiple of
+     *                 {@link BitParallelEvaluator#LANES}
+     * @param rowCount the number of rows
+     * @return the generated rows
+     */
+    public TruthTable generate(long firstRow, int rowCount) {
+        return generate(createEvaluator(), firstRow, rowCount);
+    }
+
+    /**
+     * Generates a range of rows on the specified pool.
+     *
+     * @param pool      the pool to run the chunks on
+     * @param firstRow  the first row; must be a multiple of
+     *                  {@link BitParallelEvaluator#LANES}
+     * @param rowCount  the number of rows
+     * @param progress  called with the number of rows of the range done after
+     *                  each chunk
+     * @param cancelled checked before each chunk; generation stops once it
+     *                  returns true
+     * @return the generated rows
+     * @throws CancellationException    if the generation was cancelled
+     * @throws IllegalArgumentException if the range has more rows than an array
+     *                                  can hold
+     */
+    public TruthTable generate(ForkJoinPool pool, long firstRow, long rowCount, LongConsumer progress,
+            BooleanSupplier cancelled) {
+        if (rowCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many rows: " + rowCount);
+        }
+        List<TruthTable> chunks = pool
+                .invoke(new ChunkTask(this, firstRow, rowCount, new AtomicLong(), progress, cancelled));
+        return TruthTable.merge(chunks);
+    }
+
+    /**
+     * Generates a range of rows with the specified evaluator.
+     *
+     * @param evaluator the evaluator to use
+     * @param firstRow  the first row; must be a multiple of
+     *                  {@link BitParallelEvaluator#LANES}
+     * @param rowCount  the number of rows
+     * @return the generated rows
+     * @throws IllegalArgumentException if the first row is not aligned
+     */
+    private TruthTable generate(BitParallelEvaluator evaluator, long firstRow, int rowCount) {
+        if (firstRow % BitParallelEvaluator.LANES != 0) {
+            throw new IllegalArgumentException("Unaligned first row: " + firstRow);
+        }
+        byte[][] columns = new byte[outputs.length][rowCount];
+        for (int offset = 0; offset < rowCount; offset += BitParallelEvaluator.LANES) {
+            evaluator.evaluate(firstRow + offset);
+            int lanes = Math.min(BitParallelEvaluator.LANES, rowCount - offset);
+            for (int c = 0; c < outputs.length; c++) {
+                for (int lane = 0; lane < lanes; lane++) {
+                    columns[c][offset + lane] = (byte) evaluator.getDisplayedValue(outputs[c], lane);
+                }
+            }
+        }
+        return new TruthTable(firstRow, rowCount, inputs.length, columns);
+    }
+
+    /**
+     * A fork/join task generating a range of rows. Ranges larger than
+     * {@link #CHUNK_ROWS} are split in half; the results are collected as a list
+     * of chunks in row order.
+     */
+    private static class ChunkTask extends RecursiveTask<List<TruthTable>> {
+        /**
+         * The serial version UID of the task.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The generator evaluating the rows.
+         */
+        private final transient TruthTableGenerator generator;
+
+        /**
+         * The first row of the range.
+         */
+        private final long firstRow;
+
+        /**
+         * The number of rows in the range.
+         */
+        private final long rowCount;
+
+        /**
+         * The total number of rows done by all tasks.
+         */
+        private final transient AtomicLong done;
+
+        /**
+         * The progress callback.
+         */
+        private final transient LongConsumer progress;
+
+        /**
+         * The cancellation check.
+         */
+        private final transient BooleanSupplier cancelled;
+
+        /**
+         * Constructs a ChunkTask for the specified range.
+         *
+         * @param generator the generator evaluating the rows
+         * @param firstRow  the first row of the range
+         * @param rowCount  the number of rows in the range
+         * @param done      the total number of rows done by all tasks
+         * @param progress  the progress callback
+         * @param cancelled the cancellation check
+         */
+        ChunkTask(TruthTableGenerator generator, long firstRow, long rowCount, AtomicLong done, LongConsumer progress,
+                BooleanSupplier cancelled) {
+            this.generator = generator;
+            this.firstRow = firstRow;
+            this.rowCount = rowCount;
+            this.done = done;
+            this.progress = progress;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected List<TruthTable> compute() {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException("Truth table generation cancelled");
+            }
+            if (rowCount <= CHUNK_ROWS) {
+                TruthTable chunk = generator.generate(generator.createEvaluator(), firstRow, (int) rowCount);
+                progress.accept(done.addAndGet(rowCount));
+                List<TruthTable> chunks = new ArrayList<>();
+                chunks.add(chunk);
+                return chunks;
+            }
+
+            long half = rowCount / 2 / BitParallelEvaluator.LANES * BitParallelEvaluator.LANES;
+            ChunkTask left = new ChunkTask(generator, firstRow, half, done, progress, cancelled);
+            ChunkTask right = new ChunkTask(generator, firstRow + half, rowCount - half, done, progress, cancelled);
+            right.fork();
+            List<TruthTable> chunks = left.compute();
+            chunks.addAll(right.join());
+            return chunks;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * This package contains the headless simulation engine of the Logic Gate
+ * simulator application.
+ *
+ * <p>
+ * Classes in this package do not depend on JavaFX. The gate graph drawn on the
+ * canvas is compiled into a flat, levelized netlist that stores gates and their
+ * connections in int-indexed arrays, and the simulation engine evaluates that
+ * netlist using primitive state arrays. The components on the canvas act as
+ * views over the engine's state.
+ * </p>
+ */
+package com.paperturtle.simulation;
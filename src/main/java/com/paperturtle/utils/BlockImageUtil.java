@@ -0,0 +1,105 @@
+package com.paperturtle.utils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.geometry.Point2D;
+import javafx.geometry.VPos;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * The BlockImageUtil class draws the images of components that have no SVG
+ * file, such as sub-circuits and bus components: a labelled box with a lead to
+ * every input and to the output.
+ *
+ * @see SvgUtil
+ *
+ * @author Seweryn Czabanowski
+ */
+public class BlockImageUtil {
+    /**
+     * The distance of the box from the left and right edge of the image, which
+     * is taken up by the leads.
+     */
+    public static final double LEAD_LENGTH = 20;
+
+    /**
+     * The rendered images, by key.
+     */
+    private static final Map<String, Image> IMAGE_CACHE = new HashMap<>();
+
+    /**
+     * Default constructor for BlockImageUtil.
+     */
+    private BlockImageUtil() {
+    }
+
+    /**
+     * Returns the image of a block, rendering it on first use. Images are cached
+     * by key, so all components with the same key share one image. Must be
+     * called on the JavaFX application thread.
+     *
+     * @param key         the key identifying the image
+     * @param label       the text in the box
+     * @param inputs      the end point of each input lead
+     * @param inputWidth  the line width of the input leads
+     * @param output      the end point of the output lead, or null for none
+     * @param outputWidth the line width of the output lead
+     * @param width       the width of the image
+     * @param height      the height of the image
+     * @return the image
+     */
+    public static Image loadBlockImage(String key, String label, List<Point2D> inputs, double inputWidth,
+            Point2D output, double outputWidth, double width, double height) {
+        return IMAGE_CACHE.computeIfAbsent(key,
+                k -> renderBlockImage(label, inputs, inputWidth, output, outputWidth, width, height));
+    }
+
+    /**
+     * Renders the image of a block.
+     *
+     * @param label       the text in the box
+     * @param inputs      the end point of each input lead
+     * @param inputWidth  the line width of the input leads
+     * @param output      the end point of the output lead, or null for none
+     * @param outputWidth the line width of the output lead
+     * @param width       the width of the image
+     * @param height      the height of the image
+     * @return the rendered image
+     */
+    private static Image renderBlockImage(String label, List<Point2D> inputs, double inputWidth, Point2D output,
+            double outputWidth, double width, double height) {
+        Canvas canvas = new Canvas(width, height);
+        GraphicsContext graphics = canvas.getGraphicsContext2D();
+        graphics.setStroke(Color.BLACK);
+        graphics.setLineWidth(inputWidth);
+        for (Point2D point : inputs) {
+            graphics.strokeLine(point.getX(), point.getY(), LEAD_LENGTH, point.getY());
+        }
+        if (output != null) {
+            graphics.setLineWidth(outputWidth);
+            graphics.strokeLine(width - LEAD_LENGTH, output.getY(), output.getX(), output.getY());
+        }
+        graphics.setLineWidth(2);
+        graphics.setFill(Color.WHITE);
+        graphics.fillRect(LEAD_LENGTH, 5, width - 2 * LEAD_LENGTH, height - 10);
+        graphics.strokeRect(LEAD_LENGTH, 5, width - 2 * LEAD_LENGTH, height - 10);
+
+        graphics.setFill(Color.BLACK);
+        graphics.setFont(Font.font(11));
+        graphics.setTextAlign(TextAlignment.CENTER);
+        graphics.setTextBaseline(VPos.CENTER);
+        graphics.fillText(label, width / 2, height / 2, width - 2 * LEAD_LENGTH - 6);
+
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        return canvas.snapshot(parameters, null);
+    }
+}
@@ -0,0 +1,200 @@
+package com.paperturtle.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The SpatialGrid class is a uniform grid index of items by their bounding
+ * boxes. Each item is stored in every grid cell its bounding box overlaps, so
+ * finding the items near a point only looks at a single cell, independent of
+ * the total number of items.
+ *
+ * <p>
+ * Items are compared by identity. Moving an item is done by putting it again
+ * with its new bounds; only the cells that change are updated.
+ * </p>
+ *
+ * @param <T> the type of the indexed items
+ *
+ * @author Seweryn Czabanowski
+ */
+public class SpatialGrid<T> {
+    /**
+     * The width and height of a grid cell.
+     */
+    private final double cellSize;
+
+    /**
+     * The items in each non-empty cell, keyed by packed column and row.
+     */
+    private final Map<Long, List<T>> cells = new HashMap<>();
+
+    /**
+     * The cell range covered by each item, as minimum column, minimum row,
+     * maximum column and maximum row.
+     */
+    private final Map<T, int[]> ranges = new IdentityHashMap<>();
+
+    /**
+     * Constructs a SpatialGrid with the specified cell size.
+     *
+     * @param cellSize the width and height of a grid cell
+     * @throws IllegalArgumentException if the cell size is not positive
+     */
+    public SpatialGrid(double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds an item to the grid, or moves it if it is already indexed.
+     *
+     * @param item the item to index
+     * @param minX the minimum x-coordinate of its bounding box
+     * @param minY the minimum y-coordinate of its bounding box
+     * @param maxX the maximum x-coordinate of its bounding box
+     * @param maxY the maximum y-coordinate of its bounding box
+     */
+    public void put(T item, double minX, double minY, double maxX, double maxY) {
+        int[] range = { cell(minX), cell(minY), cell(maxX), cell(maxY) };
+        int[] previous = ranges.put(item, range);
+        if (previous != null) {
+            if (previous[0] == range[0] && previous[1] == range[1] && previous[2] == range[2]
+                    && previous[3] == range[3]) {
+                return;
+            }
+            removeFromCells(item, previous);
+        }
+        for (int col = range[0]; col <= range[2]; col++) {
+            for (int row = range[1]; row <= range[3]; row++) {
+                cells.computeIfAbsent(key(col, row), k -> new ArrayList<>(4)).add(item);
+            }
+        }
+    }
+
+    /**
+     * Removes an item from the grid.
+     *
+     * @param item the item to remove
+     */
+    public void remove(T item) {
+        int[] range = ranges.remove(item);
+        if (range != null) {
+            removeFromCells(item, range);
+        }
+    }
+
+    /**
+     * Returns the items whose grid cells contain the specified point. The result
+     * may include items whose bounding box is close to, but does not contain,
+     * the point; callers should test the exact geometry.
+     *
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @return the candidate items
+     */
+    public List<T> query(double x, double y) {
+        List<T> items = cells.get(key(cell(x), cell(y)));
+        return items == null ? Collections.emptyList() : new ArrayList<>(items);
+    }
+
+    /**
+     * Returns the items whose grid cells overlap the specified rectangle. The
+     * result may include items whose bounding box is close to, but does not
+     * overlap, the rectangle; callers should test the exact geometry.
+     *
+     * @param minX the minimum x-coordinate of the rectangle
+     * @param minY the minimum y-coordinate of the rectangle
+     * @param maxX the maximum x-coordinate of the rectangle
+     * @param maxY the maximum y-coordinate of the rectangle
+     * @return the candidate items, each listed once
+     */
+    public List<T> query(double minX, double minY, double maxX, double maxY) {
+        Set<T> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<T> result = new ArrayList<>();
+        for (int col = cell(minX); col <= cell(maxX); col++) {
+            for (int row = cell(minY); row <= cell(maxY); row++) {
+                List<T> items = cells.get(key(col, row));
+                if (items != null) {
+                    for (T item : items) {
+                        if (seen.add(item)) {
+                            result.add(item);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of indexed items.
+     *
+     * @return the number of items
+     */
+    public int size() {
+        return ranges.size();
+    }
+
+    /**
+     * Removes all items from the grid.
+     */
+    public void clear() {
+        cells.clear();
+        ranges.clear();
+    }
+
+    /**
+     * Removes an item from every cell in the specified range.
+     *
+     * @param item  the item to remove
+     * @param range the cell range covered by the item
+     */
+    private void removeFromCells(T item, int[] range) {
+        for (int col = range[0]; col <= range[2]; col++) {
+            for (int row = range[1]; row <= range[3]; row++) {
+                Long key = key(col, row);
+                List<T> items = cells.get(key);
+                if (items != null) {
+                    for (int i = 0; i < items.size(); i++) {
+                        if (items.get(i) == item) {
+                            items.remove(i);
+                            break;
+                        }
+                    }
+                    if (items.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the column or row of the cell containing the specified coordinate.
+     *
+     * @param coordinate the coordinate
+     * @return the column or row
+     */
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * Packs a column and row into a single cell key.
+     *
+     * @param col the column
+     * @param row the row
+     * @return the cell key
+     */
+    private static long key(int col, int row) {
+        return ((long) col << 32) | (row & 0xFFFFFFFFL);
+    }
+}
@@ -1,5 +1,7 @@
 package com.paperturtle.utils;
 
+import com.paperturtle.App;
+
 import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.image.Image;
 import org.apache.batik.transcoder.TranscoderInput;
@@ -7,14 +9,94 @@ import org.apache.batik.transcoder.TranscoderOutput;
 import org.apache.batik.transcoder.image.PNGTranscoder;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The SvgUtil class provides utility methods for handling SVG files.
  * It includes a method to load an SVG file and convert it into a JavaFX Image.
- * 
+ *
+ * <p>
+ * Rendered images are kept in a process-wide cache keyed by SVG path and
+ * render scale, so every gate of the same type shares the same Image instance
+ * and each SVG is only transcoded once.
+ * </p>
+ *
+ * <p>
+ * Rendered PNGs are also persisted in {@link #DISK_CACHE_DIRECTORY}, named after
+ * the SHA-256 hash of the SVG and the render scale. When a matching file
+ * exists, it is read through a memory-mapped channel and Batik is skipped
+ * entirely. Changing an SVG changes its hash, so outdated files are never used.
+ * </p>
+ *
  * @author Seweryn Czabanowski
  */
 public class SvgUtil {
+    /**
+     * The paths of all SVG resources used by the application.
+     */
+    public static final List<String> SVG_FILE_PATHS = List.of(
+            "/com/paperturtle/AND_ANSI_Labelled.svg",
+            "/com/paperturtle/ASYNC_RS_FLIPFLOP_ANSI_Labelled.svg",
+            "/com/paperturtle/BUFFER_ANSI_Labelled.svg",
+            "/com/paperturtle/CLOCK_ANSI_Labelled.svg",
+            "/com/paperturtle/CLOCK_ON_ANSI_Labelled.svg",
+            "/com/paperturtle/EDGE_D_FLIPFLOP_ANSI_Labelled.svg",
+            "/com/paperturtle/EDGE_JK_FLIPFLOP_ANSI_Labelled.svg",
+            "/com/paperturtle/FOURBITDIGIT_1_ANSI_Labelled.svg",
+            "/com/paperturtle/FOURBITDIGIT_2_ANSI_Labelled.svg",
+            "/com/paperturtle/FOURBITDIGIT_3_ANSI_Labelled.svg",
+            "/com/paperturtle/FOURBITDIGIT_4_ANSI_Labelled.svg",
+            "/com/paperturtle/FOURBITDIGIT_ANSI_Labelled.svg",
+            "/com/paperturtle/HIGHCONSTANT_ANSI_Labelled.svg",
+            "/com/paperturtle/LEVEL_D_FLIPFLOP_ANSI_Labelled.svg",
+            "/com/paperturtle/LIGHTBULB_ANSI_Labelled.svg",
+            "/com/paperturtle/LIGHTBULB_ON_ANSI_Labelled.svg",
+            "/com/paperturtle/LOWCONSTANT_ANSI_Labelled.svg",
+            "/com/paperturtle/NAND_ANSI_Labelled.svg",
+            "/com/paperturtle/NOR_ANSI_Labelled.svg",
+            "/com/paperturtle/NOT_ANSI_Labelled.svg",
+            "/com/paperturtle/OR_ANSI_Labelled.svg",
+            "/com/paperturtle/SWITCH_ANSI_Labelled.svg",
+            "/com/paperturtle/SWITCH_ON_ANSI_Labelled.svg",
+            "/com/paperturtle/SYNC_RS_FLIPFLOP_ANSI_Labelled.svg",
+            "/com/paperturtle/SYNC_T_FLIPFLOP_ANSI_Labelled.svg",
+            "/com/paperturtle/TRISTATE_ANSI_Labelled.svg",
+            "/com/paperturtle/XNOR_ANSI_Labelled.svg",
+            "/com/paperturtle/XOR_ANSI_Labelled.svg");
+
+    /**
+     * The directory in which rendered PNGs are persisted between runs.
+     */
+    public static final Path DISK_CACHE_DIRECTORY = App.USER_DIRECTORY.resolve("svg-cache");
+
+    /**
+     * The rendered images, keyed by SVG path and render scale.
+     */
+    private static final Map<String, Image> IMAGE_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * The number of images read from the disk cache.
+     */
+    private static final AtomicInteger DISK_CACHE_HITS = new AtomicInteger();
+
+    /**
+     * The number of images rendered with Batik.
+     */
+    private static final AtomicInteger RENDER_COUNT = new AtomicInteger();
+
     /**
      * Default constructor for SvgUtil.
      */
@@ -23,22 +105,78 @@ public class SvgUtil {
 
     /**
      * Loads an SVG file from the specified path and converts it into a JavaFX
-     * Image.
-     * 
+     * Image at its natural size.
+     *
      * @param svgFilePath the path to the SVG file to load.
      * @return a JavaFX Image representing the SVG file, or null if an error
      *         occurred.
      */
     public static Image loadSvgImage(String svgFilePath) {
-        PNGTranscoder transcoder = new PNGTranscoder();
-        TranscoderInput input = new TranscoderInput(SvgUtil.class.getResourceAsStream(svgFilePath));
+        return loadSvgImage(svgFilePath, 1.0);
+    }
 
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            TranscoderOutput output = new TranscoderOutput(outputStream);
-            transcoder.transcode(input, output);
-            outputStream.flush();
+    /**
+     * Loads an SVG file from the specified path and converts it into a JavaFX
+     * Image rendered at the specified scale. The image is cached, so repeated
+     * calls with the same path and scale return the same instance.
+     *
+     * @param svgFilePath the path to the SVG file to load.
+     * @param scale       the factor by which the natural size of the SVG is
+     *                    scaled.
+     * @return a JavaFX Image representing the SVG file, or null if an error
+     *         occurred.
+     */
+    public static Image loadSvgImage(String svgFilePath, double scale) {
+        return IMAGE_CACHE.computeIfAbsent(svgFilePath + "@" + scale, key -> renderSvgImage(svgFilePath, scale));
+    }
+
+    /**
+     * Renders all SVG resources of the application into the cache on a
+     * background thread, so that they are ready when the first gates are
+     * created. Once done, the time taken is printed together with the number of
+     * images read from the disk cache and rendered, which tells a warm start
+     * from a cold one.
+     *
+     * @return the thread doing the rendering
+     */
+    public static Thread preloadSvgImages() {
+        Thread thread = new Thread(() -> {
+            long start = System.nanoTime();
+            SVG_FILE_PATHS.forEach(SvgUtil::loadSvgImage);
+            System.out.println("Preloaded " + SVG_FILE_PATHS.size() + " SVG images in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms (" + DISK_CACHE_HITS.get()
+                    + " from disk cache, " + RENDER_COUNT.get() + " rendered)");
+        }, "svg-preload");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
 
-            try (ByteArrayInputStream inputStream = new ByteArrayInputStream(outputStream.toByteArray())) {
+    /**
+     * Converts an SVG file into a JavaFX Image, reading the PNG from the disk
+     * cache if possible and rendering and persisting it otherwise.
+     *
+     * @param svgFilePath the path to the SVG file to load.
+     * @param scale       the factor by which the natural size of the SVG is
+     *                    scaled.
+     * @return a JavaFX Image representing the SVG file, or null if an error
+     *         occurred.
+     */
+    private static Image renderSvgImage(String svgFilePath, double scale) {
+        try (InputStream svgStream = SvgUtil.class.getResourceAsStream(svgFilePath)) {
+            byte[] svg = svgStream.readAllBytes();
+            Path cachedPng = DISK_CACHE_DIRECTORY.resolve(hash(svg) + "_" + scale + ".png");
+
+            byte[] png = readCachedPng(cachedPng);
+            if (png != null) {
+                DISK_CACHE_HITS.incrementAndGet();
+            } else {
+                png = transcode(svg, scale);
+                RENDER_COUNT.incrementAndGet();
+                writeCachedPng(cachedPng, png);
+            }
+
+            try (ByteArrayInputStream inputStream = new ByteArrayInputStream(png)) {
                 return SwingFXUtils.toFXImage(javax.imageio.ImageIO.read(inputStream), null);
             }
         } catch (Exception e) {
@@ -46,4 +184,87 @@ public class SvgUtil {
             return null;
         }
     }
+
+    /**
+     * Transcodes an SVG document into a PNG.
+     *
+     * @param svg   the SVG document
+     * @param scale the factor by which the natural size of the SVG is scaled.
+     * @return the PNG bytes
+     * @throws Exception if the SVG cannot be transcoded
+     */
+    private static byte[] transcode(byte[] svg, double scale) throws Exception {
+        PNGTranscoder transcoder = new PNGTranscoder() {
+            @Override
+            protected void setImageSize(float docWidth, float docHeight) {
+                super.setImageSize((float) (docWidth * scale), (float) (docHeight * scale));
+            }
+        };
+        TranscoderInput input = new TranscoderInput(new ByteArrayInputStream(svg));
+
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            TranscoderOutput output = new TranscoderOutput(outputStream);
+            transcoder.transcode(input, output);
+            outputStream.flush();
+            return outputStream.toByteArray();
+        }
+    }
+
+    /**
+     * Reads a PNG from the disk cache through a memory-mapped channel.
+     *
+     * @param cachedPng the cached file
+     * @return the PNG bytes, or null if the file does not exist or cannot be read
+     */
+    private static byte[] readCachedPng(Path cachedPng) {
+        if (!Files.isRegularFile(cachedPng)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(cachedPng)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] png = new byte[buffer.remaining()];
+            buffer.get(png);
+            return png;
+        } catch (IOException e) {
+            System.out.println("Could not read cached image " + cachedPng + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a PNG to the disk cache. The file is written under a temporary name
+     * and then moved into place, so a partially written file is never read.
+     *
+     * @param cachedPng the cached file
+     * @param png       the PNG bytes
+     */
+    private static void writeCachedPng(Path cachedPng, byte[] png) {
+        Path temp = null;
+        try {
+            Files.createDirectories(cachedPng.getParent());
+            temp = Files.createTempFile(cachedPng.getParent(), "svg", ".tmp");
+            Files.write(temp, png);
+            Files.move(temp, cachedPng, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Could not cache image " + cachedPng + ": " + e.getMessage());
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException deleteException) {
+                    System.out.println("Could not delete " + temp + ": " + deleteException.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the SHA-256 hash of an SVG document.
+     *
+     * @param svg the SVG document
+     * @return the hash as a hexadecimal string
+     * @throws NoSuchAlgorithmException if SHA-256 is not available
+     */
+    private static String hash(byte[] svg) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(svg));
+    }
 }
@@ -24,12 +24,15 @@ module com.paperturtle {
     exports com.paperturtle.components.inputs;
     exports com.paperturtle.components.outputs;
     exports com.paperturtle.components.utilities;
+    exports com.paperturtle.components.bus;
+    exports com.paperturtle.components.flipflops;
     exports com.paperturtle.data;
     exports com.paperturtle.managers;
     exports com.paperturtle.commands;
     exports com.paperturtle.serializers;
     exports com.paperturtle.utils;
     exports com.paperturtle.gui;
+    exports com.paperturtle.simulation;
 
     opens com.paperturtle to javafx.fxml, batik.transcoder, batik.svggen, javafx.swing;
     opens com.paperturtle.data to javafx.fxml, batik.transcoder, batik.svggen, javafx.swing;
@@ -40,8 +43,11 @@ module com.paperturtle {
     opens com.paperturtle.components.inputs to javafx.fxml, batik.transcoder, batik.svggen, javafx.swing;
     opens com.paperturtle.components.outputs to javafx.fxml, batik.transcoder, batik.svggen, javafx.swing;
     opens com.paperturtle.components.utilities to javafx.fxml, batik.transcoder, batik.svggen, javafx.swing;
+    opens com.paperturtle.components.bus to javafx.fxml, batik.transcoder, batik.svggen, javafx.swing;
+    opens com.paperturtle.components.flipflops to javafx.fxml, batik.transcoder, batik.svggen, javafx.swing;
     opens com.paperturtle.serializers to javafx.fxml, batik.transcoder, batik.svggen, javafx.swing;
     opens com.paperturtle.utils to javafx.fxml, batik.transcoder, batik.svggen, javafx.swing;
     opens com.paperturtle.gui to javafx.fxml, batik.transcoder, batik.svggen, javafx.swing;
+    opens com.paperturtle.simulation to javafx.fxml, batik.transcoder, batik.svggen, javafx.swing;
 
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.paperturtle.simulation;
+
+/**
+ * The TruthTableConeCheck class checks that a truth table can be generated for
+ * outputs that do not depend on any bus component, even though bus components
+ * elsewhere in the circuit cannot be evaluated for 64 rows at once. Like the
+ * other programs in the test sources, it needs no test framework and no JavaFX
+ * toolkit: it exits with status 1 if a check fails. Usage:
+ * {@code TruthTableConeCheck}.
+ *
+ * @see BitParallelEvaluator
+ *
+ * @author Seweryn Czabanowski
+ */
+public class TruthTableConeCheck {
+    /**
+     * Default constructor for TruthTableConeCheck.
+     */
+    private TruthTableConeCheck() {
+    }
+
+    /**
+     * Runs the checks.
+     *
+     * @param args ignored
+     */
+    public static void main(String[] args) {
+        NetlistBuilder builder = new NetlistBuilder();
+        int a = builder.addGate(GateType.SWITCH);
+        int b = builder.addGate(GateType.SWITCH);
+        int and = builder.addGate(GateType.AND);
+        int lightbulb = builder.addGate(GateType.LIGHTBULB);
+        builder.connect(a, and);
+        builder.connect(b, and);
+        builder.connect(and, lightbulb);
+
+        int unrelated = builder.addGate(GateType.SWITCH);
+        int merger = builder.addBusGate(GateType.BUS_MERGE, 0, 1);
+        int splitter = builder.addBusGate(GateType.BUS_SPLIT, 0, 1);
+        int busOr = builder.addBusGate(GateType.BUS_OR, 0, Long.SIZE);
+        int subCircuitBus = builder.addSubCircuit(
+                new SubCircuitInstance(createHalfAdder(), SubCircuitInstance.ALL_OUTPUTS));
+        builder.connect(unrelated, merger, 0);
+        builder.connect(merger, splitter);
+        builder.connect(splitter, busOr);
+        builder.connect(unrelated, subCircuitBus, 0);
+        builder.connect(busOr, subCircuitBus, 1);
+        Netlist netlist = builder.build();
+
+        boolean[] cone = netlist.getFanInCone(new int[] { lightbulb });
+        check(cone[a] && cone[b] && cone[and] && cone[lightbulb], "the cone contains the drivers of the output");
+        check(!cone[unrelated] && !cone[merger] && !cone[splitter] && !cone[busOr] && !cone[subCircuitBus],
+                "the cone excludes the bus components");
+
+        TruthTableGenerator generator = new TruthTableGenerator(netlist, new int[] { a, b },
+                new int[] { lightbulb }, new boolean[netlist.size()]);
+        TruthTable table = generator.generate(0, 4);
+        for (int row = 0; row < 4; row++) {
+            check(table.getOutput(row, 0) == (row == 3 ? 1 : 0), "row " + row + " is an AND of the inputs");
+        }
+        System.out.println("TruthTableConeCheck passed");
+    }
+
+    /**
+     * Creates a half adder with a sum and a carry output.
+     *
+     * @return the definition of the half adder
+     */
+    private static SubCircuitDefinition createHalfAdder() {
+        NetlistBuilder builder = new NetlistBuilder();
+        int a = builder.addGate(GateType.SWITCH);
+        int b = builder.addGate(GateType.SWITCH);
+        int sum = builder.addGate(GateType.XOR);
+        int carry = builder.addGate(GateType.AND);
+        builder.connect(a, sum);
+        builder.connect(b, sum);
+        builder.connect(a, carry);
+        builder.connect(b, carry);
+        return new SubCircuitDefinition("halfAdder", builder.build(), new int[] { a, b }, new int[] { sum, carry });
+    }
+
+    /**
+     * Exits with status 1 if a check fails.
+     *
+     * @param condition the checked condition
+     * @param message   the description of the check
+     */
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            System.out.println("Check failed: " + message);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.paperturtle.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.paperturtle.data.GateData;
+import com.paperturtle.managers.CircuitFileManager;
+
+import javafx.geometry.Point2D;
+
+/**
+ * The CircuitFileBenchmark class compares the JSON and binary circuit file
+ * formats. It generates a circuit of the requested size, then saves and loads
+ * it repeatedly in both formats and prints the average times and file sizes.
+ *
+ * <p>
+ * The circuit is a grid of gates in which every gate drives the next two, so
+ * it does not need the JavaFX toolkit. Usage:
+ * {@code CircuitFileBenchmark [gates] [iterations]}.
+ * </p>
+ *
+ * @see CircuitFileManager
+ *
+ * @author Seweryn Czabanowski
+ */
+public class CircuitFileBenchmark {
+    /**
+     * The gate types used in the generated circuit.
+     */
+    private static final String[] TYPES = { "AndGate", "OrGate", "XorGate", "NandGate", "NorGate" };
+
+    /**
+     * Default constructor for CircuitFileBenchmark.
+     */
+    private CircuitFileBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the number of gates and the number of iterations
+     * @throws IOException if the files cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        int gates = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        List<CircuitComponent> circuit = createCircuit(gates);
+        CircuitFileManager fileManager = new CircuitFileManager();
+
+        Path directory = Files.createTempDirectory("circuit-benchmark");
+        try {
+            for (String extension : new String[] { ".json", CircuitFileManager.BINARY_EXTENSION }) {
+                Path file = directory.resolve("circuit" + extension);
+                long saveTime = 0;
+                long loadTime = 0;
+                for (int i = 0; i <= iterations; i++) {
+                    long start = System.nanoTime();
+                    fileManager.saveCircuit(file.toString(), circuit);
+                    long saved = System.nanoTime();
+                    fileManager.loadCircuit(file.toString());
+                    long loaded = System.nanoTime();
+                    if (i > 0) {
+                        saveTime += saved - start;
+                        loadTime += loaded - saved;
+                    }
+                }
+                System.out.printf("%-5s %,d gates: %,d bytes, save %.1f ms, load %.1f ms%n",
+                        extension.substring(1), gates, Files.size(file),
+                        saveTime / 1e6 / iterations, loadTime / 1e6 / iterations);
+                Files.delete(file);
+            }
+        } finally {
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Creates a circuit in which every gate drives the next two gates.
+     *
+     * @param gates the number of gates
+     * @return the components of the circuit
+     */
+    private static List<CircuitComponent> createCircuit(int gates) {
+        List<CircuitComponent> circuit = new ArrayList<>(gates);
+        int columns = (int) Math.ceil(Math.sqrt(gates));
+        for (int i = 0; i < gates; i++) {
+            GateData gate = new GateData();
+            gate.id = "Gate" + i + "_" + (1_000_000_000L + i);
+            gate.type = TYPES[i % TYPES.length];
+            gate.position = new Point2D(i % columns * 100, i / columns * 80);
+            gate.state = i % 3 == 0;
+            gate.maxOutputConnections = 2;
+            circuit.add(gate);
+        }
+        for (int i = 0; i < gates; i++) {
+            GateData gate = (GateData) circuit.get(i);
+            for (int pin = 0; pin < 2 && i + pin + 1 < gates; pin++) {
+                GateData target = (GateData) circuit.get(i + pin + 1);
+                gate.outputs.add(new GateData.ConnectionData(target.id, pin));
+                target.inputs.add(new GateData.ConnectionData(gate.id, target.inputs.size()));
+            }
+        }
+        return circuit;
+    }
+}